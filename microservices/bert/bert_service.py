@@ -1,11 +1,11 @@
-from fastapi import FastAPI
+from fastapi import FastAPI, HTTPException
 import uvicorn
 from pydantic import BaseModel
 from optimum.onnxruntime import ORTModelForSequenceClassification
 from transformers import AutoTokenizer, pipeline
 import logging
 import os
-from typing import Union
+from typing import Dict, List, Union
 
 HOST="127.0.0.1"
 PORT=8082
@@ -28,6 +28,27 @@ class PredictionResponse(BaseModel):
     score: float
     model: str
 
+class BatchTextRequest(BaseModel):
+    texts: List[str]
+
+class BatchPrediction(BaseModel):
+    label: Union[str, int]
+    score: float
+
+class BatchPredictionResponse(BaseModel):
+    results: List[BatchPrediction]
+    count: int
+    model: str
+
+class AnalysisResult(BaseModel):
+    mood: BatchPrediction
+    # 风险检测结果，键为检测类型
+    risks: Dict[str, BatchPrediction]
+
+class BatchAnalysisResponse(BaseModel):
+    results: List[AnalysisResult]
+    count: int
+
 # 模型初始化函数 - 使用 ONNX Runtime 加速
 def load_model(model_path, task, model_name):
     logger.info(f"正在加载模型: {model_name} ({model_path})")
@@ -67,6 +88,20 @@ DEPRESS_CHECK_PATH = os.getenv("DEPRESS_CHECK_PATH", "model/bert-depress-check")
 mood_score_pipeline = load_model(MOOD_SCORE_PATH, "text-classification", "情绪评分模型")
 depress_check_pipeline = load_model(DEPRESS_CHECK_PATH, "text-classification", "抑郁检查模型")
 
+# 批量接口单次推理的文本数，超过时由pipeline分多次前向计算
+BATCH_SIZE = int(os.getenv("BERT_BATCH_SIZE", "16"))
+MAX_BATCH_TEXTS = int(os.getenv("BERT_MAX_BATCH_TEXTS", "128"))
+
+def predict_batch(pipe, texts, model_name):
+    if len(texts) > MAX_BATCH_TEXTS:
+        raise HTTPException(status_code=413, detail=f"单次最多{MAX_BATCH_TEXTS}条文本")
+    if not texts:
+        return {"results": [], "count": 0, "model": model_name}
+    # 整批一次送入pipeline，按BATCH_SIZE分组前向计算，结果顺序与输入一致
+    outputs = pipe(texts, batch_size=BATCH_SIZE, truncation=True)
+    results = [{"label": out["label"], "score": float(out["score"])} for out in outputs]
+    return {"results": results, "count": len(results), "model": model_name}
+
 @app.post("/mood_score", response_model=PredictionResponse, summary="情绪评分")
 async def mood_score(request: TextRequest):
     """
@@ -104,5 +139,74 @@ async def depress_check(request: TextRequest):
         logger.error(f"主题分类出错: {str(e)}")
         return {"error": "处理请求时出错"}, 500
 
+@app.post("/mood_score/batch", response_model=BatchPredictionResponse, summary="批量情绪评分")
+def mood_score_batch(request: BatchTextRequest):
+    """
+    批量情绪评分，results与texts一一对应
+
+    texts: 需要分析的文本列表
+    """
+    try:
+        logger.info(f"开始批量情绪评分: {len(request.texts)}条")
+        return predict_batch(mood_score_pipeline, request.texts, "bert_4_moods")
+    except HTTPException:
+        raise
+    except Exception as e:
+        logger.error(f"批量情感分析出错: {str(e)}")
+        raise HTTPException(status_code=500, detail="处理请求时出错")
+
+@app.post("/depress_check/batch", response_model=BatchPredictionResponse, summary="批量抑郁检查")
+def depress_check_batch(request: BatchTextRequest):
+    """
+    批量抑郁检查，results与texts一一对应
+
+    texts: 需要检查的文本列表
+    """
+    try:
+        logger.info(f"开始批量抑郁检查: {len(request.texts)}条")
+        return predict_batch(depress_check_pipeline, request.texts, "bert_depress_check")
+    except HTTPException:
+        raise
+    except Exception as e:
+        logger.error(f"批量主题分类出错: {str(e)}")
+        raise HTTPException(status_code=500, detail="处理请求时出错")
+
+def analyze_texts(texts):
+    """一次完成心情评分和全部风险检测，每个模型对整批文本只推理一次"""
+    moods = predict_batch(mood_score_pipeline, texts, "bert_4_moods")["results"]
+    depressions = predict_batch(depress_check_pipeline, texts, "bert_depress_check")["results"]
+    results = [{"mood": mood, "risks": {"depression": depression}}
+               for mood, depression in zip(moods, depressions)]
+    return {"results": results, "count": len(results)}
+
+@app.post("/analyze", response_model=AnalysisResult, summary="综合分析")
+def analyze(request: TextRequest):
+    """
+    一次请求返回情绪评分和全部风险检测结果
+
+    text: 需要分析的文本
+    """
+    try:
+        return analyze_texts([request.text])["results"][0]
+    except Exception as e:
+        logger.error(f"综合分析出错: {str(e)}")
+        raise HTTPException(status_code=500, detail="处理请求时出错")
+
+@app.post("/analyze/batch", response_model=BatchAnalysisResponse, summary="批量综合分析")
+def analyze_batch(request: BatchTextRequest):
+    """
+    批量综合分析，results与texts一一对应
+
+    texts: 需要分析的文本列表
+    """
+    try:
+        logger.info(f"开始批量综合分析: {len(request.texts)}条")
+        return analyze_texts(request.texts)
+    except HTTPException:
+        raise
+    except Exception as e:
+        logger.error(f"批量综合分析出错: {str(e)}")
+        raise HTTPException(status_code=500, detail="处理请求时出错")
+
 if __name__ == "__main__":
     uvicorn.run(app, host=HOST, port=PORT)
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.mentara.ranking;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热度榜增量更新与分页读取的基准测试
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Dbenchmark=HotPostRankingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotPostRankingBenchmark {
+
+    private static final long NOW = 1_700_000_000L;
+
+    @Param({"1000", "10000"})
+    private int size;
+
+    private HotPostRanking ranking;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ranking = new HotPostRanking(1.0, 2.0, 12 * 3600, 4, size);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < size; i++) {
+            ranking.put(i, false, 4 + random.nextInt(500), random.nextInt(100), NOW - random.nextInt(7 * 24 * 3600));
+        }
+    }
+
+    /**
+     * 热门帖子被点赞：重新打分并在跳表中移动位置
+     */
+    @Benchmark
+    public boolean like() {
+        return ranking.applyDelta(ThreadLocalRandom.current().nextInt(size), 1, 0);
+    }
+
+    /**
+     * 多线程同时点赞
+     */
+    @Benchmark
+    @Threads(4)
+    public boolean likeContended() {
+        return ranking.applyDelta(ThreadLocalRandom.current().nextInt(size), 1, 0);
+    }
+
+    /**
+     * 读取第一页（与点赞并发时读取不加锁）
+     */
+    @Benchmark
+    public void firstPage(Blackhole blackhole) {
+        blackhole.consume(ranking.page(0, 10));
+    }
+
+    /**
+     * 深翻页：跳过前面的条目
+     */
+    @Benchmark
+    public void deepPage(Blackhole blackhole) {
+        blackhole.consume(ranking.page(size / 2, 10));
+    }
+}
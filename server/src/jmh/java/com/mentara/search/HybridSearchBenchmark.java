@@ -0,0 +1,227 @@
+package com.mentara.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 混合检索（向量 + BM25倒排索引 + 倒数排名融合）与纯向量检索的延迟、召回对比
+ * 语料为合成帖子：每篇属于一个话题，正文由话题词组成，约十分之一的帖子带课程代码。
+ * 向量为话题向量加噪声的768维归一化向量，与真实句向量一样只反映话题语义、不区分具体代码，
+ * 向量检索用暴力内积扫描代替Qdrant（只用于比较相对开销）。
+ * 召回率以"包含查询代码的帖子"为标准答案，结束时打印两种方式的recall@10
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Dbenchmark=HybridSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HybridSearchBenchmark {
+
+    private static final int DIMENSION = 768;
+
+    private static final int TOP_K = 10;
+
+    private static final int QUERY_COUNT = 200;
+
+    private static final String[][] TOPICS = {
+        {"考试", "复习", "挂科", "期末", "压力", "熬夜"},
+        {"失眠", "睡不着", "凌晨", "疲惫", "焦虑", "心慌"},
+        {"室友", "宿舍", "矛盾", "沟通", "吵架", "冷战"},
+        {"恋爱", "分手", "想念", "难过", "哭泣", "放下"},
+        {"实习", "面试", "简历", "工作", "迷茫", "未来"},
+        {"跑步", "操场", "运动", "开心", "阳光", "放松"},
+    };
+
+    @Param({"10000", "50000"})
+    private int size;
+
+    private LexicalIndex lexicalIndex;
+
+    private float[][] postVectors;
+
+    private float[][] topicVectors;
+
+    private final List<String> queries = new ArrayList<>();
+
+    private final List<float[]> queryVectors = new ArrayList<>();
+
+    private final List<Set<Long>> relevant = new ArrayList<>();
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        topicVectors = new float[TOPICS.length][];
+        for (int i = 0; i < TOPICS.length; i++) {
+            topicVectors[i] = randomUnitVector(random);
+        }
+
+        // 课程代码：每个代码出现在少量帖子中
+        int codeCount = Math.max(50, size / 100);
+        Map<String, Set<Long>> postsByCode = new HashMap<>();
+        Map<Long, List<String>> documents = new HashMap<>(size * 2);
+        postVectors = new float[size][];
+        for (int id = 0; id < size; id++) {
+            int topic = random.nextInt(TOPICS.length);
+            StringBuilder text = new StringBuilder();
+            for (int w = 0; w < 30; w++) {
+                text.append(TOPICS[topic][random.nextInt(TOPICS[topic].length)]);
+                text.append(w % 5 == 4 ? "，" : "");
+            }
+            if (random.nextInt(10) == 0) {
+                String code = "cs" + (100 + random.nextInt(codeCount));
+                text.append(' ').append(code);
+                postsByCode.computeIfAbsent(code, key -> new HashSet<>()).add((long) id);
+            }
+            documents.put((long) id, TextTokenizer.tokenize(text.toString()));
+            postVectors[id] = noisy(topicVectors[topic], 0.6f, random);
+        }
+        lexicalIndex = new LexicalIndex(1.2, 0.75);
+        lexicalIndex.replaceAll(documents);
+
+        // 查询：课程代码 + 话题词，例如"cs123 考试"
+        List<String> codes = new ArrayList<>(postsByCode.keySet());
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            String code = codes.get(random.nextInt(codes.size()));
+            int topic = random.nextInt(TOPICS.length);
+            queries.add(code + " " + TOPICS[topic][0]);
+            queryVectors.add(noisy(topicVectors[topic], 0.3f, random));
+            relevant.add(postsByCode.get(code));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        double vectorRecall = 0;
+        double hybridRecall = 0;
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            vectorRecall += recall(vectorSearch(queryVectors.get(i), TOP_K), relevant.get(i));
+            hybridRecall += recall(hybridSearch(queries.get(i), queryVectors.get(i)), relevant.get(i));
+        }
+        System.out.printf("%n[size=%d] recall@%d 纯向量: %.3f, 混合: %.3f%n", size, TOP_K,
+            vectorRecall / QUERY_COUNT, hybridRecall / QUERY_COUNT);
+    }
+
+    @Benchmark
+    public void vectorOnly(Blackhole blackhole) {
+        int i = nextQuery();
+        blackhole.consume(vectorSearch(queryVectors.get(i), TOP_K));
+    }
+
+    @Benchmark
+    public void hybrid(Blackhole blackhole) {
+        int i = nextQuery();
+        blackhole.consume(hybridSearch(queries.get(i), queryVectors.get(i)));
+    }
+
+    /**
+     * 只测倒排索引查询的开销
+     */
+    @Benchmark
+    public void lexicalOnly(Blackhole blackhole) {
+        blackhole.consume(lexicalIndex.search(TextTokenizer.tokenize(queries.get(nextQuery())), TOP_K, null));
+    }
+
+    private int nextQuery() {
+        next = (next + 1) % QUERY_COUNT;
+        return next;
+    }
+
+    private List<Long> hybridSearch(String query, float[] queryVector) {
+        List<Long> vectorIds = vectorSearch(queryVector, TOP_K);
+        List<Long> lexicalIds = new ArrayList<>();
+        for (LexicalIndex.Hit hit : lexicalIndex.search(TextTokenizer.tokenize(query), TOP_K, null)) {
+            lexicalIds.add(hit.docId());
+        }
+        List<Long> fused = ReciprocalRankFusion.fuse(60, vectorIds, lexicalIds);
+        return fused.subList(0, Math.min(TOP_K, fused.size()));
+    }
+
+    private List<Long> vectorSearch(float[] queryVector, int limit) {
+        PriorityQueue<long[]> top = new PriorityQueue<>(limit + 1,
+            (x, y) -> Float.compare(Float.intBitsToFloat((int) x[1]), Float.intBitsToFloat((int) y[1])));
+        for (int id = 0; id < postVectors.length; id++) {
+            float score = dot(queryVector, postVectors[id]);
+            top.add(new long[]{id, Float.floatToIntBits(score)});
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<long[]> sorted = new ArrayList<>(top);
+        sorted.sort((x, y) -> Float.compare(Float.intBitsToFloat((int) y[1]), Float.intBitsToFloat((int) x[1])));
+        List<Long> ids = new ArrayList<>(sorted.size());
+        for (long[] entry : sorted) {
+            ids.add(entry[0]);
+        }
+        return ids;
+    }
+
+    private static double recall(List<Long> results, Set<Long> relevant) {
+        int expected = Math.min(TOP_K, relevant.size());
+        int found = 0;
+        for (Long id : results) {
+            if (relevant.contains(id)) {
+                found++;
+            }
+        }
+        return (double) found / expected;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static float[] randomUnitVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return normalize(vector);
+    }
+
+    private static float[] noisy(float[] base, float noise, Random random) {
+        float[] noiseVector = randomUnitVector(random);
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = base[i] + noise * noiseVector[i];
+        }
+        return normalize(vector);
+    }
+
+    private static float[] normalize(float[] vector) {
+        float norm = (float) Math.sqrt(dot(vector, vector));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] /= norm;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,434 @@
+package com.mentara.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 向量量化方式（qdrant.storage.*）的召回率和检索延迟对比，用于按数据选择量化配置
+ * 按Qdrant的做法在进程内模拟：
+ * SCALAR为int8标量量化，按全部分量的分位数截断后线性映射，查询向量不量化；
+ * PRODUCT_X16/X32为乘积量化，每4/8维（16/32字节）用k-means训练的256个中心编码为1字节，查询时查表求和。
+ * 先用量化向量取 10 * oversampling 个候选，rescore为true时再用原始float32向量重新打分取前10个。
+ * 语料为带话题结构的768维归一化合成向量，检索用暴力扫描代替HNSW（只比较打分开销和精度），
+ * 结束时打印recall@10（以float32精确检索为标准答案）和每个向量常驻内存的字节数
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Dbenchmark=QuantizationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuantizationBenchmark {
+
+    private static final int DIMENSION = 768;
+
+    private static final int TOP_K = 10;
+
+    private static final int QUERY_COUNT = 100;
+
+    private static final int TOPIC_COUNT = 64;
+
+    private static final int CENTROIDS = 256;
+
+    private static final int TRAIN_SAMPLE = 4096;
+
+    private static final int TRAIN_ITERATIONS = 8;
+
+    private static final float SCALAR_QUANTILE = 0.99f;
+
+    @Param({"20000"})
+    private int size;
+
+    @Param({"NONE", "SCALAR", "PRODUCT_X16", "PRODUCT_X32"})
+    private String quantization;
+
+    @Param({"1.0", "2.0"})
+    private double oversampling;
+
+    @Param({"true", "false"})
+    private boolean rescore;
+
+    private float[][] vectors;
+
+    private float[][] queries;
+
+    private int[][] exact;
+
+    // 标量量化：code = round((x - lower) / step)，存为有符号字节（减去128）
+    private byte[] scalarCodes;
+
+    private float scalarLower;
+
+    private float scalarStep;
+
+    // 乘积量化：每段子向量的码本 [段][中心][维度]，编码 [向量 * 段数 + 段]
+    private int subDimension;
+
+    private int subspaces;
+
+    private float[][][] codebooks;
+
+    private byte[] productCodes;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        float[][] topics = new float[TOPIC_COUNT][];
+        for (int i = 0; i < TOPIC_COUNT; i++) {
+            topics[i] = randomUnitVector(random);
+        }
+        vectors = new float[size][];
+        for (int i = 0; i < size; i++) {
+            vectors[i] = noisy(topics[random.nextInt(TOPIC_COUNT)], 1.0f, random);
+        }
+        queries = new float[QUERY_COUNT][];
+        exact = new int[QUERY_COUNT][];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[i] = noisy(topics[random.nextInt(TOPIC_COUNT)], 1.0f, random);
+            exact[i] = exactSearch(queries[i], TOP_K);
+        }
+
+        switch (quantization) {
+            case "SCALAR" -> trainScalar(random);
+            case "PRODUCT_X16" -> trainProduct(16 / 4, random);
+            case "PRODUCT_X32" -> trainProduct(32 / 4, random);
+            default -> {
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        double recall = 0;
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            int[] result = search(queries[i]);
+            int found = 0;
+            for (int id : result) {
+                for (int expected : exact[i]) {
+                    if (id == expected) {
+                        found++;
+                        break;
+                    }
+                }
+            }
+            recall += (double) found / TOP_K;
+        }
+        System.out.printf("%n[%s oversampling=%.1f rescore=%s] recall@%d: %.3f, 常驻内存: %d字节/向量（原始向量放磁盘时）%n",
+            quantization, oversampling, rescore, TOP_K, recall / QUERY_COUNT, quantizedBytesPerVector());
+    }
+
+    @Benchmark
+    public int[] search() {
+        next = (next + 1) % QUERY_COUNT;
+        return search(queries[next]);
+    }
+
+    private int[] search(float[] query) {
+        if ("NONE".equals(quantization)) {
+            return exactSearch(query, TOP_K);
+        }
+        int candidateCount = (int) Math.ceil(TOP_K * oversampling);
+        int[] candidates;
+        if ("SCALAR".equals(quantization)) {
+            candidates = scalarSearch(query, candidateCount);
+        } else {
+            candidates = productSearch(query, candidateCount);
+        }
+        if (!rescore) {
+            return Arrays.copyOf(candidates, Math.min(TOP_K, candidates.length));
+        }
+        TopK top = new TopK(TOP_K);
+        for (int id : candidates) {
+            top.offer(id, dot(query, vectors[id]));
+        }
+        return top.ids();
+    }
+
+    private int[] exactSearch(float[] query, int limit) {
+        TopK top = new TopK(limit);
+        for (int id = 0; id < vectors.length; id++) {
+            top.offer(id, dot(query, vectors[id]));
+        }
+        return top.ids();
+    }
+
+    /**
+     * 非对称打分：sum(q * (lower + step * code)) = lower * sum(q) + step * sum(q * code)
+     */
+    private int[] scalarSearch(float[] query, int limit) {
+        float querySum = 0;
+        for (float value : query) {
+            querySum += value;
+        }
+        float offset = scalarLower * querySum + scalarStep * 128 * querySum;
+        TopK top = new TopK(limit);
+        for (int id = 0; id < size; id++) {
+            int base = id * DIMENSION;
+            float sum = 0;
+            for (int i = 0; i < DIMENSION; i++) {
+                sum += query[i] * scalarCodes[base + i];
+            }
+            top.offer(id, offset + scalarStep * sum);
+        }
+        return top.ids();
+    }
+
+    /**
+     * 查表打分：先算查询子向量与每段各中心的内积，再按编码求和
+     */
+    private int[] productSearch(float[] query, int limit) {
+        float[] table = new float[subspaces * CENTROIDS];
+        for (int s = 0; s < subspaces; s++) {
+            for (int c = 0; c < CENTROIDS; c++) {
+                float sum = 0;
+                for (int d = 0; d < subDimension; d++) {
+                    sum += query[s * subDimension + d] * codebooks[s][c][d];
+                }
+                table[s * CENTROIDS + c] = sum;
+            }
+        }
+        TopK top = new TopK(limit);
+        for (int id = 0; id < size; id++) {
+            int base = id * subspaces;
+            float sum = 0;
+            for (int s = 0; s < subspaces; s++) {
+                sum += table[s * CENTROIDS + (productCodes[base + s] & 0xFF)];
+            }
+            top.offer(id, sum);
+        }
+        return top.ids();
+    }
+
+    private void trainScalar(Random random) {
+        float[] sample = new float[200_000];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = vectors[random.nextInt(size)][random.nextInt(DIMENSION)];
+        }
+        Arrays.sort(sample);
+        float tail = (1 - SCALAR_QUANTILE) / 2;
+        scalarLower = sample[(int) (tail * (sample.length - 1))];
+        float upper = sample[(int) ((1 - tail) * (sample.length - 1))];
+        scalarStep = (upper - scalarLower) / 255;
+        scalarCodes = new byte[size * DIMENSION];
+        for (int id = 0; id < size; id++) {
+            for (int i = 0; i < DIMENSION; i++) {
+                int code = Math.round((vectors[id][i] - scalarLower) / scalarStep);
+                scalarCodes[id * DIMENSION + i] = (byte) (Math.max(0, Math.min(255, code)) - 128);
+            }
+        }
+    }
+
+    private void trainProduct(int dimensionPerCode, Random random) {
+        subDimension = dimensionPerCode;
+        subspaces = DIMENSION / subDimension;
+        codebooks = new float[subspaces][][];
+        int[] sample = new int[Math.min(TRAIN_SAMPLE, size)];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = random.nextInt(size);
+        }
+        for (int s = 0; s < subspaces; s++) {
+            codebooks[s] = kMeans(s, sample, random);
+        }
+        productCodes = new byte[size * subspaces];
+        for (int id = 0; id < size; id++) {
+            for (int s = 0; s < subspaces; s++) {
+                productCodes[id * subspaces + s] = (byte) nearestCentroid(codebooks[s], vectors[id], s * subDimension);
+            }
+        }
+    }
+
+    private float[][] kMeans(int subspace, int[] sample, Random random) {
+        int offset = subspace * subDimension;
+        float[][] centroids = new float[CENTROIDS][];
+        for (int c = 0; c < CENTROIDS; c++) {
+            centroids[c] = Arrays.copyOfRange(vectors[sample[random.nextInt(sample.length)]], offset, offset + subDimension);
+        }
+        int[] assignment = new int[sample.length];
+        for (int iteration = 0; iteration < TRAIN_ITERATIONS; iteration++) {
+            for (int i = 0; i < sample.length; i++) {
+                assignment[i] = nearestCentroid(centroids, vectors[sample[i]], offset);
+            }
+            float[][] sums = new float[CENTROIDS][subDimension];
+            int[] counts = new int[CENTROIDS];
+            for (int i = 0; i < sample.length; i++) {
+                counts[assignment[i]]++;
+                for (int d = 0; d < subDimension; d++) {
+                    sums[assignment[i]][d] += vectors[sample[i]][offset + d];
+                }
+            }
+            for (int c = 0; c < CENTROIDS; c++) {
+                if (counts[c] == 0) {
+                    // 空簇重新取一个样本点
+                    centroids[c] = Arrays.copyOfRange(vectors[sample[random.nextInt(sample.length)]], offset, offset + subDimension);
+                    continue;
+                }
+                for (int d = 0; d < subDimension; d++) {
+                    centroids[c][d] = sums[c][d] / counts[c];
+                }
+            }
+        }
+        return centroids;
+    }
+
+    /**
+     * 欧氏距离最近的中心
+     */
+    private int nearestCentroid(float[][] centroids, float[] vector, int offset) {
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int c = 0; c < centroids.length; c++) {
+            float distance = 0;
+            for (int d = 0; d < subDimension; d++) {
+                float diff = vector[offset + d] - centroids[c][d];
+                distance += diff * diff;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private int quantizedBytesPerVector() {
+        return switch (quantization) {
+            case "SCALAR" -> DIMENSION;
+            case "PRODUCT_X16" -> DIMENSION * 4 / 16;
+            case "PRODUCT_X32" -> DIMENSION * 4 / 32;
+            default -> DIMENSION * 4;
+        };
+    }
+
+    /**
+     * 按分数保留前limit个ID的小顶堆
+     */
+    private static final class TopK {
+        private final int limit;
+        private final int[] ids;
+        private final float[] scores;
+        private int count;
+
+        private TopK(int limit) {
+            this.limit = limit;
+            this.ids = new int[limit];
+            this.scores = new float[limit];
+        }
+
+        private void offer(int id, float score) {
+            if (count < limit) {
+                ids[count] = id;
+                scores[count] = score;
+                siftUp(count++);
+            } else if (score > scores[0]) {
+                ids[0] = id;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * 按分数倒序返回
+         */
+        private int[] ids() {
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+            int[] result = new int[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = ids[order[i]];
+            }
+            return result;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (scores[parent] <= scores[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                int smallest = i;
+                if (left < count && scores[left] < scores[smallest]) {
+                    smallest = left;
+                }
+                if (left + 1 < count && scores[left + 1] < scores[smallest]) {
+                    smallest = left + 1;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static float[] randomUnitVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return normalize(vector);
+    }
+
+    private static float[] noisy(float[] base, float noise, Random random) {
+        float[] noiseVector = randomUnitVector(random);
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = base[i] + noise * noiseVector[i];
+        }
+        return normalize(vector);
+    }
+
+    private static float[] normalize(float[] vector) {
+        float norm = (float) Math.sqrt(dot(vector, vector));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] /= norm;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,138 @@
+package com.mentara.util;
+
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.mentara.dto.response.EmbeddingResponse;
+import lombok.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 向量运算和embedding解析：装箱的List<Float>与float[]对比；
+ * 解析另比较WebClient解码器启用的快速浮点数解析
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Dbenchmark=VectorMathBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorMathBenchmark {
+
+    /**
+     * 改动前的响应DTO：embedding解析为List<Float>
+     */
+    @Data
+    public static class BoxedEmbeddingResponse {
+        private List<Float> embedding;
+        private Integer dimension;
+    }
+
+    @Param({"768"})
+    private int dimension;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ObjectMapper fastDoubleMapper = JsonMapper.builder()
+        .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+        .build();
+
+    private float[] a;
+
+    private float[] b;
+
+    private float[] scratch;
+
+    private List<Float> boxedA;
+
+    private List<Float> boxedB;
+
+    private String json;
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        a = new float[dimension];
+        b = new float[dimension];
+        boxedA = new ArrayList<>(dimension);
+        boxedB = new ArrayList<>(dimension);
+        for (int i = 0; i < dimension; i++) {
+            a[i] = (float) random.nextGaussian();
+            b[i] = (float) random.nextGaussian();
+            boxedA.add(a[i]);
+            boxedB.add(b[i]);
+        }
+        scratch = new float[dimension];
+        json = objectMapper.writeValueAsString(new EmbeddingResponse(a, dimension));
+    }
+
+    @Benchmark
+    public double dotBoxed() {
+        double sum = 0;
+        for (int i = 0; i < boxedA.size(); i++) {
+            sum += boxedA.get(i) * boxedB.get(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float dotPrimitive() {
+        return VectorMath.dot(a, b);
+    }
+
+    /**
+     * 改动前QdrantServiceImpl.cosineSimilarity的写法
+     */
+    @Benchmark
+    public double cosineBoxed() {
+        double dot = 0, norm1 = 0, norm2 = 0;
+        for (int i = 0; i < boxedA.size(); i++) {
+            dot += boxedA.get(i) * boxedB.get(i);
+            norm1 += boxedA.get(i) * boxedA.get(i);
+            norm2 += boxedB.get(i) * boxedB.get(i);
+        }
+        return dot / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    }
+
+    @Benchmark
+    public float cosinePrimitive() {
+        return VectorMath.cosine(a, b);
+    }
+
+    @Benchmark
+    public float[] normalize() {
+        System.arraycopy(a, 0, scratch, 0, dimension);
+        return VectorMath.normalize(scratch);
+    }
+
+    @Benchmark
+    public List<Float> parseBoxed() throws Exception {
+        return objectMapper.readValue(json, BoxedEmbeddingResponse.class).getEmbedding();
+    }
+
+    @Benchmark
+    public float[] parsePrimitive() throws Exception {
+        return objectMapper.readValue(json, EmbeddingResponse.class).getEmbedding();
+    }
+
+    @Benchmark
+    public float[] parsePrimitiveFastDouble() throws Exception {
+        return fastDoubleMapper.readValue(json, EmbeddingResponse.class).getEmbedding();
+    }
+}
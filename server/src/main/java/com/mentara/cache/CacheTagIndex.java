@@ -0,0 +1,133 @@
+package com.mentara.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.mentara.util.TransactionUtils.afterCommit;
+
+/**
+ * 缓存依赖标签索引
+ * 记录每个缓存条目依赖的标签（帖子ID、作者、列表、统计范围等），
+ * 写操作只清除依赖相应标签的条目，替代 allEntries = true 的整体清空
+ */
+public class CacheTagIndex {
+
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<KeyRef>> keysByTag = new ConcurrentHashMap<>();
+
+    private final Map<KeyRef, Set<String>> tagsByKey = new ConcurrentHashMap<>();
+
+    private final LongAdder evictedEntries = new LongAdder();
+
+    /**
+     * 注册可按标签清除的缓存
+     */
+    public void registerCache(Cache cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    /**
+     * 记录缓存条目依赖的标签
+     */
+    public void register(String cacheName, Object key, Collection<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return;
+        }
+        KeyRef ref = new KeyRef(cacheName, key);
+        Set<String> keyTags = tagsByKey.computeIfAbsent(ref, k -> ConcurrentHashMap.newKeySet());
+        for (String tag : tags) {
+            keyTags.add(tag);
+            keysByTag.computeIfAbsent(tag, t -> ConcurrentHashMap.newKeySet()).add(ref);
+        }
+    }
+
+    /**
+     * 条目被容量或过期淘汰后清理索引
+     */
+    public void unregister(String cacheName, Object key) {
+        KeyRef ref = new KeyRef(cacheName, key);
+        Set<String> keyTags = tagsByKey.remove(ref);
+        if (keyTags == null) {
+            return;
+        }
+        for (String tag : keyTags) {
+            keysByTag.computeIfPresent(tag, (t, refs) -> {
+                refs.remove(ref);
+                return refs.isEmpty() ? null : refs;
+            });
+        }
+    }
+
+    /**
+     * 缓存整体清空后清理该缓存的全部索引
+     */
+    public void unregisterAll(String cacheName) {
+        tagsByKey.keySet().stream()
+            .filter(ref -> ref.cacheName().equals(cacheName))
+            .toList()
+            .forEach(ref -> unregister(ref.cacheName(), ref.key()));
+    }
+
+    /**
+     * 清除依赖任一标签的缓存条目
+     * 处于事务中时延迟到提交之后执行，避免并发读取在提交前把旧数据重新写回缓存
+     */
+    public void evictTags(String... tags) {
+        evictTags(Arrays.asList(tags));
+    }
+
+    public void evictTags(Collection<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> doEvictTags(tags));
+    }
+
+    private void doEvictTags(Collection<String> tags) {
+        for (String tag : tags) {
+            Set<KeyRef> refs = keysByTag.remove(tag);
+            if (refs == null) {
+                continue;
+            }
+            for (KeyRef ref : refs) {
+                Cache cache = caches.get(ref.cacheName());
+                if (cache != null) {
+                    cache.evict(ref.key());
+                    evictedEntries.increment();
+                }
+                unregister(ref.cacheName(), ref.key());
+            }
+        }
+    }
+
+    /**
+     * 当前被索引的缓存条目数
+     */
+    public int getIndexedKeyCount() {
+        return tagsByKey.size();
+    }
+
+    /**
+     * 当前标签数
+     */
+    public int getTagCount() {
+        return keysByTag.size();
+    }
+
+    /**
+     * 按标签清除的条目总数
+     */
+    public long getEvictedEntryCount() {
+        return evictedEntries.sum();
+    }
+
+    private record KeyRef(String cacheName, Object key) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.mentara.cache;
+
+import com.mentara.dto.response.PostResponse;
+import com.mentara.entity.Post;
+import org.springframework.data.domain.Page;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 缓存依赖标签定义
+ * posts缓存条目依赖其中每个帖子（post:{id}）以及所属列表（feed:{列表前缀}），
+ * statistics缓存条目依赖全局统计（stats:global）或单个用户统计（stats:user:{id}）
+ */
+public final class CacheTags {
+
+    /**
+     * "最热"列表的点赞数门槛，与mentara.hot.min-likes保持一致
+     */
+    public static final int HOT_LIKES_THRESHOLD = 4;
+
+    public static final String STATS_GLOBAL = "stats:global";
+
+    private static final String FEED_ALL = "feed:all";
+
+    private static final String FEED_LATEST = "feed:filter_最新";
+
+    public static final String FEED_HOT = "feed:filter_最热";
+
+    private static final String FEED_MOOD = "feed:filter_心情";
+
+    private CacheTags() {
+    }
+
+    public static String post(Long postId) {
+        return "post:" + postId;
+    }
+
+    public static String userStats(Long userId) {
+        return "stats:user:" + userId;
+    }
+
+    public static String userFeed(Long userId) {
+        return "feed:user_" + userId;
+    }
+
+    /**
+     * 帖子进入或离开公开列表（审核通过、删除、恢复等）时需要清除的标签
+     */
+    public static List<String> postVisibilityChanged(Post post) {
+        List<String> tags = new ArrayList<>();
+        tags.add(post(post.getId()));
+        tags.add(FEED_ALL);
+        tags.add(FEED_LATEST);
+        if (post.getLikesCount() != null && post.getLikesCount() >= HOT_LIKES_THRESHOLD) {
+            tags.add(FEED_HOT);
+        }
+        if (post.getMood() != null) {
+            tags.add(FEED_MOOD);
+            tags.add("feed:mood_" + post.getMood());
+        }
+        if (post.getAuthor() != null) {
+            tags.add(userFeed(post.getAuthor().getId()));
+            tags.add(userStats(post.getAuthor().getId()));
+        }
+        tags.add(STATS_GLOBAL);
+        return tags;
+    }
+
+    /**
+     * 点赞/取消点赞后需要清除的标签（likesCount为变更后的点赞数）
+     * 只有变更前后至少一次达到门槛的帖子才会影响"最热"列表的成员与排序
+     */
+    public static List<String> postLikeChanged(Post post, int likesCount) {
+        List<String> tags = new ArrayList<>();
+        tags.add(post(post.getId()));
+        if (likesCount >= HOT_LIKES_THRESHOLD - 1) {
+            tags.add(FEED_HOT);
+        }
+        if (post.getAuthor() != null) {
+            tags.add(userStats(post.getAuthor().getId()));
+        }
+        tags.add(STATS_GLOBAL);
+        return tags;
+    }
+
+    /**
+     * posts缓存条目的依赖标签
+     * 列表键的格式为 {列表前缀}_{页码}_{页大小}，列表标签取去掉后两段的前缀；
+     * 详情键为 {帖子ID}_{当前用户ID}，只依赖帖子本身
+     */
+    public static Collection<String> resolvePostsTags(Object key, Object value) {
+        Set<String> tags = new LinkedHashSet<>();
+        if (value instanceof PostResponse response) {
+            tags.add(post(response.getId()));
+        } else if (value instanceof Page<?> page) {
+            for (Object item : page.getContent()) {
+                if (item instanceof PostResponse response) {
+                    tags.add(post(response.getId()));
+                }
+            }
+            String feed = feedTag(String.valueOf(key));
+            if (feed != null) {
+                tags.add(feed);
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * statistics缓存条目的依赖标签
+     */
+    public static Collection<String> resolveStatisticsTags(Object key, Object value) {
+        String name = String.valueOf(key);
+        if (name.startsWith("user_stats_")) {
+            return List.of("stats:user:" + name.substring("user_stats_".length()));
+        }
+        return List.of(STATS_GLOBAL);
+    }
+
+    private static String feedTag(String key) {
+        String prefix = key;
+        for (int i = 0; i < 2; i++) {
+            int index = prefix.lastIndexOf('_');
+            if (index < 0) {
+                return null;
+            }
+            prefix = prefix.substring(0, index);
+        }
+        if (prefix.startsWith("filter_")
+                && !prefix.equals("filter_最新") && !prefix.equals("filter_最热") && !prefix.equals("filter_心情")) {
+            // 未识别的筛选条件按"全部"查询
+            return FEED_ALL;
+        }
+        return "feed:" + prefix;
+    }
+}
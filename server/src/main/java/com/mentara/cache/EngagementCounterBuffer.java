@@ -0,0 +1,251 @@
+package com.mentara.cache;
+
+import com.mentara.entity.Post;
+import com.mentara.repository.CommentRepository;
+import com.mentara.repository.PostRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.mentara.util.TransactionUtils.afterCommit;
+
+/**
+ * 点赞数/评论数写缓冲（write-behind）
+ * 点赞、评论只在内存中累加增量，定时批量写回posts.likes_count、posts.comments_count、comments.likes_count，
+ * 避免热门帖子每次点击都对同一行执行UPDATE造成行锁争用；
+ * 读取时在数据库计数上叠加尚未写回的增量，列表缓存在写回后按标签清除
+ */
+@Slf4j
+@Component
+public class EngagementCounterBuffer {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private CacheTagIndex cacheTagIndex;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final DeltaTable postLikes = new DeltaTable();
+
+    private final DeltaTable postComments = new DeltaTable();
+
+    private final DeltaTable commentLikes = new DeltaTable();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 帖子互动量变化监听（事务提交后、写回数据库前回调）
+     */
+    public interface Listener {
+        void onPostEngagement(Long postId, int likesDelta, int commentsDelta);
+    }
+
+    @Autowired
+    public EngagementCounterBuffer(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 记录帖子点赞数增量（事务提交后生效）
+     */
+    public void addPostLikes(Long postId, int delta) {
+        afterCommit(() -> {
+            postLikes.add(postId, delta);
+            listeners.forEach(listener -> listener.onPostEngagement(postId, delta, 0));
+        });
+    }
+
+    /**
+     * 记录帖子评论数增量（事务提交后生效）
+     */
+    public void addPostComments(Long postId, int delta) {
+        afterCommit(() -> {
+            postComments.add(postId, delta);
+            listeners.forEach(listener -> listener.onPostEngagement(postId, 0, delta));
+        });
+    }
+
+    /**
+     * 记录评论点赞数增量（事务提交后生效）
+     */
+    public void addCommentLikes(Long commentId, int delta) {
+        afterCommit(() -> commentLikes.add(commentId, delta));
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public long pendingPostLikes(Long postId) {
+        return postLikes.pending(postId);
+    }
+
+    public long pendingPostComments(Long postId) {
+        return postComments.pending(postId);
+    }
+
+    public long pendingCommentLikes(Long commentId) {
+        return commentLikes.pending(commentId);
+    }
+
+    /**
+     * 尚未写回的计数条目数
+     */
+    public int size() {
+        return postLikes.size() + postComments.size() + commentLikes.size();
+    }
+
+    /**
+     * 定时把累积的增量写回数据库；同一批次在一个事务内按ID顺序更新，写入失败时增量放回缓冲区等待下次重试
+     */
+    @Scheduled(fixedDelayString = "${mentara.counter.flush-interval-ms:5000}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            doFlush();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 关闭前写回剩余增量（等待正在进行的写回结束）
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            doFlush();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void doFlush() {
+        Map<Long, Long> likes = postLikes.drain();
+        Map<Long, Long> comments = postComments.drain();
+        Map<Long, Long> commentLikeDeltas = commentLikes.drain();
+        if (likes.isEmpty() && comments.isEmpty() && commentLikeDeltas.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(likes, comments, commentLikeDeltas));
+            postLikes.complete();
+            postComments.complete();
+            commentLikes.complete();
+        } catch (RuntimeException e) {
+            postLikes.restore(likes);
+            postComments.restore(comments);
+            commentLikes.restore(commentLikeDeltas);
+            log.error("计数写回失败，将在下次重试: {}", e.getMessage());
+        }
+    }
+
+    private void write(Map<Long, Long> likes, Map<Long, Long> comments, Map<Long, Long> commentLikeDeltas) {
+        List<String> tags = new ArrayList<>();
+        if (!likes.isEmpty()) {
+            // 写回前加载帖子，按变更后的点赞数计算需要清除的标签（作者统计、"最热"列表）
+            for (Post post : postRepository.findAllById(likes.keySet())) {
+                int likesCount = (post.getLikesCount() != null ? post.getLikesCount() : 0)
+                    + likes.get(post.getId()).intValue();
+                tags.addAll(CacheTags.postLikeChanged(post, likesCount));
+            }
+        }
+        likes.forEach((postId, delta) -> postRepository.updateLikeCount(postId, delta.intValue()));
+        comments.forEach((postId, delta) -> {
+            postRepository.updateCommentCount(postId, delta.intValue());
+            tags.add(CacheTags.post(postId));
+        });
+        commentLikeDeltas.forEach((commentId, delta) -> commentRepository.updateLikeCount(commentId, delta.intValue()));
+        if (!tags.isEmpty()) {
+            cacheTagIndex.evictTags(tags);
+        }
+    }
+
+    /**
+     * 按ID分条的增量表
+     * 写入只做LongAdder累加；写回时逐条sumThenReset取走增量，空闲条目移除后由写入方补救移除瞬间的并发累加
+     */
+    static final class DeltaTable {
+
+        private final ConcurrentHashMap<Long, LongAdder> live = new ConcurrentHashMap<>();
+
+        /**
+         * 已取走但尚未提交的增量，提交前读取仍需叠加
+         */
+        private volatile Map<Long, Long> inFlight = Collections.emptyMap();
+
+        void add(Long id, long delta) {
+            LongAdder adder = live.computeIfAbsent(id, key -> new LongAdder());
+            adder.add(delta);
+            if (live.get(id) != adder) {
+                // 条目在累加前后被写回线程移除，取回这次累加重新记录
+                long late = adder.sumThenReset();
+                if (late != 0) {
+                    add(id, late);
+                }
+            }
+        }
+
+        long pending(Long id) {
+            LongAdder adder = live.get(id);
+            long pending = adder != null ? adder.sum() : 0;
+            return pending + inFlight.getOrDefault(id, 0L);
+        }
+
+        int size() {
+            return live.size();
+        }
+
+        Map<Long, Long> drain() {
+            Map<Long, Long> drained = new TreeMap<>();
+            Map<Long, Long> visible = new ConcurrentHashMap<>();
+            inFlight = visible;
+            for (Map.Entry<Long, LongAdder> entry : live.entrySet()) {
+                Long id = entry.getKey();
+                LongAdder adder = entry.getValue();
+                long delta = adder.sumThenReset();
+                if (delta == 0 && live.remove(id, adder)) {
+                    delta = adder.sumThenReset();
+                }
+                if (delta != 0) {
+                    drained.merge(id, delta, Long::sum);
+                    visible.merge(id, delta, Long::sum);
+                }
+            }
+            return drained;
+        }
+
+        void complete() {
+            inFlight = Collections.emptyMap();
+        }
+
+        void restore(Map<Long, Long> drained) {
+            drained.forEach(this::add);
+            inFlight = Collections.emptyMap();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.mentara.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 提前刷新缓存装饰器
+ * 条目写入超过refreshAfterWrite后，只让一个读请求得到"未命中"去重新计算并回写，
+ * 其余并发请求继续读取旧值，避免热点键在硬过期瞬间集中穿透到数据库
+ */
+public class RefreshAheadCache implements Cache {
+
+    /**
+     * 刷新请求在该时间内没有回写，视为失败，允许其他请求接手
+     */
+    private static final long REFRESH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final Cache delegate;
+
+    private final long refreshAfterNanos;
+
+    private final LongAdder refreshCount = new LongAdder();
+
+    public RefreshAheadCache(Cache delegate, long refreshAfterNanos) {
+        this.delegate = delegate;
+        this.refreshAfterNanos = refreshAfterNanos;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper == null) {
+            return null;
+        }
+        if (!(wrapper.get() instanceof Entry entry)) {
+            return wrapper;
+        }
+        if (entry.tryStartRefresh(refreshAfterNanos)) {
+            // 由当前调用方重新计算，返回未命中
+            refreshCount.increment();
+            return null;
+        }
+        return new SimpleValueWrapper(entry.getValue());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("缓存值类型不匹配: 期望 " + type.getName() + ", 实际 " + value.getClass().getName());
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Entry entry = delegate.get(key, () -> new Entry(valueLoader.call()));
+        if (entry != null && entry.tryStartRefresh(refreshAfterNanos)) {
+            refreshCount.increment();
+            try {
+                T refreshed = valueLoader.call();
+                put(key, refreshed);
+                return refreshed;
+            } catch (Exception e) {
+                // 刷新失败时继续使用旧值，等待下一次刷新或硬过期
+                return (T) entry.getValue();
+            }
+        }
+        return entry != null ? (T) entry.getValue() : null;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, new Entry(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, new Entry(value));
+        if (existing != null && existing.get() instanceof Entry entry) {
+            return new SimpleValueWrapper(entry.getValue());
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    /**
+     * 已触发的提前刷新次数
+     */
+    public long getRefreshCount() {
+        return refreshCount.sum();
+    }
+
+    /**
+     * 带写入时间戳的缓存条目
+     */
+    public static final class Entry {
+
+        private final Object value;
+
+        private final long writtenAt = System.nanoTime();
+
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+        private volatile long refreshStartedAt;
+
+        Entry(Object value) {
+            this.value = value;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        boolean tryStartRefresh(long refreshAfterNanos) {
+            long now = System.nanoTime();
+            if (now - writtenAt < refreshAfterNanos) {
+                return false;
+            }
+            if (refreshing.compareAndSet(false, true)) {
+                refreshStartedAt = now;
+                return true;
+            }
+            // 上一次刷新迟迟没有回写（调用方异常），允许再次尝试
+            if (now - refreshStartedAt > REFRESH_TIMEOUT_NANOS) {
+                refreshStartedAt = now;
+                return true;
+            }
+            return false;
+        }
+    }
+}
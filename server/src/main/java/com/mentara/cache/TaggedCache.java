@@ -0,0 +1,103 @@
+package com.mentara.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.function.BiFunction;
+
+/**
+ * 带依赖标签的缓存装饰器
+ * 写入时根据键和值解析出依赖标签并登记到CacheTagIndex，写操作通过标签精确清除相关条目
+ */
+public class TaggedCache implements Cache {
+
+    private final Cache delegate;
+
+    private final CacheTagIndex tagIndex;
+
+    private final BiFunction<Object, Object, Collection<String>> tagResolver;
+
+    public TaggedCache(Cache delegate, CacheTagIndex tagIndex,
+                       BiFunction<Object, Object, Collection<String>> tagResolver) {
+        this.delegate = delegate;
+        this.tagIndex = tagIndex;
+        this.tagResolver = tagResolver;
+        tagIndex.registerCache(this);
+    }
+
+    /**
+     * 被装饰的缓存
+     */
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        T value = delegate.get(key, valueLoader);
+        // 标签依赖加载出的值，只能写入后再登记
+        tagIndex.register(getName(), key, tagResolver.apply(key, value));
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        // 先登记再写入：写入与登记之间发生的按标签清除也能找到该条目，不会让旧值留到过期
+        tagIndex.register(getName(), key, tagResolver.apply(key, value));
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        // 同put先登记；已有值时多登记的标签最多多清除一次
+        tagIndex.register(getName(), key, tagResolver.apply(key, value));
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        tagIndex.unregister(getName(), key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = delegate.evictIfPresent(key);
+        tagIndex.unregister(getName(), key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        tagIndex.unregisterAll(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = delegate.invalidate();
+        tagIndex.unregisterAll(getName());
+        return invalidated;
+    }
+}
@@ -0,0 +1,161 @@
+package com.mentara.cache;
+
+import com.mentara.repository.UserBlockRepository;
+import com.mentara.util.LongHashSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.mentara.util.TransactionUtils.afterCommit;
+
+/**
+ * 内存拉黑关系图
+ * 每个用户保存两个long集合：自己拉黑的用户（blocking）和拉黑自己的用户（blockedBy），
+ * 帖子/评论列表按作者过滤时每行只需两次O(1)查找；
+ * 首次使用时从数据库全量加载，之后由拉黑/取消拉黑在事务提交后增量更新（集合写时复制，读取不加锁）
+ */
+@Slf4j
+@Component
+public class UserBlockGraph {
+
+    private static final LongHashSet EMPTY = new LongHashSet(0);
+
+    @Autowired
+    private UserBlockRepository userBlockRepository;
+
+    private final Map<Long, LongHashSet> blocking = new ConcurrentHashMap<>();
+
+    private final Map<Long, LongHashSet> blockedBy = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded = false;
+
+    /**
+     * 当前用户视角下需要隐藏的作者
+     */
+    public interface Visibility {
+        boolean isHidden(Long authorId);
+    }
+
+    private static final Visibility NONE = authorId -> false;
+
+    /**
+     * 获取用户的可见性判断：隐藏自己拉黑的用户以及拉黑了自己的用户
+     */
+    public Visibility visibilityFor(Long userId) {
+        if (userId == null) {
+            return NONE;
+        }
+        ensureLoaded();
+        LongHashSet out = blocking.getOrDefault(userId, EMPTY);
+        LongHashSet in = blockedBy.getOrDefault(userId, EMPTY);
+        if (out.isEmpty() && in.isEmpty()) {
+            return NONE;
+        }
+        return authorId -> authorId != null && (out.contains(authorId) || in.contains(authorId));
+    }
+
+    /**
+     * 用户视角下需要隐藏的全部作者ID（用于把过滤条件下推到向量搜索）
+     */
+    public Set<Long> hiddenAuthorIds(Long userId) {
+        if (userId == null) {
+            return Set.of();
+        }
+        ensureLoaded();
+        Set<Long> hidden = new HashSet<>();
+        for (long authorId : blocking.getOrDefault(userId, EMPTY).toArray()) {
+            hidden.add(authorId);
+        }
+        for (long authorId : blockedBy.getOrDefault(userId, EMPTY).toArray()) {
+            hidden.add(authorId);
+        }
+        return hidden;
+    }
+
+    public boolean isBlocking(Long blockerId, Long blockedId) {
+        if (blockerId == null || blockedId == null) {
+            return false;
+        }
+        ensureLoaded();
+        return blocking.getOrDefault(blockerId, EMPTY).contains(blockedId);
+    }
+
+    /**
+     * 拉黑成功后记录（事务提交后生效）
+     */
+    public void onBlocked(Long blockerId, Long blockedId) {
+        afterCommit(() -> {
+            // 与加载互斥：加载进行中提交的变更等加载完成后再应用，未加载时由加载读取数据库
+            synchronized (this) {
+                if (loaded) {
+                    add(blocking, blockerId, blockedId);
+                    add(blockedBy, blockedId, blockerId);
+                }
+            }
+        });
+    }
+
+    /**
+     * 取消拉黑成功后记录（事务提交后生效）
+     */
+    public void onUnblocked(Long blockerId, Long blockedId) {
+        afterCommit(() -> {
+            synchronized (this) {
+                if (loaded) {
+                    remove(blocking, blockerId, blockedId);
+                    remove(blockedBy, blockedId, blockerId);
+                }
+            }
+        });
+    }
+
+    /**
+     * 有拉黑关系的用户数
+     */
+    public int size() {
+        return blocking.size();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            List<Object[]> pairs = userBlockRepository.findAllBlockPairs();
+            for (Object[] pair : pairs) {
+                Long blockerId = ((Number) pair[0]).longValue();
+                Long blockedId = ((Number) pair[1]).longValue();
+                // 加载阶段集合尚未发布，直接修改
+                blocking.computeIfAbsent(blockerId, key -> new LongHashSet()).add(blockedId);
+                blockedBy.computeIfAbsent(blockedId, key -> new LongHashSet()).add(blockerId);
+            }
+            loaded = true;
+            log.info("拉黑关系图加载完成: {}条关系", pairs.size());
+        }
+    }
+
+    private static void add(Map<Long, LongHashSet> graph, Long from, Long to) {
+        graph.compute(from, (key, current) -> {
+            LongHashSet updated = current != null ? current.copy() : new LongHashSet();
+            updated.add(to);
+            return updated;
+        });
+    }
+
+    private static void remove(Map<Long, LongHashSet> graph, Long from, Long to) {
+        graph.computeIfPresent(from, (key, current) -> {
+            LongHashSet updated = current.copy();
+            updated.remove(to);
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+}
@@ -0,0 +1,132 @@
+package com.mentara.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.mentara.config.CacheProperties;
+import com.mentara.repository.PostLikeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.mentara.util.TransactionUtils.afterCommit;
+
+/**
+ * 用户已点赞帖子ID缓存
+ * 帖子列表缓存不区分浏览用户，读取时用该集合补上当前用户的点赞状态；
+ * 每个用户只加载最近的recentLimit个点赞，点赞更多的用户，集合中没有的帖子按页批量查询数据库；
+ * 点赞/取消点赞提交后直接更新已加载的集合，未加载的用户在下次读取时从数据库加载
+ */
+@Component
+public class UserLikedPostsCache {
+
+    public static final String CACHE_NAME = "likedPosts";
+
+    private final PostLikeRepository postLikeRepository;
+
+    private final int recentLimit;
+
+    private final LoadingCache<Long, LikedPosts> cache;
+
+    /**
+     * @param complete 用户的点赞不超过recentLimit个，集合即全部点赞
+     */
+    private record LikedPosts(Set<Long> postIds, boolean complete) {
+    }
+
+    @Autowired
+    public UserLikedPostsCache(PostLikeRepository postLikeRepository, CacheProperties cacheProperties,
+                               MeterRegistry meterRegistry,
+                               @Value("${mentara.cache.liked-posts.recent-limit:1000}") int recentLimit) {
+        this.postLikeRepository = postLikeRepository;
+        this.recentLimit = recentLimit;
+        CacheProperties.Spec spec = cacheProperties.resolve(CACHE_NAME);
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (spec.getMaximumSize() != null) {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        this.cache = builder.build(this::load);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * 用户是否点赞过该帖子
+     */
+    public boolean isLiked(Long userId, Long postId) {
+        return !likedAmong(userId, List.of(postId)).isEmpty();
+    }
+
+    /**
+     * 给定帖子中用户已点赞的帖子ID；集合不完整时，不在集合中的帖子合并为一次查询
+     */
+    public Set<Long> likedAmong(Long userId, Collection<Long> postIds) {
+        LikedPosts liked = cache.get(userId);
+        Set<Long> result = new HashSet<>();
+        List<Long> unknown = new ArrayList<>();
+        for (Long postId : postIds) {
+            if (liked.postIds().contains(postId)) {
+                result.add(postId);
+            } else if (!liked.complete()) {
+                unknown.add(postId);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            result.addAll(postLikeRepository.findLikedPostIdsIn(userId, unknown));
+        }
+        return result;
+    }
+
+    /**
+     * 点赞成功后记录（事务提交后生效）
+     */
+    public void onLiked(Long userId, Long postId) {
+        afterCommit(() -> {
+            LikedPosts liked = cache.getIfPresent(userId);
+            if (liked != null) {
+                liked.postIds().add(postId);
+            }
+        });
+    }
+
+    /**
+     * 取消点赞成功后记录（事务提交后生效）
+     */
+    public void onUnliked(Long userId, Long postId) {
+        afterCommit(() -> {
+            LikedPosts liked = cache.getIfPresent(userId);
+            if (liked != null) {
+                liked.postIds().remove(postId);
+            }
+        });
+    }
+
+    /**
+     * 当前已加载的用户数
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private LikedPosts load(Long userId) {
+        // 多取一条判断是否还有更早的点赞
+        List<Long> recent = postLikeRepository.findRecentPostIdsByUserId(userId, PageRequest.of(0, recentLimit + 1));
+        Set<Long> likedPostIds = ConcurrentHashMap.newKeySet();
+        likedPostIds.addAll(recent.subList(0, Math.min(recent.size(), recentLimit)));
+        return new LikedPosts(likedPostIds, recent.size() <= recentLimit);
+    }
+}
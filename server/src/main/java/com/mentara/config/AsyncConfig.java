@@ -54,34 +54,49 @@ public class AsyncConfig implements AsyncConfigurer {
     }
     
     /**
-     * 向量存储专用线程池
-     * 特点：IO密集型，需要适中线程
+     * 向量重建专用线程池
+     * 特点：同一时间只运行一个重建任务
      */
-    @Bean("vectorExecutor")
-    public Executor vectorExecutor() {
+    @Bean("vectorReindexExecutor")
+    public Executor vectorReindexExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(4);        // 核心线程数 - 从2提升到4
-        executor.setMaxPoolSize(8);         // 最大线程数 - 从4提升到8
-        executor.setQueueCapacity(20);      // 队列容量 - 从10提升到20
-        executor.setThreadNamePrefix("Vector-");
-        executor.setKeepAliveSeconds(60);   // 线程空闲时间
-        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("VectorReindex-");
         executor.initialize();
         return executor;
     }
     
     /**
-     * 心情评分专用线程池
-     * 特点：CPU密集型，需要适中线程
+     * 帖子AI处理流水线线程池：每个帖子占用一个线程，等待各阶段结果后写入
+     * 队列满时拒绝提交，帖子保持待审核，由定时任务重新提交，不占用发帖的请求线程
      */
-    @Bean("moodScoreExecutor")
-    public Executor moodScoreExecutor() {
+    @Bean("postPipelineExecutor")
+    public Executor postPipelineExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);        // 核心线程数 - 从3提升到5
-        executor.setMaxPoolSize(10);        // 最大线程数 - 从6提升到10
-        executor.setQueueCapacity(25);      // 队列容量 - 从15提升到25
-        executor.setThreadNamePrefix("MoodScore-");
-        executor.setKeepAliveSeconds(60);   // 线程空闲时间
+        executor.setCorePoolSize(6);
+        executor.setMaxPoolSize(12);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("PostPipeline-");
+        executor.setKeepAliveSeconds(60);
+        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * 帖子AI处理各阶段专用线程池
+     * 特点：IO密集型（DeepSeek审核、bert打分），每个帖子同时占用最多3个线程
+     */
+    @Bean("postPipelineStageExecutor")
+    public Executor postPipelineStageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(18);
+        executor.setMaxPoolSize(36);
+        executor.setQueueCapacity(60);
+        executor.setThreadNamePrefix("PostPipelineStage-");
+        executor.setKeepAliveSeconds(60);
         executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
         executor.initialize();
         return executor;
@@ -1,39 +1,182 @@
 package com.mentara.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mentara.cache.CacheTagIndex;
+import com.mentara.cache.CacheTags;
+import com.mentara.cache.RefreshAheadCache;
+import com.mentara.cache.TaggedCache;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Page;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
 
 /**
  * 缓存配置类
- * 使用Spring Boot内置的缓存机制，无需额外安装Redis
+ * 默认使用Caffeine作为有界本地缓存，每个缓存的容量、过期和提前刷新策略在application.properties中配置
+ * （mentara.cache.*），mentara.cache.backend=simple 时退回无界的ConcurrentMap实现；
+ * posts、statistics缓存带依赖标签，写操作通过CacheTagIndex按标签清除相关条目
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    public static final List<String> CACHE_NAMES = Arrays.asList(
+        "users",           // 用户缓存
+        "posts",           // 帖子缓存
+        "comments",        // 评论缓存
+        "notifications",   // 通知缓存
+        "userBlocks",      // 用户拉黑缓存
+        "userFollows",     // 用户关注缓存
+        "tags",            // 标签缓存
+        "experts",         // 专家缓存
+        "appointments",    // 预约缓存
+        "chatRooms",       // 聊天室缓存
+        "moodScores",      // 心情评分缓存
+        "statistics"       // 统计数据缓存
+    );
+
+    /**
+     * 按依赖标签失效的缓存及其标签解析规则
+     */
+    private static final Map<String, BiFunction<Object, Object, Collection<String>>> TAG_RESOLVERS = Map.of(
+        "posts", CacheTags::resolvePostsTags,
+        "statistics", CacheTags::resolveStatisticsTags
+    );
+
     @Bean
-    public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-        
-        // 配置缓存名称
-        cacheManager.setCacheNames(java.util.Arrays.asList(
-            "users",           // 用户缓存
-            "posts",           // 帖子缓存
-            "comments",        // 评论缓存
-            "notifications",   // 通知缓存
-            "userBlocks",      // 用户拉黑缓存
-            "userFollows",     // 用户关注缓存
-            "tags",            // 标签缓存
-            "experts",         // 专家缓存
-            "appointments",    // 预约缓存
-            "chatRooms",       // 聊天室缓存
-            "moodScores",      // 心情评分缓存
-            "statistics"       // 统计数据缓存
-        ));
-        
+    public CacheTagIndex cacheTagIndex() {
+        return new CacheTagIndex();
+    }
+
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties, CacheTagIndex cacheTagIndex) {
+        if ("simple".equalsIgnoreCase(cacheProperties.getBackend())) {
+            ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager() {
+                @Override
+                protected Cache createConcurrentMapCache(String name) {
+                    return decorateTagged(super.createConcurrentMapCache(name), cacheTagIndex);
+                }
+            };
+            cacheManager.setCacheNames(CACHE_NAMES);
+            return cacheManager;
+        }
+
+        CaffeineCacheManager cacheManager = new RefreshAheadCaffeineCacheManager(cacheProperties, cacheTagIndex);
+        // 先声明为静态缓存集合，避免getCache时动态创建无界缓存
+        cacheManager.setCacheNames(Collections.emptyList());
+        for (String cacheName : CACHE_NAMES) {
+            Caffeine<Object, Object> builder = buildCaffeine(cacheProperties.resolve(cacheName));
+            if (TAG_RESOLVERS.containsKey(cacheName)) {
+                // 容量或过期淘汰的条目同步从标签索引中移除，避免索引无限增长
+                builder.evictionListener((key, value, cause) -> cacheTagIndex.unregister(cacheName, key));
+            }
+            cacheManager.registerCustomCache(cacheName, builder.build());
+        }
         return cacheManager;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 将提前刷新装饰器的底层Caffeine缓存注册到actuator指标（cache.gets / cache.evictions 等）
+     */
+    @Bean
+    public CacheMeterBinderProvider<RefreshAheadCache> refreshAheadCacheMeterBinderProvider() {
+        return (cache, tags) -> {
+            @SuppressWarnings("unchecked")
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache =
+                (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache.getNativeCache();
+            return new CaffeineCacheMetrics<>(nativeCache, cache.getName(), tags);
+        };
+    }
+
+    @Bean
+    public CacheMeterBinderProvider<TaggedCache> taggedCacheMeterBinderProvider() {
+        return (cache, tags) -> {
+            if (!(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?>)) {
+                return null;
+            }
+            @SuppressWarnings("unchecked")
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache =
+                (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache.getNativeCache();
+            return new CaffeineCacheMetrics<>(nativeCache, cache.getName(), tags);
+        };
+    }
+
+    private static Cache decorateTagged(Cache cache, CacheTagIndex cacheTagIndex) {
+        BiFunction<Object, Object, Collection<String>> resolver = TAG_RESOLVERS.get(cache.getName());
+        return resolver != null ? new TaggedCache(cache, cacheTagIndex, resolver) : cache;
+    }
+
+    private Caffeine<Object, Object> buildCaffeine(CacheProperties.Spec spec) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (spec.getMaximumWeight() != null) {
+            builder.maximumWeight(spec.getMaximumWeight()).weigher((key, value) -> weigh(value));
+        } else if (spec.getMaximumSize() != null) {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        return builder;
+    }
+
+    /**
+     * 估算缓存值权重：分页和集合按元素个数计算，其余按1计算
+     */
+    private static int weigh(Object value) {
+        if (value instanceof RefreshAheadCache.Entry entry) {
+            value = entry.getValue();
+        }
+        if (value instanceof Page<?> page) {
+            return Math.max(1, page.getNumberOfElements());
+        }
+        if (value instanceof Collection<?> collection) {
+            return Math.max(1, collection.size());
+        }
+        if (value instanceof Map<?, ?> map) {
+            return Math.max(1, map.size());
+        }
+        return 1;
+    }
+
+    /**
+     * 配置了refreshAfterWrite的缓存包装为RefreshAheadCache，带依赖标签的缓存再包装为TaggedCache
+     */
+    private static class RefreshAheadCaffeineCacheManager extends CaffeineCacheManager {
+
+        private final CacheProperties cacheProperties;
+
+        private final CacheTagIndex cacheTagIndex;
+
+        RefreshAheadCaffeineCacheManager(CacheProperties cacheProperties, CacheTagIndex cacheTagIndex) {
+            this.cacheProperties = cacheProperties;
+            this.cacheTagIndex = cacheTagIndex;
+        }
+
+        @Override
+        protected org.springframework.cache.Cache adaptCaffeineCache(String name,
+                com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+            org.springframework.cache.Cache adapted = super.adaptCaffeineCache(name, cache);
+            CacheProperties.Spec spec = cacheProperties.resolve(name);
+            if (spec.getRefreshAfterWrite() != null) {
+                adapted = new RefreshAheadCache(adapted, spec.getRefreshAfterWrite().toNanos());
+            }
+            return decorateTagged(adapted, cacheTagIndex);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.mentara.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 缓存配置属性
+ * 每个缓存名称可以单独配置容量、过期与提前刷新策略，未配置的项使用默认规格
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "mentara.cache")
+public class CacheProperties {
+
+    /**
+     * 缓存后端：caffeine（有界，默认）或 simple（无界ConcurrentMap，仅用于调试）
+     */
+    private String backend = "caffeine";
+
+    /**
+     * 默认缓存规格
+     */
+    private Spec defaultSpec = Spec.defaults();
+
+    /**
+     * 按缓存名称覆盖的规格
+     */
+    private Map<String, Spec> specs = new HashMap<>();
+
+    /**
+     * 获取指定缓存的最终规格（按字段覆盖默认规格）
+     */
+    public Spec resolve(String cacheName) {
+        Spec override = specs.get(cacheName);
+        if (override == null) {
+            return defaultSpec;
+        }
+        Spec merged = new Spec();
+        merged.setMaximumSize(override.getMaximumSize() != null ? override.getMaximumSize() : defaultSpec.getMaximumSize());
+        merged.setMaximumWeight(override.getMaximumWeight() != null ? override.getMaximumWeight() : defaultSpec.getMaximumWeight());
+        merged.setExpireAfterWrite(override.getExpireAfterWrite() != null ? override.getExpireAfterWrite() : defaultSpec.getExpireAfterWrite());
+        merged.setExpireAfterAccess(override.getExpireAfterAccess() != null ? override.getExpireAfterAccess() : defaultSpec.getExpireAfterAccess());
+        merged.setRefreshAfterWrite(override.getRefreshAfterWrite() != null ? override.getRefreshAfterWrite() : defaultSpec.getRefreshAfterWrite());
+        return merged;
+    }
+
+    @Data
+    public static class Spec {
+
+        /**
+         * 最大条目数（与maximumWeight二选一，同时配置时以maximumWeight为准）
+         */
+        private Long maximumSize;
+
+        /**
+         * 最大权重，分页结果按元素个数计权
+         */
+        private Long maximumWeight;
+
+        /**
+         * 写入后过期时间
+         */
+        private Duration expireAfterWrite;
+
+        /**
+         * 最后访问后过期时间
+         */
+        private Duration expireAfterAccess;
+
+        /**
+         * 写入后超过该时间，由一个请求提前重新计算，其余请求继续读取旧值
+         */
+        private Duration refreshAfterWrite;
+
+        static Spec defaults() {
+            Spec spec = new Spec();
+            spec.setMaximumSize(1000L);
+            spec.setExpireAfterWrite(Duration.ofMinutes(10));
+            return spec;
+        }
+    }
+}
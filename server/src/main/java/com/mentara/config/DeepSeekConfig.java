@@ -36,4 +36,70 @@ public class DeepSeekConfig {
      * 最大重试次数
      */
     private int maxRetries = 3;
+
+    /**
+     * 第一次重试前的等待时间（毫秒），之后每次翻倍并加入随机抖动
+     */
+    private long initialBackoffMs = 500;
+
+    /**
+     * 重试等待时间上限（毫秒）
+     */
+    private long maxBackoffMs = 8000;
+
+    private Limiter limiter = new Limiter();
+
+    private Breaker breaker = new Breaker();
+
+    /**
+     * 自适应并发限制（AIMD）
+     */
+    @Data
+    public static class Limiter {
+
+        private int initialLimit = 8;
+
+        private int minLimit = 1;
+
+        private int maxLimit = 32;
+
+        /**
+         * 过载时并发上限乘以该比例
+         */
+        private double backoffRatio = 0.7;
+
+        /**
+         * 超过该耗时（毫秒）的成功调用也按过载处理
+         */
+        private long slowCallMs = 15000;
+
+        /**
+         * 达到并发上限时等待许可的最长时间（毫秒），超时即放弃本次调用
+         */
+        private long acquireTimeoutMs = 200;
+    }
+
+    /**
+     * 熔断器
+     */
+    @Data
+    public static class Breaker {
+
+        /**
+         * 连续失败多少次后断开
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * 第一次断开的时长（毫秒），之后每次探测失败翻倍
+         */
+        private long openMs = 10000;
+
+        private long maxOpenMs = 300000;
+
+        /**
+         * 断开时长的随机抖动比例
+         */
+        private double jitter = 0.2;
+    }
 } 
\ No newline at end of file
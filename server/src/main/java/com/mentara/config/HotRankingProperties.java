@@ -0,0 +1,53 @@
+package com.mentara.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * "最热"榜单配置属性
+ * 热度 = log2(1 + 点赞权重 × 点赞数 + 评论权重 × 评论数) + 发布时间 / 半衰期，
+ * 即互动量按半衰期指数衰减；榜单排序只依赖帖子自身的数据，时间流逝不需要重新打分
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "mentara.hot")
+public class HotRankingProperties {
+
+    /**
+     * 每个点赞计入的互动量
+     */
+    private double likeWeight = 1.0;
+
+    /**
+     * 每条评论计入的互动量
+     */
+    private double commentWeight = 2.0;
+
+    /**
+     * 热度半衰期：发布时间每晚一个半衰期，同等热度需要的互动量翻倍
+     */
+    private Duration halfLife = Duration.ofHours(12);
+
+    /**
+     * 进入榜单的最少点赞数
+     */
+    private int minLikes = 4;
+
+    /**
+     * 榜单保留的帖子数
+     */
+    private int maxSize = 1000;
+
+    /**
+     * 重建榜单时只加载该时间窗口内发布的帖子
+     */
+    private Duration candidateWindow = Duration.ofDays(7);
+
+    /**
+     * 重建榜单时最多加载的候选帖子数
+     */
+    private int candidateLimit = 5000;
+}
@@ -1,17 +1,27 @@
 package com.mentara.config;
 
+import com.mentara.service.QdrantService;
 import io.qdrant.client.QdrantClient;
 import io.qdrant.client.QdrantGrpcClient;
 import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.Points;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 
 @Configuration
 public class QdrantConfig {
 
+    private static final DateTimeFormatter COLLECTION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
     @Value("${qdrant.host:localhost}")
     private String qdrantHost;
 
@@ -24,8 +34,19 @@ public class QdrantConfig {
     @Value("${qdrant.collection.name}")
     private String collectionName;
 
+    @Value("${qdrant.enabled:true}")
+    private boolean qdrantEnabled;
+
+    @Autowired
+    private QdrantStorageProperties storageProperties;
+
     @Bean
     public QdrantClient qdrantClient() {
+        if (!qdrantEnabled) {
+            // 客户端在首次调用时才建立连接，未启用时不会访问Qdrant
+            System.out.println("Qdrant未启用，向量检索只使用本地索引");
+            return new QdrantClient(QdrantGrpcClient.newBuilder(qdrantHost, qdrantPort, false).build());
+        }
         try {
             System.out.println("正在连接Qdrant服务器: " + qdrantHost + ":" + qdrantPort);
             
@@ -39,23 +60,28 @@ public class QdrantConfig {
                 Collections.CollectionInfo collectionInfo = client.getCollectionInfoAsync(collectionName).get();
                 if (collectionInfo != null) {
                     System.out.println("成功连接到Qdrant服务器");
+                    if (!storageMatches(collectionInfo, storageProperties)) {
+                        System.out.println("警告: 集合" + collectionName + "的存储方式与qdrant.storage配置不一致，"
+                                + "可调用 POST /admin/vector-storage/migrate 迁移");
+                    }
+                    if (resolveAlias(client, collectionName).equals(collectionName)) {
+                        System.out.println("警告: " + collectionName + "是实体集合而不是别名，下次蓝绿重建开始前会先迁移到别名之后");
+                    }
+                    createPayloadIndexes(client, collectionName);
                     return client;
                 }
             } catch (Exception e) {
                 System.out.println("警告: 无法获取集合列表，但继续尝试创建集合: " + e.getMessage());
             }
             
-            // 尝试创建集合
+            // 尝试创建集合：实体集合带版本号，应用通过同名别名读写，重建时原子切换
             try {
-                client.createCollectionAsync(collectionName,
-                        Collections.VectorParams.newBuilder()
-                                .setDistance(Collections.Distance.Dot)
-                                .setSize(768)
-                                .build()).get();
-                System.out.println("成功创建集合: " + collectionName);
+                String created = createAliasedCollection(client, collectionName, storageProperties);
+                System.out.println("成功创建集合: " + created + "，别名: " + collectionName);
             } catch (Exception e) {
                 System.out.println("集合可能已存在或创建失败: " + e.getMessage());
             }
+            createPayloadIndexes(client, collectionName);
             
             return client;
         } catch (Exception e) {
@@ -64,4 +90,180 @@ public class QdrantConfig {
             throw new RuntimeException("Failed to create Qdrant client: " + e.getMessage(), e);
         }
     }
-} 
+
+    /**
+     * 带版本号的实体集合名，别名指向它
+     */
+    public static String versionedCollectionName(String alias) {
+        return alias + "_" + LocalDateTime.now().format(COLLECTION_SUFFIX);
+    }
+
+    /**
+     * 新建带版本号的实体集合和payload索引，再让别名指向它
+     *
+     * @return 实体集合名
+     */
+    public static String createAliasedCollection(QdrantClient client, String alias, QdrantStorageProperties storage)
+            throws Exception {
+        String collection = versionedCollectionName(alias);
+        client.createCollectionAsync(collection, postVectorParams(storage)).get();
+        createPayloadIndexes(client, collection);
+        client.createAliasAsync(alias, collection).get();
+        return collection;
+    }
+
+    /**
+     * 别名实际指向的集合，不是别名时返回名称本身
+     */
+    public static String resolveAlias(QdrantClient client, String name) throws Exception {
+        for (Collections.AliasDescription alias : client.listAliasesAsync().get()) {
+            if (alias.getAliasName().equals(name)) {
+                return alias.getCollectionName();
+            }
+        }
+        return name;
+    }
+
+    /**
+     * 帖子向量集合的向量参数，重建索引创建新集合时沿用
+     */
+    public static Collections.VectorParams postVectorParams() {
+        return Collections.VectorParams.newBuilder()
+                .setDistance(Collections.Distance.Dot)
+                .setSize(768)
+                .build();
+    }
+
+    /**
+     * 按存储配置创建集合用的向量参数：量化方式、原始向量和HNSW图是否放磁盘
+     */
+    public static Collections.VectorParams postVectorParams(QdrantStorageProperties storage) {
+        Collections.VectorParams.Builder params = postVectorParams().toBuilder()
+                .setOnDisk(storage.isVectorsOnDisk())
+                .setHnswConfig(Collections.HnswConfigDiff.newBuilder().setOnDisk(storage.isHnswOnDisk()));
+        Collections.QuantizationConfig quantization = quantizationConfig(storage);
+        if (quantization != null) {
+            params.setQuantizationConfig(quantization);
+        }
+        return params.build();
+    }
+
+    /**
+     * 量化配置，不量化时返回null
+     */
+    public static Collections.QuantizationConfig quantizationConfig(QdrantStorageProperties storage) {
+        return switch (storage.getQuantization()) {
+            case NONE -> null;
+            case SCALAR -> Collections.QuantizationConfig.newBuilder()
+                    .setScalar(Collections.ScalarQuantization.newBuilder()
+                            .setType(Collections.QuantizationType.Int8)
+                            .setQuantile(storage.getScalarQuantile())
+                            .setAlwaysRam(storage.isQuantizedAlwaysRam()))
+                    .build();
+            case PRODUCT -> Collections.QuantizationConfig.newBuilder()
+                    .setProduct(Collections.ProductQuantization.newBuilder()
+                            .setCompression(compressionRatio(storage.getProductCompression()))
+                            .setAlwaysRam(storage.isQuantizedAlwaysRam()))
+                    .build();
+        };
+    }
+
+    /**
+     * 迁移已有集合用的向量参数变更，不量化时显式关闭已有的量化
+     */
+    public static Collections.VectorParamsDiff postVectorParamsDiff(QdrantStorageProperties storage) {
+        Collections.QuantizationConfig quantization = quantizationConfig(storage);
+        Collections.QuantizationConfigDiff.Builder quantizationDiff = Collections.QuantizationConfigDiff.newBuilder();
+        if (quantization == null) {
+            quantizationDiff.setDisabled(Collections.Disabled.getDefaultInstance());
+        } else if (quantization.hasScalar()) {
+            quantizationDiff.setScalar(quantization.getScalar());
+        } else {
+            quantizationDiff.setProduct(quantization.getProduct());
+        }
+        return Collections.VectorParamsDiff.newBuilder()
+                .setOnDisk(storage.isVectorsOnDisk())
+                .setHnswConfig(Collections.HnswConfigDiff.newBuilder().setOnDisk(storage.isHnswOnDisk()))
+                .setQuantizationConfig(quantizationDiff)
+                .build();
+    }
+
+    /**
+     * 向量查询的量化参数：量化检索后按配置用原始向量重新打分，不量化时返回null
+     */
+    public static Points.SearchParams searchParams(QdrantStorageProperties storage) {
+        if (storage.getQuantization() == QdrantStorageProperties.Quantization.NONE) {
+            return null;
+        }
+        return Points.SearchParams.newBuilder()
+                .setQuantization(Points.QuantizationSearchParams.newBuilder()
+                        .setRescore(storage.isRescore())
+                        .setOversampling(storage.getOversampling()))
+                .build();
+    }
+
+    /**
+     * 集合当前的量化方式、向量和HNSW图存放位置是否与配置一致
+     */
+    public static boolean storageMatches(Collections.CollectionInfo info, QdrantStorageProperties storage) {
+        return Objects.equals(quantizationOf(info), quantizationConfig(storage))
+                && info.getConfig().getParams().getVectorsConfig().getParams().getOnDisk() == storage.isVectorsOnDisk()
+                && hnswOnDisk(info) == storage.isHnswOnDisk();
+    }
+
+    /**
+     * 集合实际生效的量化配置（向量级配置优先于集合级），未量化时返回null
+     */
+    public static Collections.QuantizationConfig quantizationOf(Collections.CollectionInfo info) {
+        Collections.CollectionConfig config = info.getConfig();
+        Collections.VectorParams params = config.getParams().getVectorsConfig().getParams();
+        if (params.hasQuantizationConfig()) {
+            return params.getQuantizationConfig();
+        }
+        return config.hasQuantizationConfig() ? config.getQuantizationConfig() : null;
+    }
+
+    /**
+     * 集合的HNSW图是否放磁盘（向量级配置优先于集合级）
+     */
+    public static boolean hnswOnDisk(Collections.CollectionInfo info) {
+        Collections.CollectionConfig config = info.getConfig();
+        Collections.VectorParams params = config.getParams().getVectorsConfig().getParams();
+        if (params.hasHnswConfig() && params.getHnswConfig().hasOnDisk()) {
+            return params.getHnswConfig().getOnDisk();
+        }
+        return config.getHnswConfig().getOnDisk();
+    }
+
+    private static Collections.CompressionRatio compressionRatio(int compression) {
+        return switch (compression) {
+            case 4 -> Collections.CompressionRatio.x4;
+            case 8 -> Collections.CompressionRatio.x8;
+            case 16 -> Collections.CompressionRatio.x16;
+            case 32 -> Collections.CompressionRatio.x32;
+            case 64 -> Collections.CompressionRatio.x64;
+            default -> throw new IllegalArgumentException("qdrant.storage.product-compression只能是4、8、16、32、64: " + compression);
+        };
+    }
+
+    /**
+     * 为搜索过滤用到的payload字段建索引（已存在时Qdrant直接返回成功）
+     */
+    public static void createPayloadIndexes(QdrantClient client, String collectionName) {
+        Map<String, Collections.PayloadSchemaType> fields = new LinkedHashMap<>();
+        fields.put(QdrantService.PAYLOAD_STATE, Collections.PayloadSchemaType.Keyword);
+        fields.put(QdrantService.PAYLOAD_IS_DELETED, Collections.PayloadSchemaType.Bool);
+        fields.put(QdrantService.PAYLOAD_MOOD, Collections.PayloadSchemaType.Keyword);
+        fields.put(QdrantService.PAYLOAD_TAG_IDS, Collections.PayloadSchemaType.Integer);
+        fields.put(QdrantService.PAYLOAD_AUTHOR_ID, Collections.PayloadSchemaType.Integer);
+        fields.put(QdrantService.PAYLOAD_CREATED_AT, Collections.PayloadSchemaType.Integer);
+        for (Map.Entry<String, Collections.PayloadSchemaType> field : fields.entrySet()) {
+            try {
+                client.createPayloadIndexAsync(collectionName, field.getKey(), field.getValue(),
+                        null, true, null, null).get();
+            } catch (Exception e) {
+                System.out.println("创建payload索引失败: " + field.getKey() + ", " + e.getMessage());
+            }
+        }
+    }
+}
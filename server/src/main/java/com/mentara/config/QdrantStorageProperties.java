@@ -0,0 +1,60 @@
+package com.mentara.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 帖子向量集合的存储配置属性
+ * 量化后Qdrant在内存中保存压缩向量用于检索，原始float32向量可放到磁盘（mmap），
+ * 搜索时先用压缩向量取oversampling倍候选，再用原始向量重新打分得到前k个。
+ * 新建集合（启动时集合不存在、向量重建）按此配置创建；已有集合通过 POST /admin/vector-storage/migrate 原地迁移
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "qdrant.storage")
+public class QdrantStorageProperties {
+
+    public enum Quantization {
+        NONE,     // 不量化，内存中保存float32向量
+        SCALAR,   // int8标量量化，内存约为原来的1/4
+        PRODUCT   // 乘积量化，按productCompression压缩
+    }
+
+    private Quantization quantization = Quantization.NONE;
+
+    /**
+     * 标量量化的取值分位数，超出该分位数的分量截断，降低离群值对精度的影响
+     */
+    private float scalarQuantile = 0.99f;
+
+    /**
+     * 乘积量化的压缩倍数：4、8、16、32、64
+     */
+    private int productCompression = 16;
+
+    /**
+     * 量化向量是否常驻内存（原始向量放磁盘时应为true，否则检索也要读盘）
+     */
+    private boolean quantizedAlwaysRam = true;
+
+    /**
+     * 原始向量是否放磁盘（mmap），只在重新打分时读取
+     */
+    private boolean vectorsOnDisk = false;
+
+    /**
+     * HNSW图是否放磁盘
+     */
+    private boolean hnswOnDisk = false;
+
+    /**
+     * 量化检索后是否用原始向量重新打分
+     */
+    private boolean rescore = true;
+
+    /**
+     * 量化检索的候选倍数：取limit * oversampling个候选再重新打分
+     */
+    private double oversampling = 2.0;
+}
@@ -0,0 +1,82 @@
+package com.mentara.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 帖子搜索配置属性
+ * 关键词同时走向量检索和本地倒排索引（BM25），两路结果按倒数排名融合；
+ * 倒排索引没有命中时只用向量检索，分页直接下推到Qdrant。
+ * 向量同时写入进程内的HNSW索引，Qdrant不可用时向量检索改查本地索引
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "mentara.search")
+public class SearchProperties {
+
+    /**
+     * 是否启用混合检索
+     */
+    private boolean hybridEnabled = true;
+
+    /**
+     * 倒数排名融合的平滑常数
+     */
+    private int rrfK = 60;
+
+    /**
+     * 融合时每路取的结果数，融合结果缓存后按页截取，翻过融合结果末尾即没有更多结果
+     */
+    private int maxFusionDepth = 200;
+
+    /**
+     * BM25词频饱和参数
+     */
+    private double bm25K1 = 1.2;
+
+    /**
+     * BM25文档长度归一化参数
+     */
+    private double bm25B = 0.75;
+
+    /**
+     * 标题词在索引中重复的次数（提高标题命中的权重）
+     */
+    private int titleBoost = 2;
+
+    /**
+     * 重建倒排索引时每批读取的帖子数
+     */
+    private int rebuildBatchSize = 500;
+
+    /**
+     * 是否维护本地HNSW向量索引
+     */
+    private boolean localIndexEnabled = true;
+
+    /**
+     * 本地向量索引快照文件
+     */
+    private String localIndexPath = "data/vector-index/post_vector.hnsw";
+
+    /**
+     * HNSW每层邻居数
+     */
+    private int hnswM = 16;
+
+    /**
+     * HNSW插入时的候选集大小
+     */
+    private int hnswEfConstruction = 200;
+
+    /**
+     * HNSW查询时的候选集大小
+     */
+    private int hnswEfSearch = 100;
+
+    /**
+     * 标记删除的节点超过该比例时，保存快照前先重建本地索引
+     */
+    private double localIndexCompactRatio = 0.3;
+}
@@ -0,0 +1,43 @@
+package com.mentara.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 关注时间线配置属性
+ * 普通作者的帖子审核通过时写入每个粉丝的收件箱（写扩散），
+ * 粉丝数达到门槛的作者不写扩散，读取时间线时再按作者拉取（读扩散）
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "mentara.timeline")
+public class TimelineProperties {
+
+    /**
+     * 每个用户收件箱保留的帖子ID数，超出后丢弃最早的
+     */
+    private int inboxCapacity = 300;
+
+    /**
+     * 粉丝数达到该值的作者改为读取时拉取
+     */
+    private int pullFollowerThreshold = 1000;
+
+    /**
+     * 启动时重建收件箱只回放该时间窗口内发布的帖子
+     */
+    private Duration rebuildWindow = Duration.ofDays(7);
+
+    /**
+     * 重建收件箱时每批读取的帖子数
+     */
+    private int rebuildBatchSize = 500;
+
+    /**
+     * 关注新用户时补入收件箱的该用户最近帖子数
+     */
+    private int followBackfillSize = 20;
+}
@@ -1,7 +1,11 @@
 package com.mentara.config;
 
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.reactive.function.client.WebClient;
 
 /**
@@ -12,8 +16,15 @@ public class WebClientConfig {
     
     @Bean
     public WebClient webClient() {
+        // 响应解析启用快速浮点数解析（embedding响应是几百上千个浮点数）
+        ObjectMapper decoderMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToEnable(StreamReadFeature.USE_FAST_DOUBLE_PARSER.mappedFeature())
+                .build();
         return WebClient.builder()
-                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(10 * 1024 * 1024)) // 10MB
+                .codecs(configurer -> {
+                    configurer.defaultCodecs().maxInMemorySize(10 * 1024 * 1024); // 10MB
+                    configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(decoderMapper));
+                })
                 .build();
     }
-} 
\ No newline at end of file
+}
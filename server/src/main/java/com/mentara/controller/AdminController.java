@@ -7,6 +7,7 @@ import com.mentara.dto.response.ReportedCommentResponse;
 import com.mentara.dto.response.ChatRoomResponse;
 import com.mentara.dto.response.PostResponse;
 import com.mentara.dto.response.CommentResponse;
+import com.mentara.dto.response.VectorReindexJobResponse;
 import com.mentara.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -42,6 +43,9 @@ public class AdminController {
     @Autowired
     private ChatRoomUserService chatRoomUserService;
 
+    @Autowired
+    private VectorReindexService vectorReindexService;
+
     /**
      * 获取管理员统计数据
      */
@@ -479,4 +483,81 @@ public class AdminController {
             return ResponseEntity.badRequest().body(java.util.Map.of("error", "恢复评论失败: " + e.getMessage()));
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 启动帖子向量重建（默认蓝绿：写入新集合，完成后切换别名）
+     */
+    @PostMapping("/vector-reindex")
+    public ResponseEntity<?> startVectorReindex(@RequestParam(defaultValue = "true") boolean blueGreen) {
+        try {
+            return ResponseEntity.ok(vectorReindexService.startReindex(blueGreen));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", "启动向量重建失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 最近一次向量重建任务的进度
+     */
+    @GetMapping("/vector-reindex")
+    public ResponseEntity<VectorReindexJobResponse> getLatestVectorReindex() {
+        VectorReindexJobResponse job = vectorReindexService.getLatestJob();
+        return job == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(job);
+    }
+
+    /**
+     * 指定向量重建任务的进度
+     */
+    @GetMapping("/vector-reindex/{jobId}")
+    public ResponseEntity<VectorReindexJobResponse> getVectorReindex(@PathVariable Long jobId) {
+        return ResponseEntity.ok(vectorReindexService.getJob(jobId));
+    }
+
+    /**
+     * 从检查点继续中断或失败的向量重建任务
+     */
+    @PostMapping("/vector-reindex/{jobId}/resume")
+    public ResponseEntity<?> resumeVectorReindex(@PathVariable Long jobId) {
+        try {
+            return ResponseEntity.ok(vectorReindexService.resumeReindex(jobId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", "继续向量重建失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 取消向量重建任务
+     */
+    @PostMapping("/vector-reindex/{jobId}/cancel")
+    public ResponseEntity<?> cancelVectorReindex(@PathVariable Long jobId) {
+        try {
+            return ResponseEntity.ok(vectorReindexService.cancelReindex(jobId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", "取消向量重建失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 帖子向量集合当前的量化和磁盘存储方式
+     */
+    @GetMapping("/vector-storage")
+    public ResponseEntity<?> getVectorStorage() {
+        try {
+            return ResponseEntity.ok(vectorReindexService.getStorage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", "读取向量存储信息失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 把qdrant.storage配置（量化、原始向量和HNSW图放磁盘）原地应用到帖子向量集合
+     */
+    @PostMapping("/vector-storage/migrate")
+    public ResponseEntity<?> migrateVectorStorage() {
+        try {
+            return ResponseEntity.ok(vectorReindexService.migrateStorage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", "迁移向量存储失败: " + e.getMessage()));
+        }
+    }
+}
@@ -3,7 +3,6 @@ package com.mentara.controller;
 import com.mentara.dto.ApiResponse;
 import com.mentara.util.CacheUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.web.bind.annotation.*;
 
@@ -32,17 +31,26 @@ public class CacheController {
         Map<String, Object> cacheInfo = new HashMap<>();
         
         for (String cacheName : cacheManager.getCacheNames()) {
-            Cache cache = cacheManager.getCache(cacheName);
-            if (cache instanceof org.springframework.cache.concurrent.ConcurrentMapCache) {
-                org.springframework.cache.concurrent.ConcurrentMapCache concurrentMapCache = 
-                    (org.springframework.cache.concurrent.ConcurrentMapCache) cache;
-                cacheInfo.put(cacheName, concurrentMapCache.getNativeCache().size());
-            }
+            cacheInfo.put(cacheName, cacheUtils.getCacheSize(cacheName));
         }
         
         return ApiResponse.success(cacheInfo);
     }
 
+    /**
+     * 获取各缓存的命中/未命中/淘汰统计
+     */
+    @GetMapping("/stats")
+    public ApiResponse<Map<String, Object>> getCacheStats() {
+        Map<String, Object> cacheStats = new HashMap<>();
+        
+        for (String cacheName : cacheManager.getCacheNames()) {
+            cacheStats.put(cacheName, cacheUtils.getCacheStatistics(cacheName));
+        }
+        
+        return ApiResponse.success(cacheStats);
+    }
+
     /**
      * 清除指定缓存
      */
@@ -3,20 +3,25 @@ package com.mentara.controller;
 import com.mentara.dto.request.CommentRequest;
 import com.mentara.dto.request.ReportCommentRequest;
 import com.mentara.dto.response.CommentResponse;
+import com.mentara.dto.response.CursorPageResponse;
 import com.mentara.dto.response.MessageResponse;
 import com.mentara.dto.response.ReportedCommentResponse;
 import com.mentara.security.CurrentUser;
 import com.mentara.security.UserPrincipal;
 import com.mentara.service.CommentService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+@Validated
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("")
@@ -46,6 +51,16 @@ public class CommentController {
         return ResponseEntity.ok(commentResponses);
     }
 
+    @GetMapping("/posts/{postId}/comments/feed")
+    public ResponseEntity<CursorPageResponse<CommentResponse>> getCommentFeedOfPost(
+        @PathVariable Long postId,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+        @CurrentUser UserPrincipal currentUser) {
+        Long currentUserId = currentUser != null ? currentUser.getId() : null;
+        return ResponseEntity.ok(commentService.getCommentsOfPostByCursor(postId, cursor, size, currentUserId));
+    }
+
     @GetMapping("/posts/{postId}/comments/last-page")
     public ResponseEntity<Page<CommentResponse>> getLastPageCommentsOfPost(
         @PathVariable Long postId, 
@@ -77,6 +92,16 @@ public class CommentController {
         return ResponseEntity.ok(replies);
     }
 
+    @GetMapping("/comments/{commentId}/replies-to-top-comment/feed")
+    public ResponseEntity<CursorPageResponse<CommentResponse>> getReplyFeedOfTopComment(
+        @PathVariable Long commentId,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+        @CurrentUser UserPrincipal currentUser) {
+        Long currentUserId = currentUser != null ? currentUser.getId() : null;
+        return ResponseEntity.ok(commentService.getRepliesOfTopCommentByCursor(commentId, cursor, size, currentUserId));
+    }
+
     @GetMapping("/comments/{commentId}/goto/{parentId}")
     public ResponseEntity<Page<CommentResponse>> getPageOfComment(
         @PathVariable Long commentId,
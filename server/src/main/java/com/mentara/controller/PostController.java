@@ -1,6 +1,7 @@
 package com.mentara.controller;
 
 import com.mentara.dto.request.PostRequest;
+import com.mentara.dto.response.CursorPageResponse;
 import com.mentara.dto.response.MessageResponse;
 import com.mentara.dto.response.PostResponse;
 import com.mentara.security.CurrentUser;
@@ -66,16 +67,83 @@ public class PostController {
         return ResponseEntity.ok(postService.findAllPosts(pageable, currentUserId));
     }
 
+    /**
+     * 游标分页的帖子流（无限滚动），翻页深度不影响查询性能
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<CursorPageResponse<PostResponse>> getPostFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String tags,
+            @CurrentUser UserPrincipal currentUser) {
+        Long currentUserId = currentUser == null ? null : currentUser.getId();
+
+        if (tags != null && !tags.trim().isEmpty()) {
+            List<Long> tagIds = Arrays.stream(tags.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(Long::parseLong)
+                .collect(Collectors.toList());
+            return ResponseEntity.ok(postService.findPostsByTagsAndCursor(tagIds, cursor, size, currentUserId));
+        }
+
+        if (filter != null && !filter.trim().isEmpty()) {
+            return ResponseEntity.ok(postService.findPostsByFilterAndCursor(filter, cursor, size, currentUserId));
+        }
+
+        return ResponseEntity.ok(postService.findAllPostsByCursor(cursor, size, currentUserId));
+    }
+
+    @GetMapping("/mood/{moodType}/feed")
+    public ResponseEntity<CursorPageResponse<PostResponse>> getPostFeedByMood(
+            @PathVariable String moodType,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+            @CurrentUser UserPrincipal currentUser) {
+        Long currentUserId = currentUser == null ? null : currentUser.getId();
+        MoodType mood;
+        try {
+            mood = MoodType.valueOf(moodType.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(postService.findPostsByMoodAndCursor(mood, cursor, size, currentUserId));
+    }
+
+    @GetMapping("/user/{userId}/feed")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CursorPageResponse<PostResponse>> getPostFeedByUserId(@PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+            @CurrentUser UserPrincipal currentUser) {
+        return ResponseEntity.ok(postService.findPostsByUserAndCursor(userId, cursor, size, currentUser.getId()));
+    }
+
+    /**
+     * 关注的用户的帖子流
+     */
+    @GetMapping("/following/feed")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CursorPageResponse<PostResponse>> getFollowingFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+            @CurrentUser UserPrincipal currentUser) {
+        return ResponseEntity.ok(postService.findFollowingPostsByCursor(cursor, size, currentUser.getId()));
+    }
+
     @GetMapping("/search")
     public ResponseEntity<Page<PostResponse>> searchPosts(
             @RequestParam String keyword,
+            @RequestParam(required = false) MoodType mood,
+            @RequestParam(required = false) List<Long> tagIds,
             @RequestParam(defaultValue = "0") @Min(0) int page,
             @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
             @CurrentUser UserPrincipal currentUser) {
         Pageable pageable = PageRequest.of(page, size);
         Long currentUserId = currentUser == null ? null : currentUser.getId();
 
-        return ResponseEntity.ok(postService.searchPosts(keyword, pageable, currentUserId));
+        return ResponseEntity.ok(postService.searchPosts(keyword, mood, tagIds, pageable, currentUserId));
     }
 
     @GetMapping("/filter/{filterType}")
@@ -108,7 +176,16 @@ public class PostController {
     @GetMapping("/{postId}")
     public ResponseEntity<?> getPostById(@PathVariable Long postId, @CurrentUser UserPrincipal currentUser) {
         Long currentUserId = currentUser == null ? null : currentUser.getId();
-        return ResponseEntity.ok(postService.findById(postId, currentUserId));
+        return ResponseEntity.ok(postService.findPostDetail(postId, currentUserId));
+    }
+
+    @GetMapping("/{postId}/related")
+    public ResponseEntity<List<PostResponse>> getRelatedPosts(
+            @PathVariable Long postId,
+            @RequestParam(defaultValue = "6") @Min(1) @Max(20) int limit,
+            @CurrentUser UserPrincipal currentUser) {
+        Long currentUserId = currentUser == null ? null : currentUser.getId();
+        return ResponseEntity.ok(postService.findRelatedPosts(postId, limit, currentUserId));
     }
 
     @GetMapping("/user/me")
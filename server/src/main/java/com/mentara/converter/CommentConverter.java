@@ -3,39 +3,79 @@ package com.mentara.converter;
 import com.mentara.dto.response.CommentResponse;
 import com.mentara.entity.Comment;
 import com.mentara.entity.User;
+import com.mentara.cache.EngagementCounterBuffer;
 import com.mentara.util.AvatarUtils;
 import com.mentara.service.OssService;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Component
 public class CommentConverter {
 
+    private static final long URL_EXPIRES_SECONDS = 3600L;
+
     @Autowired
     private OssService ossService;
 
+    @Autowired
+    private EngagementCounterBuffer counterBuffer;
+
 
     public CommentResponse toResponse(Comment comment, boolean isLiked) {
         return toResponse(comment, isLiked, null);
     }
 
     public CommentResponse toResponse(Comment comment, boolean isLiked, Long currentUserId) {
+        return toResponse(comment, isLiked, currentUserId, signUrls(List.of(comment)));
+    }
+
+    /**
+     * 批量转换一页评论：整页的头像对象键去重后一次性生成临时URL
+     */
+    public List<CommentResponse> toResponses(List<Comment> comments, Map<Long, Boolean> likeStatusMap, Long currentUserId) {
+        Map<String, String> signedUrls = signUrls(comments);
+        List<CommentResponse> responses = new ArrayList<>(comments.size());
+        for (Comment comment : comments) {
+            responses.add(toResponse(comment, likeStatusMap.getOrDefault(comment.getId(), false), currentUserId, signedUrls));
+        }
+        return responses;
+    }
+
+    private Map<String, String> signUrls(List<Comment> comments) {
+        Set<String> objectKeys = new LinkedHashSet<>();
+        for (Comment comment : comments) {
+            objectKeys.add(displayAvatar(comment.getAuthor()));
+        }
+        return ossService.generatePresignedUrls(objectKeys, URL_EXPIRES_SECONDS);
+    }
+
+    private static String displayAvatar(User author) {
+        // 如果用户已删除，使用默认头像
+        if (author.getIsDeleted() != null && author.getIsDeleted()) {
+            return AvatarUtils.getDeletedUserAvatar();
+        }
+        return author.getAvatar();
+    }
+
+    private CommentResponse toResponse(Comment comment, boolean isLiked, Long currentUserId, Map<String, String> signedUrls) {
         User author = comment.getAuthor();
         
         // 处理已删除用户的情况
         String authorNickname = author.getNickname();
-        String authorAvatar = author.getAvatar();
         
         // 如果用户已删除，使用默认值
         if (author.getIsDeleted() != null && author.getIsDeleted()) {
             authorNickname = "已删除用户";
-            authorAvatar = AvatarUtils.getDeletedUserAvatar();
-        }
-        // 如果是object key，转换为临时URL
-        if (authorAvatar != null) {
-            authorAvatar = ossService.generatePresignedUrl(authorAvatar, 3600L);
         }
+        // object key转换为临时URL
+        String authorAvatar = signedUrls.get(displayAvatar(author));
         
         // 处理软删除评论的情况
         String content = comment.getContent();
@@ -65,7 +105,8 @@ public class CommentConverter {
                 .parentId(comment.getParent() != null ? comment.getParent().getId() : null)
                 .topCommentId(comment.getTopComment() != null ? comment.getTopComment().getId() : null)
                 .repliesCount(comment.getReplysCount())
-                .likesCount(comment.getLikesCount())
+                // 叠加写缓冲中尚未写回的点赞数
+                .likesCount((int) Math.max(0, comment.getLikesCount() + counterBuffer.pendingCommentLikes(comment.getId())))
                 .reportCount(comment.getReportCount() != null ? comment.getReportCount() : 0)
                 .isLiked(isLiked)
                 .canDelete(canDelete)
@@ -1,30 +1,119 @@
 package com.mentara.converter;
 
+import com.mentara.dto.projection.PostFeedRow;
 import com.mentara.dto.response.PostResponse;
 import com.mentara.entity.Post;
+import com.mentara.entity.PostTag;
 import com.mentara.entity.User;
 import com.mentara.util.AvatarUtils;
 import com.mentara.service.OssService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.LinkedHashSet;
+
 
 @Component
 public class PostConverter {
+    private static final long URL_EXPIRES_SECONDS = 3600L;
+
     @Autowired
     private OssService ossService;
     public PostResponse toResponse(Post post, boolean isLiked) {
+        return toResponse(post, isLiked, signUrls(List.of(post)));
+    }
+
+    /**
+     * 批量转换一页帖子：整页的头像和图片对象键去重后一次性生成临时URL
+     */
+    public List<PostResponse> toResponses(List<Post> posts, Map<Long, Boolean> likeStatusMap) {
+        Map<String, String> signedUrls = signUrls(posts);
+        List<PostResponse> responses = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            responses.add(toResponse(post, likeStatusMap.getOrDefault(post.getId(), false), signedUrls));
+        }
+        return responses;
+    }
+
+    /**
+     * 转换帖子列表读模型：标签和图片由调用方按整页帖子ID批量查询后传入，
+     * 整页的头像和图片对象键去重后一次性生成临时URL
+     */
+    public List<PostResponse> toFeedResponses(List<PostFeedRow> rows, Map<Long, List<PostTag>> tagsByPostId,
+                                              Map<Long, List<String>> imagesByPostId, Map<Long, Boolean> likeStatusMap) {
+        Set<String> objectKeys = new LinkedHashSet<>();
+        for (PostFeedRow row : rows) {
+            objectKeys.add(displayAvatar(row));
+            objectKeys.addAll(imagesByPostId.getOrDefault(row.id(), List.of()));
+        }
+        Map<String, String> signedUrls = ossService.generatePresignedUrls(objectKeys, URL_EXPIRES_SECONDS);
+
+        List<PostResponse> responses = new ArrayList<>(rows.size());
+        for (PostFeedRow row : rows) {
+            boolean authorDeleted = Boolean.TRUE.equals(row.authorDeleted());
+            responses.add(PostResponse.builder()
+                    .id(row.id())
+                    .title(row.title())
+                    .content(row.content())
+                    .mood(row.mood())
+                    .tags(tagsByPostId.getOrDefault(row.id(), new ArrayList<>()))
+                    .imageUrls(imagesByPostId.getOrDefault(row.id(), List.of()).stream().map(signedUrls::get).toList())
+                    .likesCount(row.likesCount())
+                    .commentsCount(row.commentsCount())
+                    .createdAt(row.createdAt())
+                    .authorId(row.authorId())
+                    // 已删除用户显示默认昵称，按普通用户显示
+                    .authorNickname(authorDeleted ? "已删除用户" : row.authorNickname())
+                    .authorAvatar(signedUrls.get(displayAvatar(row)))
+                    .isLiked(likeStatusMap.getOrDefault(row.id(), false))
+                    .isAnnouncement(row.isAnnouncement())
+                    .authorRole(authorDeleted ? "USER" : row.authorRole().name())
+                    .build());
+        }
+        return responses;
+    }
+
+    private Map<String, String> signUrls(List<Post> posts) {
+        Set<String> objectKeys = new LinkedHashSet<>();
+        for (Post post : posts) {
+            objectKeys.add(displayAvatar(post.getAuthor()));
+            if (post.getImageUrls() != null) {
+                objectKeys.addAll(post.getImageUrls());
+            }
+        }
+        return ossService.generatePresignedUrls(objectKeys, URL_EXPIRES_SECONDS);
+    }
+
+    private static String displayAvatar(User author) {
+        // 如果用户已删除，使用默认头像
+        if (author.getIsDeleted() != null && author.getIsDeleted()) {
+            return AvatarUtils.getDeletedUserAvatar();
+        }
+        return author.getAvatar();
+    }
+
+    private static String displayAvatar(PostFeedRow row) {
+        if (Boolean.TRUE.equals(row.authorDeleted())) {
+            return AvatarUtils.getDeletedUserAvatar();
+        }
+        return row.authorAvatar();
+    }
+
+    private PostResponse toResponse(Post post, boolean isLiked, Map<String, String> signedUrls) {
         User author = post.getAuthor();
         
         // 处理已删除用户的情况
         String authorNickname = author.getNickname();
-        String authorAvatar = author.getAvatar();
+        String authorAvatar = displayAvatar(author);
         String authorRole = author.getRole().name();
         
         // 如果用户已删除，使用默认值
         if (author.getIsDeleted() != null && author.getIsDeleted()) {
             authorNickname = "已删除用户";
-            authorAvatar = AvatarUtils.getDeletedUserAvatar();
             authorRole = "USER"; // 已删除用户显示为普通用户
         }
     
@@ -35,14 +124,14 @@ public class PostConverter {
                 .mood(post.getMood())
                 .tags(post.getTags())
                 .imageUrls(post.getImageUrls() == null ? null : post.getImageUrls().stream().map(key -> 
-                    ossService.generatePresignedUrl(key, 3600L)
+                    signedUrls.get(key)
                 ).toList())
                 .likesCount(post.getLikesCount())
                 .commentsCount(post.getCommentsCount())
                 .createdAt(post.getCreatedAt())
                 .authorId(author.getId())
                 .authorNickname(authorNickname)
-                .authorAvatar(ossService.generatePresignedUrl(authorAvatar, 3600L))
+                .authorAvatar(signedUrls.get(authorAvatar))
                 .isLiked(isLiked)
                 .isAnnouncement(post.getIsAnnouncement())
                 .authorRole(authorRole)
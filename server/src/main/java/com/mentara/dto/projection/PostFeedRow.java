@@ -0,0 +1,28 @@
+package com.mentara.dto.projection;
+
+import com.mentara.entity.UserRole;
+import com.mentara.enums.MoodType;
+
+import java.time.LocalDateTime;
+
+/**
+ * 帖子列表读模型：帖子和作者展示所需的列由一条JPQL构造器查询取出，
+ * 不加载Post/User实体，避免作者、心情评分等关联的逐行查询；
+ * 标签和图片按帖子ID另行批量查询
+ */
+public record PostFeedRow(
+    Long id,
+    String title,
+    String content,
+    MoodType mood,
+    Integer likesCount,
+    Integer commentsCount,
+    LocalDateTime createdAt,
+    Boolean isAnnouncement,
+    Long authorId,
+    String authorNickname,
+    String authorAvatar,
+    UserRole authorRole,
+    Boolean authorDeleted
+) {
+}
@@ -0,0 +1,47 @@
+package com.mentara.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * bert微服务批量接口（/mood_score/batch、/depress_check/batch）的响应DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BertBatchResponse {
+
+    /**
+     * 与请求文本一一对应的预测结果
+     */
+    @JsonProperty("results")
+    private List<Prediction> results;
+
+    /**
+     * 结果条数
+     */
+    @JsonProperty("count")
+    private Integer count;
+
+    /**
+     * 模型名称
+     */
+    @JsonProperty("model")
+    private String model;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Prediction {
+
+        @JsonProperty("label")
+        private Integer label;
+
+        @JsonProperty("score")
+        private Double score;
+    }
+}
@@ -0,0 +1,35 @@
+package com.mentara.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Embedding服务批量接口的响应DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmbeddingBatchResponse {
+
+    /**
+     * 与请求文本一一对应的embedding向量
+     */
+    @JsonProperty("embeddings")
+    private List<float[]> embeddings;
+
+    /**
+     * 向量条数
+     */
+    @JsonProperty("count")
+    private Integer count;
+
+    /**
+     * 向量维度
+     */
+    @JsonProperty("dimension")
+    private Integer dimension;
+}
@@ -5,8 +5,6 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.util.List;
-
 /**
  * Embedding服务的响应DTO
  */
@@ -16,10 +14,10 @@ import java.util.List;
 public class EmbeddingResponse {
     
     /**
-     * embedding向量数组
+     * embedding向量数组，Jackson直接解析为float[]，不装箱
      */
     @JsonProperty("embedding")
-    private List<Float> embedding;
+    private float[] embedding;
     
     /**
      * 响应状态码
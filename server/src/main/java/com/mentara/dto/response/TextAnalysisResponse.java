@@ -0,0 +1,81 @@
+package com.mentara.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * bert微服务综合分析接口（/analyze、/analyze/batch）的响应DTO：
+ * 一次返回心情评分和全部风险检测结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TextAnalysisResponse {
+
+    public static final String DEPRESSION = "depression";
+
+    /**
+     * 心情评分，label为心情得分
+     */
+    @JsonProperty("mood")
+    private BertBatchResponse.Prediction mood;
+
+    /**
+     * 风险检测结果，键为检测类型（如depression）
+     */
+    @JsonProperty("risks")
+    private Map<String, DepressCheckResponse> risks;
+
+    /**
+     * 心情得分，打分失败时为null
+     */
+    @JsonIgnore
+    public Integer getMoodGrade() {
+        return mood != null ? mood.getLabel() : null;
+    }
+
+    /**
+     * 抑郁检测结果，检测失败时为null
+     */
+    @JsonIgnore
+    public DepressCheckResponse getDepression() {
+        return risks != null ? risks.get(DEPRESSION) : null;
+    }
+
+    /**
+     * 各项风险检测中的最高分，没有结果时为0
+     */
+    @JsonIgnore
+    public double getMaxRiskScore() {
+        double maxScore = 0.0;
+        if (risks != null) {
+            for (DepressCheckResponse risk : risks.values()) {
+                if (risk != null && risk.getScore() != null) {
+                    maxScore = Math.max(maxScore, risk.getScore());
+                }
+            }
+        }
+        return maxScore;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Batch {
+
+        /**
+         * 与请求文本一一对应的分析结果
+         */
+        @JsonProperty("results")
+        private List<TextAnalysisResponse> results;
+
+        @JsonProperty("count")
+        private Integer count;
+    }
+}
@@ -0,0 +1,39 @@
+package com.mentara.dto.response;
+
+import com.mentara.entity.VectorReindexJob;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 向量重建任务进度
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VectorReindexJobResponse {
+    private Long id;
+    private VectorReindexJob.Status status;
+    private Boolean blueGreen;
+    private String targetCollection;
+    private Long lastPostId;
+    private Long totalPosts;
+    private Long indexedCount;
+    private Long failedCount;
+    // 完成百分比（0-100）
+    private Double progress;
+    // 本次运行的写入速度（帖子/秒），任务未在运行时为空
+    private Double postsPerSecond;
+    // 按当前速度估算的剩余秒数
+    private Long etaSeconds;
+    private String errorMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,34 @@
+package com.mentara.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 帖子向量集合的存储方式
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VectorStorageResponse {
+    // 实际集合名（别名指向的集合）
+    private String collection;
+    // Qdrant集合状态：GREEN为就绪，YELLOW为正在按新配置优化
+    private String status;
+    private Long pointsCount;
+    private Long indexedVectorsCount;
+    // 集合当前的量化方式，例如 SCALAR(int8, quantile=0.99)、PRODUCT(x16)、NONE
+    private String quantization;
+    private Boolean vectorsOnDisk;
+    private Boolean hnswOnDisk;
+    // qdrant.storage配置的量化方式
+    private String configuredQuantization;
+    // 当前存储方式是否与配置一致
+    private Boolean matchesConfig;
+    // 按当前存储方式估算的向量常驻内存字节数（不含HNSW图和payload）
+    private Long estimatedVectorRamBytes;
+}
@@ -0,0 +1,59 @@
+package com.mentara.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * AI审核和打分结果缓存
+ * 以任务、模型/提示词版本和规范化文本的SHA-256为键，相同文本再次出现时直接复用结果，
+ * 服务重启不丢失；过期和超出容量的条目由AiResultCacheService定期清理
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "ai_result_cache", indexes = {
+    @Index(name = "idx_ai_result_cache_key", columnList = "cache_key", unique = true),
+    @Index(name = "idx_ai_result_cache_expires", columnList = "expires_at")
+})
+public class AiResultCacheEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * SHA-256(任务 + 版本 + 规范化文本)的十六进制表示
+     */
+    @Column(name = "cache_key", nullable = false, length = 64)
+    private String cacheKey;
+
+    @Column(name = "task", nullable = false, length = 40)
+    private String task;
+
+    /**
+     * 结果的JSON序列化
+     */
+    @Column(name = "result_json", nullable = false, columnDefinition = "TEXT")
+    private String resultJson;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public AiResultCacheEntry(String cacheKey, String task, String resultJson, LocalDateTime expiresAt) {
+        this.cacheKey = cacheKey;
+        this.task = task;
+        this.resultJson = resultJson;
+        this.expiresAt = expiresAt;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -18,6 +18,8 @@ import java.util.List;
     @Index(name = "idx_posts_state_deleted_created", columnList = "state, is_deleted, created_at DESC"),
     @Index(name = "idx_posts_state_deleted_likes", columnList = "state, is_deleted, likes_count DESC"),
     @Index(name = "idx_posts_author_state_deleted", columnList = "author_id, state, is_deleted, created_at DESC"),
+    // 游标分页：公告置顶后按时间倒序，主键隐含在二级索引末尾
+    @Index(name = "idx_posts_state_deleted_ann_created", columnList = "state, is_deleted, is_announcement DESC, created_at DESC"),
 })
 public class Post {
     @Id
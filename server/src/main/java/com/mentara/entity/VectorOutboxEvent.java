@@ -0,0 +1,74 @@
+package com.mentara.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 帖子向量待同步事件（事务性发件箱）
+ * 与帖子的创建、删除在同一事务中写入，由VectorOutboxService批量同步到Qdrant后删除；
+ * 同步失败时推迟nextAttemptAt重试，服务重启不丢失；重试次数用尽后标记为FAILED，保留待人工处理
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "vector_outbox", indexes = {
+    @Index(name = "idx_vector_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+})
+public class VectorOutboxEvent {
+
+    public enum Operation {
+        UPSERT,  // 按帖子当前内容重新向量化并写入
+        DELETE   // 删除帖子向量
+    }
+
+    public enum Status {
+        PENDING, // 待同步（含退避重试中）
+        FAILED   // 重试次数用尽，不再自动处理
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "post_id", nullable = false)
+    private Long postId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", nullable = false, length = 10)
+    private Operation operation;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 10, columnDefinition = "VARCHAR(10) NOT NULL DEFAULT 'PENDING'")
+    private Status status = Status.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    /**
+     * 不早于该时间处理，失败后按指数退避推迟
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public VectorOutboxEvent(Long postId, Operation operation) {
+        this.postId = postId;
+        this.operation = operation;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
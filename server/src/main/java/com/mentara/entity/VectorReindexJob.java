@@ -0,0 +1,83 @@
+package com.mentara.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 帖子向量重建任务
+ * 按帖子ID升序分批重建，每批写入完成后记录检查点（lastPostId），中断后从检查点继续
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "vector_reindex_jobs", indexes = {
+    @Index(name = "idx_vector_reindex_jobs_status", columnList = "status")
+})
+public class VectorReindexJob {
+
+    public enum Status {
+        RUNNING,      // 执行中
+        INTERRUPTED,  // 服务重启导致中断，可继续
+        FAILED,       // 执行出错，可继续
+        CANCELLED,    // 已取消
+        COMPLETED     // 已完成
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status = Status.RUNNING;
+
+    /**
+     * 是否写入新集合并在完成后切换别名（蓝绿），否则直接覆盖写入当前集合
+     */
+    @Column(name = "blue_green", nullable = false)
+    private Boolean blueGreen = true;
+
+    @Column(name = "target_collection", nullable = false)
+    private String targetCollection;
+
+    /**
+     * 检查点：ID不大于该值的帖子均已写入
+     */
+    @Column(name = "last_post_id", nullable = false)
+    private Long lastPostId = 0L;
+
+    @Column(name = "total_posts", nullable = false)
+    private Long totalPosts = 0L;
+
+    @Column(name = "indexed_count", nullable = false)
+    private Long indexedCount = 0L;
+
+    @Column(name = "failed_count", nullable = false)
+    private Long failedCount = 0L;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        startedAt = LocalDateTime.now();
+        updatedAt = startedAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,20 @@
+package com.mentara.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * AI服务暂不可用：熔断中、并发已满或重试后仍失败
+ * 调用方应保留待处理状态稍后重试，而不是把本次失败当作处理结果
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class AiServiceUnavailableException extends RuntimeException {
+
+    public AiServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    public AiServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
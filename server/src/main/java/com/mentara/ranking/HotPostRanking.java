@@ -0,0 +1,216 @@
+package com.mentara.ranking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongPredicate;
+
+/**
+ * 内存中的热度榜（Top-N）
+ * 按（是否公告，热度分，帖子ID）倒序保存在跳表中，读取不加锁；
+ * 点赞/评论只重新计算对应帖子的热度分，超出容量时淘汰分数最低的帖子
+ */
+public class HotPostRanking {
+
+    private static final double LN2 = Math.log(2);
+
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int result = Boolean.compare(b.announcement(), a.announcement());
+        if (result == 0) {
+            result = Double.compare(b.score(), a.score());
+        }
+        return result != 0 ? result : Long.compare(b.postId(), a.postId());
+    };
+
+    /**
+     * 榜单条目
+     *
+     * @param createdAt 发布时间（epoch秒）
+     */
+    public record Entry(long postId, boolean announcement, int likes, int comments, long createdAt, double score) {
+    }
+
+    private final double likeWeight;
+
+    private final double commentWeight;
+
+    private final double halfLifeSeconds;
+
+    private final int minLikes;
+
+    private final int maxSize;
+
+    private final Object lock = new Object();
+
+    private volatile State state = new State();
+
+    public HotPostRanking(double likeWeight, double commentWeight, long halfLifeSeconds, int minLikes, int maxSize) {
+        this.likeWeight = likeWeight;
+        this.commentWeight = commentWeight;
+        this.halfLifeSeconds = halfLifeSeconds;
+        this.minLikes = minLikes;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 热度分：互动量取对数后加上按半衰期折算的发布时间
+     */
+    public double score(int likes, int comments, long createdAt) {
+        double engagement = Math.max(0, likeWeight * likes + commentWeight * comments);
+        return Math.log1p(engagement) / LN2 + createdAt / halfLifeSeconds;
+    }
+
+    /**
+     * 写入帖子的最新计数（点赞数不足门槛时移出榜单）
+     */
+    public void put(long postId, boolean announcement, int likes, int comments, long createdAt) {
+        synchronized (lock) {
+            upsert(state, postId, announcement, likes, comments, createdAt);
+        }
+    }
+
+    /**
+     * 按增量更新已在榜单中的帖子
+     *
+     * @return 帖子不在榜单中时返回false，由调用方从数据库加载
+     */
+    public boolean applyDelta(long postId, int likesDelta, int commentsDelta) {
+        synchronized (lock) {
+            State current = state;
+            Entry entry = current.byId.get(postId);
+            if (entry == null) {
+                return false;
+            }
+            upsert(current, postId, entry.announcement(), entry.likes() + likesDelta,
+                entry.comments() + commentsDelta, entry.createdAt());
+            return true;
+        }
+    }
+
+    public void remove(long postId) {
+        synchronized (lock) {
+            State current = state;
+            Entry entry = current.byId.remove(postId);
+            if (entry != null) {
+                current.ranked.remove(entry);
+            }
+        }
+    }
+
+    /**
+     * 用新加载的数据整体替换榜单
+     */
+    public void replaceAll(Collection<Entry> entries) {
+        State rebuilt = new State();
+        for (Entry entry : entries) {
+            upsert(rebuilt, entry.postId(), entry.announcement(), entry.likes(), entry.comments(), entry.createdAt());
+        }
+        synchronized (lock) {
+            state = rebuilt;
+        }
+    }
+
+    /**
+     * 按排名位置读取一页
+     */
+    public List<Entry> page(int offset, int limit) {
+        List<Entry> result = new ArrayList<>(Math.max(0, Math.min(limit, 64)));
+        Iterator<Entry> iterator = state.ranked.iterator();
+        for (int skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            iterator.next();
+        }
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    /**
+     * 跳过excluded匹配的帖子后按排名位置读取一页，offset按跳过后的位置计算
+     */
+    public List<Entry> page(int offset, int limit, LongPredicate excluded) {
+        List<Entry> result = new ArrayList<>(Math.max(0, Math.min(limit, 64)));
+        int skipped = 0;
+        for (Entry entry : state.ranked) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (excluded.test(entry.postId())) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 跳过excluded匹配的帖子后的条目数
+     */
+    public int count(LongPredicate excluded) {
+        int count = 0;
+        for (Entry entry : state.ranked) {
+            if (!excluded.test(entry.postId())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 读取排在指定位置之后的一页（游标分页）
+     */
+    public List<Entry> after(boolean announcement, double score, long postId, int limit) {
+        Entry probe = new Entry(postId, announcement, 0, 0, 0, score);
+        List<Entry> result = new ArrayList<>(Math.max(0, Math.min(limit, 64)));
+        for (Entry entry : state.ranked.tailSet(probe, false)) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    public Entry get(long postId) {
+        return state.byId.get(postId);
+    }
+
+    public int size() {
+        return state.byId.size();
+    }
+
+    private void upsert(State target, long postId, boolean announcement, int likes, int comments, long createdAt) {
+        Entry previous = target.byId.remove(postId);
+        if (previous != null) {
+            target.ranked.remove(previous);
+        }
+        if (likes < minLikes) {
+            return;
+        }
+        Entry entry = new Entry(postId, announcement, likes, comments, createdAt, score(likes, comments, createdAt));
+        target.byId.put(postId, entry);
+        target.ranked.add(entry);
+        while (target.byId.size() > maxSize) {
+            Entry lowest = target.ranked.pollLast();
+            if (lowest == null) {
+                break;
+            }
+            target.byId.remove(lowest.postId());
+        }
+    }
+
+    private static final class State {
+        private final NavigableSet<Entry> ranked = new ConcurrentSkipListSet<>(ORDER);
+        private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,229 @@
+package com.mentara.ranking;
+
+import com.mentara.cache.CacheTagIndex;
+import com.mentara.cache.CacheTags;
+import com.mentara.cache.EngagementCounterBuffer;
+import com.mentara.config.HotRankingProperties;
+import com.mentara.entity.Post;
+import com.mentara.enums.PostState;
+import com.mentara.repository.PostRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+/**
+ * "最热"榜单引擎
+ * 启动后从数据库加载候选帖子建立榜单，之后由点赞/评论事件增量更新；
+ * 不在榜单中的帖子收到事件后记入待加载集合，由定时任务批量查询后决定是否入榜；
+ * 帖子删除或下架时由调用方在事务提交后移出榜单，定期整体重建清理超出时间窗口的帖子
+ */
+@Slf4j
+@Component
+public class HotRankingEngine implements EngagementCounterBuffer.Listener {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private EngagementCounterBuffer counterBuffer;
+
+    @Autowired
+    private CacheTagIndex cacheTagIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final HotRankingProperties properties;
+
+    private final HotPostRanking ranking;
+
+    private final Set<Long> pendingLoad = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 榜单中帖子的作者，按作者排除（拉黑关系）时使用；整体重建时替换
+     */
+    private volatile Map<Long, Long> authorIds = new ConcurrentHashMap<>();
+
+    private volatile boolean built = false;
+
+    @Autowired
+    public HotRankingEngine(HotRankingProperties properties) {
+        this.properties = properties;
+        this.ranking = new HotPostRanking(properties.getLikeWeight(), properties.getCommentWeight(),
+            properties.getHalfLife().getSeconds(), properties.getMinLikes(), properties.getMaxSize());
+    }
+
+    @PostConstruct
+    public void init() {
+        counterBuffer.addListener(this);
+        Gauge.builder("mentara.hot.ranking.size", ranking, HotPostRanking::size)
+            .description("热度榜中的帖子数")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void onPostEngagement(Long postId, int likesDelta, int commentsDelta) {
+        if (!ranking.applyDelta(postId, likesDelta, commentsDelta) && likesDelta > 0) {
+            pendingLoad.add(postId);
+        }
+    }
+
+    /**
+     * 帖子删除或离开VALID状态后移出榜单，应在事务提交后调用，避免回滚后帖子从榜单消失
+     */
+    public void remove(Long postId) {
+        pendingLoad.remove(postId);
+        if (ranking.get(postId) == null) {
+            return;
+        }
+        ranking.remove(postId);
+        authorIds.remove(postId);
+        cacheTagIndex.evictTags(CacheTags.FEED_HOT);
+    }
+
+    /**
+     * 按排名位置读取一页帖子ID
+     */
+    public List<HotPostRanking.Entry> page(int offset, int limit) {
+        ensureBuilt();
+        return ranking.page(offset, limit);
+    }
+
+    /**
+     * 排除指定作者的帖子后按排名位置读取一页帖子ID
+     */
+    public List<HotPostRanking.Entry> page(int offset, int limit, Set<Long> excludedAuthorIds) {
+        ensureBuilt();
+        if (excludedAuthorIds.isEmpty()) {
+            return ranking.page(offset, limit);
+        }
+        return ranking.page(offset, limit, byAuthor(excludedAuthorIds));
+    }
+
+    /**
+     * 排除指定作者的帖子后的榜单条目数
+     */
+    public int size(Set<Long> excludedAuthorIds) {
+        ensureBuilt();
+        if (excludedAuthorIds.isEmpty()) {
+            return ranking.size();
+        }
+        return ranking.count(byAuthor(excludedAuthorIds));
+    }
+
+    /**
+     * 读取排在游标之后的一页帖子ID
+     */
+    public List<HotPostRanking.Entry> after(boolean announcement, double score, long postId, int limit) {
+        ensureBuilt();
+        return ranking.after(announcement, score, postId, limit);
+    }
+
+    public int size() {
+        ensureBuilt();
+        return ranking.size();
+    }
+
+    /**
+     * 加载收到互动事件但不在榜单中的帖子
+     */
+    @Scheduled(fixedDelayString = "${mentara.hot.load-interval-ms:5000}")
+    public void loadPending() {
+        if (!built || pendingLoad.isEmpty()) {
+            return;
+        }
+        List<Long> postIds = new ArrayList<>(pendingLoad);
+        pendingLoad.removeAll(postIds);
+        boolean changed = false;
+        for (Post post : postRepository.findAllById(postIds)) {
+            if (isRankable(post)) {
+                put(post);
+                changed |= ranking.get(post.getId()) != null;
+            }
+        }
+        if (changed) {
+            cacheTagIndex.evictTags(CacheTags.FEED_HOT);
+        }
+    }
+
+    /**
+     * 定期从数据库重建榜单
+     */
+    @Scheduled(fixedDelayString = "${mentara.hot.rebuild-interval-ms:600000}",
+        initialDelayString = "${mentara.hot.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        LocalDateTime since = LocalDateTime.now().minus(properties.getCandidateWindow());
+        List<Post> candidates = postRepository.findHotCandidates(properties.getMinLikes(), since,
+            PageRequest.of(0, properties.getCandidateLimit()));
+        List<HotPostRanking.Entry> entries = new ArrayList<>(candidates.size());
+        Map<Long, Long> rebuiltAuthors = new ConcurrentHashMap<>();
+        for (Post post : candidates) {
+            entries.add(toEntry(post));
+            rebuiltAuthors.put(post.getId(), post.getAuthor().getId());
+        }
+        ranking.replaceAll(entries);
+        authorIds = rebuiltAuthors;
+        built = true;
+        cacheTagIndex.evictTags(CacheTags.FEED_HOT);
+        log.info("热度榜重建完成: 候选{}条, 入榜{}条, 耗时{}ms", candidates.size(), ranking.size(),
+            System.currentTimeMillis() - start);
+    }
+
+    private void ensureBuilt() {
+        if (!built) {
+            synchronized (this) {
+                if (!built) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    private boolean isRankable(Post post) {
+        return post.getState() == PostState.VALID && !Boolean.TRUE.equals(post.getIsDeleted())
+            && post.getCreatedAt() != null
+            && post.getCreatedAt().isAfter(LocalDateTime.now().minus(properties.getCandidateWindow()));
+    }
+
+    private LongPredicate byAuthor(Set<Long> excludedAuthorIds) {
+        Map<Long, Long> authors = authorIds;
+        return postId -> {
+            Long authorId = authors.get(postId);
+            return authorId != null && excludedAuthorIds.contains(authorId);
+        };
+    }
+
+    private void put(Post post) {
+        authorIds.put(post.getId(), post.getAuthor().getId());
+        HotPostRanking.Entry entry = toEntry(post);
+        ranking.put(entry.postId(), entry.announcement(), entry.likes(), entry.comments(), entry.createdAt());
+    }
+
+    /**
+     * 数据库计数加上写缓冲中尚未写回的增量
+     */
+    private HotPostRanking.Entry toEntry(Post post) {
+        int likes = (post.getLikesCount() != null ? post.getLikesCount() : 0)
+            + (int) counterBuffer.pendingPostLikes(post.getId());
+        int comments = (post.getCommentsCount() != null ? post.getCommentsCount() : 0)
+            + (int) counterBuffer.pendingPostComments(post.getId());
+        long createdAt = post.getCreatedAt().atZone(ZoneId.systemDefault()).toEpochSecond();
+        return new HotPostRanking.Entry(post.getId(), Boolean.TRUE.equals(post.getIsAnnouncement()),
+            likes, comments, createdAt, ranking.score(likes, comments, createdAt));
+    }
+}
@@ -0,0 +1,27 @@
+package com.mentara.repository;
+
+import com.mentara.entity.AiResultCacheEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AiResultCacheRepository extends JpaRepository<AiResultCacheEntry, Long> {
+
+    Optional<AiResultCacheEntry> findByCacheKey(String cacheKey);
+
+    @Modifying
+    @Query("DELETE FROM AiResultCacheEntry e WHERE e.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    // 按写入时间从旧到新，用于超出容量时淘汰最早的条目
+    @Query("SELECT e.id FROM AiResultCacheEntry e ORDER BY e.createdAt ASC, e.id ASC")
+    List<Long> findOldestIds(Pageable pageable);
+}
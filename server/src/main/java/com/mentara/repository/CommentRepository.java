@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -76,8 +77,26 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     // 查询未删除的回复（按顶级评论）
     Page<Comment> findByTopCommentIdAndIsDeletedFalseOrderByCreatedAtAsc(Long topCommentId, Pageable pageable);
     
+    // 以下为排除指定作者（拉黑关系）的版本，只在排除列表非空时使用，页大小和总数与不排除时一致
+    Page<Comment> findByPostIdAndParentIsNullAndIsDeletedFalseAndAuthorIdNotInOrderByCreatedAtAsc(Long postId, Collection<Long> excludedAuthorIds, Pageable pageable);
+    
+    Page<Comment> findByParentIdAndIsDeletedFalseAndAuthorIdNotInOrderByCreatedAtAsc(Long parentId, Collection<Long> excludedAuthorIds, Pageable pageable);
+    
+    Page<Comment> findByTopCommentIdAndIsDeletedFalseAndAuthorIdNotInOrderByCreatedAtAsc(Long topCommentId, Collection<Long> excludedAuthorIds, Pageable pageable);
+    
     // 统计未删除的评论数量
     int countByPostIdAndParentIsNullAndIsDeletedFalse(Long postId);
+
+    // ================== 游标分页（keyset）查询 ==================
+    // 按上一页最后一条评论的（创建时间，ID）继续查询，Pageable只用于限制条数，不执行COUNT
+
+    // 未删除的顶级评论（按帖子）
+    @Query("SELECT c FROM Comment c WHERE c.post.id = :postId AND c.parent IS NULL AND c.isDeleted = false AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.id > :id)) ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findTopLevelCommentsByCursor(@Param("postId") Long postId, @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    // 未删除的回复（按顶级评论）
+    @Query("SELECT c FROM Comment c WHERE c.topComment.id = :topCommentId AND c.isDeleted = false AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.id > :id)) ORDER BY c.createdAt ASC, c.id ASC")
+    List<Comment> findRepliesOfTopCommentByCursor(@Param("topCommentId") Long topCommentId, @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
     
     // 统计未删除的回复数量
     int countByTopCommentIdAndIsDeletedFalse(Long topCommentId);
@@ -21,6 +21,8 @@ public interface MoodScoreRepository extends JpaRepository<MoodScore, Long> {
     
     // 根据Post查找
     Optional<MoodScore> findByPostId(Long postId);
+
+    boolean existsByPostId(Long postId);
     
     // 根据Checkin查找
     Optional<MoodScore> findByCheckinId(Long checkinId);
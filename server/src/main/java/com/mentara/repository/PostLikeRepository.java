@@ -3,11 +3,13 @@ package com.mentara.repository;
 import com.mentara.entity.PostLike;
 import com.mentara.entity.Post;
 import com.mentara.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -32,4 +34,12 @@ public interface PostLikeRepository extends JpaRepository<PostLike, Long> {
     // 批量查询用户对多个帖子的点赞状态
     @Query("SELECT pl FROM PostLike pl WHERE pl.user.id = :userId AND pl.post.id IN :postIds")
     List<PostLike> findByUserIdAndPostIdIn(@Param("userId") Long userId, @Param("postIds") List<Long> postIds);
+
+    // 查询用户最近点赞的帖子ID，按点赞先后倒序
+    @Query("SELECT pl.post.id FROM PostLike pl WHERE pl.user.id = :userId ORDER BY pl.id DESC")
+    List<Long> findRecentPostIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // 查询给定帖子中用户点赞过的帖子ID
+    @Query("SELECT pl.post.id FROM PostLike pl WHERE pl.user.id = :userId AND pl.post.id IN :postIds")
+    List<Long> findLikedPostIdsIn(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
 }
\ No newline at end of file
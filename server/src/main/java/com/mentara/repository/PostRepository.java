@@ -1,5 +1,6 @@
 package com.mentara.repository;
 
+import com.mentara.dto.projection.PostFeedRow;
 import com.mentara.entity.Post;
 import com.mentara.enums.MoodType;
 import com.mentara.enums.PostState;
@@ -12,6 +13,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -59,6 +61,9 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     // 新增：按时间范围筛选（已通过且软删除版本）- 公告帖子置顶
     Page<Post> findByStateAndIsDeletedFalseAndCreatedAtAfterOrderByIsAnnouncementDescCreatedAtDesc(PostState state, LocalDateTime time, Pageable pageable);
     
+    // 等待AI审核超过一定时间的帖子，按创建时间从旧到新，供流水线重新提交
+    List<Post> findByStateAndIsDeletedFalseAndCreatedAtBeforeOrderByCreatedAtAsc(PostState state, LocalDateTime time, Pageable pageable);
+    
     // 新增：按点赞数筛选（已通过且软删除版本）- 公告帖子置顶
     Page<Post> findByStateAndIsDeletedFalseAndLikesCountGreaterThanEqualOrderByIsAnnouncementDescLikesCountDesc(PostState state, Integer minLikes, Pageable pageable);
     
@@ -133,6 +138,122 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     @Query("SELECT p FROM Post p WHERE p.isDeleted = true ORDER BY p.deletedAt DESC")
     Page<Post> findDeletedPosts(Pageable pageable);
     
+    // ================== 帖子列表读模型 ==================
+    // 列表页只用构造器查询取展示所需的列（帖子+作者一次JOIN），标签和图片按整页帖子ID各一次批量查询，
+    // 无论每页多少条，往返次数固定
+
+    String FEED_ROW_SELECT = "SELECT new com.mentara.dto.projection.PostFeedRow(p.id, p.title, p.content, p.mood, p.likesCount, p.commentsCount, p.createdAt, p.isAnnouncement, a.id, a.nickname, a.avatar, a.role, a.isDeleted) FROM Post p JOIN p.author a ";
+
+    // 包含全部指定标签的帖子ID子查询
+    String POSTS_WITH_ALL_TAGS = "SELECT tp.id FROM Post tp JOIN tp.tags t WHERE t.id IN :tagIds GROUP BY tp.id HAVING COUNT(t) = :tagCount";
+
+    // 已通过的帖子 - 公告帖子置顶
+    @Query(value = FEED_ROW_SELECT + "WHERE p.state = 'VALID' AND p.isDeleted = false ORDER BY p.isAnnouncement DESC, p.createdAt DESC",
+        countQuery = "SELECT COUNT(p) FROM Post p WHERE p.state = 'VALID' AND p.isDeleted = false")
+    Page<PostFeedRow> findValidFeedRows(Pageable pageable);
+
+    // 最近一段时间内已通过的帖子 - 公告帖子置顶
+    @Query(value = FEED_ROW_SELECT + "WHERE p.state = 'VALID' AND p.isDeleted = false AND p.createdAt > :since ORDER BY p.isAnnouncement DESC, p.createdAt DESC",
+        countQuery = "SELECT COUNT(p) FROM Post p WHERE p.state = 'VALID' AND p.isDeleted = false AND p.createdAt > :since")
+    Page<PostFeedRow> findRecentValidFeedRows(@Param("since") LocalDateTime since, Pageable pageable);
+
+    // 有心情的已通过帖子 - 公告帖子置顶
+    @Query(value = FEED_ROW_SELECT + "WHERE p.state = 'VALID' AND p.isDeleted = false AND p.mood IS NOT NULL ORDER BY p.isAnnouncement DESC, p.createdAt DESC",
+        countQuery = "SELECT COUNT(p) FROM Post p WHERE p.state = 'VALID' AND p.isDeleted = false AND p.mood IS NOT NULL")
+    Page<PostFeedRow> findValidFeedRowsWithMood(Pageable pageable);
+
+    // 按心情类型的已通过帖子 - 公告帖子置顶
+    @Query(value = FEED_ROW_SELECT + "WHERE p.state = 'VALID' AND p.isDeleted = false AND p.mood = :mood ORDER BY p.isAnnouncement DESC, p.createdAt DESC",
+        countQuery = "SELECT COUNT(p) FROM Post p WHERE p.state = 'VALID' AND p.isDeleted = false AND p.mood = :mood")
+    Page<PostFeedRow> findValidFeedRowsByMood(@Param("mood") MoodType mood, Pageable pageable);
+
+    // 包含全部指定标签的已通过帖子 - 公告帖子置顶
+    @Query(value = FEED_ROW_SELECT + "WHERE p.state = 'VALID' AND p.isDeleted = false AND p.id IN (" + POSTS_WITH_ALL_TAGS + ") ORDER BY p.isAnnouncement DESC, p.createdAt DESC",
+        countQuery = "SELECT COUNT(p) FROM Post p WHERE p.state = 'VALID' AND p.isDeleted = false AND p.id IN (" + POSTS_WITH_ALL_TAGS + ")")
+    Page<PostFeedRow> findValidFeedRowsByTagIds(@Param("tagIds") List<Long> tagIds, @Param("tagCount") long tagCount, Pageable pageable);
+
+    // 用户已通过的帖子（按创建时间倒序）
+    @Query(value = FEED_ROW_SELECT + "WHERE a.id = :authorId AND p.state = 'VALID' AND p.isDeleted = false ORDER BY p.createdAt DESC",
+        countQuery = "SELECT COUNT(p) FROM Post p WHERE p.author.id = :authorId AND p.state = 'VALID' AND p.isDeleted = false")
+    Page<PostFeedRow> findValidFeedRowsByAuthor(@Param("authorId") Long authorId, Pageable pageable);
+
+    // 以下为排除指定作者（当前用户拉黑的、拉黑了当前用户的）的版本，只在排除列表非空时使用；
+    // 排除放在查询中，页大小和总数与不排除时一致
+    String NOT_EXCLUDED_AUTHOR = "AND p.author.id NOT IN :excludedAuthorIds ";
+
+    @Query(value = FEED_ROW_SELECT + "WHERE p.state = 'VALID' AND p.isDeleted = false " + NOT_EXCLUDED_AUTHOR + "ORDER BY p.isAnnouncement DESC, p.createdAt DESC",
+        countQuery = "SELECT COUNT(p) FROM Post p WHERE p.state = 'VALID' AND p.isDeleted = false " + NOT_EXCLUDED_AUTHOR)
+    Page<PostFeedRow> findValidFeedRowsExcludingAuthors(@Param("excludedAuthorIds") Collection<Long> excludedAuthorIds, Pageable pageable);
+
+    @Query(value = FEED_ROW_SELECT + "WHERE p.state = 'VALID' AND p.isDeleted = false AND p.createdAt > :since " + NOT_EXCLUDED_AUTHOR + "ORDER BY p.isAnnouncement DESC, p.createdAt DESC",
+        countQuery = "SELECT COUNT(p) FROM Post p WHERE p.state = 'VALID' AND p.isDeleted = false AND p.createdAt > :since " + NOT_EXCLUDED_AUTHOR)
+    Page<PostFeedRow> findRecentValidFeedRowsExcludingAuthors(@Param("since") LocalDateTime since, @Param("excludedAuthorIds") Collection<Long> excludedAuthorIds, Pageable pageable);
+
+    @Query(value = FEED_ROW_SELECT + "WHERE p.state = 'VALID' AND p.isDeleted = false AND p.mood IS NOT NULL " + NOT_EXCLUDED_AUTHOR + "ORDER BY p.isAnnouncement DESC, p.createdAt DESC",
+        countQuery = "SELECT COUNT(p) FROM Post p WHERE p.state = 'VALID' AND p.isDeleted = false AND p.mood IS NOT NULL " + NOT_EXCLUDED_AUTHOR)
+    Page<PostFeedRow> findValidFeedRowsWithMoodExcludingAuthors(@Param("excludedAuthorIds") Collection<Long> excludedAuthorIds, Pageable pageable);
+
+    @Query(value = FEED_ROW_SELECT + "WHERE p.state = 'VALID' AND p.isDeleted = false AND p.mood = :mood " + NOT_EXCLUDED_AUTHOR + "ORDER BY p.isAnnouncement DESC, p.createdAt DESC",
+        countQuery = "SELECT COUNT(p) FROM Post p WHERE p.state = 'VALID' AND p.isDeleted = false AND p.mood = :mood " + NOT_EXCLUDED_AUTHOR)
+    Page<PostFeedRow> findValidFeedRowsByMoodExcludingAuthors(@Param("mood") MoodType mood, @Param("excludedAuthorIds") Collection<Long> excludedAuthorIds, Pageable pageable);
+
+    @Query(value = FEED_ROW_SELECT + "WHERE p.state = 'VALID' AND p.isDeleted = false AND p.id IN (" + POSTS_WITH_ALL_TAGS + ") " + NOT_EXCLUDED_AUTHOR + "ORDER BY p.isAnnouncement DESC, p.createdAt DESC",
+        countQuery = "SELECT COUNT(p) FROM Post p WHERE p.state = 'VALID' AND p.isDeleted = false AND p.id IN (" + POSTS_WITH_ALL_TAGS + ") " + NOT_EXCLUDED_AUTHOR)
+    Page<PostFeedRow> findValidFeedRowsByTagIdsExcludingAuthors(@Param("tagIds") List<Long> tagIds, @Param("tagCount") long tagCount, @Param("excludedAuthorIds") Collection<Long> excludedAuthorIds, Pageable pageable);
+
+    // 按ID列表查询已通过且未删除的帖子（热度榜、关注时间线），顺序由调用方按ID还原
+    @Query(FEED_ROW_SELECT + "WHERE p.id IN :postIds AND p.state = 'VALID' AND p.isDeleted = false")
+    List<PostFeedRow> findValidFeedRowsByIds(@Param("postIds") Collection<Long> postIds);
+
+    // 整页帖子的标签（帖子ID, 标签），按标签ID正序，与Post.tags的@OrderBy一致
+    @Query("SELECT p.id, t FROM Post p JOIN p.tags t WHERE p.id IN :postIds ORDER BY p.id, t.id")
+    List<Object[]> findFeedTagsByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    // 整页帖子的图片对象键（帖子ID, 对象键），按图片顺序
+    @Query("SELECT p.id, img FROM Post p JOIN p.imageUrls img WHERE p.id IN :postIds ORDER BY p.id, INDEX(img)")
+    List<Object[]> findFeedImagesByPostIds(@Param("postIds") Collection<Long> postIds);
+
+    // ================== 游标分页（keyset）查询 ==================
+    // 按上一页最后一条记录的排序键继续查询，Pageable只用于限制条数，不执行COUNT
+    // 公告置顶的列表每次只在announcement指定的一段内按(createdAt, id)定位，是索引上的一次范围扫描；
+    // 公告段读完后由调用方从普通帖子段开头继续
+
+    // 已通过的帖子 - 公告帖子置顶
+    @Query(FEED_ROW_SELECT + "WHERE p.state = 'VALID' AND p.isDeleted = false AND p.isAnnouncement = :announcement AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) ORDER BY p.isAnnouncement DESC, p.createdAt DESC, p.id DESC")
+    List<PostFeedRow> findValidPostsByCursor(@Param("announcement") boolean announcement, @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    // 最近一段时间内已通过的帖子 - 公告帖子置顶
+    @Query(FEED_ROW_SELECT + "WHERE p.state = 'VALID' AND p.isDeleted = false AND p.createdAt > :since AND p.isAnnouncement = :announcement AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) ORDER BY p.isAnnouncement DESC, p.createdAt DESC, p.id DESC")
+    List<PostFeedRow> findRecentValidPostsByCursor(@Param("since") LocalDateTime since, @Param("announcement") boolean announcement, @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    // 有心情的已通过帖子 - 公告帖子置顶
+    @Query(FEED_ROW_SELECT + "WHERE p.state = 'VALID' AND p.isDeleted = false AND p.mood IS NOT NULL AND p.isAnnouncement = :announcement AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) ORDER BY p.isAnnouncement DESC, p.createdAt DESC, p.id DESC")
+    List<PostFeedRow> findValidPostsWithMoodByCursor(@Param("announcement") boolean announcement, @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    // 按心情类型的已通过帖子 - 公告帖子置顶
+    @Query(FEED_ROW_SELECT + "WHERE p.state = 'VALID' AND p.isDeleted = false AND p.mood = :mood AND p.isAnnouncement = :announcement AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) ORDER BY p.isAnnouncement DESC, p.createdAt DESC, p.id DESC")
+    List<PostFeedRow> findValidPostsByMoodAndCursor(@Param("mood") MoodType mood, @Param("announcement") boolean announcement, @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    // 热度榜候选：时间窗口内点赞数达到门槛的已通过帖子
+    @Query("SELECT p FROM Post p WHERE p.state = 'VALID' AND p.isDeleted = false AND p.likesCount >= :minLikes AND p.createdAt >= :since ORDER BY p.likesCount DESC, p.id DESC")
+    List<Post> findHotCandidates(@Param("minLikes") Integer minLikes, @Param("since") LocalDateTime since, Pageable pageable);
+
+    // 包含全部指定标签的已通过帖子 - 公告帖子置顶
+    @Query(FEED_ROW_SELECT + "WHERE p.state = 'VALID' AND p.isDeleted = false AND p.id IN (" + POSTS_WITH_ALL_TAGS + ") AND p.isAnnouncement = :announcement AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) ORDER BY p.isAnnouncement DESC, p.createdAt DESC, p.id DESC")
+    List<PostFeedRow> findValidPostsByTagIdsAndCursor(@Param("tagIds") List<Long> tagIds, @Param("tagCount") long tagCount, @Param("announcement") boolean announcement, @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    // 用户已通过的帖子（按创建时间倒序）
+    @Query(FEED_ROW_SELECT + "WHERE p.author.id = :authorId AND p.state = 'VALID' AND p.isDeleted = false AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostFeedRow> findValidPostsByAuthorAndCursor(@Param("authorId") Long authorId, @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    // 关注时间线：指定作者已通过的帖子ID（按ID倒序）
+    @Query("SELECT p.id FROM Post p WHERE p.author.id IN :authorIds AND p.state = 'VALID' AND p.isDeleted = false AND p.id < :beforeId ORDER BY p.id DESC")
+    List<Long> findValidPostIdsByAuthorsBeforeId(@Param("authorIds") Collection<Long> authorIds, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    // 关注时间线重建：时间窗口内已通过的帖子（帖子ID, 作者ID），按ID正序分批读取
+    @Query("SELECT p.id, p.author.id FROM Post p WHERE p.state = 'VALID' AND p.isDeleted = false AND p.createdAt >= :since AND p.id > :afterId ORDER BY p.id ASC")
+    List<Object[]> findValidPostAuthorPairsSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId, Pageable pageable);
+
     // 更新点赞数
     @Modifying
     @Query("UPDATE Post p SET p.likesCount = p.likesCount + :increment WHERE p.id = :postId")
@@ -162,4 +283,22 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     // 查询被审核删除的帖子数量
     @Query("SELECT COUNT(p) FROM Post p WHERE p.isDeleted = true AND p.reportCount =0")
     int countAuditDeletedPosts();
-}
\ No newline at end of file
+
+    // ================== 向量重建 ==================
+
+    // 按ID升序的已通过帖子ID（键集分页，afterId为上一批最后一个ID）
+    @Query("SELECT p.id FROM Post p WHERE p.state = com.mentara.enums.PostState.VALID AND p.isDeleted = false " +
+           "AND p.id > :afterId ORDER BY p.id")
+    List<Long> findValidPostIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 给定ID中仍为已通过且未删除的帖子ID（向量重建写入前后复查）
+    @Query("SELECT p.id FROM Post p WHERE p.state = com.mentara.enums.PostState.VALID AND p.isDeleted = false " +
+           "AND p.id IN :postIds")
+    List<Long> findValidPostIdsIn(@Param("postIds") Collection<Long> postIds);
+
+    // 批量加载帖子及标签（构建向量文本和payload需要）
+    @Query("SELECT DISTINCT p FROM Post p LEFT JOIN FETCH p.tags WHERE p.id IN :postIds")
+    List<Post> findWithTagsByIdIn(@Param("postIds") Collection<Long> postIds);
+
+    long countByStateAndIsDeletedFalse(PostState state);
+}
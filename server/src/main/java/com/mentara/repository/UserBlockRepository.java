@@ -35,6 +35,12 @@ public interface UserBlockRepository extends JpaRepository<UserBlock, Long> {
     @Query("SELECT ub.blocker.id FROM UserBlock ub WHERE ub.blocked.id = :blockedId")
     List<Long> findBlockerUserIdsByBlockedId(@Param("blockedId") Long blockedId);
     
+    /**
+     * 查询全部拉黑关系（拉黑者ID, 被拉黑者ID），用于构建内存拉黑关系图
+     */
+    @Query("SELECT ub.blocker.id, ub.blocked.id FROM UserBlock ub")
+    List<Object[]> findAllBlockPairs();
+    
     /**
      * 删除拉黑记录
      */
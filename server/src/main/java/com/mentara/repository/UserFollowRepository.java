@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,6 +36,18 @@ public interface UserFollowRepository extends JpaRepository<UserFollow, Long> {
     @Query("SELECT uf.follower.id FROM UserFollow uf WHERE uf.following.id = :followingId")
     List<Long> findFollowerUserIdsByFollowingId(@Param("followingId") Long followingId);
     
+    /**
+     * 查询粉丝数不少于指定值的用户ID
+     */
+    @Query("SELECT uf.following.id FROM UserFollow uf GROUP BY uf.following.id HAVING COUNT(uf) >= :minFollowers")
+    List<Long> findFollowingIdsWithFollowersAtLeast(@Param("minFollowers") long minFollowers);
+    
+    /**
+     * 批量查询多个用户的粉丝（被关注者ID, 关注者ID）
+     */
+    @Query("SELECT uf.following.id, uf.follower.id FROM UserFollow uf WHERE uf.following.id IN :followingIds")
+    List<Object[]> findFollowPairsByFollowingIds(@Param("followingIds") Collection<Long> followingIds);
+    
     /**
      * 删除关注记录
      */
@@ -0,0 +1,31 @@
+package com.mentara.repository;
+
+import com.mentara.entity.VectorOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface VectorOutboxRepository extends JpaRepository<VectorOutboxEvent, Long> {
+
+    // 指定状态下到期待处理的事件，按写入顺序
+    List<VectorOutboxEvent> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(VectorOutboxEvent.Status status,
+                                                                                  LocalDateTime now, Pageable pageable);
+
+    long countByStatus(VectorOutboxEvent.Status status);
+
+    // 最早一条未同步事件的写入时间，用于计算同步延迟（不含已放弃的事件）
+    @Query("SELECT MIN(e.createdAt) FROM VectorOutboxEvent e WHERE e.status = com.mentara.entity.VectorOutboxEvent.Status.PENDING")
+    LocalDateTime findOldestCreatedAt();
+
+    // 提前放行帖子尚未到期的事件，失败重试中的事件保持退避
+    @Modifying
+    @Query("UPDATE VectorOutboxEvent e SET e.nextAttemptAt = :now WHERE e.postId = :postId AND e.attempts = 0 AND e.nextAttemptAt > :now")
+    int releaseByPostId(@Param("postId") Long postId, @Param("now") LocalDateTime now);
+}
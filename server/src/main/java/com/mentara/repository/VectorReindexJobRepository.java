@@ -0,0 +1,16 @@
+package com.mentara.repository;
+
+import com.mentara.entity.VectorReindexJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VectorReindexJobRepository extends JpaRepository<VectorReindexJob, Long> {
+
+    List<VectorReindexJob> findByStatus(VectorReindexJob.Status status);
+
+    Optional<VectorReindexJob> findFirstByOrderByIdDesc();
+}
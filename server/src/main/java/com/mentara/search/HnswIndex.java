@@ -0,0 +1,566 @@
+package com.mentara.search;
+
+import com.mentara.util.VectorMath;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * 内存HNSW近似最近邻索引（内积相似度，与Qdrant集合的Dot距离一致）
+ * 向量按节点顺序连续存放在堆外缓冲区中，图结构为每个节点每层的邻居数组；
+ * 删除只打标记，被删节点继续参与图的路由但不出现在结果中，覆盖写入时旧节点标记删除后插入新节点，
+ * 标记删除的节点过多时由调用方用compact()重建。
+ * 写入持写锁，查询持读锁；可整体保存为快照文件，加载时内存映射读取
+ */
+public class HnswIndex {
+
+    private static final int SNAPSHOT_MAGIC = 0x484e5357;
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * 查询命中
+     */
+    public record Hit(long id, float score) {
+    }
+
+    private record Candidate(int node, float score) {
+    }
+
+    private final int dimension;
+
+    private final int m;
+
+    private final int maxM0;
+
+    private final int efConstruction;
+
+    private final double levelFactor;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Random random = new Random(42);
+
+    /**
+     * 堆外向量存储，节点i的向量位于[i * dimension, (i + 1) * dimension)
+     */
+    private ByteBuffer vectorBytes;
+
+    private FloatBuffer vectors;
+
+    private long[] ids;
+
+    /**
+     * links[node][layer]：第0位是邻居数，之后是邻居节点
+     */
+    private int[][][] links;
+
+    private final BitSet deleted = new BitSet();
+
+    private final Map<Long, Integer> nodeById = new HashMap<>();
+
+    private int size;
+
+    private int entryPoint = -1;
+
+    private int maxLevel = -1;
+
+    /**
+     * @param m              每层的邻居数（第0层为2m）
+     * @param efConstruction 插入时的候选集大小
+     */
+    public HnswIndex(int dimension, int m, int efConstruction) {
+        this(dimension, m, efConstruction, 16);
+    }
+
+    private HnswIndex(int dimension, int m, int efConstruction, int capacity) {
+        if (dimension <= 0 || m < 2 || efConstruction <= 0) {
+            throw new IllegalArgumentException("HNSW参数无效");
+        }
+        this.dimension = dimension;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelFactor = 1 / Math.log(m);
+        this.ids = new long[capacity];
+        this.links = new int[capacity][][];
+        this.vectorBytes = ByteBuffer.allocateDirect(capacity * dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        this.vectors = vectorBytes.asFloatBuffer();
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * 未删除的向量数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 标记删除的节点数
+     */
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deleted.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return nodeById.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 向量的副本，不存在或已删除时返回null
+     */
+    public float[] vector(long id) {
+        lock.readLock().lock();
+        try {
+            Integer node = nodeById.get(id);
+            if (node == null) {
+                return null;
+            }
+            float[] vector = new float[dimension];
+            vectors.get(node * dimension, vector);
+            return vector;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 当前所有未删除向量的ID
+     */
+    public long[] ids() {
+        lock.readLock().lock();
+        try {
+            return nodeById.keySet().stream().mapToLong(Long::longValue).toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 写入或覆盖向量
+     */
+    public void add(long id, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("向量维度应为" + dimension + "，实际为" + vector.length);
+        }
+        lock.writeLock().lock();
+        try {
+            Integer previous = nodeById.remove(id);
+            if (previous != null) {
+                deleted.set(previous);
+            }
+            insert(id, vector);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodeById.remove(id);
+            if (node != null) {
+                deleted.set(node);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按内积倒序返回前k个未删除且通过过滤的向量，filter为null时不过滤
+     *
+     * @param ef 第0层的候选集大小，越大召回越高、越慢（小于k时按k）
+     */
+    public List<Hit> search(float[] query, int k, int ef, LongPredicate filter) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException("向量维度应为" + dimension + "，实际为" + query.length);
+        }
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || nodeById.isEmpty()) {
+                return new ArrayList<>();
+            }
+            int current = entryPoint;
+            for (int layer = maxLevel; layer > 0; layer--) {
+                current = greedyClosest(query, current, layer);
+            }
+            List<Candidate> candidates = searchLayer(query, current, Math.max(ef, k), 0,
+                node -> !deleted.get(node) && (filter == null || filter.test(ids[node])));
+            List<Hit> hits = new ArrayList<>(Math.min(k, candidates.size()));
+            for (int i = 0; i < candidates.size() && hits.size() < k; i++) {
+                Candidate candidate = candidates.get(i);
+                hits.add(new Hit(ids[candidate.node()], candidate.score()));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 只用未删除的向量重建索引
+     */
+    public HnswIndex compact() {
+        lock.readLock().lock();
+        try {
+            HnswIndex compacted = new HnswIndex(dimension, m, efConstruction, Math.max(16, nodeById.size()));
+            float[] vector = new float[dimension];
+            for (int node = 0; node < size; node++) {
+                if (!deleted.get(node)) {
+                    vectors.get(node * dimension, vector);
+                    compacted.insert(ids[node], vector);
+                }
+            }
+            return compacted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 保存快照：先写临时文件再原子替换，写入期间不阻塞查询
+     */
+    public void save(Path path) throws IOException {
+        lock.readLock().lock();
+        try {
+            int graphBytes = 0;
+            for (int node = 0; node < size; node++) {
+                graphBytes += Long.BYTES + 1 + Integer.BYTES;
+                for (int[] neighbors : links[node]) {
+                    graphBytes += Integer.BYTES * (1 + neighbors[0]);
+                }
+            }
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * 8 + graphBytes).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION)
+                .putInt(dimension).putInt(m).putInt(efConstruction)
+                .putInt(size).putInt(entryPoint).putInt(maxLevel);
+            for (int node = 0; node < size; node++) {
+                header.putLong(ids[node]);
+                header.put((byte) (deleted.get(node) ? 1 : 0));
+                header.putInt(links[node].length);
+                for (int[] neighbors : links[node]) {
+                    header.putInt(neighbors[0]);
+                    for (int i = 1; i <= neighbors[0]; i++) {
+                        header.putInt(neighbors[i]);
+                    }
+                }
+            }
+            header.flip();
+            ByteBuffer vectorData = vectorBytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            vectorData.position(0).limit(size * dimension * Float.BYTES);
+
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                while (vectorData.hasRemaining()) {
+                    channel.write(vectorData);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 从快照加载，文件格式或维度不符时抛出IOException
+     */
+    public static HnswIndex load(Path path, int expectedDimension) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < Integer.BYTES * 8 || buffer.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("不是HNSW快照文件: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IOException("不支持的HNSW快照版本: " + version);
+            }
+            int dimension = buffer.getInt();
+            if (dimension != expectedDimension) {
+                throw new IOException("快照向量维度为" + dimension + "，期望" + expectedDimension);
+            }
+            int m = buffer.getInt();
+            int efConstruction = buffer.getInt();
+            int size = buffer.getInt();
+            if (size < 0 || size > Integer.MAX_VALUE / (dimension * Float.BYTES)) {
+                throw new IOException("HNSW快照节点数无效: " + size);
+            }
+            HnswIndex index = new HnswIndex(dimension, m, efConstruction, Math.max(16, size));
+            index.size = size;
+            index.entryPoint = buffer.getInt();
+            index.maxLevel = buffer.getInt();
+            for (int node = 0; node < size; node++) {
+                long id = buffer.getLong();
+                index.ids[node] = id;
+                if (buffer.get() != 0) {
+                    index.deleted.set(node);
+                } else {
+                    index.nodeById.put(id, node);
+                }
+                int layers = buffer.getInt();
+                index.links[node] = new int[layers][];
+                for (int layer = 0; layer < layers; layer++) {
+                    int[] neighbors = new int[1 + (layer == 0 ? index.maxM0 : m)];
+                    neighbors[0] = buffer.getInt();
+                    for (int i = 1; i <= neighbors[0]; i++) {
+                        neighbors[i] = buffer.getInt();
+                    }
+                    index.links[node][layer] = neighbors;
+                }
+            }
+            ByteBuffer vectorData = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            if (vectorData.remaining() != size * dimension * Float.BYTES) {
+                throw new IOException("HNSW快照向量数据不完整: " + path);
+            }
+            index.vectorBytes.put(vectorData);
+            index.vectorBytes.clear();
+            return index;
+        }
+    }
+
+    /**
+     * 插入新节点（调用方持写锁或独占索引）
+     */
+    private void insert(long id, float[] vector) {
+        ensureCapacity(size + 1);
+        int node = size++;
+        ids[node] = id;
+        vectors.put(node * dimension, vector);
+        nodeById.put(id, node);
+
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+        links[node] = new int[level + 1][];
+        for (int layer = 0; layer <= level; layer++) {
+            links[node][layer] = new int[1 + (layer == 0 ? maxM0 : m)];
+        }
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int current = entryPoint;
+        for (int layer = maxLevel; layer > level; layer--) {
+            current = greedyClosest(vector, current, layer);
+        }
+        for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+            // 构图时被删节点仍可作为邻居，保持图的连通
+            List<Candidate> candidates = searchLayer(vector, current, efConstruction, layer, null);
+            int maxNeighbors = layer == 0 ? maxM0 : m;
+            List<Candidate> selected = selectNeighbors(candidates, maxNeighbors);
+            int[] own = links[node][layer];
+            for (Candidate neighbor : selected) {
+                own[++own[0]] = neighbor.node();
+                connect(neighbor.node(), node, layer, maxNeighbors);
+            }
+            current = candidates.get(0).node();
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * 给已有节点加一条边，超出上限时重新挑选邻居
+     */
+    private void connect(int node, int neighbor, int layer, int maxNeighbors) {
+        int[] existing = links[node][layer];
+        if (existing[0] < maxNeighbors) {
+            existing[++existing[0]] = neighbor;
+            return;
+        }
+        List<Candidate> candidates = new ArrayList<>(existing[0] + 1);
+        candidates.add(new Candidate(neighbor, dot(node, neighbor)));
+        for (int i = 1; i <= existing[0]; i++) {
+            candidates.add(new Candidate(existing[i], dot(node, existing[i])));
+        }
+        candidates.sort((x, y) -> Float.compare(y.score(), x.score()));
+        List<Candidate> selected = selectNeighbors(candidates, maxNeighbors);
+        existing[0] = 0;
+        for (Candidate candidate : selected) {
+            existing[++existing[0]] = candidate.node();
+        }
+    }
+
+    /**
+     * 启发式挑选邻居：候选按与目标的相似度倒序，只保留比已选邻居更接近目标的，
+     * 让邻居分布在不同方向；不足时用被跳过的候选补齐
+     */
+    private List<Candidate> selectNeighbors(List<Candidate> candidates, int maxNeighbors) {
+        List<Candidate> selected = new ArrayList<>(maxNeighbors);
+        List<Candidate> skipped = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= maxNeighbors) {
+                break;
+            }
+            boolean diverse = true;
+            for (Candidate chosen : selected) {
+                if (dot(candidate.node(), chosen.node()) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                skipped.add(candidate);
+            }
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < maxNeighbors; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected;
+    }
+
+    /**
+     * 在上层图中贪心移动到与查询最接近的节点
+     */
+    private int greedyClosest(float[] query, int start, int layer) {
+        int current = start;
+        float best = dot(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbors = links[current][layer];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                float score = dot(query, neighbors[i]);
+                if (score > best) {
+                    best = score;
+                    current = neighbors[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 在单层图中做最佳优先搜索，返回按相似度倒序的最多ef个结果；
+     * accept不为null时只有通过的节点进入结果，其余节点仍用于扩展
+     */
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int layer, NodePredicate accept) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>((x, y) -> Float.compare(y.score(), x.score()));
+        PriorityQueue<Candidate> results = new PriorityQueue<>((x, y) -> Float.compare(x.score(), y.score()));
+        Candidate first = new Candidate(start, dot(query, start));
+        visited.set(start);
+        frontier.add(first);
+        if (accept == null || accept.test(start)) {
+            results.add(first);
+        }
+        while (!frontier.isEmpty()) {
+            Candidate closest = frontier.poll();
+            if (results.size() >= ef && closest.score() < results.peek().score()) {
+                break;
+            }
+            int[] neighbors = links[closest.node()][layer];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float score = dot(query, neighbor);
+                if (results.size() < ef || score > results.peek().score()) {
+                    Candidate candidate = new Candidate(neighbor, score);
+                    frontier.add(candidate);
+                    if (accept == null || accept.test(neighbor)) {
+                        results.add(candidate);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort((x, y) -> Float.compare(y.score(), x.score()));
+        return sorted;
+    }
+
+    @FunctionalInterface
+    private interface NodePredicate {
+        boolean test(int node);
+    }
+
+    private float dot(float[] query, int node) {
+        return VectorMath.dot(query, vectors, node * dimension);
+    }
+
+    private float dot(int a, int b) {
+        return VectorMath.dot(vectors, a * dimension, b * dimension, dimension);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        // 向量存储是单个堆外缓冲区，字节数不能超过int上限
+        int maxNodes = Integer.MAX_VALUE / (dimension * Float.BYTES);
+        if (required > maxNodes) {
+            throw new IllegalStateException("HNSW索引已达容量上限: " + maxNodes);
+        }
+        int capacity = (int) Math.min(maxNodes, Math.max(required, ids.length * 2L));
+        ids = Arrays.copyOf(ids, capacity);
+        links = Arrays.copyOf(links, capacity);
+        ByteBuffer grown = ByteBuffer.allocateDirect(capacity * dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer old = vectorBytes.duplicate();
+        old.position(0).limit(size * dimension * Float.BYTES);
+        grown.put(old);
+        grown.clear();
+        vectorBytes = grown;
+        vectors = grown.asFloatBuffer();
+    }
+}
@@ -0,0 +1,234 @@
+package com.mentara.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * 内存倒排索引（BM25打分）
+ * 每个词的倒排表用并列的long/int数组保存文档ID和词频，文档记录自己在各倒排表中的位置，删除时与末尾交换，不需扫描；
+ * 写入与删除持写锁，查询持读锁，整体重建时在锁外建好新索引再替换
+ */
+public class LexicalIndex {
+
+    /**
+     * 查询命中
+     */
+    public record Hit(long docId, double score) {
+    }
+
+    /**
+     * 倒排表：文档ID、词在文档中的出现次数，以及该词在文档terms中的下标（移动位置时据此更新文档记录）
+     */
+    private static final class Postings {
+        private long[] docIds = new long[4];
+        private int[] freqs = new int[4];
+        private int[] termIndexes = new int[4];
+        private int size;
+
+        /**
+         * 追加到末尾，返回所在位置
+         */
+        private int add(long docId, int freq, int termIndex) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+                termIndexes = Arrays.copyOf(termIndexes, size * 2);
+            }
+            docIds[size] = docId;
+            freqs[size] = freq;
+            termIndexes[size] = termIndex;
+            return size++;
+        }
+    }
+
+    /**
+     * 文档：词数、去重后的词及其在对应倒排表中的位置（删除时据此清理倒排表）
+     */
+    private record Doc(int length, String[] terms, int[] slots) {
+    }
+
+    private static final class State {
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Map<Long, Doc> docs = new HashMap<>();
+        private long totalLength;
+    }
+
+    private final double k1;
+
+    private final double b;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private State state = new State();
+
+    /**
+     * @param k1 词频饱和参数
+     * @param b  文档长度归一化参数
+     */
+    public LexicalIndex(double k1, double b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    /**
+     * 写入或覆盖文档
+     */
+    public void put(long docId, List<String> tokens) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(state, docId);
+            addInternal(state, docId, tokens);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long docId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(state, docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 用给定文档整体替换索引
+     */
+    public void replaceAll(Map<Long, List<String>> documents) {
+        State rebuilt = new State();
+        documents.forEach((docId, tokens) -> addInternal(rebuilt, docId, tokens));
+        lock.writeLock().lock();
+        try {
+            state = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long docId) {
+        lock.readLock().lock();
+        try {
+            return state.docs.containsKey(docId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按BM25分数倒序返回前limit个文档，filter为null时不过滤
+     */
+    public List<Hit> search(List<String> queryTokens, int limit, LongPredicate filter) {
+        if (queryTokens.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        Set<String> terms = new LinkedHashSet<>(queryTokens);
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int docCount = state.docs.size();
+            if (docCount == 0) {
+                return new ArrayList<>();
+            }
+            double averageLength = (double) state.totalLength / docCount;
+            for (String term : terms) {
+                Postings postings = state.postings.get(term);
+                if (postings == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (docCount - postings.size + 0.5) / (postings.size + 0.5));
+                for (int i = 0; i < postings.size; i++) {
+                    long docId = postings.docIds[i];
+                    if (filter != null && !filter.test(docId)) {
+                        continue;
+                    }
+                    int freq = postings.freqs[i];
+                    int length = state.docs.get(docId).length();
+                    double score = idf * freq * (k1 + 1) / (freq + k1 * (1 - b + b * length / averageLength));
+                    scores.merge(docId, score, Double::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // 小顶堆保留前limit个，分数相同时ID大（较新）的在前
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, (x, y) -> x.score() != y.score()
+            ? Double.compare(x.score(), y.score())
+            : Long.compare(x.docId(), y.docId()));
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            top.add(new Hit(entry.getKey(), entry.getValue()));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort((x, y) -> x.score() != y.score()
+            ? Double.compare(y.score(), x.score())
+            : Long.compare(y.docId(), x.docId()));
+        return hits;
+    }
+
+    private static void addInternal(State target, long docId, List<String> tokens) {
+        if (tokens.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> freqs = new HashMap<>();
+        for (String token : tokens) {
+            freqs.merge(token, 1, Integer::sum);
+        }
+        String[] terms = new String[freqs.size()];
+        int[] slots = new int[freqs.size()];
+        int termIndex = 0;
+        for (Map.Entry<String, Integer> entry : freqs.entrySet()) {
+            terms[termIndex] = entry.getKey();
+            slots[termIndex] = target.postings.computeIfAbsent(entry.getKey(), key -> new Postings())
+                .add(docId, entry.getValue(), termIndex);
+            termIndex++;
+        }
+        target.docs.put(docId, new Doc(tokens.size(), terms, slots));
+        target.totalLength += tokens.size();
+    }
+
+    private static void removeInternal(State target, long docId) {
+        Doc doc = target.docs.remove(docId);
+        if (doc == null) {
+            return;
+        }
+        for (int i = 0; i < doc.terms().length; i++) {
+            Postings postings = target.postings.get(doc.terms()[i]);
+            int slot = doc.slots()[i];
+            int last = --postings.size;
+            if (last == 0) {
+                target.postings.remove(doc.terms()[i]);
+                continue;
+            }
+            if (slot != last) {
+                // 末尾的文档移到空出的位置，同步更新它记录的位置
+                postings.docIds[slot] = postings.docIds[last];
+                postings.freqs[slot] = postings.freqs[last];
+                postings.termIndexes[slot] = postings.termIndexes[last];
+                target.docs.get(postings.docIds[slot]).slots()[postings.termIndexes[slot]] = slot;
+            }
+        }
+        target.totalLength -= doc.length();
+    }
+}
@@ -0,0 +1,244 @@
+package com.mentara.search;
+
+import com.mentara.config.QdrantConfig;
+import com.mentara.config.SearchProperties;
+import com.mentara.dto.projection.PostFeedRow;
+import com.mentara.entity.Post;
+import com.mentara.entity.PostTag;
+import com.mentara.enums.PostState;
+import com.mentara.repository.PostRepository;
+import com.mentara.service.QdrantService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 帖子向量的本地HNSW索引
+ * 与Qdrant接收相同的写入、删除和payload更新，定期保存快照到磁盘，初始化时加载快照；
+ * Qdrant查询失败时向量检索改查本地索引，qdrant.enabled=false时只使用本地索引（小规模部署和测试不需要Qdrant）。
+ * 过滤条件使用的帖子属性不进快照，启动时按快照中的帖子ID从数据库读取
+ */
+@Slf4j
+@Component
+public class LocalVectorIndex {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final SearchProperties properties;
+
+    private final int dimension;
+
+    private volatile HnswIndex index;
+
+    /**
+     * 已通过且未删除的帖子的过滤属性，不在其中的向量不出现在结果中
+     */
+    private final Map<Long, PostSearchMeta> metas = new ConcurrentHashMap<>();
+
+    /**
+     * 上次保存快照后是否有变化
+     */
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    @Autowired
+    public LocalVectorIndex(SearchProperties properties) {
+        this.properties = properties;
+        this.dimension = (int) QdrantConfig.postVectorParams().getSize();
+        this.index = new HnswIndex(dimension, properties.getHnswM(), properties.getHnswEfConstruction());
+    }
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("mentara.search.local.vectors", this, local -> local.index.size())
+            .description("本地向量索引中的向量数")
+            .register(meterRegistry);
+        Gauge.builder("mentara.search.local.deleted", this, local -> local.index.deletedCount())
+            .description("本地向量索引中标记删除的节点数")
+            .register(meterRegistry);
+        loadSnapshot();
+    }
+
+    public boolean isEnabled() {
+        return properties.isLocalIndexEnabled();
+    }
+
+    /**
+     * 初始化时加载快照：此时发件箱轮询等定时任务还没有开始，不会有写入先到达后被整体替换的快照覆盖
+     */
+    private void loadSnapshot() {
+        if (!isEnabled()) {
+            return;
+        }
+        Path path = Path.of(properties.getLocalIndexPath());
+        if (!Files.exists(path)) {
+            log.info("本地向量索引快照不存在，从空索引开始: {}", path);
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            HnswIndex loaded = HnswIndex.load(path, dimension);
+            synchronized (this) {
+                index = loaded;
+            }
+            loadMetas(loaded.ids());
+            log.info("本地向量索引快照加载完成: {}个向量, 耗时{}ms", loaded.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // 快照损坏时从空索引开始，由后续写入和重建任务补齐
+            log.error("本地向量索引快照加载失败: {}", path, e);
+        }
+    }
+
+    /**
+     * 写入或覆盖帖子向量
+     */
+    public void upsert(Post post, float[] vector) {
+        if (!isEnabled() || vector == null || vector.length != dimension) {
+            return;
+        }
+        synchronized (this) {
+            index.add(post.getId(), vector);
+        }
+        updatePayload(post);
+        dirty.set(true);
+    }
+
+    /**
+     * 帖子状态、心情、标签变化：已通过且未删除的记录过滤属性，否则不再出现在结果中
+     */
+    public void updatePayload(Post post) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (post.getState() == PostState.VALID && !Boolean.TRUE.equals(post.getIsDeleted())) {
+            metas.put(post.getId(), PostSearchMeta.of(post));
+        } else {
+            metas.remove(post.getId());
+        }
+    }
+
+    public void remove(Long postId) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            index.remove(postId);
+        }
+        metas.remove(postId);
+        dirty.set(true);
+    }
+
+    /**
+     * 按内积倒序返回[offset, offset + limit)的帖子ID，未启用时返回null
+     */
+    public List<Long> search(float[] queryVector, QdrantService.SearchFilter filter, int offset, int limit) {
+        if (!isEnabled() || queryVector == null || queryVector.length != dimension) {
+            return null;
+        }
+        int depth = offset + limit;
+        List<HnswIndex.Hit> hits = index.search(queryVector, depth, Math.max(properties.getHnswEfSearch(), depth),
+            postId -> {
+                PostSearchMeta meta = metas.get(postId);
+                return meta != null && meta.matches(filter);
+            });
+        List<Long> postIds = new ArrayList<>(limit);
+        for (int i = offset; i < hits.size(); i++) {
+            postIds.add(hits.get(i).id());
+        }
+        return postIds;
+    }
+
+    /**
+     * 与指定帖子向量最相似的帖子ID（不含帖子本身），帖子向量不存在时返回空列表，未启用时返回null
+     */
+    public List<Long> findRelated(long postId, int limit) {
+        if (!isEnabled()) {
+            return null;
+        }
+        float[] vector = index.vector(postId);
+        if (vector == null) {
+            return new ArrayList<>();
+        }
+        List<HnswIndex.Hit> hits = index.search(vector, limit, Math.max(properties.getHnswEfSearch(), limit),
+            id -> id != postId && metas.containsKey(id));
+        List<Long> postIds = new ArrayList<>(hits.size());
+        for (HnswIndex.Hit hit : hits) {
+            postIds.add(hit.id());
+        }
+        return postIds;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * 定期保存快照，标记删除的节点过多时先重建
+     */
+    @Scheduled(fixedDelayString = "${mentara.search.local.snapshot-interval-ms:600000}",
+        initialDelayString = "${mentara.search.local.snapshot-interval-ms:600000}")
+    public void snapshot() {
+        if (!isEnabled() || !dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            HnswIndex current;
+            synchronized (this) {
+                current = index;
+                int deleted = current.deletedCount();
+                if (deleted > 0 && deleted > (current.size() + deleted) * properties.getLocalIndexCompactRatio()) {
+                    current = current.compact();
+                    index = current;
+                    log.info("本地向量索引重建完成，清理{}个已删除节点", deleted);
+                }
+            }
+            long start = System.currentTimeMillis();
+            current.save(Path.of(properties.getLocalIndexPath()));
+            log.info("本地向量索引快照已保存: {}个向量, 耗时{}ms", current.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            dirty.set(true);
+            log.error("本地向量索引快照保存失败", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+
+    /**
+     * 按帖子ID分批从数据库读取过滤属性
+     */
+    private void loadMetas(long[] postIds) {
+        Arrays.sort(postIds);
+        int batchSize = properties.getRebuildBatchSize();
+        for (int from = 0; from < postIds.length; from += batchSize) {
+            List<Long> batch = Arrays.stream(postIds, from, Math.min(postIds.length, from + batchSize)).boxed().toList();
+            Map<Long, List<Long>> tagIds = new HashMap<>();
+            for (Object[] row : postRepository.findFeedTagsByPostIds(batch)) {
+                tagIds.computeIfAbsent((Long) row[0], key -> new ArrayList<>()).add(((PostTag) row[1]).getId());
+            }
+            for (PostFeedRow row : postRepository.findValidFeedRowsByIds(batch)) {
+                metas.put(row.id(), PostSearchMeta.of(row, tagIds.getOrDefault(row.id(), List.of())));
+            }
+        }
+    }
+}
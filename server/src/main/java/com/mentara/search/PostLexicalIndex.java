@@ -0,0 +1,237 @@
+package com.mentara.search;
+
+import com.mentara.config.SearchProperties;
+import com.mentara.dto.projection.PostFeedRow;
+import com.mentara.entity.Post;
+import com.mentara.entity.PostTag;
+import com.mentara.repository.PostRepository;
+import com.mentara.service.QdrantService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+import static com.mentara.util.TransactionUtils.afterCommit;
+
+/**
+ * 帖子倒排索引
+ * 索引已通过且未删除帖子的标题、内容和作者昵称，补充向量检索对短的精确查询（昵称、课程代码）的召回；
+ * 启动后从数据库建立，帖子状态变化时（事务提交后）增量更新，并定期整体重建以同步昵称修改等变化；
+ * 重建期间增量更新照常进行，变化的帖子记下来，替换索引后重新读取一次。
+ * 同时在内存中保存心情、标签、作者、发布时间，按与向量检索相同的条件过滤命中
+ */
+@Slf4j
+@Component
+public class PostLexicalIndex {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final SearchProperties properties;
+
+    private final LexicalIndex index;
+
+    private final Map<Long, PostSearchMeta> metas = new ConcurrentHashMap<>();
+
+    private volatile boolean built = false;
+
+    /**
+     * 保证同一时间只有一次重建；增量更新使用this，不受重建阻塞
+     */
+    private final Object rebuildLock = new Object();
+
+    /**
+     * 重建期间变化的帖子，替换索引后重新读取；不在重建时为null（由this保护）
+     */
+    private Set<Long> changedDuringRebuild;
+
+    @Autowired
+    public PostLexicalIndex(SearchProperties properties) {
+        this.properties = properties;
+        this.index = new LexicalIndex(properties.getBm25K1(), properties.getBm25B());
+    }
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("mentara.search.lexical.docs", index, LexicalIndex::size)
+            .description("倒排索引中的帖子数")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 启动完成后建立索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            ensureBuilt();
+        } catch (Exception e) {
+            // 建立失败时首次搜索再重试
+            log.error("帖子倒排索引建立失败", e);
+        }
+    }
+
+    /**
+     * 帖子通过审核、被删除或状态变化（事务提交后按数据库最新状态更新）
+     */
+    public void onPostChanged(Post post) {
+        Long postId = post.getId();
+        afterCommit(() -> refresh(List.of(postId)));
+    }
+
+    /**
+     * 按BM25分数倒序返回匹配的帖子ID，按与向量检索相同的条件过滤
+     */
+    public List<Long> search(String query, QdrantService.SearchFilter filter, int limit) {
+        ensureBuilt();
+        List<String> tokens = TextTokenizer.tokenizeQuery(query);
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<LexicalIndex.Hit> hits = index.search(tokens, limit, toPredicate(filter));
+        List<Long> postIds = new ArrayList<>(hits.size());
+        for (LexicalIndex.Hit hit : hits) {
+            postIds.add(hit.docId());
+        }
+        return postIds;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * 定期从数据库重建
+     */
+    @Scheduled(fixedDelayString = "${mentara.search.lexical.rebuild-interval-ms:3600000}",
+        initialDelayString = "${mentara.search.lexical.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changedDuringRebuild = new HashSet<>();
+            }
+            Set<Long> changed;
+            try {
+                rebuildFromDatabase();
+            } finally {
+                synchronized (this) {
+                    changed = changedDuringRebuild;
+                    changedDuringRebuild = null;
+                }
+            }
+            // 重建读到的可能是旧数据，重新读取期间变化的帖子
+            if (!changed.isEmpty()) {
+                refresh(new ArrayList<>(changed));
+            }
+        }
+    }
+
+    private void rebuildFromDatabase() {
+        long start = System.currentTimeMillis();
+        Map<Long, List<String>> documents = new HashMap<>();
+        Map<Long, PostSearchMeta> rebuiltMetas = new HashMap<>();
+        long afterId = 0;
+        while (true) {
+            List<Long> postIds = postRepository.findValidPostIdsAfter(afterId,
+                PageRequest.of(0, properties.getRebuildBatchSize()));
+            if (postIds.isEmpty()) {
+                break;
+            }
+            afterId = postIds.get(postIds.size() - 1);
+            Map<Long, List<Long>> tagIds = loadTagIds(postIds);
+            for (PostFeedRow row : postRepository.findValidFeedRowsByIds(postIds)) {
+                documents.put(row.id(), tokenize(row));
+                rebuiltMetas.put(row.id(), PostSearchMeta.of(row, tagIds.getOrDefault(row.id(), List.of())));
+            }
+        }
+        index.replaceAll(documents);
+        metas.keySet().retainAll(rebuiltMetas.keySet());
+        metas.putAll(rebuiltMetas);
+        built = true;
+        log.info("帖子倒排索引重建完成: {}篇, 耗时{}ms", documents.size(), System.currentTimeMillis() - start);
+    }
+
+    private void ensureBuilt() {
+        if (!built) {
+            synchronized (rebuildLock) {
+                if (!built) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    /**
+     * 重新读取帖子：仍可见的写入索引，否则移出；正在重建时同时记下，重建完成后再读取一次
+     */
+    private synchronized void refresh(List<Long> postIds) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.addAll(postIds);
+        }
+        if (!built) {
+            return;
+        }
+        Map<Long, List<Long>> tagIds = loadTagIds(postIds);
+        Set<Long> visible = new HashSet<>();
+        for (PostFeedRow row : postRepository.findValidFeedRowsByIds(postIds)) {
+            visible.add(row.id());
+            metas.put(row.id(), PostSearchMeta.of(row, tagIds.getOrDefault(row.id(), List.of())));
+            index.put(row.id(), tokenize(row));
+        }
+        for (Long postId : postIds) {
+            if (!visible.contains(postId)) {
+                index.remove(postId);
+                metas.remove(postId);
+            }
+        }
+    }
+
+    private Map<Long, List<Long>> loadTagIds(List<Long> postIds) {
+        Map<Long, List<Long>> tagIds = new HashMap<>();
+        for (Object[] row : postRepository.findFeedTagsByPostIds(postIds)) {
+            tagIds.computeIfAbsent((Long) row[0], key -> new ArrayList<>()).add(((PostTag) row[1]).getId());
+        }
+        return tagIds;
+    }
+
+    private List<String> tokenize(PostFeedRow row) {
+        List<String> tokens = new ArrayList<>();
+        List<String> titleTokens = TextTokenizer.tokenize(row.title());
+        for (int i = 0; i < properties.getTitleBoost(); i++) {
+            tokens.addAll(titleTokens);
+        }
+        tokens.addAll(TextTokenizer.tokenize(row.content()));
+        if (!Boolean.TRUE.equals(row.authorDeleted())) {
+            tokens.addAll(TextTokenizer.tokenize(row.authorNickname()));
+        }
+        return tokens;
+    }
+
+    private LongPredicate toPredicate(QdrantService.SearchFilter filter) {
+        if (filter == null) {
+            return null;
+        }
+        return postId -> {
+            PostSearchMeta meta = metas.get(postId);
+            return meta != null && meta.matches(filter);
+        };
+    }
+}
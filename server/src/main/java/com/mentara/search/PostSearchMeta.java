@@ -0,0 +1,46 @@
+package com.mentara.search;
+
+import com.mentara.dto.projection.PostFeedRow;
+import com.mentara.entity.Post;
+import com.mentara.enums.MoodType;
+import com.mentara.service.QdrantService;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 本地索引在内存中保存的帖子属性，按与Qdrant payload相同的条件过滤命中
+ */
+record PostSearchMeta(long authorId, MoodType mood, Set<Long> tagIds, LocalDateTime createdAt) {
+
+    static PostSearchMeta of(PostFeedRow row, List<Long> tagIds) {
+        return new PostSearchMeta(row.authorId(), row.mood(), Set.copyOf(tagIds), row.createdAt());
+    }
+
+    static PostSearchMeta of(Post post) {
+        Set<Long> tagIds = new HashSet<>();
+        if (post.getTags() != null) {
+            post.getTags().forEach(tag -> tagIds.add(tag.getId()));
+        }
+        long authorId = post.getAuthor() == null ? 0 : post.getAuthor().getId();
+        return new PostSearchMeta(authorId, post.getMood(), tagIds, post.getCreatedAt());
+    }
+
+    boolean matches(QdrantService.SearchFilter filter) {
+        if (filter == null) {
+            return true;
+        }
+        if (filter.mood() != null && filter.mood() != mood) {
+            return false;
+        }
+        if (filter.tagIds() != null && !tagIds.containsAll(filter.tagIds())) {
+            return false;
+        }
+        if (filter.createdAfter() != null && (createdAt == null || createdAt.isBefore(filter.createdAfter()))) {
+            return false;
+        }
+        return filter.excludedAuthorIds() == null || !filter.excludedAuthorIds().contains(authorId);
+    }
+}
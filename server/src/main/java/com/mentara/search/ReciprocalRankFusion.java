@@ -0,0 +1,38 @@
+package com.mentara.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 倒数排名融合（RRF）
+ * 文档得分 = Σ 1 / (k + 在各结果列表中的名次)，只依赖名次，不需要对向量相似度和BM25分数做归一化
+ */
+public final class ReciprocalRankFusion {
+
+    private ReciprocalRankFusion() {
+    }
+
+    /**
+     * 融合多个已排序的ID列表，得分相同时按首次出现的先后
+     *
+     * @param k 平滑常数，越大名次差异的影响越小
+     */
+    @SafeVarargs
+    public static List<Long> fuse(int k, List<Long>... rankings) {
+        Map<Long, Double> scores = new LinkedHashMap<>();
+        for (List<Long> ranking : rankings) {
+            if (ranking == null) {
+                continue;
+            }
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                scores.merge(ranking.get(rank), 1.0 / (k + rank + 1), Double::sum);
+            }
+        }
+        // 稳定排序，得分相同时保持首次出现的先后
+        List<Long> fused = new ArrayList<>(scores.keySet());
+        fused.sort((x, y) -> Double.compare(scores.get(y), scores.get(x)));
+        return fused;
+    }
+}
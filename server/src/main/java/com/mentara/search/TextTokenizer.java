@@ -0,0 +1,96 @@
+package com.mentara.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 倒排索引分词
+ * 全角转半角、英文转小写后：连续的中日韩文字切成相邻二字组（单字成段时保留单字），
+ * 连续的字母、数字、下划线作为一个词（用户昵称、课程代码等需要整词命中）；
+ * 其余字符视为分隔符。索引时中日韩文字另外逐字建立单字词，单字查询也能命中多字的段落；
+ * 多字查询只用二字组，不因常见单字命中无关帖子
+ */
+public final class TextTokenizer {
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * 索引用分词：二字组之外，多字段落的每个字也作为词
+     */
+    public static List<String> tokenize(String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * 查询用分词：多字段落只切成二字组
+     */
+    public static List<String> tokenizeQuery(String text) {
+        return tokenize(text, false);
+    }
+
+    private static List<String> tokenize(String text, boolean unigrams) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder cjk = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < normalized.length(); ) {
+            int codePoint = normalized.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (isCjk(codePoint)) {
+                flushWord(word, tokens);
+                cjk.appendCodePoint(codePoint);
+            } else if (Character.isLetterOrDigit(codePoint) || codePoint == '_') {
+                flushCjk(cjk, tokens, unigrams);
+                word.appendCodePoint(codePoint);
+            } else {
+                flushCjk(cjk, tokens, unigrams);
+                flushWord(word, tokens);
+            }
+        }
+        flushCjk(cjk, tokens, unigrams);
+        flushWord(word, tokens);
+        return tokens;
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+            || script == Character.UnicodeScript.HIRAGANA
+            || script == Character.UnicodeScript.KATAKANA
+            || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static void flushCjk(StringBuilder cjk, List<String> tokens, boolean unigrams) {
+        if (cjk.length() == 0) {
+            return;
+        }
+        int[] codePoints = cjk.codePoints().toArray();
+        if (codePoints.length == 1) {
+            tokens.add(new String(codePoints, 0, 1));
+        } else {
+            for (int i = 0; i + 1 < codePoints.length; i++) {
+                tokens.add(new String(codePoints, i, 2));
+            }
+            if (unigrams) {
+                for (int i = 0; i < codePoints.length; i++) {
+                    tokens.add(new String(codePoints, i, 1));
+                }
+            }
+        }
+        cjk.setLength(0);
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        // 单个英文字母没有区分度
+        if (word.length() > 1 || (word.length() == 1 && Character.isDigit(word.charAt(0)))) {
+            tokens.add(word.toString());
+        }
+        word.setLength(0);
+    }
+}
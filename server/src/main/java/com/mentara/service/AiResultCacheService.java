@@ -0,0 +1,27 @@
+package com.mentara.service;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * AI审核和打分结果缓存
+ * 键为任务名、模型/提示词版本和规范化文本（Unicode NFKC、小写、合并空白）的SHA-256，
+ * 内存中保留热点条目，数据库中持久保存；只缓存成功的结果，失败和兜底结果不缓存
+ */
+public interface AiResultCacheService {
+
+    /**
+     * 命中时返回缓存结果，否则调用compute并在cacheable判定为可缓存时写入
+     *
+     * @param task    任务名，如post-audit、mood-score，同时用作指标标签
+     * @param version 模型和提示词版本，修改提示词或更换模型时变更以使旧结果失效
+     * @param text    参与计算的全部文本输入
+     */
+    <T> T getOrCompute(String task, String version, String text, Class<T> type,
+                       Supplier<T> compute, Predicate<T> cacheable);
+
+    /**
+     * 清理过期条目，并把条目数压缩到上限以内
+     */
+    void evictExpired();
+}
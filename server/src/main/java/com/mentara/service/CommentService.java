@@ -2,6 +2,7 @@ package com.mentara.service;
 
 import com.mentara.dto.request.CommentRequest;
 import com.mentara.dto.response.CommentResponse;
+import com.mentara.dto.response.CursorPageResponse;
 
 
 import org.springframework.data.domain.Page;
@@ -19,6 +20,11 @@ public interface CommentService {
 
     Page<CommentResponse> getRepliesOfTopComment(Long commentId, Pageable pageable, Long currentUserId);
 
+    // 游标分页（无限滚动）：cursor为空表示第一页，不统计总数
+    CursorPageResponse<CommentResponse> getCommentsOfPostByCursor(Long postId, String cursor, int size, Long currentUserId);
+
+    CursorPageResponse<CommentResponse> getRepliesOfTopCommentByCursor(Long commentId, String cursor, int size, Long currentUserId);
+
     int calculateLastPageOfPost(Long postId, int size);
 
     int calculateLastPageOfTopComment(Long commentId, int size);
@@ -26,6 +26,17 @@ public interface DeepSeekService {
      */
     String generateResponse(String messages, String model);
     
+    /**
+     * 与generateResponse相同，但不返回兜底回复：DeepSeek熔断中、并发已满或重试后仍不可用时
+     * 抛出AiServiceUnavailableException，响应为空时返回null
+     */
+    String generateResponseOrThrow(String message, String model);
+    
+    /**
+     * DeepSeek是否可以调用（熔断器未断开）
+     */
+    boolean isAvailable();
+    
     /**
      * 解析JSON格式的LLM响应
      * @param jsonResponse JSON格式的响应字符串
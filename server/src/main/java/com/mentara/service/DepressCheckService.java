@@ -1,6 +1,11 @@
 package com.mentara.service;
 
+import com.mentara.dto.response.BertBatchResponse;
 import com.mentara.dto.response.DepressCheckResponse;
+import com.mentara.util.MicroBatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,8 +15,14 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 抑郁检查服务
@@ -32,11 +43,67 @@ public class DepressCheckService {
     @Value("${python.microservice.timeout:10000}")
     private int timeout;
 
+    /**
+     * 是否把并发的检查请求合并为批量调用
+     */
+    @Value("${python.microservice.batch.enabled:true}")
+    private boolean batchEnabled;
+
+    /**
+     * 每批最多合并的文本数
+     */
+    @Value("${python.microservice.batch.max-size:16}")
+    private int batchMaxSize;
+
+    /**
+     * 第一条请求到达后最多等待多久凑批（毫秒）
+     */
+    @Value("${python.microservice.batch.max-wait-ms:10}")
+    private long batchMaxWaitMs;
+
+    @Value("${python.microservice.batch.queue-capacity:512}")
+    private int batchQueueCapacity;
+
+    /**
+     * 同时进行的批量调用数
+     */
+    @Value("${python.microservice.batch.workers:1}")
+    private int batchWorkers;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AiResultCacheService aiResultCacheService;
+
+    /**
+     * bert模型版本，更换模型时变更以使缓存的旧结果失效
+     */
+    @Value("${python.microservice.model-version:v1}")
+    private String modelVersion;
+
+    private MicroBatcher<String, DepressCheckResponse> batcher;
+
     @Autowired
     public DepressCheckService(WebClient webClient) {
         this.webClient = webClient;
     }
 
+    @PostConstruct
+    public void init() {
+        if (batchEnabled) {
+            batcher = new MicroBatcher<>("depress-check", batchMaxSize, Duration.ofMillis(batchMaxWaitMs),
+                batchQueueCapacity, batchWorkers, this::requestChecks, meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
     /**
      * 检查文本的抑郁倾向
      * 
@@ -45,6 +112,33 @@ public class DepressCheckService {
      * @return 抑郁检查结果，包含label和score，如果失败返回null
      */
     public DepressCheckResponse checkDepress(String text, String checkType) {
+        // 相同文本已检查过时直接复用结果，失败结果（null）不缓存
+        return aiResultCacheService.getOrCompute("depress-check", modelVersion, text, DepressCheckResponse.class,
+            () -> checkUncached(text, checkType), result -> true);
+    }
+
+    private DepressCheckResponse checkUncached(String text, String checkType) {
+        if (batcher == null || text == null || text.isBlank()) {
+            return requestCheck(text, checkType);
+        }
+        // 与同一时间段内的其他请求合并为一次批量调用（bert服务不区分检查类型）
+        try {
+            DepressCheckResponse result = batcher.submit(text).get(timeout, TimeUnit.MILLISECONDS);
+            log.info("抑郁倾向检查成功，得分: {}, 标签: {}", result.getScore(), result.getLabel());
+            return result;
+        } catch (ExecutionException e) {
+            log.error("抑郁倾向检查过程中发生异常: {}", e.getCause().getMessage());
+            return null;
+        } catch (TimeoutException e) {
+            log.error("等待抑郁倾向检查结果超时");
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private DepressCheckResponse requestCheck(String text, String checkType) {
         try {
             log.info("开始检查抑郁倾向，文本长度: {}", text.length());
             
@@ -85,6 +179,39 @@ public class DepressCheckService {
         }
     }
 
+    /**
+     * 调用批量接口，结果顺序与texts一致；某条结果缺失时整批失败，由批处理器逐条重试
+     */
+    private List<DepressCheckResponse> requestChecks(List<String> texts) {
+        if (texts.size() == 1) {
+            DepressCheckResponse result = requestCheck(texts.get(0), null);
+            if (result == null) {
+                throw new IllegalStateException("抑郁倾向检查失败");
+            }
+            return List.of(result);
+        }
+        log.debug("发送批量抑郁检查请求，文本数: {}", texts.size());
+        BertBatchResponse response = webClient.post()
+                .uri(pythonServiceUrl + depressEndpoint + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("texts", texts))
+                .retrieve()
+                .bodyToMono(BertBatchResponse.class)
+                .timeout(Duration.ofMillis(timeout))
+                .block();
+        if (response == null || response.getResults() == null) {
+            throw new IllegalStateException("Python微服务批量接口返回无效响应");
+        }
+        List<DepressCheckResponse> results = new ArrayList<>(response.getResults().size());
+        for (BertBatchResponse.Prediction prediction : response.getResults()) {
+            if (prediction == null || prediction.getLabel() == null || prediction.getScore() == null) {
+                throw new IllegalStateException("Python微服务批量接口结果缺少label或score");
+            }
+            results.add(new DepressCheckResponse(prediction.getLabel(), prediction.getScore()));
+        }
+        return results;
+    }
+
     /**
      * 检查文本的抑郁倾向（简化版本，不指定检查类型）
      * 
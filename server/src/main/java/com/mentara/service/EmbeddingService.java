@@ -1,6 +1,12 @@
 package com.mentara.service;
 
+import com.mentara.dto.response.EmbeddingBatchResponse;
 import com.mentara.dto.response.EmbeddingResponse;
+import com.mentara.util.MicroBatcher;
+import com.mentara.util.TransientErrors;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,10 +15,16 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Service
@@ -21,6 +33,9 @@ public class EmbeddingService {
     @Autowired
     private WebClient webClient;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Value("${embedding.host}")
     private String embeddingHost;
 
@@ -30,9 +45,117 @@ public class EmbeddingService {
     @Value("${embedding.timeout}")
     private Long embeddingTimeout;
 
-    public List<Float> getEmbedding(String text) {
+    @Value("${embedding.max-retries:2}")
+    private int maxRetries;
+
+    @Value("${embedding.initial-backoff-ms:200}")
+    private long initialBackoffMs;
+
+    @Value("${embedding.max-backoff-ms:2000}")
+    private long maxBackoffMs;
+
+    /**
+     * 是否把并发的embedding请求合并为批量调用
+     */
+    @Value("${embedding.batch.enabled:true}")
+    private boolean batchEnabled;
+
+    /**
+     * 每批最多合并的文本数
+     */
+    @Value("${embedding.batch.max-size:32}")
+    private int batchMaxSize;
+
+    /**
+     * 第一条请求到达后最多等待多久凑批（毫秒）
+     */
+    @Value("${embedding.batch.max-wait-ms:5}")
+    private long batchMaxWaitMs;
+
+    @Value("${embedding.batch.queue-capacity:1024}")
+    private int batchQueueCapacity;
+
+    /**
+     * 同时进行的批量调用数
+     */
+    @Value("${embedding.batch.workers:1}")
+    private int batchWorkers;
+
+    private MicroBatcher<String, float[]> batcher;
+
+    @PostConstruct
+    public void init() {
+        if (batchEnabled) {
+            batcher = new MicroBatcher<>("embedding", batchMaxSize, Duration.ofMillis(batchMaxWaitMs),
+                batchQueueCapacity, batchWorkers, this::requestEmbeddings, meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    public float[] getEmbedding(String text) {
+        if (batcher == null) {
+            return requestEmbedding(normalize(text));
+        }
+        return await(getEmbeddingAsync(text));
+    }
+
+    /**
+     * 异步获取embedding，与同一时间段内的其他请求合并为一次批量调用
+     */
+    public CompletableFuture<float[]> getEmbeddingAsync(String text) {
+        String normalized;
         try {
-            log.info("发送请求到embedding服务，文字: {}", text);
+            normalized = normalize(text);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (batcher == null) {
+            return CompletableFuture.supplyAsync(() -> requestEmbedding(normalized));
+        }
+        return batcher.submit(normalized);
+    }
+
+    /**
+     * 批量获取embedding，结果与输入一一对应
+     */
+    public List<float[]> getEmbeddings(List<String> texts) {
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            futures.add(getEmbeddingAsync(text));
+        }
+        List<float[]> embeddings = new ArrayList<>(texts.size());
+        for (CompletableFuture<float[]> future : futures) {
+            embeddings.add(await(future));
+        }
+        return embeddings;
+    }
+
+    private float[] await(CompletableFuture<float[]> future) {
+        try {
+            return future.get(embeddingTimeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("调用Embedding API时发生异常", cause);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("等待Embedding结果超时", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待Embedding结果被中断", e);
+        }
+    }
+
+    private float[] requestEmbedding(String text) {
+        try {
+            log.debug("发送请求到embedding服务，文字长度: {}", text.length());
 
             // 创建请求对象
             Map<String, String> request = Map.of("text", text);
@@ -44,7 +167,7 @@ public class EmbeddingService {
                     .retrieve()
                     .bodyToMono(EmbeddingResponse.class)
                     .timeout(Duration.ofMillis(embeddingTimeout))
-                    .retry(3)
+                    .retryWhen(transientRetry())
                     .block();
 
             if (response != null && response.getEmbedding() != null) {
@@ -61,4 +184,62 @@ public class EmbeddingService {
             throw new RuntimeException("调用Embedding API时发生异常", e);
         }
     }
+
+    /**
+     * 只对超时、连接失败、429和5xx退避重试；其余错误直接抛出，批量请求交给MicroBatcher逐条重试
+     */
+    private Retry transientRetry() {
+        return Retry.backoff(maxRetries, Duration.ofMillis(initialBackoffMs))
+                .maxBackoff(Duration.ofMillis(maxBackoffMs))
+                .jitter(0.5)
+                .filter(TransientErrors::isTransient)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    /**
+     * 调用批量接口，结果顺序与texts一致
+     */
+    private List<float[]> requestEmbeddings(List<String> texts) {
+        if (texts.size() == 1) {
+            return List.of(requestEmbedding(texts.get(0)));
+        }
+        try {
+            log.debug("发送批量请求到embedding服务，文本数: {}", texts.size());
+
+            EmbeddingBatchResponse response = webClient.post()
+                    .uri("http://" + embeddingHost + ":" + embeddingPort + "/embedding/batch")
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .bodyValue(Map.of("texts", texts))
+                    .retrieve()
+                    .bodyToMono(EmbeddingBatchResponse.class)
+                    .timeout(Duration.ofMillis(embeddingTimeout))
+                    .retryWhen(transientRetry())
+                    .block();
+
+            if (response != null && response.getEmbeddings() != null) {
+                return response.getEmbeddings();
+            } else {
+                throw new RuntimeException("响应中没有找到embeddings数组");
+            }
+
+        } catch (WebClientResponseException e) {
+            log.error("Embedding批量API请求失败: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
+            throw new RuntimeException("Embedding批量API请求失败: " + e.getMessage(), e);
+        } catch (Exception e) {
+            log.error("调用Embedding批量API时发生异常", e);
+            throw new RuntimeException("调用Embedding批量API时发生异常", e);
+        }
+    }
+
+    /**
+     * embedding服务按行切分批量文本，单条接口也拒绝含换行的文本，
+     * 因此换行统一替换为空格
+     */
+    private static String normalize(String text) {
+        String normalized = text == null ? "" : text.replaceAll("[\\r\\n]+", " ").strip();
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("embedding文本不能为空");
+        }
+        return normalized;
+    }
 }
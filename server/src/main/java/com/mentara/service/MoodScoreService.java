@@ -1,6 +1,8 @@
 package com.mentara.service;
 
+import com.mentara.dto.response.DepressCheckResponse;
 import com.mentara.entity.MoodScore;
+import com.mentara.entity.Post;
 
 public interface MoodScoreService {
     
@@ -8,6 +10,12 @@ public interface MoodScoreService {
      * 为Post创建心情评分记录
      */
     MoodScore createMoodScoreForPost(Long postId, Long userId, String content);
+
+    /**
+     * 按已得到的心情得分和抑郁检测结果为Post保存心情评分记录，不调用AI服务；
+     * 两项都失败（null）时不保存，返回null
+     */
+    MoodScore saveMoodScoreForPost(Post post, Integer moodGrade, DepressCheckResponse depressCheck);
     
     /**
      * 为Checkin创建心情评分记录
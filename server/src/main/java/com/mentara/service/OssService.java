@@ -2,6 +2,9 @@ package com.mentara.service;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface OssService {
     
     /**
@@ -26,6 +29,14 @@ public interface OssService {
     * @return 可访问的临时URL
     */
     String generatePresignedUrl(String objectKey, long expiresInSeconds);
+
+    /**
+    * 批量生成临时URL，相同对象键只签名一次
+    * @param objectKeys 对象键（忽略空值）
+    * @param expiresInSeconds 链接有效期（秒）
+    * @return 对象键到临时URL的映射
+    */
+    Map<String, String> generatePresignedUrls(Collection<String> objectKeys, long expiresInSeconds);
     
     /**
      * 生成唯一的文件名
@@ -13,6 +13,7 @@ public interface PostAuditService {
      * 
      * @param post Post对象
      * @return 审核响应对象
+     * @throws com.mentara.exception.AiServiceUnavailableException DeepSeek暂不可用，应保留待审核状态稍后重试
      */
     PostAuditResponse auditPostContent(Post post);
     
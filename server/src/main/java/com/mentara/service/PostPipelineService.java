@@ -0,0 +1,29 @@
+package com.mentara.service;
+
+import com.mentara.dto.response.DepressCheckResponse;
+import com.mentara.dto.response.PostAuditResponse;
+
+/**
+ * 新帖子的AI处理流水线
+ * 帖子创建提交后，内容审核（DeepSeek）、心情打分和抑郁检测（bert，一次综合分析请求）、向量化并发执行，
+ * 全部完成后一次写入帖子状态和心情评分，最后放行该帖子的向量同步事件，由发件箱使用已算好的向量写入
+ */
+public interface PostPipelineService {
+
+    /**
+     * 提交帖子到流水线，在帖子创建的事务提交后调用；
+     * 流水线已满时不阻塞提交线程，帖子保持待审核，由定时任务重新提交
+     */
+    void submit(Long postId);
+
+    /**
+     * 在当前线程处理一个帖子，帖子不存在或已不是待审核状态时跳过
+     */
+    void process(Long postId);
+
+    /**
+     * 各阶段的结果，失败或超时的阶段为null；audit为null表示审核推迟，帖子保持待审核
+     */
+    record Result(PostAuditResponse audit, Integer moodGrade, DepressCheckResponse depressCheck) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.mentara.service;
 
 import com.mentara.dto.request.PostRequest;
+import com.mentara.dto.response.CursorPageResponse;
 import com.mentara.dto.response.PostResponse;
 import com.mentara.dto.response.ReportedPostResponse;
 import com.mentara.enums.MoodType;
@@ -13,6 +14,9 @@ import java.util.List;
 public interface PostService {
     // 基础实体操作方法（主要供内部使用）
     PostResponse findById(Long id, Long currentUserId);
+
+    // 帖子详情：共享缓存 + 当前用户点赞状态 + 未写回的计数
+    PostResponse findPostDetail(Long postId, Long currentUserId);
     Page<PostResponse> findAllPosts(Pageable pageable, Long currentUserId);
     Page<PostResponse> findPostsByUser(Long userId, Pageable pageable, Long currentUserId);
     PostResponse createPostForUser(PostRequest postRequest, Long currentUserId);
@@ -27,7 +31,20 @@ public interface PostService {
     Page<PostResponse> findPostsByTags(List<Long> tagIds, Pageable pageable, Long currentUserId);
     Page<PostResponse> findPostsByMood(MoodType mood, Pageable pageable, Long currentUserId);
 
+    // 游标分页（无限滚动）：cursor为空表示第一页，不统计总数
+    CursorPageResponse<PostResponse> findAllPostsByCursor(String cursor, int size, Long currentUserId);
+    CursorPageResponse<PostResponse> findPostsByFilterAndCursor(String filter, String cursor, int size, Long currentUserId);
+    CursorPageResponse<PostResponse> findPostsByTagsAndCursor(List<Long> tagIds, String cursor, int size, Long currentUserId);
+    CursorPageResponse<PostResponse> findPostsByMoodAndCursor(MoodType mood, String cursor, int size, Long currentUserId);
+    CursorPageResponse<PostResponse> findPostsByUserAndCursor(Long userId, String cursor, int size, Long currentUserId);
+    // 关注的用户的帖子流（按发布先后倒序）
+    CursorPageResponse<PostResponse> findFollowingPostsByCursor(String cursor, int size, Long currentUserId);
+
     Page<PostResponse> searchPosts(String filter, Pageable pageable, Long currentUserId);
+    // 语义搜索，可按心情和标签（须同时包含）过滤，mood/tagIds为null时不过滤
+    Page<PostResponse> searchPosts(String keyword, MoodType mood, List<Long> tagIds, Pageable pageable, Long currentUserId);
+    // 相关帖子推荐（按帖子已存储的向量），排除帖子本身和拉黑用户的帖子
+    List<PostResponse> findRelatedPosts(Long postId, int limit, Long currentUserId);
     // 举报相关方法
     void reportPost(Long postId, Long currentUserId, String reason);
     Page<ReportedPostResponse> getReportedPosts(Pageable pageable);
@@ -92,6 +109,12 @@ public interface PostService {
      * 管理员通过帖子举报
      */
     void approvePostReport(Long postId);
+
+    /**
+     * 写入AI处理流水线的结果：保存心情评分，按审核结果更新待审核帖子的状态，一次保存；
+     * 处理期间已被管理员审核或作者删除的帖子不改变状态，审核未完成时帖子保持待审核
+     */
+    void applyPipelineResult(Long postId, PostPipelineService.Result result);
     
     // ================== 区分删除原因的查询方法 ==================
     
@@ -1,13 +1,90 @@
 package com.mentara.service;
 
 import com.mentara.entity.Post;
+import com.mentara.enums.MoodType;
 import io.qdrant.client.grpc.Points;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface QdrantService {
+
+    /**
+     * 帖子向量的payload字段，QdrantConfig启动时为这些字段建索引
+     */
+    String PAYLOAD_STATE = "state";
+    String PAYLOAD_IS_DELETED = "is_deleted";
+    String PAYLOAD_MOOD = "mood";
+    String PAYLOAD_TAG_IDS = "tag_ids";
+    String PAYLOAD_AUTHOR_ID = "author_id";
+    String PAYLOAD_CREATED_AT = "created_at";
+
     Long upsertPostVector(Post post);
+
+    /**
+     * 批量向量化并写入帖子向量（Qdrant和本地索引），等待Qdrant确认；
+     * 返回已写入的帖子ID，向量化失败的帖子不在其中。Qdrant写入失败时抛出异常，由调用方重试
+     */
+    List<Long> upsertPostVectors(List<Post> posts);
+
+    /**
+     * 提前向量化帖子（不写入向量库），结果暂存，下一次写入该帖子向量时若帖子文本未变则直接使用
+     */
+    CompletableFuture<float[]> preparePostVector(Post post);
+
+    /**
+     * 批量删除帖子向量，等待Qdrant确认，失败时抛出异常，由调用方重试
+     */
+    void deletePostVectors(Collection<Long> postIds);
+
     List<Points.ScoredPoint> queryPostVector(String query);
     List<Points.ScoredPoint> accurateQueryPostVector(String query);
+
+    /**
+     * 按相似度排序的帖子ID，过滤和分页在Qdrant中执行，Qdrant不可用时改查本地HNSW索引；
+     * 相同条件在向量集合未变化时直接返回缓存结果，查询失败返回null
+     */
+    List<Long> searchPostIds(String query, SearchFilter filter, int offset, int limit);
+
+    /**
+     * 与指定帖子最相似的帖子ID：按已存储的向量做推荐查询，不重新向量化；
+     * 排除帖子本身，只含已通过且未删除的帖子。结果按帖子缓存，帖子向量重写或删除时失效；
+     * 帖子还没有向量或查询失败时返回空列表
+     */
+    List<Long> findRelatedPostIds(Long postId, int limit);
+
+    /**
+     * 帖子状态、心情、标签变化后更新向量的payload
+     */
+    void updatePostPayload(Post post);
+
+    /**
+     * 蓝绿重建期间把增量写入（写入、删除、payload更新）同时写到正在重建的集合，
+     * 传null结束双写；每次切换都会使搜索结果缓存失效
+     */
+    void setRebuildTarget(String collection);
+
+    /**
+     * 向量搜索的过滤条件，始终只搜索已通过且未删除的帖子；为空的字段不限
+     *
+     * @param tagIds            必须包含的全部标签
+     * @param excludedAuthorIds 排除的作者（拉黑关系）
+     */
+    record SearchFilter(MoodType mood, List<Long> tagIds, LocalDateTime createdAfter,
+                        Collection<Long> excludedAuthorIds) {
+
+        public static SearchFilter none() {
+            return new SearchFilter(null, null, null, null);
+        }
+
+        public String cacheKey() {
+            List<Long> tags = tagIds == null ? List.of() : tagIds.stream().distinct().sorted().toList();
+            List<Long> excluded = excludedAuthorIds == null ? List.of()
+                : excludedAuthorIds.stream().sorted().toList();
+            return mood + "|" + tags + "|" + createdAfter + "|" + excluded;
+        }
+    }
     Long deletePostVector(Post post);
 }
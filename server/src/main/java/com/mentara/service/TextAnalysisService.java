@@ -0,0 +1,209 @@
+package com.mentara.service;
+
+import com.mentara.dto.response.BertBatchResponse;
+import com.mentara.dto.response.DepressCheckResponse;
+import com.mentara.dto.response.TextAnalysisResponse;
+import com.mentara.util.MicroBatcher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 文本综合分析服务
+ * 一次调用bert微服务的/analyze接口同时得到心情得分和全部风险检测结果；
+ * 接口不可用时改为并行调用打分和抑郁检查接口，并在一段时间内不再尝试综合接口
+ */
+@Slf4j
+@Service
+public class TextAnalysisService {
+
+    private final WebClient webClient;
+
+    @Value("${python.microservice.url:http://localhost:8000}")
+    private String pythonServiceUrl;
+
+    @Value("${python.microservice.analyze.endpoint:/analyze}")
+    private String analyzeEndpoint;
+
+    @Value("${python.microservice.timeout:10000}")
+    private int timeout;
+
+    /**
+     * 综合接口调用失败后改用单项接口的时长（毫秒）
+     */
+    @Value("${python.microservice.analyze.retry-after-ms:60000}")
+    private long retryAfterMs;
+
+    @Value("${python.microservice.batch.enabled:true}")
+    private boolean batchEnabled;
+
+    @Value("${python.microservice.batch.max-size:16}")
+    private int batchMaxSize;
+
+    @Value("${python.microservice.batch.max-wait-ms:10}")
+    private long batchMaxWaitMs;
+
+    @Value("${python.microservice.batch.queue-capacity:512}")
+    private int batchQueueCapacity;
+
+    @Value("${python.microservice.batch.workers:1}")
+    private int batchWorkers;
+
+    @Autowired
+    private TextScoreService textScoreService;
+
+    @Autowired
+    private DepressCheckService depressCheckService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AiResultCacheService aiResultCacheService;
+
+    /**
+     * bert模型版本，更换模型时变更以使缓存的旧结果失效
+     */
+    @Value("${python.microservice.model-version:v1}")
+    private String modelVersion;
+
+    private MicroBatcher<String, TextAnalysisResponse> batcher;
+
+    private Counter fallbackCounter;
+
+    /**
+     * 综合接口恢复尝试的时间点（System.nanoTime），之前一律走单项接口
+     */
+    private volatile long unavailableUntil = System.nanoTime();
+
+    @Autowired
+    public TextAnalysisService(WebClient webClient) {
+        this.webClient = webClient;
+    }
+
+    @PostConstruct
+    public void init() {
+        fallbackCounter = Counter.builder("mentara.text-analysis.fallback")
+            .description("综合分析接口不可用、改为并行调用单项接口的次数")
+            .register(meterRegistry);
+        if (batchEnabled) {
+            batcher = new MicroBatcher<>("text-analysis", batchMaxSize, Duration.ofMillis(batchMaxWaitMs),
+                batchQueueCapacity, batchWorkers, this::requestAnalyses, meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    /**
+     * 分析文本的心情得分和风险，从不返回null；失败的单项在结果中为null
+     */
+    public TextAnalysisResponse analyze(String text) {
+        if (text == null || text.isBlank()) {
+            return new TextAnalysisResponse(null, Map.of());
+        }
+        // 相同文本已分析过时直接复用结果；只缓存心情得分和抑郁检测都成功的结果
+        return aiResultCacheService.getOrCompute("text-analysis", modelVersion, text, TextAnalysisResponse.class,
+            () -> analyzeUncached(text),
+            response -> response.getMoodGrade() != null && response.getDepression() != null);
+    }
+
+    private TextAnalysisResponse analyzeUncached(String text) {
+        if (System.nanoTime() - unavailableUntil >= 0) {
+            try {
+                TextAnalysisResponse response = batcher != null
+                    ? batcher.submit(text).get(timeout, TimeUnit.MILLISECONDS)
+                    : requestAnalysis(text);
+                log.info("文本综合分析成功，心情得分: {}, 最高风险分数: {}",
+                    response.getMoodGrade(), response.getMaxRiskScore());
+                return response;
+            } catch (ExecutionException e) {
+                markUnavailable(e.getCause());
+            } catch (TimeoutException e) {
+                markUnavailable(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new TextAnalysisResponse(null, Map.of());
+            } catch (RuntimeException e) {
+                markUnavailable(e);
+            }
+        }
+        return analyzeSeparately(text);
+    }
+
+    /**
+     * 并行调用打分和抑郁检查接口，耗时取两者中较长的一次
+     */
+    private TextAnalysisResponse analyzeSeparately(String text) {
+        fallbackCounter.increment();
+        CompletableFuture<DepressCheckResponse> depression =
+            CompletableFuture.supplyAsync(() -> depressCheckService.checkDepress(text, TextAnalysisResponse.DEPRESSION));
+        Integer moodGrade = textScoreService.scoreText(text, "mood");
+        Map<String, DepressCheckResponse> risks = new HashMap<>();
+        risks.put(TextAnalysisResponse.DEPRESSION, depression.join());
+        BertBatchResponse.Prediction mood = moodGrade != null ? new BertBatchResponse.Prediction(moodGrade, null) : null;
+        return new TextAnalysisResponse(mood, risks);
+    }
+
+    private void markUnavailable(Throwable error) {
+        unavailableUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryAfterMs);
+        log.warn("综合分析接口调用失败，{}ms内改为并行调用单项接口: {}", retryAfterMs, error.getMessage());
+    }
+
+    private TextAnalysisResponse requestAnalysis(String text) {
+        TextAnalysisResponse response = webClient.post()
+                .uri(pythonServiceUrl + analyzeEndpoint)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("text", text))
+                .retrieve()
+                .bodyToMono(TextAnalysisResponse.class)
+                .timeout(Duration.ofMillis(timeout))
+                .block();
+        if (response == null || response.getMood() == null) {
+            throw new IllegalStateException("Python微服务综合分析接口返回无效响应");
+        }
+        return response;
+    }
+
+    /**
+     * 调用批量综合分析接口，结果顺序与texts一致
+     */
+    private List<TextAnalysisResponse> requestAnalyses(List<String> texts) {
+        if (texts.size() == 1) {
+            return List.of(requestAnalysis(texts.get(0)));
+        }
+        log.debug("发送批量综合分析请求，文本数: {}", texts.size());
+        TextAnalysisResponse.Batch response = webClient.post()
+                .uri(pythonServiceUrl + analyzeEndpoint + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("texts", texts))
+                .retrieve()
+                .bodyToMono(TextAnalysisResponse.Batch.class)
+                .timeout(Duration.ofMillis(timeout))
+                .block();
+        if (response == null || response.getResults() == null) {
+            throw new IllegalStateException("Python微服务批量综合分析接口返回无效响应");
+        }
+        return response.getResults();
+    }
+}
@@ -1,5 +1,10 @@
 package com.mentara.service;
 
+import com.mentara.dto.response.BertBatchResponse;
+import com.mentara.util.MicroBatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,8 +15,14 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 文本打分服务
@@ -32,11 +43,67 @@ public class TextScoreService {
     @Value("${python.microservice.timeout:10000}")
     private int timeout;
 
+    /**
+     * 是否把并发的打分请求合并为批量调用
+     */
+    @Value("${python.microservice.batch.enabled:true}")
+    private boolean batchEnabled;
+
+    /**
+     * 每批最多合并的文本数
+     */
+    @Value("${python.microservice.batch.max-size:16}")
+    private int batchMaxSize;
+
+    /**
+     * 第一条请求到达后最多等待多久凑批（毫秒）
+     */
+    @Value("${python.microservice.batch.max-wait-ms:10}")
+    private long batchMaxWaitMs;
+
+    @Value("${python.microservice.batch.queue-capacity:512}")
+    private int batchQueueCapacity;
+
+    /**
+     * 同时进行的批量调用数
+     */
+    @Value("${python.microservice.batch.workers:1}")
+    private int batchWorkers;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AiResultCacheService aiResultCacheService;
+
+    /**
+     * bert模型版本，更换模型时变更以使缓存的旧结果失效
+     */
+    @Value("${python.microservice.model-version:v1}")
+    private String modelVersion;
+
+    private MicroBatcher<String, Integer> batcher;
+
     @Autowired
     public TextScoreService(WebClient webClient) {
         this.webClient = webClient;
     }
 
+    @PostConstruct
+    public void init() {
+        if (batchEnabled) {
+            batcher = new MicroBatcher<>("mood-score", batchMaxSize, Duration.ofMillis(batchMaxWaitMs),
+                batchQueueCapacity, batchWorkers, this::requestScores, meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
     /**
      * 对文本进行打分
      * 
@@ -45,6 +112,33 @@ public class TextScoreService {
      * @return 打分结果，如果失败返回null
      */
     public Integer scoreText(String text, String scoreType) {
+        // 相同文本已打过分时直接复用结果，失败结果（null）不缓存
+        return aiResultCacheService.getOrCompute("mood-score", modelVersion, text, Integer.class,
+            () -> scoreUncached(text, scoreType), score -> true);
+    }
+
+    private Integer scoreUncached(String text, String scoreType) {
+        if (batcher == null || text == null || text.isBlank()) {
+            return requestScore(text, scoreType);
+        }
+        // 与同一时间段内的其他请求合并为一次批量调用（bert服务不区分打分类型）
+        try {
+            Integer score = batcher.submit(text).get(timeout, TimeUnit.MILLISECONDS);
+            log.info("文本打分成功，得分: {}", score);
+            return score;
+        } catch (ExecutionException e) {
+            log.error("文本打分过程中发生异常: {}", e.getCause().getMessage());
+            return null;
+        } catch (TimeoutException e) {
+            log.error("等待文本打分结果超时");
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private Integer requestScore(String text, String scoreType) {
         try {
             log.info("开始对文本进行打分，文本长度: {}", text.length());
             
@@ -84,6 +178,39 @@ public class TextScoreService {
         }
     }
 
+    /**
+     * 调用批量接口，结果顺序与texts一致；某条结果缺失时整批失败，由批处理器逐条重试
+     */
+    private List<Integer> requestScores(List<String> texts) {
+        if (texts.size() == 1) {
+            Integer score = requestScore(texts.get(0), null);
+            if (score == null) {
+                throw new IllegalStateException("文本打分失败");
+            }
+            return List.of(score);
+        }
+        log.debug("发送批量打分请求，文本数: {}", texts.size());
+        BertBatchResponse response = webClient.post()
+                .uri(pythonServiceUrl + scoreEndpoint + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("texts", texts))
+                .retrieve()
+                .bodyToMono(BertBatchResponse.class)
+                .timeout(Duration.ofMillis(timeout))
+                .block();
+        if (response == null || response.getResults() == null) {
+            throw new IllegalStateException("Python微服务批量接口返回无效响应");
+        }
+        List<Integer> scores = new ArrayList<>(response.getResults().size());
+        for (BertBatchResponse.Prediction prediction : response.getResults()) {
+            if (prediction == null || prediction.getLabel() == null) {
+                throw new IllegalStateException("Python微服务批量接口结果缺少label");
+            }
+            scores.add(prediction.getLabel());
+        }
+        return scores;
+    }
+
     /**
      * 对文本进行打分（简化版本，不指定打分类型）
      * 
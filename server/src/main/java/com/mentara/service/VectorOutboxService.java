@@ -0,0 +1,38 @@
+package com.mentara.service;
+
+import java.time.Duration;
+
+/**
+ * 帖子向量同步发件箱
+ * 写入和删除向量的请求先作为事件落库（与帖子变更同一事务），再由后台定时批量同步到向量库，
+ * 同步失败按指数退避重试，保证向量库与帖子表最终一致
+ */
+public interface VectorOutboxService {
+
+    /**
+     * 记录写入帖子向量的事件，在当前事务中写入，事务回滚时一并撤销
+     */
+    void enqueueUpsert(Long postId);
+
+    /**
+     * 记录推迟delay处理的写入事件：由AI处理流水线完成后调用release放行，
+     * 流水线未能完成（进程退出等）时到期后照常写入
+     */
+    void enqueueUpsert(Long postId, Duration delay);
+
+    /**
+     * 放行帖子尚未到期的事件，下一次轮询时处理
+     */
+    void release(Long postId);
+
+    /**
+     * 记录删除帖子向量的事件，在当前事务中写入，事务回滚时一并撤销
+     */
+    void enqueueDelete(Long postId);
+
+    /**
+     * 处理一批到期的事件：同一帖子只执行最新的操作，写入和删除各一次批量请求；
+     * 成功的事件删除，失败的推迟重试，重试次数用尽的标记为FAILED。返回本批读取的事件数
+     */
+    int drain();
+}
@@ -0,0 +1,49 @@
+package com.mentara.service;
+
+import com.mentara.dto.response.VectorReindexJobResponse;
+import com.mentara.dto.response.VectorStorageResponse;
+
+/**
+ * 帖子向量重建
+ * 按帖子ID顺序批量向量化并写入Qdrant，支持断点续跑和蓝绿集合切换；
+ * 新集合按qdrant.storage配置的量化和磁盘存储方式创建
+ */
+public interface VectorReindexService {
+
+    /**
+     * 启动重建任务，已有任务在运行时抛出IllegalStateException
+     *
+     * @param blueGreen true时写入新集合，完成后把别名切到新集合，重建期间搜索继续使用旧集合；
+     *                  false时直接覆盖写入当前集合
+     */
+    VectorReindexJobResponse startReindex(boolean blueGreen);
+
+    /**
+     * 从检查点继续中断或失败的任务
+     */
+    VectorReindexJobResponse resumeReindex(Long jobId);
+
+    /**
+     * 取消运行中的任务，当前批次写入完成后停止
+     */
+    VectorReindexJobResponse cancelReindex(Long jobId);
+
+    VectorReindexJobResponse getJob(Long jobId);
+
+    /**
+     * 最近一次任务，没有任务时返回null
+     */
+    VectorReindexJobResponse getLatestJob();
+
+    /**
+     * 当前集合的量化方式、向量和HNSW图存放位置，以及是否与qdrant.storage配置一致
+     */
+    VectorStorageResponse getStorage();
+
+    /**
+     * 把qdrant.storage配置原地应用到当前集合：Qdrant在后台生成量化向量、迁移段，期间搜索照常可用
+     * （集合状态为YELLOW直到完成）。重建任务运行中时抛出IllegalStateException；
+     * 需要同时重新向量化时改用蓝绿重建
+     */
+    VectorStorageResponse migrateStorage();
+}
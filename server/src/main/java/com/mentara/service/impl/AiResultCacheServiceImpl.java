@@ -0,0 +1,225 @@
+package com.mentara.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mentara.entity.AiResultCacheEntry;
+import com.mentara.repository.AiResultCacheRepository;
+import com.mentara.service.AiResultCacheService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+@Slf4j
+@Service
+public class AiResultCacheServiceImpl implements AiResultCacheService {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Autowired
+    private AiResultCacheRepository cacheRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${mentara.ai-cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 结果保存时长（小时）
+     */
+    @Value("${mentara.ai-cache.ttl-hours:720}")
+    private long ttlHours;
+
+    /**
+     * 数据库中保留的最大条目数，超出时淘汰最早写入的条目
+     */
+    @Value("${mentara.ai-cache.max-entries:100000}")
+    private int maxEntries;
+
+    /**
+     * 内存中保留的最大条目数
+     */
+    @Value("${mentara.ai-cache.memory-max-size:10000}")
+    private int memoryMaxSize;
+
+    /**
+     * 内存层：缓存键 -> 结果JSON，每次命中重新反序列化，调用方拿到各自的对象
+     */
+    private Cache<String, String> memory;
+
+    /**
+     * 正在计算的键，同一文本的并发请求只调用一次模型
+     */
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        memory = Caffeine.newBuilder()
+            .maximumSize(memoryMaxSize)
+            .expireAfterWrite(Duration.ofHours(ttlHours))
+            .build();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getOrCompute(String task, String version, String text, Class<T> type,
+                              Supplier<T> compute, Predicate<T> cacheable) {
+        if (!enabled || text == null || text.isBlank()) {
+            return compute.get();
+        }
+        String key = cacheKey(task, version, text);
+
+        T cached = read(key, type, task);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Object> pending = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            record(task, "coalesced");
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtimeException
+                    ? runtimeException : e;
+            }
+        }
+
+        record(task, "miss");
+        try {
+            T result = compute.get();
+            if (result != null && cacheable.test(result)) {
+                write(key, task, result);
+            }
+            pending.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${mentara.ai-cache.cleanup-interval-ms:3600000}")
+    public void evictExpired() {
+        int expired = cacheRepository.deleteExpired(LocalDateTime.now());
+        long overflow = cacheRepository.count() - maxEntries;
+        if (overflow > 0) {
+            List<Long> oldest = cacheRepository.findOldestIds(PageRequest.of(0, (int) Math.min(overflow, 10_000)));
+            cacheRepository.deleteAllByIdInBatch(oldest);
+        }
+        if (expired > 0 || overflow > 0) {
+            log.info("清理AI结果缓存，过期{}条，超出容量{}条", expired, Math.max(overflow, 0));
+        }
+    }
+
+    private <T> T read(String key, Class<T> type, String task) {
+        String json = memory.getIfPresent(key);
+        if (json != null) {
+            T value = deserialize(json, type);
+            if (value != null) {
+                record(task, "memory_hit");
+                return value;
+            }
+        }
+        AiResultCacheEntry entry = cacheRepository.findByCacheKey(key).orElse(null);
+        if (entry == null || entry.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return null;
+        }
+        T value = deserialize(entry.getResultJson(), type);
+        if (value != null) {
+            memory.put(key, entry.getResultJson());
+            record(task, "db_hit");
+        }
+        return value;
+    }
+
+    private void write(String key, String task, Object result) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            log.warn("AI结果无法序列化，不缓存: {}", e.getMessage());
+            return;
+        }
+        memory.put(key, json);
+        try {
+            cacheRepository.save(new AiResultCacheEntry(key, task, json, LocalDateTime.now().plusHours(ttlHours)));
+        } catch (DataIntegrityViolationException e) {
+            // 其他实例已写入同一键
+            log.debug("AI结果缓存键已存在: {}", key);
+        } catch (RuntimeException e) {
+            log.warn("写入AI结果缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private <T> T deserialize(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            log.warn("AI结果缓存反序列化失败，按未命中处理: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void record(String task, String outcome) {
+        Counter.builder("mentara.ai.cache.requests")
+            .description("AI结果缓存查询次数，按命中层级区分")
+            .tag("task", task)
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    static String cacheKey(String task, String version, String text) {
+        String material = task + '\n' + version + '\n' + normalize(text);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(material.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    /**
+     * 全角半角、大小写和空白差异视为同一文本
+     */
+    static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(normalized).replaceAll(" ").strip();
+    }
+}
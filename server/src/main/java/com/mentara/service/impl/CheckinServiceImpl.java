@@ -1,5 +1,7 @@
 package com.mentara.service.impl;
 
+import com.mentara.cache.CacheTagIndex;
+import com.mentara.cache.CacheTags;
 import com.mentara.entity.Checkin;
 import com.mentara.entity.User;
 import com.mentara.exception.ResourceNotFoundException;
@@ -38,6 +40,9 @@ public class CheckinServiceImpl implements CheckinService {
     @Autowired
     private MoodScoreService moodScoreService;
 
+    @Autowired
+    private CacheTagIndex cacheTagIndex;
+
     @Override
     @Transactional
     public void createCheckin(CheckinRequest checkinRequest, Long userId) {
@@ -47,6 +52,8 @@ public class CheckinServiceImpl implements CheckinService {
         checkin.setUser(userRepository.findById(userId)
             .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId)));
         Checkin savedCheckin = checkinRepository.save(checkin);
+        // 打卡评分参与平均心情统计
+        cacheTagIndex.evictTags(CacheTags.STATS_GLOBAL, CacheTags.userStats(userId));
 
         // 创建心情评分记录
         if (checkinRequest.getNote() != null && !checkinRequest.getNote().trim().isEmpty()) {
@@ -2,6 +2,7 @@ package com.mentara.service.impl;
 
 import com.mentara.dto.request.CommentRequest;
 import com.mentara.dto.response.CommentResponse;
+import com.mentara.dto.response.CursorPageResponse;
 import com.mentara.entity.Comment;
 import com.mentara.entity.Post;
 import com.mentara.entity.User;
@@ -13,13 +14,19 @@ import com.mentara.repository.UserRepository;
 import com.mentara.repository.CommentLikeRepository;
 import com.mentara.repository.CommentReportRepository;
 import com.mentara.converter.CommentConverter;
+import com.mentara.cache.CacheTagIndex;
+import com.mentara.cache.CacheTags;
+import com.mentara.cache.EngagementCounterBuffer;
+import com.mentara.cache.UserBlockGraph;
 import com.mentara.service.CommentService;
 import com.mentara.service.NotificationService;
 import com.mentara.service.UserService;
+import com.mentara.util.PageCursor;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import com.mentara.entity.CommentLike;
@@ -37,6 +44,7 @@ import java.util.stream.Collectors;
 import java.util.Optional;
 import java.util.HashMap;
 import java.util.List;
+import java.util.function.BiFunction;
 import java.util.Map;
 import java.util.Set;
 import java.time.LocalDateTime;
@@ -74,9 +82,22 @@ public class CommentServiceImpl implements CommentService {
     @Autowired
     private ApplicationContext applicationContext;
 
+    @Autowired
+    private CacheTagIndex cacheTagIndex;
+
+    @Autowired
+    private EngagementCounterBuffer counterBuffer;
+
+    @Autowired
+    private UserBlockGraph userBlockGraph;
+
+    /**
+     * 游标分页过滤拉黑用户后补齐一页时最多扫描的批次数
+     */
+    private static final int CURSOR_MAX_SCAN_ROUNDS = 5;
+
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public CommentResponse createComment(CommentRequest commentRequest, Long authorId) {
         User author = userRepository.findById(authorId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", authorId));
@@ -118,7 +139,8 @@ public class CommentServiceImpl implements CommentService {
             throw new IllegalArgumentException("Comment request is invalid.");
         }
 
-        postRepository.updateCommentCount(commentRequest.getPostId(), 1);
+        counterBuffer.addPostComments(commentRequest.getPostId(), 1);
+        evictPostCommentCaches(commentRequest.getPostId(), authorId);
         return commentConverter.toResponse(
                 savedComment, isCommentLikedByUser(comment.getId(), authorId), authorId);
     }
@@ -129,7 +151,11 @@ public class CommentServiceImpl implements CommentService {
             throw new ResourceNotFoundException("Post", "id", postId);
         }
         // 使用软删除查询方法，只查询未删除的评论
-        Page<Comment> topLevelComments = commentRepository.findByPostIdAndParentIsNullAndIsDeletedFalseOrderByCreatedAtAsc(postId, pageable);
+        // 拉黑关系的作者在查询中排除，页大小和总数保持准确
+        Set<Long> hidden = userBlockGraph.hiddenAuthorIds(currentUserId);
+        Page<Comment> topLevelComments = hidden.isEmpty()
+                ? commentRepository.findByPostIdAndParentIsNullAndIsDeletedFalseOrderByCreatedAtAsc(postId, pageable)
+                : commentRepository.findByPostIdAndParentIsNullAndIsDeletedFalseAndAuthorIdNotInOrderByCreatedAtAsc(postId, hidden, pageable);
         return optimizeCommentResponsePage(topLevelComments, currentUserId);
     }
 
@@ -139,7 +165,10 @@ public class CommentServiceImpl implements CommentService {
             throw new ResourceNotFoundException("Comment", "id", commentId);
         }
         // 使用软删除查询方法，只查询未删除的回复
-        Page<Comment> replies = commentRepository.findByParentIdAndIsDeletedFalseOrderByCreatedAtAsc(commentId, pageable);
+        Set<Long> hidden = userBlockGraph.hiddenAuthorIds(currentUserId);
+        Page<Comment> replies = hidden.isEmpty()
+                ? commentRepository.findByParentIdAndIsDeletedFalseOrderByCreatedAtAsc(commentId, pageable)
+                : commentRepository.findByParentIdAndIsDeletedFalseAndAuthorIdNotInOrderByCreatedAtAsc(commentId, hidden, pageable);
         return optimizeCommentResponsePage(replies, currentUserId);
     }
 
@@ -162,13 +191,77 @@ public class CommentServiceImpl implements CommentService {
             throw new ResourceNotFoundException("Comment", "id", commentId);
         }
         // 使用软删除查询方法，只查询未删除的回复
-        Page<Comment> replies = commentRepository.findByTopCommentIdAndIsDeletedFalseOrderByCreatedAtAsc(commentId, pageable);
+        Set<Long> hidden = userBlockGraph.hiddenAuthorIds(currentUserId);
+        Page<Comment> replies = hidden.isEmpty()
+                ? commentRepository.findByTopCommentIdAndIsDeletedFalseOrderByCreatedAtAsc(commentId, pageable)
+                : commentRepository.findByTopCommentIdAndIsDeletedFalseAndAuthorIdNotInOrderByCreatedAtAsc(commentId, hidden, pageable);
         return optimizeCommentResponsePage(replies, currentUserId);
     }
 
+    @Override
+    public CursorPageResponse<CommentResponse> getCommentsOfPostByCursor(Long postId, String cursor, int size, Long currentUserId) {
+        if (!postRepository.existsById(postId)) {
+            throw new ResourceNotFoundException("Post", "id", postId);
+        }
+        return toCursorPage(PageCursor.decode(cursor, PageCursor.firstByTimeAsc()), size, currentUserId,
+                (position, limit) -> commentRepository.findTopLevelCommentsByCursor(
+                        postId, position.createdAt(), position.id(), limit));
+    }
+
+    @Override
+    public CursorPageResponse<CommentResponse> getRepliesOfTopCommentByCursor(Long commentId, String cursor, int size, Long currentUserId) {
+        if (!commentRepository.existsById(commentId)) {
+            throw new ResourceNotFoundException("Comment", "id", commentId);
+        }
+        return toCursorPage(PageCursor.decode(cursor, PageCursor.firstByTimeAsc()), size, currentUserId,
+                (position, limit) -> commentRepository.findRepliesOfTopCommentByCursor(
+                        commentId, position.createdAt(), position.id(), limit));
+    }
+
+    /**
+     * 组装游标分页结果：多查询一条用于判断是否还有下一页；
+     * 拉黑用户的评论被排除后从扫描位置继续查询补齐一页，最多扫描CURSOR_MAX_SCAN_ROUNDS批，
+     * 仍未补齐时返回较短的一页，游标指向已扫描的位置
+     */
+    private CursorPageResponse<CommentResponse> toCursorPage(PageCursor start, int size, Long currentUserId,
+                                                             BiFunction<PageCursor, Pageable, List<Comment>> query) {
+        UserBlockGraph.Visibility visibility = userBlockGraph.visibilityFor(currentUserId);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Comment> visible = new ArrayList<>(size + 1);
+        PageCursor position = start;
+        boolean exhausted = false;
+        for (int round = 0; round < CURSOR_MAX_SCAN_ROUNDS && visible.size() <= size; round++) {
+            List<Comment> comments = query.apply(position, limit);
+            for (Comment comment : comments) {
+                if (!visibility.isHidden(comment.getAuthor().getId())) {
+                    visible.add(comment);
+                }
+            }
+            if (!comments.isEmpty()) {
+                position = cursorOf(comments.get(comments.size() - 1));
+            }
+            if (comments.size() <= size) {
+                exhausted = true;
+                break;
+            }
+        }
+        String nextCursor = null;
+        if (visible.size() > size) {
+            visible = visible.subList(0, size);
+            nextCursor = cursorOf(visible.get(size - 1)).encode();
+        } else if (!exhausted) {
+            nextCursor = position.encode();
+        }
+        List<CommentResponse> content = optimizeCommentResponsePage(new PageImpl<>(visible), currentUserId).getContent();
+        return new CursorPageResponse<>(content, nextCursor, nextCursor != null);
+    }
+
+    private static PageCursor cursorOf(Comment comment) {
+        return new PageCursor(false, comment.getCreatedAt(), null, comment.getId());
+    }
+
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void likeComment(Long commentId, Long userId) {
         Optional<Comment> commentOpt = commentRepository.findById(commentId);
         Optional<User> userOpt = userRepository.findById(userId);
@@ -191,14 +284,13 @@ public class CommentServiceImpl implements CommentService {
             like.setComment(comment);
             like.setUser(user);
             commentLikeRepository.save(like);
-            commentRepository.updateLikeCount(commentId, 1);
+            counterBuffer.addCommentLikes(commentId, 1);
             notificationService.createAndSendCommentLikeNotification(comment, user);
         }
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void unlikeComment(Long commentId, Long userId) {
         Optional<Comment> commentOpt = commentRepository.findById(commentId);
         Optional<User> userOpt = userRepository.findById(userId);
@@ -218,13 +310,12 @@ public class CommentServiceImpl implements CommentService {
         
         if (commentLikeRepository.existsByCommentAndUser(comment, user)) {
             commentLikeRepository.deleteByCommentAndUser(comment, user);
-            commentRepository.updateLikeCount(commentId, -1);
+            counterBuffer.addCommentLikes(commentId, -1);
         }
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void deleteComment(Long commentId, Long userId) {
         System.out.println("开始删除评论: commentId=" + commentId + ", userId=" + userId);
         
@@ -345,7 +436,6 @@ public class CommentServiceImpl implements CommentService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void reportComment(Long commentId, Long currentUserId, String reason) {
         System.out.println("=== 开始处理评论举报请求 ===");
         System.out.println("commentId: " + commentId + ", currentUserId: " + currentUserId + ", reason: " + reason);
@@ -394,6 +484,7 @@ public class CommentServiceImpl implements CommentService {
         
         // 增加被举报用户的举报次数（持久化存储）
         userService.incrementReportedCount(comment.getAuthor().getId());
+        cacheTagIndex.evictTags(CacheTags.STATS_GLOBAL, CacheTags.userStats(comment.getAuthor().getId()));
 
         long syncEndTime = System.currentTimeMillis();
         System.out.println("=== 同步处理完成，耗时: " + (syncEndTime - syncStartTime) + "ms ===");
@@ -435,7 +526,6 @@ public class CommentServiceImpl implements CommentService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void deleteCommentByAdmin(Long commentId) {
         Comment comment = commentRepository.findById(commentId)
             .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", commentId));
@@ -463,7 +553,6 @@ public class CommentServiceImpl implements CommentService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void forceDeleteComment(Long commentId) {
         Comment comment = commentRepository.findById(commentId)
             .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", commentId));
@@ -487,7 +576,6 @@ public class CommentServiceImpl implements CommentService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void approveCommentReport(Long commentId) {
         Comment comment = commentRepository.findById(commentId)
             .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", commentId));
@@ -518,7 +606,6 @@ public class CommentServiceImpl implements CommentService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void ignoreCommentReports(Long commentId) {
         Comment comment = commentRepository.findById(commentId)
             .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", commentId));
@@ -538,6 +625,7 @@ public class CommentServiceImpl implements CommentService {
         // 重置评论的举报次数为0
         comment.setReportCount(0);
         commentRepository.save(comment);
+        cacheTagIndex.evictTags(CacheTags.STATS_GLOBAL);
     }
 
     @Override
@@ -549,7 +637,6 @@ public class CommentServiceImpl implements CommentService {
      * 异步处理评论举报并自动审核
      */
     @Async("aiAuditExecutor")
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void processCommentReportAuditAsync(CommentReport report, Comment comment, String reason) {
         System.out.println("=== 异步线程开始处理评论AI审核 ===");
         System.out.println("线程名称: " + Thread.currentThread().getName());
@@ -584,6 +671,7 @@ public class CommentServiceImpl implements CommentService {
                 report.setState(CommentReport.State.WAITING);
                 // 保持reportCount > 0，表示这是被举报的评论
                 commentReportRepository.save(report);
+                cacheTagIndex.evictTags(CacheTags.STATS_GLOBAL);
             } else {
                 if (auditResponse.getIsValidReport()) {
                     System.out.println("AI审核认为举报有效，评论将被删除: "+auditResponse.getAuditReason());
@@ -596,6 +684,7 @@ public class CommentServiceImpl implements CommentService {
                     // 保持reportCount > 0，表示被举报删除
                     commentReportRepository.save(report);
                     commentRepository.save(comment);
+                    cacheTagIndex.evictTags(CacheTags.STATS_GLOBAL);
                 } else {
                     System.out.println("AI审核认为举报无效，评论保持有效: "+auditResponse.getAuditReason());
                     // 举报无效，评论保持有效，保持reportCount > 0
@@ -616,6 +705,7 @@ public class CommentServiceImpl implements CommentService {
                 report.setState(CommentReport.State.WAITING);
                 // 保持reportCount > 0，表示这是被举报的评论
                 commentReportRepository.save(report);
+                cacheTagIndex.evictTags(CacheTags.STATS_GLOBAL);
                 System.out.println("异常处理完成，举报状态已设置为等待人工审核");
             } catch (Exception saveException) {
                 System.err.println("保存状态时发生异常: "+saveException.getMessage());
@@ -627,7 +717,6 @@ public class CommentServiceImpl implements CommentService {
     
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void restoreComment(Long commentId) {
         Comment comment = commentRepository.findById(commentId)
             .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", commentId));
@@ -655,6 +744,11 @@ public class CommentServiceImpl implements CommentService {
             .map(comment -> commentConverter.toResponse(comment, false));
     }
 
+    // 私有方法：帖子评论数变化后清除该帖子相关的缓存和统计
+    private void evictPostCommentCaches(Long postId, Long commentAuthorId) {
+        cacheTagIndex.evictTags(CacheTags.post(postId), CacheTags.STATS_GLOBAL, CacheTags.userStats(commentAuthorId));
+    }
+
     // 私有方法：软删除评论时更新评论数量
     private void updateCommentCountsOnSoftDelete(Comment comment) {
         System.out.println("开始更新软删除评论的数量: commentId=" + comment.getId());
@@ -681,7 +775,8 @@ public class CommentServiceImpl implements CommentService {
         
         // 更新帖子的评论数（减去所有被删除的评论和回复）
         System.out.println("更新帖子评论数: postId=" + comment.getPost().getId() + ", 减少数量=" + totalCommentsToDelete);
-        postRepository.updateCommentCount(comment.getPost().getId(), -totalCommentsToDelete);
+        counterBuffer.addPostComments(comment.getPost().getId(), -totalCommentsToDelete);
+        evictPostCommentCaches(comment.getPost().getId(), comment.getAuthor().getId());
         
         System.out.println("软删除评论数量更新完成: commentId=" + comment.getId());
     }
@@ -712,7 +807,8 @@ public class CommentServiceImpl implements CommentService {
         
         // 更新帖子的评论数（加上所有被恢复的评论和回复）
         System.out.println("更新帖子评论数: postId=" + comment.getPost().getId() + ", 增加数量=" + totalCommentsToRestore);
-        postRepository.updateCommentCount(comment.getPost().getId(), totalCommentsToRestore);
+        counterBuffer.addPostComments(comment.getPost().getId(), totalCommentsToRestore);
+        evictPostCommentCaches(comment.getPost().getId(), comment.getAuthor().getId());
         
         System.out.println("恢复评论数量更新完成: commentId=" + comment.getId());
     }
@@ -743,7 +839,8 @@ public class CommentServiceImpl implements CommentService {
         
         // 更新帖子的评论数（减去所有被删除的评论和回复）
         System.out.println("更新帖子评论数: postId=" + comment.getPost().getId() + ", 减少数量=" + totalCommentsToDelete);
-        postRepository.updateCommentCount(comment.getPost().getId(), -totalCommentsToDelete);
+        counterBuffer.addPostComments(comment.getPost().getId(), -totalCommentsToDelete);
+        evictPostCommentCaches(comment.getPost().getId(), comment.getAuthor().getId());
         
         // 删除评论（数据库会自动级联删除所有回复、点赞记录、举报记录等）
         System.out.println("执行评论删除操作");
@@ -789,7 +886,8 @@ public class CommentServiceImpl implements CommentService {
             }
         }
         
-        return commentsPage.map(comment -> commentConverter.toResponse(comment, 
-            likeStatusMap.getOrDefault(comment.getId(), false), currentUserId));
+        // 整页批量生成头像的临时URL
+        List<CommentResponse> responses = commentConverter.toResponses(comments, likeStatusMap, currentUserId);
+        return new PageImpl<>(responses, commentsPage.getPageable(), commentsPage.getTotalElements());
     }
 } 
\ No newline at end of file
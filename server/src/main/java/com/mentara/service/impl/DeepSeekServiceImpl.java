@@ -5,7 +5,13 @@ import com.mentara.config.DeepSeekConfig;
 import com.mentara.dto.request.DeepSeekRequest;
 import com.mentara.dto.response.DeepSeekResponse;
 import com.mentara.dto.response.LlmJsonResponse;
+import com.mentara.exception.AiServiceUnavailableException;
 import com.mentara.service.DeepSeekService;
+import com.mentara.util.AdaptiveConcurrencyLimiter;
+import com.mentara.util.CircuitBreaker;
+import com.mentara.util.TransientErrors;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
@@ -13,13 +19,17 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.util.Collections;
 
 /**
  * DeepSeek API服务实现类
+ * 调用经过熔断器和自适应并发限制：熔断中或并发已满时立即抛出AiServiceUnavailableException，
+ * 不占用调用方线程等待；超时、限流和服务端错误按指数退避加随机抖动重试
  */
 @Slf4j
 @Service
@@ -29,14 +39,48 @@ public class DeepSeekServiceImpl implements DeepSeekService {
     private final DeepSeekConfig deepSeekConfig;
     private final ObjectMapper objectMapper;
     private final WebClient webClient;
+    private final MeterRegistry meterRegistry;
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    private CircuitBreaker breaker;
+
+    @PostConstruct
+    public void init() {
+        DeepSeekConfig.Limiter limiterConfig = deepSeekConfig.getLimiter();
+        limiter = new AdaptiveConcurrencyLimiter("deepseek", limiterConfig.getInitialLimit(),
+                limiterConfig.getMinLimit(), limiterConfig.getMaxLimit(), limiterConfig.getBackoffRatio(),
+                Duration.ofMillis(limiterConfig.getSlowCallMs()), meterRegistry);
+        DeepSeekConfig.Breaker breakerConfig = deepSeekConfig.getBreaker();
+        breaker = new CircuitBreaker("deepseek", breakerConfig.getFailureThreshold(),
+                Duration.ofMillis(breakerConfig.getOpenMs()), Duration.ofMillis(breakerConfig.getMaxOpenMs()),
+                breakerConfig.getJitter(), meterRegistry);
+    }
     
     @Override
     public DeepSeekResponse sendChatRequest(DeepSeekRequest request) {
+        if (!breaker.tryAcquire()) {
+            throw new AiServiceUnavailableException("DeepSeek API熔断中，暂停调用");
+        }
+        boolean acquired;
+        try {
+            acquired = limiter.tryAcquire(Duration.ofMillis(deepSeekConfig.getLimiter().getAcquireTimeoutMs()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            breaker.onIgnored();
+            throw new AiServiceUnavailableException("等待DeepSeek API调用许可被中断", e);
+        }
+        if (!acquired) {
+            breaker.onIgnored();
+            throw new AiServiceUnavailableException("DeepSeek API并发已达上限: " + limiter.getLimit());
+        }
+
+        long start = System.nanoTime();
         try {
             log.info("发送请求到DeepSeek API，模型: {}, 消息数量: {}", 
                     request.getModel(), request.getMessages().size());
             
-            return webClient.post()
+            DeepSeekResponse response = webClient.post()
                     .uri(deepSeekConfig.getBaseUrl() + "/chat/completions")
                     .header(HttpHeaders.AUTHORIZATION, "Bearer " + deepSeekConfig.getApiKey())
                     .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
@@ -44,56 +88,88 @@ public class DeepSeekServiceImpl implements DeepSeekService {
                     .retrieve()
                     .bodyToMono(DeepSeekResponse.class)
                     .timeout(Duration.ofMillis(deepSeekConfig.getTimeout()))
-                    .retry(deepSeekConfig.getMaxRetries())
+                    .retryWhen(Retry.backoff(deepSeekConfig.getMaxRetries(),
+                                    Duration.ofMillis(deepSeekConfig.getInitialBackoffMs()))
+                            .maxBackoff(Duration.ofMillis(deepSeekConfig.getMaxBackoffMs()))
+                            .jitter(0.5)
+                            .filter(TransientErrors::isTransient)
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
                     .block();
+            limiter.onSuccess(System.nanoTime() - start);
+            breaker.onSuccess();
+            return response;
                     
-        } catch (WebClientResponseException e) {
-            log.error("DeepSeek API请求失败: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
-            throw new RuntimeException("DeepSeek API请求失败: " + e.getMessage(), e);
         } catch (Exception e) {
-            log.error("调用DeepSeek API时发生异常", e);
-            throw new RuntimeException("调用DeepSeek API时发生异常", e);
+            Throwable cause = Exceptions.unwrap(e);
+            if (TransientErrors.isTransient(cause)) {
+                limiter.onDropped();
+                breaker.onFailure();
+                log.error("DeepSeek API暂不可用: {}", cause.toString());
+                throw new AiServiceUnavailableException("DeepSeek API暂不可用: " + cause.getMessage(), cause);
+            }
+            limiter.onIgnored();
+            breaker.onIgnored();
+            if (cause instanceof WebClientResponseException responseException) {
+                log.error("DeepSeek API请求失败: {} - {}", responseException.getStatusCode(),
+                        responseException.getResponseBodyAsString());
+                throw new RuntimeException("DeepSeek API请求失败: " + responseException.getMessage(), responseException);
+            }
+            log.error("调用DeepSeek API时发生异常", cause);
+            throw new RuntimeException("调用DeepSeek API时发生异常", cause);
         }
     }
-    
+
+    @Override
+    public boolean isAvailable() {
+        return breaker.getState() != CircuitBreaker.State.OPEN;
+    }
+
     @Override
     public String generateResponse(String message, String model) {
         try {
-            // 构建请求
-            DeepSeekRequest request = DeepSeekRequest.builder()
-                    .model(model != null ? model : deepSeekConfig.getDefaultModel())
-                    .messages(Collections.singletonList(
-                            DeepSeekRequest.Message.builder()
-                                    .role("user")
-                                    .content(message)
-                                    .build()
-                    ))
-                    .temperature(0.7)
-                    .maxTokens(1000)
-                    .stream(false)
-                    .responseFormat(DeepSeekRequest.ResponseFormat.builder()
-                            .type("json_object")
-                            .build())
-                    .build();
-            
-            // 发送请求
-            DeepSeekResponse response = sendChatRequest(request);
-            
-            // 提取响应内容
-            if (response != null && response.getChoices() != null && !response.getChoices().isEmpty()) {
-                String content = response.getChoices().get(0).getMessage().getContent();
-                log.info("DeepSeek API响应成功，内容长度: {}", content.length());
+            String content = generateResponseOrThrow(message, model);
+            if (content != null) {
                 return content;
-            } else {
-                log.warn("DeepSeek API响应为空或格式不正确");
-                return "{\"content\": \"抱歉，我暂时无法回应您的问题。\", \"sensitive\": false}";
             }
+            log.warn("DeepSeek API响应为空或格式不正确");
+            return "{\"content\": \"抱歉，我暂时无法回应您的问题。\", \"sensitive\": false}";
             
         } catch (Exception e) {
             log.error("生成DeepSeek响应时发生异常", e);
             return "{\"content\": \"抱歉，服务暂时不可用，请稍后再试。\", \"sensitive\": false}";
         }
     }
+
+    @Override
+    public String generateResponseOrThrow(String message, String model) {
+        // 构建请求
+        DeepSeekRequest request = DeepSeekRequest.builder()
+                .model(model != null ? model : deepSeekConfig.getDefaultModel())
+                .messages(Collections.singletonList(
+                        DeepSeekRequest.Message.builder()
+                                .role("user")
+                                .content(message)
+                                .build()
+                ))
+                .temperature(0.7)
+                .maxTokens(1000)
+                .stream(false)
+                .responseFormat(DeepSeekRequest.ResponseFormat.builder()
+                        .type("json_object")
+                        .build())
+                .build();
+        
+        // 发送请求
+        DeepSeekResponse response = sendChatRequest(request);
+        
+        // 提取响应内容
+        if (response != null && response.getChoices() != null && !response.getChoices().isEmpty()) {
+            String content = response.getChoices().get(0).getMessage().getContent();
+            log.info("DeepSeek API响应成功，内容长度: {}", content.length());
+            return content;
+        }
+        return null;
+    }
     
     /**
      * 解析JSON格式的LLM响应
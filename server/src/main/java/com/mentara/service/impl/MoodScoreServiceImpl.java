@@ -1,6 +1,7 @@
 package com.mentara.service.impl;
 
 import com.mentara.dto.response.DepressCheckResponse;
+import com.mentara.dto.response.TextAnalysisResponse;
 import com.mentara.entity.MoodScore;
 import com.mentara.entity.Post;
 import com.mentara.entity.Checkin;
@@ -10,13 +11,10 @@ import com.mentara.repository.MoodScoreRepository;
 import com.mentara.repository.PostRepository;
 import com.mentara.repository.CheckinRepository;
 import com.mentara.repository.UserRepository;
-import com.mentara.service.DepressCheckService;
-import com.mentara.service.TextScoreService;
 import com.mentara.service.MoodScoreService;
+import com.mentara.service.TextAnalysisService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -39,10 +37,7 @@ public class MoodScoreServiceImpl implements MoodScoreService {
     private CheckinRepository checkinRepository;
 
     @Autowired
-    private DepressCheckService depressCheckService;
-
-    @Autowired
-    private TextScoreService textScoreService;
+    private TextAnalysisService textAnalysisService;
 
     // 报警阈值配置
     private static final int MOOD_ALERT_THRESHOLD = 2; // 心情得分低于2分触发报警
@@ -50,7 +45,6 @@ public class MoodScoreServiceImpl implements MoodScoreService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"moodScores", "statistics"}, allEntries = true)
     public MoodScore createMoodScoreForPost(Long postId, Long userId, String content) {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
@@ -58,10 +52,25 @@ public class MoodScoreServiceImpl implements MoodScoreService {
         Post post = postRepository.findById(postId)
             .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
 
-        // 调用AI服务进行情绪分析
-        Integer moodGrade = textScoreService.scoreText(content, "mood");
-        DepressCheckResponse depressCheckResponse = depressCheckService.checkDepress(content, "depression");
-        Boolean isAlert = depressCheckResponse.getLabel() == 1 ? true : false;
+        // 一次调用AI服务得到心情得分和抑郁检测结果
+        TextAnalysisResponse analysis = textAnalysisService.analyze(content);
+        return saveMoodScore(user, post, content, analysis.getMoodGrade(), analysis.getDepression());
+    }
+
+    @Override
+    @Transactional
+    public MoodScore saveMoodScoreForPost(Post post, Integer moodGrade, DepressCheckResponse depressCheck) {
+        if (moodGrade == null && depressCheck == null) {
+            log.warn("帖子 {} 的心情得分和抑郁检测都失败，不保存心情评分", post.getId());
+            return null;
+        }
+        return saveMoodScore(post.getAuthor(), post, post.getContent(), moodGrade, depressCheck);
+    }
+
+    private MoodScore saveMoodScore(User user, Post post, String content, Integer moodGrade, DepressCheckResponse depressCheckResponse) {
+        Double alertScore = depressCheckResponse != null ? depressCheckResponse.getScore() : null;
+        Boolean isAlert = depressCheckResponse != null && depressCheckResponse.getLabel() != null
+            && depressCheckResponse.getLabel() == 1;
 
         // 创建心情评分记录
         MoodScore moodScore = new MoodScore();
@@ -71,14 +80,14 @@ public class MoodScoreServiceImpl implements MoodScoreService {
         moodScore.setContentText(content);
         moodScore.setMoodGrade(moodGrade);
         moodScore.setIsAlert(isAlert);
-        moodScore.setAlertScore(depressCheckResponse.getScore());
+        moodScore.setAlertScore(alertScore);
 
         MoodScore savedMoodScore = moodScoreRepository.save(moodScore);
         
         if (isAlert) {
-            log.warn("用户 {} 的帖子触发报警，心情得分: {}, 报警分数: {}", userId, moodGrade, depressCheckResponse.getScore());
+            log.warn("用户 {} 的帖子触发报警，心情得分: {}, 报警分数: {}", user.getId(), moodGrade, alertScore);
         } else {
-            log.info("用户 {} 的帖子心情分析完成，心情得分: {}, 报警分数: {}", userId, moodGrade, depressCheckResponse.getScore());
+            log.info("用户 {} 的帖子心情分析完成，心情得分: {}, 报警分数: {}", user.getId(), moodGrade, alertScore);
         }
 
         return savedMoodScore;
@@ -86,7 +95,6 @@ public class MoodScoreServiceImpl implements MoodScoreService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"moodScores", "statistics"}, allEntries = true)
     public MoodScore createMoodScoreForCheckin(Long checkinId, Long userId, String content) {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
@@ -94,10 +102,13 @@ public class MoodScoreServiceImpl implements MoodScoreService {
         Checkin checkin = checkinRepository.findById(checkinId)
             .orElseThrow(() -> new ResourceNotFoundException("Checkin", "id", checkinId));
 
-        // 调用AI服务进行情绪分析
-        Integer moodGrade = textScoreService.scoreText(content, "mood");
-        DepressCheckResponse depressCheckResponse = depressCheckService.checkDepress(content, "depression");
-        Boolean isAlert = depressCheckResponse.getLabel() == 1 ? true : false;
+        // 一次调用AI服务得到心情得分和抑郁检测结果
+        TextAnalysisResponse analysis = textAnalysisService.analyze(content);
+        Integer moodGrade = analysis.getMoodGrade();
+        DepressCheckResponse depressCheckResponse = analysis.getDepression();
+        Double alertScore = depressCheckResponse != null ? depressCheckResponse.getScore() : null;
+        Boolean isAlert = depressCheckResponse != null && depressCheckResponse.getLabel() != null
+            && depressCheckResponse.getLabel() == 1;
         // 创建心情评分记录
         MoodScore moodScore = new MoodScore();
         moodScore.setUser(user);
@@ -106,21 +117,20 @@ public class MoodScoreServiceImpl implements MoodScoreService {
         moodScore.setContentText(content);
         moodScore.setMoodGrade(moodGrade);
         moodScore.setIsAlert(isAlert);
-        moodScore.setAlertScore(depressCheckResponse.getScore());
+        moodScore.setAlertScore(alertScore);
 
         MoodScore savedMoodScore = moodScoreRepository.save(moodScore);
         
         if (isAlert) {
-            log.warn("用户 {} 的打卡记录触发报警，心情得分: {}, 报警分数: {}", userId, moodGrade, depressCheckResponse.getScore());
+            log.warn("用户 {} 的打卡记录触发报警，心情得分: {}, 报警分数: {}", userId, moodGrade, alertScore);
         } else {
-            log.info("用户 {} 的打卡记录心情分析完成，心情得分: {}, 报警分数: {}", userId, moodGrade, depressCheckResponse.getScore());
+            log.info("用户 {} 的打卡记录心情分析完成，心情得分: {}, 报警分数: {}", userId, moodGrade, alertScore);
         }
 
         return savedMoodScore;
     }
 
     @Override
-    @Cacheable(value = "moodScores", key = "'alert_check_' + #moodGrade + '_' + #alertScore + '_' + #content.hashCode()")
     public boolean shouldTriggerAlert(Integer moodGrade, Double alertScore, String content) {
         // 检查心情得分是否过低
         boolean lowMood = moodGrade != null && moodGrade <= MOOD_ALERT_THRESHOLD;
@@ -135,31 +145,14 @@ public class MoodScoreServiceImpl implements MoodScoreService {
     }
 
     @Override
-    @Cacheable(value = "moodScores", key = "'alert_score_' + #content.hashCode()")
     public Double calculateAlertScore(String content) {
         if (content == null || content.trim().isEmpty()) {
             return 0.0;
         }
 
         try {
-            // 使用抑郁检查服务计算报警分数
-            var depressionResult = depressCheckService.checkDepress(content, "depression");
-            var anxietyResult = depressCheckService.checkDepress(content, "anxiety");
-            var stressResult = depressCheckService.checkDepress(content, "stress");
-
-            // 计算综合报警分数（取最高分）
-            double maxScore = 0.0;
-            if (depressionResult != null && depressionResult.getScore() != null) {
-                maxScore = Math.max(maxScore, depressionResult.getScore());
-            }
-            if (anxietyResult != null && anxietyResult.getScore() != null) {
-                maxScore = Math.max(maxScore, anxietyResult.getScore());
-            }
-            if (stressResult != null && stressResult.getScore() != null) {
-                maxScore = Math.max(maxScore, stressResult.getScore());
-            }
-
-            return maxScore;
+            // 一次请求得到全部风险检测结果（相同文本由AI结果缓存复用），综合报警分数取最高分
+            return textAnalysisService.analyze(content).getMaxRiskScore();
         } catch (Exception e) {
             log.error("计算报警分数时发生异常", e);
             return 0.0;
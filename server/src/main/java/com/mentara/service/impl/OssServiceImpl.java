@@ -1,16 +1,23 @@
 package com.mentara.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.obs.services.ObsClient;
 import com.obs.services.model.HttpMethodEnum;
 import com.mentara.config.OssConfig;
 import com.mentara.service.OssService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.Date;
 
@@ -29,6 +36,24 @@ public class OssServiceImpl implements OssService {
 
     private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
 
+    /**
+     * 剩余有效期不少于该值（秒）的临时URL可以复用
+     */
+    @Value("${huawei.obs.signed-url-cache.min-remaining-seconds:600}")
+    private long signedUrlMinRemainingSeconds = 600;
+
+    /**
+     * 已签名URL缓存：同一对象键在临近过期前复用同一个URL，避免每次渲染都做HMAC签名，
+     * URL不变也让浏览器和CDN能缓存图片
+     */
+    private final Cache<String, SignedUrl> signedUrlCache = Caffeine.newBuilder()
+        .maximumSize(50_000)
+        .expireAfterWrite(Duration.ofHours(2))
+        .build();
+
+    private record SignedUrl(String url, long expiresInSeconds, long expiresAtMillis) {
+    }
+
     @Override
     public String uploadFile(MultipartFile file, String folder, String fileName) {
         try {
@@ -54,6 +79,7 @@ public class OssServiceImpl implements OssService {
         try {
             if (objectKey != null && !objectKey.isEmpty()) {
                 obsClient.deleteObject(ossConfig.getBucketName(), objectKey);
+                signedUrlCache.invalidate(objectKey);
             }
         } catch (Exception e) {
             throw new RuntimeException("文件删除失败: " + e.getMessage(), e);
@@ -62,9 +88,46 @@ public class OssServiceImpl implements OssService {
 
     @Override
     public String generatePresignedUrl(String objectKey, long expiresInSeconds) {
+        if (objectKey == null || objectKey.isEmpty()) {
+            return sign(objectKey, expiresInSeconds).url();
+        }
+        long now = System.currentTimeMillis();
+        SignedUrl cached = signedUrlCache.getIfPresent(objectKey);
+        if (isReusable(cached, expiresInSeconds, now)) {
+            return cached.url();
+        }
+        SignedUrl signed = sign(objectKey, expiresInSeconds);
+        signedUrlCache.put(objectKey, signed);
+        return signed.url();
+    }
+
+    @Override
+    public Map<String, String> generatePresignedUrls(Collection<String> objectKeys, long expiresInSeconds) {
+        Map<String, String> urls = new HashMap<>();
+        for (String objectKey : objectKeys) {
+            if (objectKey != null && !objectKey.isEmpty() && !urls.containsKey(objectKey)) {
+                urls.put(objectKey, generatePresignedUrl(objectKey, expiresInSeconds));
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * 缓存的URL有效期不短于本次请求，且剩余有效期足够时复用
+     */
+    private boolean isReusable(SignedUrl cached, long expiresInSeconds, long now) {
+        if (cached == null || cached.expiresInSeconds() < expiresInSeconds) {
+            return false;
+        }
+        long minRemainingMillis = Math.min(expiresInSeconds, signedUrlMinRemainingSeconds) * 1000;
+        return cached.expiresAtMillis() - now >= minRemainingMillis;
+    }
+
+    private SignedUrl sign(String objectKey, long expiresInSeconds) {
         try {
-            Date expiryDate = new Date(System.currentTimeMillis() + expiresInSeconds * 1000);
-            return obsClient.createSignedUrl(HttpMethodEnum.GET, ossConfig.getBucketName(), objectKey, null, expiryDate, null, null);
+            long expiresAt = System.currentTimeMillis() + expiresInSeconds * 1000;
+            String url = obsClient.createSignedUrl(HttpMethodEnum.GET, ossConfig.getBucketName(), objectKey, null, new Date(expiresAt), null, null);
+            return new SignedUrl(url, expiresInSeconds, expiresAt);
         } catch (Exception e) {
             throw new RuntimeException("生成临时URL失败: " + e.getMessage(), e);
         }
@@ -3,8 +3,10 @@ package com.mentara.service.impl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mentara.dto.response.PostAuditResponse;
 import com.mentara.entity.Post;
+import com.mentara.exception.AiServiceUnavailableException;
 import com.mentara.exception.ResourceNotFoundException;
 import com.mentara.repository.PostRepository;
+import com.mentara.service.AiResultCacheService;
 import com.mentara.service.DeepSeekService;
 import com.mentara.service.PostAuditService;
 import lombok.RequiredArgsConstructor;
@@ -18,10 +20,18 @@ import org.springframework.stereotype.Service;
 @Service
 @RequiredArgsConstructor
 public class PostAuditServiceImpl implements PostAuditService {
+
+    private static final String MODEL = "deepseek-chat";
+
+    /**
+     * 审核提示词版本，修改buildContentAuditPrompt时递增，使缓存的旧审核结果失效
+     */
+    private static final String PROMPT_VERSION = "v1";
     
     private final DeepSeekService deepSeekService;
     private final PostRepository postRepository;
     private final ObjectMapper objectMapper;
+    private final AiResultCacheService aiResultCacheService;
     
     @Override
     public PostAuditResponse auditPostContent(Post post) {
@@ -31,15 +41,27 @@ public class PostAuditServiceImpl implements PostAuditService {
             // 构建发送给DeepSeek的提示信息
             String prompt = buildContentAuditPrompt(post);
             
-            // 调用DeepSeek API进行审核
-            String jsonResponse = deepSeekService.generateResponse(prompt, "deepseek-chat");
-            
-            // 解析JSON响应
-            PostAuditResponse auditResponse = parseAuditResponse(jsonResponse);
+            // 相同内容已审核过时直接复用结果，否则调用DeepSeek API进行审核并解析JSON响应；
+            // 只缓存模型给出明确结论的结果
+            PostAuditResponse auditResponse = aiResultCacheService.getOrCompute("post-audit",
+                    MODEL + ":" + PROMPT_VERSION, prompt, PostAuditResponse.class,
+                    () -> parseAuditResponse(deepSeekService.generateResponseOrThrow(prompt, MODEL)),
+                    response -> response.getIsCompliant() != null && response.getNeedAdminCheck() != null);
+            if (auditResponse == null || auditResponse.getIsCompliant() == null) {
+                // 响应解析失败或没有审核结论（如DeepSeek不可用时的兜底回复），建议人工审核
+                auditResponse = PostAuditResponse.builder()
+                        .isCompliant(false)
+                        .auditReason("响应解析失败，建议人工审核")
+                        .needAdminCheck(true)
+                        .build();
+            }
             
             log.info("Post内容审核完成，结果: {}", auditResponse.getIsCompliant());
             return auditResponse;
             
+        } catch (AiServiceUnavailableException e) {
+            // DeepSeek暂不可用不是审核结论，交给调用方稍后重试
+            throw e;
         } catch (Exception e) {
             log.error("审核Post内容时发生异常", e);
             // 返回默认的审核结果
@@ -129,7 +151,7 @@ public class PostAuditServiceImpl implements PostAuditService {
     }
     
     /**
-     * 解析审核响应
+     * 解析审核响应，解析失败时返回null
      */
     private PostAuditResponse parseAuditResponse(String jsonResponse) {
         try {
@@ -142,12 +164,7 @@ public class PostAuditServiceImpl implements PostAuditService {
             
         } catch (Exception e) {
             log.error("解析审核响应失败: {}", e.getMessage());
-            // 如果解析失败，返回默认结果
-            return PostAuditResponse.builder()
-                    .isCompliant(false)
-                    .auditReason("响应解析失败，建议人工审核")
-                    .needAdminCheck(true)
-                    .build();
+            return null;
         }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,257 @@
+package com.mentara.service.impl;
+
+import com.mentara.dto.response.PostAuditResponse;
+import com.mentara.dto.response.TextAnalysisResponse;
+import com.mentara.entity.Post;
+import com.mentara.enums.PostState;
+import com.mentara.exception.AiServiceUnavailableException;
+import com.mentara.repository.MoodScoreRepository;
+import com.mentara.repository.PostRepository;
+import com.mentara.service.DeepSeekService;
+import com.mentara.service.PostAuditService;
+import com.mentara.service.PostPipelineService;
+import com.mentara.service.PostService;
+import com.mentara.service.QdrantService;
+import com.mentara.service.TextAnalysisService;
+import com.mentara.service.VectorOutboxService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class PostPipelineServiceImpl implements PostPipelineService {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private MoodScoreRepository moodScoreRepository;
+
+    @Autowired
+    private DeepSeekService deepSeekService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostAuditService postAuditService;
+
+    @Autowired
+    private TextAnalysisService textAnalysisService;
+
+    @Autowired
+    private QdrantService qdrantService;
+
+    @Autowired
+    private VectorOutboxService vectorOutboxService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 每个帖子占用一个线程，等待各阶段结果后写入
+     */
+    @Autowired
+    @Qualifier("postPipelineExecutor")
+    private Executor executor;
+
+    /**
+     * 执行审核、打分等远程调用
+     */
+    @Autowired
+    @Qualifier("postPipelineStageExecutor")
+    private Executor stageExecutor;
+
+    /**
+     * 从帖子进入流水线起等待各阶段结果的最长时间，超时的阶段按失败处理
+     */
+    @Value("${post.pipeline.stage-timeout-ms:60000}")
+    private long stageTimeoutMs;
+
+    /**
+     * 帖子等待AI审核的最长时间，超过后转人工审核
+     */
+    @Value("${post.pipeline.max-pending-ms:3600000}")
+    private long maxPendingMs;
+
+    /**
+     * 每次重新提交的待审核帖子数
+     */
+    @Value("${post.pipeline.requeue-batch-size:50}")
+    private int requeueBatchSize;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 已提交、尚未处理完的帖子，避免定时任务重复提交
+     */
+    private final Set<Long> scheduled = ConcurrentHashMap.newKeySet();
+
+    private Timer latency;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("mentara.post.pipeline.in-flight", inFlight, AtomicInteger::get)
+            .description("流水线中正在处理的帖子数")
+            .register(meterRegistry);
+        latency = Timer.builder("mentara.post.pipeline.latency")
+            .description("帖子从进入流水线到状态写入完成的耗时")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void submit(Long postId) {
+        if (!scheduled.add(postId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(postId);
+                } catch (Exception e) {
+                    log.error("帖子AI处理失败，帖子ID: {}", postId, e);
+                } finally {
+                    scheduled.remove(postId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 流水线已满时不占用提交线程，帖子保持待审核，由requeuePending重新提交
+            scheduled.remove(postId);
+            log.warn("帖子AI处理流水线已满，稍后重新提交，帖子ID: {}", postId);
+        }
+    }
+
+    /**
+     * 重新提交仍在待审核的帖子：流水线已满被拒绝的、DeepSeek不可用而推迟审核的、进程重启前未处理完的；
+     * DeepSeek熔断期间不提交，等待超过max-pending-ms的帖子转人工审核
+     */
+    @Scheduled(fixedDelayString = "${post.pipeline.requeue-interval-ms:60000}")
+    public void requeuePending() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Post> pending = postRepository.findByStateAndIsDeletedFalseAndCreatedAtBeforeOrderByCreatedAtAsc(
+            PostState.PENDING, now.minusNanos(TimeUnit.MILLISECONDS.toNanos(stageTimeoutMs)),
+            PageRequest.of(0, requeueBatchSize));
+        LocalDateTime expired = now.minusNanos(TimeUnit.MILLISECONDS.toNanos(maxPendingMs));
+        boolean available = deepSeekService.isAvailable();
+        for (Post post : pending) {
+            if (scheduled.contains(post.getId())) {
+                continue;
+            }
+            if (post.getCreatedAt() != null && post.getCreatedAt().isBefore(expired)) {
+                log.warn("帖子等待AI审核超时，转人工审核，帖子ID: {}", post.getId());
+                postService.applyPipelineResult(post.getId(), new Result(PostAuditResponse.builder()
+                    .isCompliant(false)
+                    .auditReason("AI审核长时间不可用，转人工审核")
+                    .needAdminCheck(true)
+                    .build(), null, null));
+            } else if (available) {
+                submit(post.getId());
+            }
+        }
+    }
+
+    @Override
+    public void process(Long postId) {
+        List<Post> found = postRepository.findWithTagsByIdIn(List.of(postId));
+        if (found.isEmpty()) {
+            return;
+        }
+        Post post = found.get(0);
+        if (post.getState() != PostState.PENDING || Boolean.TRUE.equals(post.getIsDeleted())) {
+            return;
+        }
+
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(stageTimeoutMs);
+        try {
+            // 各阶段互不依赖，同时开始；公告帖子只审核，重新提交的帖子已有心情评分时只审核
+            boolean analyze = !Boolean.TRUE.equals(post.getIsAnnouncement())
+                && !moodScoreRepository.existsByPostId(postId);
+            String content = post.getContent();
+            CompletableFuture<PostAuditResponse> audit = stage("audit", () -> postAuditService.auditPostContent(post));
+            CompletableFuture<TextAnalysisResponse> analysis = analyze
+                ? stage("analysis", () -> textAnalysisService.analyze(content)) : null;
+            CompletableFuture<float[]> embedding = analyze
+                ? timed("embedding", System.nanoTime(), qdrantService.preparePostVector(post)) : null;
+
+            TextAnalysisResponse scores = await(analysis, "analysis", postId, deadline);
+            // 审核超时或DeepSeek不可用时为null，帖子保持待审核，稍后重新提交
+            Result result = new Result(await(audit, "audit", postId, deadline),
+                scores != null ? scores.getMoodGrade() : null, scores != null ? scores.getDepression() : null);
+            // 向量由发件箱写入，这里只需在放行前算好；失败时发件箱重新向量化
+            await(embedding, "embedding", postId, deadline);
+
+            stageTimer("write", true).record(() -> postService.applyPipelineResult(postId, result));
+            if (analyze) {
+                vectorOutboxService.release(postId);
+            }
+        } finally {
+            inFlight.decrementAndGet();
+            latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> CompletableFuture<T> stage(String name, Supplier<T> call) {
+        return timed(name, System.nanoTime(), CompletableFuture.supplyAsync(call, stageExecutor));
+    }
+
+    /**
+     * 记录阶段耗时（含排队），结果为null视为失败（打分服务失败时返回null）
+     */
+    private <T> CompletableFuture<T> timed(String name, long start, CompletableFuture<T> future) {
+        return future.whenComplete((value, error) -> stageTimer(name, error == null && value != null)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    private Timer stageTimer(String name, boolean success) {
+        return Timer.builder("mentara.post.pipeline.stage")
+            .description("帖子AI处理各阶段耗时")
+            .tag("stage", name)
+            .tag("outcome", success ? "success" : "failure")
+            .register(meterRegistry);
+    }
+
+    private <T> T await(CompletableFuture<T> future, String name, Long postId, long deadline) {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("帖子{}阶段超时，帖子ID: {}", name, postId);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AiServiceUnavailableException) {
+                log.warn("帖子{}阶段暂缓，帖子ID: {}, {}", name, postId, e.getCause().getMessage());
+                return null;
+            }
+            log.warn("帖子{}阶段失败，帖子ID: {}, {}", name, postId, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
@@ -7,6 +7,7 @@ import com.mentara.entity.Report;
 import com.mentara.entity.Post;
 import com.mentara.exception.ResourceNotFoundException;
 import com.mentara.repository.ReportRepository;
+import com.mentara.service.AiResultCacheService;
 import com.mentara.service.DeepSeekService;
 import com.mentara.service.PostReportAuditService;
 import lombok.RequiredArgsConstructor;
@@ -20,10 +21,18 @@ import org.springframework.stereotype.Service;
 @Service
 @RequiredArgsConstructor
 public class PostReportAuditServiceImpl implements PostReportAuditService {
+
+    private static final String MODEL = "deepseek-chat";
+
+    /**
+     * 审核提示词版本，修改buildAuditPrompt时递增，使缓存的旧审核结果失效
+     */
+    private static final String PROMPT_VERSION = "v1";
     
     private final DeepSeekService deepSeekService;
     private final ReportRepository reportRepository;
     private final ObjectMapper objectMapper;
+    private final AiResultCacheService aiResultCacheService;
     
     @Override
     public PostReportAuditResponse auditPostReport(PostReportAuditRequest request) {
@@ -33,11 +42,20 @@ public class PostReportAuditServiceImpl implements PostReportAuditService {
             // 构建发送给DeepSeek的提示信息
             String prompt = buildAuditPrompt(request);
             
-            // 调用DeepSeek API进行审核
-            String jsonResponse = deepSeekService.generateResponse(prompt, "deepseek-chat");
-            
-            // 解析JSON响应
-            PostReportAuditResponse auditResponse = parseAuditResponse(jsonResponse);
+            // 相同举报理由和内容已审核过时直接复用结果，否则调用DeepSeek API进行审核并解析JSON响应；
+            // 只缓存模型给出明确结论的结果
+            PostReportAuditResponse auditResponse = aiResultCacheService.getOrCompute("post-report-audit",
+                    MODEL + ":" + PROMPT_VERSION, prompt, PostReportAuditResponse.class,
+                    () -> parseAuditResponse(deepSeekService.generateResponse(prompt, MODEL)),
+                    response -> response.getIsValidReport() != null && response.getNeedAdminCheck() != null);
+            if (auditResponse == null || auditResponse.getIsValidReport() == null) {
+                // 响应解析失败或没有审核结论（如DeepSeek不可用时的兜底回复），建议人工审核
+                auditResponse = PostReportAuditResponse.builder()
+                        .isValidReport(false)
+                        .auditReason("响应解析失败，建议人工审核")
+                        .needAdminCheck(true)
+                        .build();
+            }
             
             log.info("Post举报审核完成，结果: {}", auditResponse.getIsValidReport());
             return auditResponse;
@@ -114,7 +132,7 @@ public class PostReportAuditServiceImpl implements PostReportAuditService {
     }
     
     /**
-     * 解析审核响应
+     * 解析审核响应，解析失败时返回null
      */
     private PostReportAuditResponse parseAuditResponse(String jsonResponse) {
         try {
@@ -127,12 +145,7 @@ public class PostReportAuditServiceImpl implements PostReportAuditService {
             
         } catch (Exception e) {
             log.error("解析审核响应失败: {}", e.getMessage());
-            // 如果解析失败，返回默认结果
-            return PostReportAuditResponse.builder()
-                    .isValidReport(false)
-                    .auditReason("响应解析失败，建议人工审核")
-                    .needAdminCheck(true)
-                    .build();
+            return null;
         }
     }
 } 
\ No newline at end of file
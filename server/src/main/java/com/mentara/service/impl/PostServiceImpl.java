@@ -2,11 +2,14 @@ package com.mentara.service.impl;
 
 import com.mentara.dto.request.PostReportAuditRequest;
 import com.mentara.dto.request.PostRequest;
+import com.mentara.dto.projection.PostFeedRow;
+import com.mentara.dto.response.CursorPageResponse;
 import com.mentara.dto.response.PostReportAuditResponse;
 import com.mentara.dto.response.PostResponse;
 import com.mentara.dto.response.ReportedPostResponse;
 import com.mentara.entity.Post;
 import com.mentara.entity.PostLike;
+import com.mentara.entity.PostTag;
 import com.mentara.entity.Report;
 import com.mentara.entity.User;
 import com.mentara.repository.PostRepository;
@@ -16,28 +19,52 @@ import com.mentara.repository.CommentRepository;
 import com.mentara.repository.CommentLikeRepository;
 import com.mentara.service.*;
 import com.mentara.converter.PostConverter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mentara.cache.CacheTagIndex;
+import com.mentara.cache.CacheTags;
+import com.mentara.cache.EngagementCounterBuffer;
+import com.mentara.cache.UserBlockGraph;
+import com.mentara.cache.UserLikedPostsCache;
+import com.mentara.config.SearchProperties;
 import com.mentara.exception.ResourceNotFoundException;
 import com.mentara.repository.NotificationRepository;
 import com.mentara.enums.MoodType;
+import com.mentara.ranking.HotPostRanking;
+import com.mentara.ranking.HotRankingEngine;
+import com.mentara.search.PostLexicalIndex;
+import com.mentara.search.ReciprocalRankFusion;
+import com.mentara.timeline.TimelineInboxStore;
+import com.mentara.util.PageCursor;
 
-import io.qdrant.client.grpc.Points;
 import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import com.mentara.converter.NotificationResponseFactory;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.context.ApplicationContext;
@@ -45,6 +72,8 @@ import com.mentara.dto.response.PostAuditResponse;
 import com.mentara.enums.PostState;
 import org.springframework.security.access.AccessDeniedException;
 
+import static com.mentara.util.TransactionUtils.afterCommit;
+
 @Service
 @Transactional
 public class PostServiceImpl implements PostService {
@@ -91,6 +120,15 @@ public class PostServiceImpl implements PostService {
     @Autowired
     private QdrantService qdrantService;
 
+    @Autowired
+    private VectorOutboxService vectorOutboxService;
+
+    /**
+     * 新帖子的向量写入事件等待AI处理流水线放行的最长时间，流水线未完成时到期后由发件箱照常写入
+     */
+    @Value("${post.pipeline.vector-fallback-delay-ms:300000}")
+    private long pipelineVectorFallbackMs;
+
     @Autowired
     private PostReportAuditService postReportAuditService;
 
@@ -98,7 +136,51 @@ public class PostServiceImpl implements PostService {
     private ApplicationContext applicationContext;
 
     @Autowired
-    private PostAuditService postAuditService;
+    private CacheTagIndex cacheTagIndex;
+
+    @Autowired
+    private UserLikedPostsCache userLikedPostsCache;
+
+    @Autowired
+    private EngagementCounterBuffer counterBuffer;
+
+    @Autowired
+    private HotRankingEngine hotRankingEngine;
+
+    @Autowired
+    private UserBlockGraph userBlockGraph;
+
+    @Autowired
+    private TimelineInboxStore timelineInboxStore;
+
+    @Autowired
+    private PostLexicalIndex postLexicalIndex;
+
+    @Autowired
+    private SearchProperties searchProperties;
+
+    @Autowired
+    private UserFollowService userFollowService;
+
+    /**
+     * 游标分页过滤拉黑用户后补齐一页时最多额外扫描的批次数
+     */
+    private static final int CURSOR_MAX_SCAN_ROUNDS = 5;
+
+    /**
+     * 相关帖子每次从向量库取的数量（按帖子缓存），过滤拉黑用户和已下架帖子后截取
+     */
+    private static final int RELATED_POSTS_DEPTH = 40;
+
+    /**
+     * 混合检索的融合结果：规范化后的搜索词和过滤条件 -> 按融合得分排序的帖子ID；
+     * 同一次翻页的各页从同一份结果截取，保证页与页之间不重复、不遗漏。
+     * 空数组表示倒排索引没有命中，只用向量检索
+     */
+    private final Cache<String, long[]> fusedSearchCache = Caffeine.newBuilder()
+        .maximumSize(10_000)
+        .expireAfterWrite(Duration.ofMinutes(5))
+        .build();
 
     @Override
     @Cacheable(value = "posts", key = "#postId + '_' + #currentUserId")
@@ -126,73 +208,75 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    @Cacheable(value = "posts", key = "'all_' + #pageable.pageNumber + '_' + #pageable.pageSize + '_' + #currentUserId")
+    public PostResponse findPostDetail(Long postId, Long currentUserId) {
+        // 详情使用不区分用户的缓存，点赞状态和未写回的计数在读取时补充
+        PostResponse response = self().findById(postId, null);
+        boolean isLiked = currentUserId != null
+            && userLikedPostsCache.isLiked(currentUserId, postId);
+        return withPendingCounts(response.toBuilder().isLiked(isLiked).build());
+    }
+
+    @Override
     public Page<PostResponse> findAllPosts(Pageable pageable, Long currentUserId) {
+        // 有拉黑关系的用户在查询中排除对应作者，不使用共享缓存
+        Set<Long> hidden = userBlockGraph.hiddenAuthorIds(currentUserId);
+        Page<PostResponse> page = hidden.isEmpty()
+            ? self().findAllPostsPage(pageable)
+            : toFeedResponsePage(postRepository.findValidFeedRowsExcludingAuthors(hidden, pageable), null);
+        return applyLiveState(page, currentUserId);
+    }
+
+    /**
+     * 全部帖子列表页（不含点赞状态，所有用户共享同一份缓存）
+     */
+    @Cacheable(value = "posts", key = "'all_' + #pageable.pageNumber + '_' + #pageable.pageSize")
+    public Page<PostResponse> findAllPostsPage(Pageable pageable) {
         // 只返回已审核通过的帖子
-        Page<Post> postsPage = postRepository.findValidPosts(pageable);
-        return optimizePostResponsePage(postsPage, currentUserId);
+        return toFeedResponsePage(postRepository.findValidFeedRows(pageable), null);
     }
 
     @Override
     public Page<PostResponse> searchPosts(String keyword, Pageable pageable, Long currentUserId) {
+        return searchPosts(keyword, null, null, pageable, currentUserId);
+    }
+
+    @Override
+    public Page<PostResponse> searchPosts(String keyword, MoodType mood, List<Long> tagIds, Pageable pageable,
+                                          Long currentUserId) {
         // 如果关键词为空，返回所有帖子
         if (keyword == null || keyword.trim().isEmpty()) {
             return findAllPosts(pageable, currentUserId);
         }
         
         try {
-            // 通过向量搜索获取相似的帖子ID
-            List<Points.ScoredPoint> postVecs = qdrantService.queryPostVector(keyword);
+            // 状态、心情、标签、拉黑过滤和分页都下推到向量库，多取一条用于判断是否还有下一页
+            QdrantService.SearchFilter filter = new QdrantService.SearchFilter(
+                mood, tagIds, null, userBlockGraph.hiddenAuthorIds(currentUserId));
+            int offset = (int) pageable.getOffset();
+            int pageSize = pageable.getPageSize();
+            List<Long> postIds = searchPostIds(keyword, filter, offset, pageSize + 1);
             
-            if (postVecs == null || postVecs.isEmpty()) {
+            if (postIds == null || postIds.isEmpty()) {
                 // 如果没有找到相似帖子，返回空的分页结果
                 return Page.empty(pageable);
             }
+            boolean hasMore = postIds.size() > pageSize;
+            List<Long> pageIds = hasMore ? postIds.subList(0, pageSize) : postIds;
             
-            // 提取帖子ID列表
-            List<Long> postIds = postVecs.stream()
-                .map(postVec -> postVec.getId().getNum())
+            // 以数据库为准再校验一次状态（向量库payload可能尚未同步），并按相似度顺序排列
+            UserBlockGraph.Visibility visibility = userBlockGraph.visibilityFor(currentUserId);
+            List<PostFeedRow> rows = loadValidPostsInOrder(pageIds).stream()
+                .filter(post -> !visibility.isHidden(post.authorId()))
                 .collect(Collectors.toList());
             
-            // 根据ID列表查询帖子（只查询未软删除的）
-            List<Post> posts = postRepository.findByIdInAndIsDeletedFalseOrderByCreatedAtDesc(postIds);
-            
-            // 按照向量搜索的相似度顺序重新排序帖子
-            List<Post> sortedPosts = new ArrayList<>();
-            for (Long postId : postIds) {
-                posts.stream()
-                    .filter(post -> post.getId().equals(postId))
-                    .findFirst()
-                    .ifPresent(sortedPosts::add);
-            }
-            
-            // 应用分页
-            int start = (int) pageable.getOffset();
-            int end = Math.min(start + pageable.getPageSize(), sortedPosts.size());
-            
-            if (start >= sortedPosts.size()) {
-                return Page.empty(pageable);
-            }
-            
-            List<Post> pagedPosts = sortedPosts.subList(start, end);
-            
-            // 批量查询用户信息，避免N+1查询
-            optimizeUserInfoLoading(pagedPosts);
-            
-            // 批量查询点赞状态
-            Map<Long, Boolean> likeStatusMap = batchQueryLikeStatus(pagedPosts, currentUserId);
-            
-            // 转换为 PostResponse
-            List<PostResponse> postResponses = pagedPosts.stream()
-                .map(post -> postConverter.toResponse(post, likeStatusMap.getOrDefault(post.getId(), false)))
+            List<PostResponse> postResponses = toFeedResponsePage(new PageImpl<>(rows), currentUserId).getContent()
+                .stream()
+                .map(this::withPendingCounts)
                 .collect(Collectors.toList());
             
-            // 创建分页结果
-            return new org.springframework.data.domain.PageImpl<>(
-                postResponses, 
-                pageable, 
-                sortedPosts.size()
-            );
+            // 向量搜索不统计总数，只保证是否为最后一页准确
+            long total = offset + postIds.size();
+            return new PageImpl<>(postResponses, pageable, total);
             
         } catch (Exception e) {
             // 如果向量搜索失败，回退到普通搜索或返回空结果
@@ -202,40 +286,127 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    @Cacheable(value = "posts", key = "'user_' + #userId + '_' + #pageable.pageNumber + '_' + #pageable.pageSize + '_' + #currentUserId")
+    public List<PostResponse> findRelatedPosts(Long postId, int limit, Long currentUserId) {
+        // 帖子本身不可见时与详情一致返回404
+        self().findById(postId, null);
+
+        List<Long> relatedIds = qdrantService.findRelatedPostIds(postId, RELATED_POSTS_DEPTH);
+        if (relatedIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 以数据库为准校验状态，过滤拉黑关系，保持相似度顺序
+        UserBlockGraph.Visibility visibility = userBlockGraph.visibilityFor(currentUserId);
+        List<PostFeedRow> rows = loadValidPostsInOrder(relatedIds).stream()
+            .filter(post -> !post.id().equals(postId) && !visibility.isHidden(post.authorId()))
+            .limit(limit)
+            .collect(Collectors.toList());
+        return toFeedResponsePage(new PageImpl<>(rows), currentUserId).getContent()
+            .stream()
+            .map(this::withPendingCounts)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 搜索一页帖子ID：倒排索引有命中时，两路各取max-fusion-depth条融合一次，各页从融合结果截取，
+     * 翻过融合结果末尾即没有更多结果；否则只用向量检索，分页直接下推到Qdrant
+     */
+    private List<Long> searchPostIds(String keyword, QdrantService.SearchFilter filter, int offset, int limit) {
+        long[] fused = searchProperties.isHybridEnabled() ? fusedSearchIds(keyword, filter) : new long[0];
+        if (fused.length == 0) {
+            return qdrantService.searchPostIds(keyword, filter, offset, limit);
+        }
+        if (offset >= fused.length) {
+            return List.of();
+        }
+        return Arrays.stream(fused, offset, Math.min(offset + limit, fused.length)).boxed().toList();
+    }
+
+    /**
+     * 按固定深度融合两路结果，与页码无关；向量检索失败时只用倒排索引的结果，且不缓存
+     */
+    private long[] fusedSearchIds(String keyword, QdrantService.SearchFilter filter) {
+        String key = QdrantServiceImpl.normalizeQuery(keyword) + "|" + filter.cacheKey();
+        long[] cached = fusedSearchCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        int depth = searchProperties.getMaxFusionDepth();
+        List<Long> lexicalIds = postLexicalIndex.search(keyword, filter, depth);
+        if (lexicalIds.isEmpty()) {
+            fusedSearchCache.put(key, new long[0]);
+            return new long[0];
+        }
+        List<Long> vectorIds = qdrantService.searchPostIds(keyword, filter, 0, depth);
+        long[] fused = ReciprocalRankFusion.fuse(searchProperties.getRrfK(), vectorIds, lexicalIds).stream()
+            .mapToLong(Long::longValue)
+            .toArray();
+        if (vectorIds != null) {
+            fusedSearchCache.put(key, fused);
+        }
+        return fused;
+    }
+
+    @Override
     public Page<PostResponse> findPostsByUser(Long userId, Pageable pageable, Long currentUserId) {
+        if (userBlockGraph.hiddenAuthorIds(currentUserId).contains(userId)) {
+            return Page.empty(pageable);
+        }
+        return applyLiveState(self().findPostsByUserPage(userId, pageable), currentUserId);
+    }
+
+    /**
+     * 用户帖子列表页（不含点赞状态，所有用户共享同一份缓存）
+     */
+    @Cacheable(value = "posts", key = "'user_' + #userId + '_' + #pageable.pageNumber + '_' + #pageable.pageSize")
+    public Page<PostResponse> findPostsByUserPage(Long userId, Pageable pageable) {
         // 只返回已审核通过且未软删除的帖子
-        Page<Post> postsPage = postRepository.findByAuthorIdAndStateAndIsDeletedFalseOrderByCreatedAtDesc(userId, PostState.VALID, pageable);
-        return optimizePostResponsePage(postsPage, currentUserId);
+        return toFeedResponsePage(postRepository.findValidFeedRowsByAuthor(userId, pageable), null);
     }
 
     @Override
-    @Cacheable(value = "posts", key = "'filter_' + #filter + '_' + #pageable.pageNumber + '_' + #pageable.pageSize + '_' + #currentUserId")
     public Page<PostResponse> findPostsByFilter(String filter, Pageable pageable, Long currentUserId) {
-        long startTime = System.currentTimeMillis();
-        Page<Post> posts;
-        
+        Set<Long> hidden = userBlockGraph.hiddenAuthorIds(currentUserId);
+        Page<PostResponse> page = hidden.isEmpty()
+            ? self().findPostsByFilterPage(filter, pageable)
+            : toFeedResponsePage(findFeedRowsByFilter(filter, pageable, hidden), null);
+        return applyLiveState(page, currentUserId);
+    }
+
+    /**
+     * 按筛选条件的帖子列表页（不含点赞状态，所有用户共享同一份缓存）
+     */
+    @Cacheable(value = "posts", key = "'filter_' + #filter + '_' + #pageable.pageNumber + '_' + #pageable.pageSize")
+    public Page<PostResponse> findPostsByFilterPage(String filter, Pageable pageable) {
+        return toFeedResponsePage(findFeedRowsByFilter(filter, pageable, Set.of()), null);
+    }
+
+    /**
+     * 按筛选条件查询一页帖子，排除hidden中作者的帖子（为空时不排除）
+     */
+    private Page<PostFeedRow> findFeedRowsByFilter(String filter, Pageable pageable, Set<Long> hidden) {
         switch (filter) {
             case "最新":
                 // 使用数据库层面查询：最近24小时的已通过帖子
                 LocalDateTime twentyFourHoursAgo = LocalDateTime.now().minusHours(24);
-                posts = postRepository.findByStateAndIsDeletedFalseAndCreatedAtAfterOrderByIsAnnouncementDescCreatedAtDesc(PostState.VALID, twentyFourHoursAgo, pageable);
-                break;
+                return hidden.isEmpty()
+                    ? postRepository.findRecentValidFeedRows(twentyFourHoursAgo, pageable)
+                    : postRepository.findRecentValidFeedRowsExcludingAuthors(twentyFourHoursAgo, hidden, pageable);
             case "最热":
-                // 使用数据库层面查询：点赞数大于等于4的已通过帖子
-                posts = postRepository.findByStateAndIsDeletedFalseAndLikesCountGreaterThanEqualOrderByIsAnnouncementDescLikesCountDesc(PostState.VALID, 4, pageable);
-                break;
+                // 按内存热度榜的排名读取，热度随时间衰减
+                List<HotPostRanking.Entry> entries = hotRankingEngine.page(
+                    (int) pageable.getOffset(), pageable.getPageSize(), hidden);
+                return new PageImpl<>(loadRankedPosts(entries), pageable, hotRankingEngine.size(hidden));
             case "心情":
                 // 使用数据库层面查询：有心情的已通过帖子
-                posts = postRepository.findByStateAndMoodIsNotNullAndIsDeletedFalseOrderByIsAnnouncementDescCreatedAtDesc(PostState.VALID, pageable);
-                break;
+                return hidden.isEmpty()
+                    ? postRepository.findValidFeedRowsWithMood(pageable)
+                    : postRepository.findValidFeedRowsWithMoodExcludingAuthors(hidden, pageable);
             default:
                 // 全部：按创建时间排序的已通过帖子
-                posts = postRepository.findValidPosts(pageable);
-                break;
+                return hidden.isEmpty()
+                    ? postRepository.findValidFeedRows(pageable)
+                    : postRepository.findValidFeedRowsExcludingAuthors(hidden, pageable);
         }
-        
-        return optimizePostResponsePage(posts, currentUserId);
     }
 
     @Override
@@ -245,16 +416,91 @@ public class PostServiceImpl implements PostService {
         }
         // 使用数据库层面查询：按标签筛选已通过的帖子
         long tagCount = tagIds.size();
-        Page<Post> posts = postRepository.findByStateAndTagIdsAndIsDeletedFalse(PostState.VALID, tagIds, tagCount, pageable);
-        return optimizePostResponsePage(posts, currentUserId);
+        Set<Long> hidden = userBlockGraph.hiddenAuthorIds(currentUserId);
+        Page<PostFeedRow> posts = hidden.isEmpty()
+            ? postRepository.findValidFeedRowsByTagIds(tagIds, tagCount, pageable)
+            : postRepository.findValidFeedRowsByTagIdsExcludingAuthors(tagIds, tagCount, hidden, pageable);
+        return toFeedResponsePage(posts, currentUserId).map(this::withPendingCounts);
     }
 
     @Override
-    @Cacheable(value = "posts", key = "'mood_' + #mood + '_' + #pageable.pageNumber + '_' + #pageable.pageSize + '_' + #currentUserId")
     public Page<PostResponse> findPostsByMood(MoodType mood, Pageable pageable, Long currentUserId) {
+        Set<Long> hidden = userBlockGraph.hiddenAuthorIds(currentUserId);
+        Page<PostResponse> page = hidden.isEmpty()
+            ? self().findPostsByMoodPage(mood, pageable)
+            : toFeedResponsePage(postRepository.findValidFeedRowsByMoodExcludingAuthors(mood, hidden, pageable), null);
+        return applyLiveState(page, currentUserId);
+    }
+
+    /**
+     * 按心情的帖子列表页（不含点赞状态，所有用户共享同一份缓存）
+     */
+    @Cacheable(value = "posts", key = "'mood_' + #mood + '_' + #pageable.pageNumber + '_' + #pageable.pageSize")
+    public Page<PostResponse> findPostsByMoodPage(MoodType mood, Pageable pageable) {
         // 使用数据库层面查询：按心情类型筛选已通过的帖子
-        Page<Post> posts = postRepository.findByStateAndMoodAndIsDeletedFalseOrderByIsAnnouncementDescCreatedAtDesc(PostState.VALID, mood, pageable);
-        return optimizePostResponsePage(posts, currentUserId);
+        return toFeedResponsePage(postRepository.findValidFeedRowsByMood(mood, pageable), null);
+    }
+
+    @Override
+    public CursorPageResponse<PostResponse> findAllPostsByCursor(String cursor, int size, Long currentUserId) {
+        return toCursorPage(PageCursor.decode(cursor, PageCursor.firstByTimeDesc()), size, currentUserId,
+            byAnnouncementThenTime(size + 1, (position, limit) -> postRepository.findValidPostsByCursor(
+                position.announcement(), position.createdAt(), position.id(), limit)));
+    }
+
+    @Override
+    public CursorPageResponse<PostResponse> findPostsByFilterAndCursor(String filter, String cursor, int size, Long currentUserId) {
+        switch (filter) {
+            case "最新": {
+                LocalDateTime since = LocalDateTime.now().minusHours(24);
+                return toCursorPage(PageCursor.decode(cursor, PageCursor.firstByTimeDesc()), size, currentUserId,
+                    byAnnouncementThenTime(size + 1, (position, limit) -> postRepository.findRecentValidPostsByCursor(since,
+                        position.announcement(), position.createdAt(), position.id(), limit)));
+            }
+            case "最热":
+                return toCursorPage(PageCursor.decode(cursor, PageCursor.firstByScoreDesc()), size, currentUserId,
+                    byHotRanking(size + 1));
+            case "心情":
+                return toCursorPage(PageCursor.decode(cursor, PageCursor.firstByTimeDesc()), size, currentUserId,
+                    byAnnouncementThenTime(size + 1, (position, limit) -> postRepository.findValidPostsWithMoodByCursor(
+                        position.announcement(), position.createdAt(), position.id(), limit)));
+            default:
+                return findAllPostsByCursor(cursor, size, currentUserId);
+        }
+    }
+
+    @Override
+    public CursorPageResponse<PostResponse> findPostsByTagsAndCursor(List<Long> tagIds, String cursor, int size, Long currentUserId) {
+        if (tagIds == null || tagIds.isEmpty()) {
+            return findAllPostsByCursor(cursor, size, currentUserId);
+        }
+        return toCursorPage(PageCursor.decode(cursor, PageCursor.firstByTimeDesc()), size, currentUserId,
+            byAnnouncementThenTime(size + 1, (position, limit) -> postRepository.findValidPostsByTagIdsAndCursor(tagIds, tagIds.size(),
+                position.announcement(), position.createdAt(), position.id(), limit)));
+    }
+
+    @Override
+    public CursorPageResponse<PostResponse> findPostsByMoodAndCursor(MoodType mood, String cursor, int size, Long currentUserId) {
+        return toCursorPage(PageCursor.decode(cursor, PageCursor.firstByTimeDesc()), size, currentUserId,
+            byAnnouncementThenTime(size + 1, (position, limit) -> postRepository.findValidPostsByMoodAndCursor(mood,
+                position.announcement(), position.createdAt(), position.id(), limit)));
+    }
+
+    @Override
+    public CursorPageResponse<PostResponse> findPostsByUserAndCursor(Long userId, String cursor, int size, Long currentUserId) {
+        return toCursorPage(PageCursor.decode(cursor, PageCursor.firstByTimeDesc()), size, currentUserId,
+            byTime(size + 1, (position, limit) -> postRepository.findValidPostsByAuthorAndCursor(userId,
+                position.createdAt(), position.id(), limit)));
+    }
+
+    @Override
+    public CursorPageResponse<PostResponse> findFollowingPostsByCursor(String cursor, int size, Long currentUserId) {
+        Set<Long> followingIds = new HashSet<>(userFollowService.getFollowingUserIds(currentUserId));
+        if (followingIds.isEmpty()) {
+            return new CursorPageResponse<>(List.of(), null, false);
+        }
+        return toCursorPage(PageCursor.decode(cursor, PageCursor.firstByIdDesc()), size, currentUserId,
+            byFollowingTimeline(currentUserId, followingIds, size + 1));
     }
 
     /**
@@ -291,18 +537,19 @@ public class PostServiceImpl implements PostService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void approvePost(Long postId) {
         Post post = postRepository.findById(postId)
             .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
         post.setState(PostState.VALID);
         // 确保审核通过的帖子reportCount为0    post.setReportCount(0);
         postRepository.save(post);
+        cacheTagIndex.evictTags(CacheTags.postVisibilityChanged(post));
+        syncSearchIndexes(post);
+        timelineInboxStore.onPostPublished(post);
     }
     
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void rejectPost(Long postId) {
         Post post = postRepository.findById(postId)
             .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
@@ -314,11 +561,12 @@ public class PostServiceImpl implements PostService {
         // 确保审核删除的帖子reportCount为0，以区分被举报删除的帖子
         post.setReportCount(0);
         postRepository.save(post);
+        cacheTagIndex.evictTags(CacheTags.postVisibilityChanged(post));
+        syncSearchIndexes(post);
     }
     
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void deletePostByAdmin(Long postId) {
         Post post = postRepository.findById(postId)
             .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
@@ -337,11 +585,12 @@ public class PostServiceImpl implements PostService {
         reportRepository.saveAll(reports);
         
         postRepository.save(post);
+        cacheTagIndex.evictTags(CacheTags.postVisibilityChanged(post));
+        syncSearchIndexes(post);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void changePostStatus(Long postId, String status) {
         Post post = postRepository.findById(postId)
             .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
@@ -379,11 +628,12 @@ public class PostServiceImpl implements PostService {
         reportRepository.saveAll(reports);
         
         postRepository.save(post);
+        cacheTagIndex.evictTags(CacheTags.postVisibilityChanged(post));
+        syncSearchIndexes(post);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void approvePostReport(Long postId) {
         Post post = postRepository.findById(postId)
             .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
@@ -402,11 +652,12 @@ public class PostServiceImpl implements PostService {
         reportRepository.saveAll(reports);
         
         postRepository.save(post);
+        cacheTagIndex.evictTags(CacheTags.postVisibilityChanged(post));
+        syncSearchIndexes(post);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public PostResponse createPostForUser(PostRequest postRequest, Long currentUserId) {
         if (Boolean.TRUE.equals(postRequest.getIsAnnouncement())) {
             User user = userService.findById(currentUserId)
@@ -451,185 +702,75 @@ public class PostServiceImpl implements PostService {
         post.setState(PostState.PENDING);
         
         Post savedPost = postRepository.save(post);
+        // 待审核帖子不在公开列表中，只影响统计
+        cacheTagIndex.evictTags(CacheTags.STATS_GLOBAL, CacheTags.userStats(currentUserId));
 
-        // 异步处理向量存储和心情评分（非公告帖子）
+        // 向量写入事件与帖子同一事务提交，先暂缓处理，由流水线算好向量后放行（非公告帖子）
         if (!savedPost.getIsAnnouncement()) {
-            try {
-                // 通过ApplicationContext调用确保AOP代理生效
-                PostServiceImpl self = applicationContext.getBean(PostServiceImpl.class);
-                
-                // 分别异步处理向量存储和心情评分
-                self.processPostVectorAsync(savedPost);
-                self.processMoodScoreAsync(savedPost.getId(), currentUserId, postRequest.getContent());
-                
-            } catch (Exception e) {
-                // 记录错误但不影响post的创建
-                System.err.println("启动异步向量存储和心情评分失败: " + e.getMessage());
-            }
+            vectorOutboxService.enqueueUpsert(savedPost.getId(), Duration.ofMillis(pipelineVectorFallbackMs));
         }
 
-        // 异步处理内容审核 - 通过ApplicationContext调用确保AOP代理生效
-        System.out.println("=== 开始异步内容审核 ===");
-        PostServiceImpl self = applicationContext.getBean(PostServiceImpl.class);
-        self.processPostAuditAsync(savedPost);
-        System.out.println("=== 异步审核已启动，主线程继续执行 ===");
+        // 事务提交后交给AI处理流水线：审核、心情评分、向量化
+        PostPipelineService postPipelineService = applicationContext.getBean(PostPipelineService.class);
+        Long postId = savedPost.getId();
+        afterCommit(() -> postPipelineService.submit(postId));
 
         System.out.println("=== Post创建完成（等待审核） ===");
         // 返回待审核状态的帖子响应
         return postConverter.toResponse(savedPost, false);
     }
 
-    /**
-     * 异步处理向量存储和心情评分
-     */
-    @Async("aiAuditExecutor")
-    public void processPostVectorAndMoodScoreAsync(Post post, Long currentUserId, String content) {
-        System.out.println("=== 异步线程开始处理向量存储和心情评分 ===");
-        System.out.println("线程名称: " + Thread.currentThread().getName());
-        System.out.println("postId: " + post.getId() + ", authorId: " + post.getAuthor().getId());
-        
-        long asyncStartTime = System.currentTimeMillis();
-        
-        try {
-            // 异步存储向量
-            System.out.println("=== 开始异步向量存储 ===");
-            long vectorStartTime = System.currentTimeMillis();
-            qdrantService.upsertPostVector(post);
-            long vectorEndTime = System.currentTimeMillis();
-            System.out.println("=== 向量存储完成，耗时: " + (vectorEndTime - vectorStartTime) + "ms ===");
-
-            // 异步创建心情评分
-            System.out.println("=== 开始异步心情评分 ===");
-            long moodStartTime = System.currentTimeMillis();
-            moodScoreService.createMoodScoreForPost(post.getId(), currentUserId, content);
-            long moodEndTime = System.currentTimeMillis();
-            System.out.println("=== 心情评分完成，耗时: " + (moodEndTime - moodStartTime) + "ms ===");
-
-            long asyncEndTime = System.currentTimeMillis();
-            System.out.println("=== 异步向量存储和心情评分完成，总耗时: " + (asyncEndTime - asyncStartTime) + "ms ===");
-
-        } catch (Exception e) {
-            System.err.println("异步处理向量存储和心情评分时发生异常: "+e.getMessage());
-            e.printStackTrace();
+    @Override
+    @Transactional
+    public void applyPipelineResult(Long postId, PostPipelineService.Result result) {
+        Post post = postRepository.findById(postId).orElse(null);
+        if (post == null) {
+            return;
         }
-    }
-
-    /**
-     * 异步处理向量存储
-     */
-    @Async("vectorExecutor")
-    public void processPostVectorAsync(Post post) {
-        System.out.println("=== 异步线程开始处理向量存储 ===");
-        System.out.println("线程名称: " + Thread.currentThread().getName());
-        System.out.println("postId: " + post.getId());
-        
-        long startTime = System.currentTimeMillis();
-        
-        try {
-            qdrantService.upsertPostVector(post);
-            long endTime = System.currentTimeMillis();
-            System.out.println("=== 向量存储完成，耗时: " + (endTime - startTime) + "ms ===");
-        } catch (Exception e) {
-            System.err.println("异步向量存储失败: " + e.getMessage());
-            e.printStackTrace();
+        // 重新提交的帖子已有心情评分时不再分析，两项都为null
+        if (!Boolean.TRUE.equals(post.getIsAnnouncement())
+                && (result.moodGrade() != null || result.depressCheck() != null)) {
+            moodScoreService.saveMoodScoreForPost(post, result.moodGrade(), result.depressCheck());
         }
-    }
-
-    /**
-     * 异步处理心情评分
-     */
-    @Async("moodScoreExecutor")
-    public void processMoodScoreAsync(Long postId, Long currentUserId, String content) {
-        System.out.println("=== 异步线程开始处理心情评分 ===");
-        System.out.println("线程名称: " + Thread.currentThread().getName());
-        System.out.println("postId: " + postId + ", userId: " + currentUserId);
-        
-        long startTime = System.currentTimeMillis();
-        
-        try {
-            moodScoreService.createMoodScoreForPost(postId, currentUserId, content);
-            long endTime = System.currentTimeMillis();
-            System.out.println("=== 心情评分完成，耗时: " + (endTime - startTime) + "ms ===");
-        } catch (Exception e) {
-            System.err.println("异步心情评分失败: " + e.getMessage());
-            e.printStackTrace();
+        // 处理期间管理员已审核或作者已删除的帖子保持现状
+        if (post.getState() != PostState.PENDING || Boolean.TRUE.equals(post.getIsDeleted())) {
+            return;
         }
-    }
-
-    /**
-     * 异步处理Post内容审核
-     */
-    @Async("aiAuditExecutor")
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
-    public void processPostAuditAsync(Post post) {
-        System.out.println("=== 异步线程开始处理内容审核 ===");
-        System.out.println("线程名称: " + Thread.currentThread().getName());
-        System.out.println("postId: " + post.getId() + ", authorId: " + post.getAuthor().getId());
-        
-        long asyncStartTime = System.currentTimeMillis();
-        
-        try {
-            System.out.println("开始异步处理Post内容审核，postId : "+post.getId());
 
-            System.out.println("=== 开始调用AI审核服务 ===");
-            long aiStartTime = System.currentTimeMillis();
-            
-            // 执行AI审核
-            PostAuditResponse auditResponse = postAuditService.auditPostContent(post);
-            
-            long aiEndTime = System.currentTimeMillis();
-            System.out.println("=== AI审核完成，耗时: " + (aiEndTime - aiStartTime) + "ms ===");
-
-            // 根据审核结果更新帖子状态
-            if (auditResponse.getIsCompliant()) {
-                System.out.println("AI审核认为内容合规: "+auditResponse.getAuditReason());
-                // 设置为已通过状态
-                post.setState(PostState.VALID);
-                postRepository.save(post);
-                System.out.println("帖子状态已更新为：已通过");
-            } else {
-                System.out.println("AI审核认为内容不合规: "+auditResponse.getAuditReason());
-                if (auditResponse.getNeedAdminCheck()) {
-                    System.out.println("需要人工审核，设置为等待人工审核状态");
-                    post.setState(PostState.WAITING);
-                    // 确保审核WAITING状态的帖子reportCount为0
-                    post.setReportCount(0);
-                    postRepository.save(post);
-                } else {
-                    System.out.println("内容严重违规，设置为已拒绝状态并软删除");
-                    post.setState(PostState.INVALID);
-                    post.setIsDeleted(true);
-                    post.setDeletedAt(LocalDateTime.now());
-                    post.setDeletedBy(null); // AI删除，没有具体用户
-                    post.setDeleteReason("AI审核拒绝：" + auditResponse.getAuditReason());
-                    // 确保审核删除的帖子reportCount为0，以区分被举报删除的帖子
-                    post.setReportCount(0);
-                    postRepository.save(post);
-                }
-            }
-
-            long asyncEndTime = System.currentTimeMillis();
-            System.out.println("=== 异步审核完成，总耗时: " + (asyncEndTime - asyncStartTime) + "ms ===");
-
-        } catch (Exception e) {
-            System.err.println("异步处理Post内容审核时发生异常: "+e.getMessage());
-            e.printStackTrace();
-            // 发生异常时，设置为等待人工审核状态
-            try {
-                post.setState(PostState.WAITING);
-                // 确保审核WAITING状态的帖子reportCount为0
-                post.setReportCount(0);
-                postRepository.save(post);
-                System.out.println("异常处理完成，帖子状态已设置为：等待人工审核");
-            } catch (Exception saveException) {
-                System.err.println("保存帖子状态时发生异常: "+saveException.getMessage());
-            }
+        PostAuditResponse auditResponse = result.audit();
+        if (auditResponse == null) {
+            // 保持待审核，由流水线定时重新提交，长时间未完成时转人工审核
+            System.out.println("AI审核未完成，保持待审核状态，postId: " + postId);
+            return;
+        } else if (Boolean.TRUE.equals(auditResponse.getIsCompliant())) {
+            System.out.println("AI审核认为内容合规: " + auditResponse.getAuditReason());
+            post.setState(PostState.VALID);
+        } else if (Boolean.TRUE.equals(auditResponse.getNeedAdminCheck())) {
+            System.out.println("AI审核认为需要人工审核: " + auditResponse.getAuditReason());
+            post.setState(PostState.WAITING);
+            post.setReportCount(0);
+        } else {
+            System.out.println("AI审核认为内容严重违规，设置为已拒绝状态并软删除: " + auditResponse.getAuditReason());
+            post.setState(PostState.INVALID);
+            post.setIsDeleted(true);
+            post.setDeletedAt(LocalDateTime.now());
+            post.setDeletedBy(null); // AI删除，没有具体用户
+            post.setDeleteReason("AI审核拒绝：" + auditResponse.getAuditReason());
+            // 确保审核删除的帖子reportCount为0，以区分被举报删除的帖子
+            post.setReportCount(0);
+        }
+        postRepository.save(post);
+        if (post.getState() == PostState.VALID) {
+            cacheTagIndex.evictTags(CacheTags.postVisibilityChanged(post));
+            syncSearchIndexes(post);
+            timelineInboxStore.onPostPublished(post);
+        } else {
+            removeFromHotRanking(post);
         }
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void deletePost(Long postId, Long currentUserId) {
         Post post = postRepository.findById(postId)
             .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
@@ -648,14 +789,16 @@ public class PostServiceImpl implements PostService {
         
         // 保存软删除的帖子
         postRepository.save(post);
+        cacheTagIndex.evictTags(CacheTags.postVisibilityChanged(post));
         
-        // 从向量数据库中删除帖子向量
-        qdrantService.deletePostVector(post);
+        postLexicalIndex.onPostChanged(post);
+        removeFromHotRanking(post);
+        // 从向量数据库中删除帖子向量（写入发件箱，提交后由后台同步）
+        vectorOutboxService.enqueueDelete(post.getId());
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void likePost(Long postId, Long userId) {
         Optional<Post> postOpt = postRepository.findById(postId);
         Optional<User> userOpt = userService.findById(userId);
@@ -683,14 +826,15 @@ public class PostServiceImpl implements PostService {
             like.setPost(post);
             like.setUser(user);
             postLikeRepository.save(like);
-            postRepository.updateLikeCount(postId, 1);
+            // 点赞数由写缓冲定时批量写回，列表缓存在写回时清除
+            counterBuffer.addPostLikes(postId, 1);
+            userLikedPostsCache.onLiked(userId, postId);
             notificationService.createAndSendPostLikeNotification(post, user);
         }
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void unlikePost(Long postId, Long userId) {
         Optional<Post> postOpt = postRepository.findById(postId);
         Optional<User> userOpt = userService.findById(userId);
@@ -715,7 +859,8 @@ public class PostServiceImpl implements PostService {
         
         if (postLikeRepository.existsByPostAndUser(post, user)) {
             postLikeRepository.deleteByPostAndUser(post, user);
-            postRepository.updateLikeCount(postId, -1);
+            counterBuffer.addPostLikes(postId, -1);
+            userLikedPostsCache.onUnliked(userId, postId);
         }
     }
 
@@ -769,7 +914,6 @@ public class PostServiceImpl implements PostService {
     // 举报相关方法实现
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void reportPost(Long postId, Long currentUserId, String reason) {
         System.out.println("=== 开始处理举报请求 ===");
         System.out.println("postId: " + postId + ", currentUserId: " + currentUserId + ", reason: " + reason);
@@ -817,6 +961,7 @@ public class PostServiceImpl implements PostService {
         
         // 增加被举报用户的举报次数（持久化存储）
         userService.incrementReportedCount(post.getAuthor().getId());
+        cacheTagIndex.evictTags(CacheTags.STATS_GLOBAL, CacheTags.userStats(post.getAuthor().getId()));
 
         long syncEndTime = System.currentTimeMillis();
         System.out.println("=== 同步处理完成，耗时: " + (syncEndTime - syncStartTime) + "ms ===");
@@ -832,7 +977,6 @@ public class PostServiceImpl implements PostService {
      * 异步处理Post举报并自动审核
      */
     @Async("aiAuditExecutor")
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void processPostReportAuditAsync(Report report, Post post, String reason) {
         System.out.println("=== 异步线程开始处理AI审核 ===");
         System.out.println("线程名称: " + Thread.currentThread().getName());
@@ -868,6 +1012,8 @@ public class PostServiceImpl implements PostService {
                 // 保持reportCount > 0，表示这是被举报的帖子
                 reportRepository.save(report);
                 postRepository.save(post);
+                cacheTagIndex.evictTags(CacheTags.postVisibilityChanged(post));
+                syncSearchIndexes(post);
             } else {
                 if (auditResponse.getIsValidReport()) {
                     System.out.println("AI审核认为举报有效，帖子将被标记为无效: "+auditResponse.getAuditReason());
@@ -881,12 +1027,15 @@ public class PostServiceImpl implements PostService {
                     // 保持reportCount > 0，表示被举报删除
                     reportRepository.save(report);
                     postRepository.save(post);
+                    cacheTagIndex.evictTags(CacheTags.postVisibilityChanged(post));
+                    syncSearchIndexes(post);
                 } else {
                     System.out.println("AI审核认为举报无效，帖子保持有效: "+auditResponse.getAuditReason());
                     // 举报无效，帖子保持有效，保持reportCount > 0
                     report.setState(Report.State.INVALID);
                     // 帖子状态保持VALID不变，reportCount > 0表示被举报过
                     reportRepository.save(report);
+                    cacheTagIndex.evictTags(CacheTags.STATS_GLOBAL);
                 }
             }
 
@@ -903,6 +1052,8 @@ public class PostServiceImpl implements PostService {
                 // 保持reportCount > 0，表示这是被举报的帖子
                 reportRepository.save(report);
                 postRepository.save(post);
+                cacheTagIndex.evictTags(CacheTags.postVisibilityChanged(post));
+                syncSearchIndexes(post);
                 System.out.println("异常处理完成，举报和帖子状态已设置为等待人工审核");
             } catch (Exception saveException) {
                 System.err.println("保存状态时发生异常: "+saveException.getMessage());
@@ -919,7 +1070,6 @@ public class PostServiceImpl implements PostService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void ignorePostReports(Long postId) {
         Post post = postRepository.findById(postId)
             .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
@@ -935,6 +1085,7 @@ public class PostServiceImpl implements PostService {
         // 重置帖子的举报次数为0
         post.setReportCount(0);
         postRepository.save(post);
+        cacheTagIndex.evictTags(CacheTags.STATS_GLOBAL);
     }
 
     @Override
@@ -970,7 +1121,6 @@ public class PostServiceImpl implements PostService {
     
     @Override
     @Transactional
-    @CacheEvict(value = {"posts", "statistics"}, allEntries = true)
     public void restorePost(Long postId) {
         Post post = postRepository.findById(postId)
             .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
@@ -989,9 +1139,13 @@ public class PostServiceImpl implements PostService {
         post.setDeletedAt(null);
         post.setDeletedBy(null);
         post.setDeleteReason(null);
+        // 用户删除时向量已删除，恢复后重新写入
+        vectorOutboxService.enqueueUpsert(post.getId());
         }
         
         postRepository.save(post);
+        cacheTagIndex.evictTags(CacheTags.postVisibilityChanged(post));
+        syncSearchIndexes(post);
     }
     
     @Override
@@ -1006,60 +1160,260 @@ public class PostServiceImpl implements PostService {
         return posts.map(post -> postConverter.toResponse(post, false));
     }
 
-    // 私有方法：优化PostResponse分页查询，避免N+1查询问题
-    private Page<PostResponse> optimizePostResponsePage(Page<Post> postsPage, Long currentUserId) {
-        List<Post> posts = postsPage.getContent();
-        
-        // 批量查询用户信息，避免N+1查询
-        optimizeUserInfoLoading(posts);
-        
-        // 批量查询点赞状态
-        Map<Long, Boolean> likeStatusMap = batchQueryLikeStatus(posts, currentUserId);
-        
-        return postsPage.map(post -> postConverter.toResponse(post, 
-            likeStatusMap.getOrDefault(post.getId(), false)));
+    /**
+     * 游标扫描的一批结果：每行附带自身的排序键，scannedTo为本批扫描到的位置
+     */
+    private record CursorRow(PostFeedRow post, PageCursor cursor) {}
+
+    private record CursorBatch(List<CursorRow> rows, boolean exhausted, PageCursor scannedTo) {}
+
+    /**
+     * 组装游标分页结果：多查询一条用于判断是否还有下一页，游标取本页最后一条记录的排序键；
+     * 拉黑用户的帖子被排除后从扫描位置继续查询补齐一页，最多扫描CURSOR_MAX_SCAN_ROUNDS批，
+     * 仍未补齐时返回较短的一页，游标指向已扫描的位置
+     */
+    private CursorPageResponse<PostResponse> toCursorPage(PageCursor start, int size, Long currentUserId,
+                                                          Function<PageCursor, CursorBatch> scan) {
+        UserBlockGraph.Visibility visibility = userBlockGraph.visibilityFor(currentUserId);
+        List<CursorRow> visible = new ArrayList<>(size + 1);
+        PageCursor position = start;
+        boolean exhausted = false;
+        for (int round = 0; round < CURSOR_MAX_SCAN_ROUNDS && visible.size() <= size; round++) {
+            CursorBatch batch = scan.apply(position);
+            for (CursorRow row : batch.rows()) {
+                if (!visibility.isHidden(row.post().authorId())) {
+                    visible.add(row);
+                }
+            }
+            position = batch.scannedTo();
+            if (batch.exhausted()) {
+                exhausted = true;
+                break;
+            }
+        }
+        String nextCursor = null;
+        if (visible.size() > size) {
+            visible = visible.subList(0, size);
+            nextCursor = visible.get(size - 1).cursor().encode();
+        } else if (!exhausted) {
+            nextCursor = position.encode();
+        }
+        List<PostFeedRow> pagePosts = visible.stream().map(CursorRow::post).collect(Collectors.toList());
+        return renderCursorPage(pagePosts, nextCursor, currentUserId);
     }
-    
+
     /**
-     * 优化用户信息加载，避免N+1查询问题
-     * 使用批量查询并手动组装的方式
+     * 按时间排序的游标查询
      */
-    private void optimizeUserInfoLoading(List<Post> posts) {
-        if (posts == null || posts.isEmpty()) {
-            return;
+    private static Function<PageCursor, CursorBatch> byTime(int batchSize,
+                                                            BiFunction<PageCursor, Pageable, List<PostFeedRow>> query) {
+        return position -> {
+            List<PostFeedRow> posts = query.apply(position, PageRequest.of(0, batchSize));
+            List<CursorRow> rows = posts.stream()
+                .map(post -> new CursorRow(post, timeCursorOf(post)))
+                .collect(Collectors.toList());
+            PageCursor scannedTo = rows.isEmpty() ? position : rows.get(rows.size() - 1).cursor();
+            return new CursorBatch(rows, posts.size() < batchSize, scannedTo);
+        };
+    }
+
+    /**
+     * 公告置顶、按时间排序的游标查询：游标所在的一段内按(createdAt, id)定位，
+     * 公告段读完后本批剩余的条数从普通帖子段开头读取，每次查询都只扫描一段
+     */
+    private static Function<PageCursor, CursorBatch> byAnnouncementThenTime(int batchSize,
+                                                                            BiFunction<PageCursor, Pageable, List<PostFeedRow>> query) {
+        return position -> {
+            CursorBatch batch = byTime(batchSize, query).apply(position);
+            if (!batch.exhausted() || !position.announcement()) {
+                return batch;
+            }
+            PageCursor regularStart = new PageCursor(false, PageCursor.MAX_TIME, null, Long.MAX_VALUE);
+            CursorBatch regular = byTime(batchSize - batch.rows().size(), query).apply(regularStart);
+            List<CursorRow> rows = new ArrayList<>(batch.rows());
+            rows.addAll(regular.rows());
+            return new CursorBatch(rows, regular.exhausted(), regular.scannedTo());
+        };
+    }
+
+    /**
+     * 按热度榜排名的游标查询
+     */
+    private Function<PageCursor, CursorBatch> byHotRanking(int batchSize) {
+        return position -> {
+            List<HotPostRanking.Entry> entries = hotRankingEngine.after(
+                position.announcement(), position.score(), position.id(), batchSize);
+            Map<Long, PageCursor> cursors = new HashMap<>();
+            for (HotPostRanking.Entry entry : entries) {
+                cursors.put(entry.postId(), new PageCursor(entry.announcement(), null, entry.score(), entry.postId()));
+            }
+            List<CursorRow> rows = loadRankedPosts(entries).stream()
+                .map(post -> new CursorRow(post, cursors.get(post.id())))
+                .collect(Collectors.toList());
+            PageCursor scannedTo = entries.isEmpty() ? position : cursors.get(entries.get(entries.size() - 1).postId());
+            return new CursorBatch(rows, entries.size() < batchSize, scannedTo);
+        };
+    }
+
+    private CursorPageResponse<PostResponse> renderCursorPage(List<PostFeedRow> posts, String nextCursor, Long currentUserId) {
+        Page<PostResponse> responses = applyLiveState(toFeedResponsePage(new PageImpl<>(posts), null), currentUserId);
+        return new CursorPageResponse<>(responses.getContent(), nextCursor, nextCursor != null);
+    }
+
+    private static PageCursor timeCursorOf(PostFeedRow post) {
+        return new PageCursor(Boolean.TRUE.equals(post.isAnnouncement()), post.createdAt(), null, post.id());
+    }
+
+    /**
+     * 按关注时间线的游标查询：收件箱与读扩散作者的帖子ID按ID倒序合并，
+     * 加载后跳过已删除、已下架或已取消关注的作者的帖子
+     */
+    private Function<PageCursor, CursorBatch> byFollowingTimeline(Long userId, Set<Long> followingIds, int batchSize) {
+        return position -> {
+            List<Long> postIds = timelineInboxStore.candidatePostIds(userId, followingIds, position.id(), batchSize);
+            List<CursorRow> rows = loadValidPostsInOrder(postIds).stream()
+                .filter(post -> followingIds.contains(post.authorId()))
+                .map(post -> new CursorRow(post, PageCursor.ofId(post.id())))
+                .collect(Collectors.toList());
+            PageCursor scannedTo = postIds.isEmpty() ? position : PageCursor.ofId(postIds.get(postIds.size() - 1));
+            return new CursorBatch(rows, postIds.size() < batchSize, scannedTo);
+        };
+    }
+
+    /**
+     * 按热度榜顺序加载帖子，跳过榜单重建前已删除或下架的帖子
+     */
+    private List<PostFeedRow> loadRankedPosts(List<HotPostRanking.Entry> entries) {
+        return loadValidPostsInOrder(entries.stream().map(HotPostRanking.Entry::postId).collect(Collectors.toList()));
+    }
+
+    /**
+     * 按给定ID顺序加载已通过且未删除的帖子
+     */
+    private List<PostFeedRow> loadValidPostsInOrder(List<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return new ArrayList<>();
         }
-        
-        // 1. 收集所有作者ID
-        Set<Long> authorIds = posts.stream()
-            .map(post -> post.getAuthor().getId())
-            .collect(Collectors.toSet());
-        
-        // 2. 一次性查询所有用户
-        Map<Long, User> userMap = userService.findByIds(authorIds)
-            .stream()
-            .collect(Collectors.toMap(User::getId, user -> user));
-        
-        // 3. 手动组装，将完整的User对象设置到Post中
-        for (Post post : posts) {
-            User author = post.getAuthor();
-            if (author != null && author.getId() != null) {
-                User completeUser = userMap.get(author.getId());
-                if (completeUser != null) {
-                    // 直接设置完整的用户对象，避免后续的惰性加载
-                    post.setAuthor(completeUser);
-                }
+        Map<Long, PostFeedRow> postMap = postRepository.findValidFeedRowsByIds(postIds).stream()
+            .collect(Collectors.toMap(PostFeedRow::id, post -> post));
+        return postIds.stream().map(postMap::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * 帖子状态变化后同步倒排索引、热度榜和向量库中的过滤payload，事务提交后执行
+     */
+    private void syncSearchIndexes(Post post) {
+        postLexicalIndex.onPostChanged(post);
+        removeFromHotRanking(post);
+        // 标签需在提交前加载；异步审核中的帖子已脱离会话，改为批量查询补齐
+        if (!Hibernate.isInitialized(post.getTags())) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                Hibernate.initialize(post.getTags());
+            } else {
+                post.setTags(postRepository.findFeedTagsByPostIds(List.of(post.getId())).stream()
+                    .map(row -> (PostTag) row[1])
+                    .collect(Collectors.toList()));
             }
         }
+        afterCommit(() -> qdrantService.updatePostPayload(post));
+    }
+
+    /**
+     * 已删除或不再是VALID状态的帖子在事务提交后移出热度榜
+     */
+    private void removeFromHotRanking(Post post) {
+        if (post.getState() != PostState.VALID || Boolean.TRUE.equals(post.getIsDeleted())) {
+            Long postId = post.getId();
+            afterCommit(() -> hotRankingEngine.remove(postId));
+        }
+    }
+
+    // 私有方法：通过代理调用自身，确保@Cacheable生效
+    private PostServiceImpl self() {
+        return applicationContext.getBean(PostServiceImpl.class);
+    }
+
+    /**
+     * 在共享的帖子列表页上补充当前用户的点赞状态和尚未写回的点赞数/评论数
+     * 只复制需要修改的帖子，其余元素直接复用缓存中的对象
+     */
+    private Page<PostResponse> applyLiveState(Page<PostResponse> page, Long currentUserId) {
+        if (page.isEmpty()) {
+            return page;
+        }
+        Set<Long> likedPostIds = currentUserId != null
+            ? userLikedPostsCache.likedAmong(currentUserId, page.map(PostResponse::getId).getContent())
+            : Collections.emptySet();
+        return page.map(response -> {
+            long pendingLikes = counterBuffer.pendingPostLikes(response.getId());
+            long pendingComments = counterBuffer.pendingPostComments(response.getId());
+            boolean liked = likedPostIds.contains(response.getId());
+            if (!liked && pendingLikes == 0 && pendingComments == 0) {
+                return response;
+            }
+            PostResponse.PostResponseBuilder builder = response.toBuilder();
+            if (liked) {
+                builder.isLiked(true);
+            }
+            return withPendingCounts(builder, response, pendingLikes, pendingComments);
+        });
+    }
+
+    /**
+     * 叠加写缓冲中尚未写回数据库的点赞数/评论数
+     */
+    private PostResponse withPendingCounts(PostResponse response) {
+        long pendingLikes = counterBuffer.pendingPostLikes(response.getId());
+        long pendingComments = counterBuffer.pendingPostComments(response.getId());
+        if (pendingLikes == 0 && pendingComments == 0) {
+            return response;
+        }
+        return withPendingCounts(response.toBuilder(), response, pendingLikes, pendingComments);
+    }
+
+    private static PostResponse withPendingCounts(PostResponse.PostResponseBuilder builder, PostResponse response,
+                                                  long pendingLikes, long pendingComments) {
+        if (pendingLikes != 0 && response.getLikesCount() != null) {
+            builder.likesCount((int) Math.max(0, response.getLikesCount() + pendingLikes));
+        }
+        if (pendingComments != 0 && response.getCommentsCount() != null) {
+            builder.commentsCount((int) Math.max(0, response.getCommentsCount() + pendingComments));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 由列表读模型组装帖子分页：一页帖子的标签、图片、点赞状态各一次批量查询，
+     * 与每页条数无关
+     */
+    private Page<PostResponse> toFeedResponsePage(Page<PostFeedRow> rowsPage, Long currentUserId) {
+        List<PostFeedRow> rows = rowsPage.getContent();
+        if (rows.isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), rowsPage.getPageable(), rowsPage.getTotalElements());
+        }
+        List<Long> postIds = rows.stream().map(PostFeedRow::id).collect(Collectors.toList());
+
+        Map<Long, List<PostTag>> tagsByPostId = new HashMap<>();
+        for (Object[] row : postRepository.findFeedTagsByPostIds(postIds)) {
+            tagsByPostId.computeIfAbsent((Long) row[0], key -> new ArrayList<>()).add((PostTag) row[1]);
+        }
+        Map<Long, List<String>> imagesByPostId = new HashMap<>();
+        for (Object[] row : postRepository.findFeedImagesByPostIds(postIds)) {
+            imagesByPostId.computeIfAbsent((Long) row[0], key -> new ArrayList<>()).add((String) row[1]);
+        }
+        Map<Long, Boolean> likeStatusMap = batchQueryLikeStatus(postIds, currentUserId);
+
+        List<PostResponse> responses = postConverter.toFeedResponses(rows, tagsByPostId, imagesByPostId, likeStatusMap);
+        return new PageImpl<>(responses, rowsPage.getPageable(), rowsPage.getTotalElements());
     }
     
     /**
      * 批量查询点赞状态，避免N+1查询
      */
-    private Map<Long, Boolean> batchQueryLikeStatus(List<Post> posts, Long currentUserId) {
+    private Map<Long, Boolean> batchQueryLikeStatus(List<Long> postIds, Long currentUserId) {
         Map<Long, Boolean> likeStatusMap = new HashMap<>();
         
-        if (currentUserId != null && !posts.isEmpty()) {
-            List<Long> postIds = posts.stream().map(Post::getId).collect(Collectors.toList());
+        if (currentUserId != null && !postIds.isEmpty()) {
             List<PostLike> userLikes = postLikeRepository.findByUserIdAndPostIdIn(currentUserId, postIds);
             Set<Long> likedPostIds = userLikes.stream()
                 .map(like -> like.getPost().getId())
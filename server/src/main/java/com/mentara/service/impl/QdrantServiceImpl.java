@@ -1,21 +1,43 @@
 package com.mentara.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.mentara.config.QdrantConfig;
+import com.mentara.config.QdrantStorageProperties;
 import com.mentara.entity.Post;
+import com.mentara.enums.PostState;
+import com.mentara.search.LocalVectorIndex;
 import com.mentara.service.EmbeddingService;
 import com.mentara.service.QdrantService;
 import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.JsonWithInt;
 import io.qdrant.client.grpc.Points;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static io.qdrant.client.ConditionFactory.hasId;
+import static io.qdrant.client.ConditionFactory.match;
 import static io.qdrant.client.ConditionFactory.matchKeyword;
+import static io.qdrant.client.ConditionFactory.matchValues;
+import static io.qdrant.client.ConditionFactory.range;
 import static io.qdrant.client.PointIdFactory.id;
 import static io.qdrant.client.QueryFactory.nearest;
+import static io.qdrant.client.QueryFactory.recommend;
+import static io.qdrant.client.ValueFactory.list;
+import static io.qdrant.client.ValueFactory.nullValue;
 import static io.qdrant.client.ValueFactory.value;
+import static io.qdrant.client.VectorInputFactory.vectorInput;
 import static io.qdrant.client.VectorsFactory.vectors;
 
 @Slf4j
@@ -28,9 +50,89 @@ public class QdrantServiceImpl implements QdrantService {
     @Autowired
     private EmbeddingService embeddingService;
 
+    @Autowired
+    private LocalVectorIndex localVectorIndex;
+
+    @Autowired
+    private QdrantStorageProperties storageProperties;
+
     @Value("${qdrant.collection.name:post_vector}")
     private String collectionName;
 
+    /**
+     * 为false时不访问Qdrant，向量只写入和查询本地索引
+     */
+    @Value("${qdrant.enabled:true}")
+    private boolean qdrantEnabled;
+
+    private static final long QUERY_EMBEDDING_CACHE_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * 搜索词向量缓存：规范化后的搜索词 -> float[]，按占用字节数淘汰最久未使用的，
+     * 热门搜索词（焦虑、考试、失眠等）不必每次重新向量化
+     */
+    private final Cache<String, float[]> queryEmbeddingCache = Caffeine.newBuilder()
+        .maximumWeight(QUERY_EMBEDDING_CACHE_BYTES)
+        .weigher((String query, float[] vector) -> query.length() * 2 + vector.length * 4 + 64)
+        .expireAfterAccess(Duration.ofHours(24))
+        .build();
+
+    /**
+     * 搜索结果缓存：规范化后的搜索词 -> 按相似度排序的帖子ID；
+     * 记录写入时的集合版本，删除向量或帖子不再可见后旧结果不再使用；
+     * 新帖和内容修改不使旧结果失效，靠较短的过期时间在一分钟内出现在结果中
+     */
+    private final Cache<String, RankedPostIds> searchResultCache = Caffeine.newBuilder()
+        .maximumSize(10_000)
+        .expireAfterWrite(Duration.ofMinutes(1))
+        .build();
+
+    private record RankedPostIds(long generation, long[] postIds) {
+    }
+
+    /**
+     * 相关帖子缓存：帖子ID -> 按相似度排序的帖子ID及查询时请求的条数，该帖子向量重写或删除时失效；
+     * 结果中的帖子之后被删除或下架由调用方按数据库状态过滤
+     */
+    private final Cache<Long, RelatedPostIds> relatedPostsCache = Caffeine.newBuilder()
+        .maximumSize(20_000)
+        .expireAfterWrite(Duration.ofMinutes(30))
+        .build();
+
+    /**
+     * @param depth 查询时请求的条数；返回的条数少于depth说明相关帖子只有这些
+     */
+    private record RelatedPostIds(int depth, long[] postIds) {
+
+        /**
+         * 能否回答请求limit条的查询：当时请求的不少于limit，或者结果已是全部
+         */
+        boolean covers(int limit) {
+            return depth >= limit || postIds.length < depth;
+        }
+    }
+
+    /**
+     * 提前计算的帖子向量：帖子ID -> 向量化时的文本和结果，下一次写入该帖子向量时取出使用
+     */
+    private final Cache<Long, PreparedVector> preparedVectors = Caffeine.newBuilder()
+        .maximumSize(10_000)
+        .expireAfterWrite(Duration.ofMinutes(10))
+        .build();
+
+    private record PreparedVector(String text, float[] vector) {
+    }
+
+    /**
+     * 向量集合版本，删除向量或帖子不再可见时递增
+     */
+    private final AtomicLong collectionGeneration = new AtomicLong();
+
+    /**
+     * 蓝绿重建中的新集合，非空时增量写入同时写到该集合
+     */
+    private volatile String rebuildTarget;
+
     @Override
     public Long upsertPostVector(Post post) {
         try {
@@ -41,20 +143,19 @@ public class QdrantServiceImpl implements QdrantService {
             
             // 获取文本向量
             log.info("开始向量化");
-            List<Float> vector = embeddingService.getEmbedding(postText);
-            if (vector == null || vector.isEmpty()) {
+            float[] vector = embeddingService.getEmbedding(postText);
+            if (vector == null || vector.length == 0) {
                 log.error("无法获取帖子文本的向量");
                 return null;
             }
 
-            qdrantClient.upsertAsync(
-                    collectionName,List.of(
-                            Points.PointStruct.newBuilder()
-                                    .setId(id(post.getId()))
-                                    .setVectors(vectors(vector))
-                                    .build()
-                    )
-            );
+            localVectorIndex.upsert(post, vector);
+            relatedPostsCache.invalidate(post.getId());
+            if (!qdrantEnabled) {
+                return post.getId();
+            }
+            // 等待写入完成，调用方随后按数据库最新状态校正payload
+            writePoints(List.of(buildPoint(post, vector)));
 
             log.info("成功存储帖子向量，帖子ID: {}", post.getId());
             return post.getId();
@@ -70,18 +171,13 @@ public class QdrantServiceImpl implements QdrantService {
         try {
             
             // 获取查询向量
-            List<Float> queryVector = embeddingService.getEmbedding(query);
-            if (queryVector == null || queryVector.isEmpty()) {
+            float[] queryVector = queryEmbedding(query);
+            if (queryVector == null) {
                 log.error("无法获取查询文本的向量");
                 return null;
             }
 
-            List<Points.ScoredPoint> searchResult =
-                    qdrantClient.queryAsync(Points.QueryPoints.newBuilder()
-                            .setCollectionName(collectionName)
-                            .setLimit(10)
-                            .setQuery(nearest(queryVector))
-                            .build()).get();
+            List<Points.ScoredPoint> searchResult = queryPoints(queryVector, null, 0, 10);
 
 
             if (searchResult != null) {
@@ -103,11 +199,15 @@ public class QdrantServiceImpl implements QdrantService {
         try {
             log.info("开始删除帖子向量，帖子ID: {}", post.getId());
 
-            qdrantClient.deleteAsync(
-                    collectionName,
-                    List.of(id(post.getId()))
-            );
-            
+            localVectorIndex.remove(post.getId());
+            relatedPostsCache.invalidate(post.getId());
+            if (!qdrantEnabled) {
+                onCollectionChanged(null);
+                return post.getId();
+            }
+
+            deletePoints(List.of(id(post.getId())));
+
             log.info("成功删除帖子向量，帖子ID: {}", post.getId());
             return post.getId();
 
@@ -117,24 +217,102 @@ public class QdrantServiceImpl implements QdrantService {
         }
     }
 
+    @Override
+    public List<Long> upsertPostVectors(List<Post> posts) {
+        // 整批一起提交，由EmbeddingService合并为批量请求
+        List<CompletableFuture<float[]>> embeddings = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            embeddings.add(embedPost(post));
+        }
+        List<Points.PointStruct> points = new ArrayList<>(posts.size());
+        List<Long> postIds = new ArrayList<>(posts.size());
+        for (int i = 0; i < posts.size(); i++) {
+            Post post = posts.get(i);
+            float[] vector;
+            try {
+                vector = embeddings.get(i).join();
+            } catch (RuntimeException e) {
+                log.warn("帖子向量化失败，帖子ID: {}, {}", post.getId(), e.getMessage());
+                continue;
+            }
+            if (vector == null || vector.length == 0) {
+                log.warn("帖子向量化结果为空，帖子ID: {}", post.getId());
+                continue;
+            }
+            localVectorIndex.upsert(post, vector);
+            relatedPostsCache.invalidate(post.getId());
+            points.add(buildPoint(post, vector));
+            postIds.add(post.getId());
+        }
+        if (points.isEmpty() || !qdrantEnabled) {
+            return postIds;
+        }
+        try {
+            writePoints(points);
+        } catch (Exception e) {
+            throw new RuntimeException("写入帖子向量失败: " + e.getMessage(), e);
+        }
+        return postIds;
+    }
+
+    @Override
+    public CompletableFuture<float[]> preparePostVector(Post post) {
+        String text = buildPostText(post);
+        return embeddingService.getEmbeddingAsync(text).thenApply(vector -> {
+            if (vector != null && vector.length > 0) {
+                preparedVectors.put(post.getId(), new PreparedVector(text, vector));
+            }
+            return vector;
+        });
+    }
+
+    /**
+     * 帖子文本与提前向量化时一致则直接使用已有结果，否则重新向量化
+     */
+    private CompletableFuture<float[]> embedPost(Post post) {
+        String text = buildPostText(post);
+        PreparedVector prepared = preparedVectors.asMap().remove(post.getId());
+        if (prepared != null && prepared.text().equals(text)) {
+            return CompletableFuture.completedFuture(prepared.vector());
+        }
+        return embeddingService.getEmbeddingAsync(text);
+    }
+
+    @Override
+    public void deletePostVectors(Collection<Long> postIds) {
+        List<Points.PointId> pointIds = new ArrayList<>(postIds.size());
+        for (Long postId : postIds) {
+            localVectorIndex.remove(postId);
+            relatedPostsCache.invalidate(postId);
+            pointIds.add(id(postId));
+        }
+        if (pointIds.isEmpty()) {
+            return;
+        }
+        if (!qdrantEnabled) {
+            onCollectionChanged(null);
+            return;
+        }
+        try {
+            deletePoints(pointIds);
+        } catch (Exception e) {
+            throw new RuntimeException("删除帖子向量失败: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public List<Points.ScoredPoint> accurateQueryPostVector(String query){
         try {
 
             // 获取查询向量
-            List<Float> queryVector = embeddingService.getEmbedding(query);
-            if (queryVector == null || queryVector.isEmpty()) {
+            float[] queryVector = queryEmbedding(query);
+            if (queryVector == null) {
                 log.error("无法获取查询文本的向量");
                 return null;
             }
 
-            List<Points.ScoredPoint> searchResult =
-                    qdrantClient.queryAsync(Points.QueryPoints.newBuilder()
-                            .setCollectionName(collectionName)
-                            .setLimit(10)
-                            .setFilter(Points.Filter.newBuilder().addMust(matchKeyword("text", query)))
-                            .setQuery(nearest(queryVector))
-                            .build()).get();
+            // 向量点没有文本payload，关键词精确匹配由PostLexicalIndex负责，这里只限定可见的帖子
+            List<Points.ScoredPoint> searchResult = queryPoints(queryVector, buildFilter(SearchFilter.none()), 0, 10);
 
 
             if (searchResult != null) {
@@ -150,10 +328,284 @@ public class QdrantServiceImpl implements QdrantService {
             return null;
         }
     }
+    @Override
+    public List<Long> searchPostIds(String query, SearchFilter filter, int offset, int limit) {
+        String key = normalizeQuery(query) + "|" + filter.cacheKey() + "|" + offset + "|" + limit;
+        long generation = collectionGeneration.get();
+        RankedPostIds cached = searchResultCache.getIfPresent(key);
+        if (cached != null && cached.generation() == generation) {
+            return Arrays.stream(cached.postIds()).boxed().toList();
+        }
+        try {
+            float[] queryVector = queryEmbedding(query);
+            if (queryVector == null) {
+                log.error("无法获取查询文本的向量");
+                return null;
+            }
+            long[] postIds;
+            if (qdrantEnabled) {
+                List<Points.ScoredPoint> points;
+                try {
+                    points = queryPoints(queryVector, buildFilter(filter), offset, limit);
+                } catch (Exception e) {
+                    // Qdrant不可用时改查本地索引，结果不缓存，恢复后重新查询Qdrant
+                    log.warn("Qdrant查询失败，改用本地向量索引，搜索词 {}: {}", query, e.getMessage());
+                    return localVectorIndex.search(queryVector, filter, offset, limit);
+                }
+                if (points == null) {
+                    return null;
+                }
+                postIds = points.stream().mapToLong(point -> point.getId().getNum()).toArray();
+            } else {
+                List<Long> local = localVectorIndex.search(queryVector, filter, offset, limit);
+                if (local == null) {
+                    return null;
+                }
+                postIds = local.stream().mapToLong(Long::longValue).toArray();
+            }
+            // 查询期间集合有变化时写入的是旧版本，下次读取会重新查询
+            searchResultCache.put(key, new RankedPostIds(generation, postIds));
+            return Arrays.stream(postIds).boxed().toList();
+        } catch (Exception e) {
+            log.error("查询相似帖子失败，搜索词 {}", query, e);
+            return null;
+        }
+    }
+
+    @Override
+    public List<Long> findRelatedPostIds(Long postId, int limit) {
+        RelatedPostIds cached = relatedPostsCache.getIfPresent(postId);
+        if (cached != null && cached.covers(limit)) {
+            return Arrays.stream(cached.postIds(), 0, Math.min(limit, cached.postIds().length)).boxed().toList();
+        }
+        List<Long> postIds;
+        if (qdrantEnabled) {
+            try {
+                Points.Filter filter = buildFilter(SearchFilter.none()).toBuilder()
+                        .addMustNot(hasId(id(postId)))
+                        .build();
+                Points.QueryPoints.Builder request = Points.QueryPoints.newBuilder()
+                        .setCollectionName(collectionName)
+                        .setQuery(recommend(Points.RecommendInput.newBuilder()
+                                .addPositive(vectorInput(postId))
+                                .build()))
+                        .setFilter(filter)
+                        .setLimit(limit);
+                applySearchParams(request);
+                postIds = qdrantClient.queryAsync(request.build()).get().stream()
+                        .map(point -> point.getId().getNum())
+                        .toList();
+            } catch (Exception e) {
+                // 帖子向量尚未写入时Qdrant也会报错，同样改查本地索引，结果不缓存
+                log.warn("查询相关帖子失败，改用本地向量索引，帖子ID: {}, {}", postId, e.getMessage());
+                List<Long> local = localVectorIndex.findRelated(postId, limit);
+                return local == null ? new ArrayList<>() : local;
+            }
+        } else {
+            postIds = localVectorIndex.findRelated(postId, limit);
+            if (postIds == null) {
+                return new ArrayList<>();
+            }
+        }
+        // 没有结果时多半是帖子向量还没写入，不缓存
+        if (!postIds.isEmpty()) {
+            relatedPostsCache.put(postId, new RelatedPostIds(limit, postIds.stream().mapToLong(Long::longValue).toArray()));
+        }
+        return postIds;
+    }
+
+    @Override
+    public void updatePostPayload(Post post) {
+        localVectorIndex.updatePayload(post);
+        // 帖子不再可见时旧的搜索结果不能再用；其余payload变化（心情、标签、重新通过）等缓存过期
+        boolean hidden = post.getState() != PostState.VALID || Boolean.TRUE.equals(post.getIsDeleted());
+        if (!qdrantEnabled) {
+            if (hidden) {
+                onCollectionChanged(null);
+            }
+            return;
+        }
+        try {
+            ListenableFuture<Points.UpdateResult> update = qdrantClient.setPayloadAsync(
+                    collectionName, buildPayload(post), id(post.getId()), true, null, null);
+            if (hidden) {
+                onCollectionChanged(update);
+            }
+            String target = rebuildTarget;
+            if (target != null) {
+                qdrantClient.setPayloadAsync(target, buildPayload(post), id(post.getId()), true, null, null).get();
+            }
+            update.get();
+        } catch (Exception e) {
+            // 向量尚未写入时会失败，由写入向量后的校正补上
+            log.warn("更新帖子向量payload失败，帖子ID: {}, {}", post.getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void setRebuildTarget(String collection) {
+        rebuildTarget = collection;
+        collectionGeneration.incrementAndGet();
+        log.info("向量集合双写目标: {}", collection);
+    }
+
+    /**
+     * 帖子向量点：ID为帖子ID，附带搜索过滤用的payload
+     */
+    static Points.PointStruct buildPoint(Post post, float[] vector) {
+        return Points.PointStruct.newBuilder()
+                .setId(id(post.getId()))
+                .setVectors(vectors(vector))
+                .putAllPayload(buildPayload(post))
+                .build();
+    }
+
+    /**
+     * 写入向量点，蓝绿重建期间同时写入新集合，等待Qdrant确认
+     */
+    private void writePoints(List<Points.PointStruct> points) throws Exception {
+        ListenableFuture<Points.UpdateResult> upsert = qdrantClient.upsertAsync(collectionName, points);
+        String target = rebuildTarget;
+        if (target != null) {
+            qdrantClient.upsertAsync(target, points).get();
+        }
+        upsert.get();
+    }
+
+    /**
+     * 删除向量点，蓝绿重建期间同时从新集合删除，等待Qdrant确认
+     */
+    private void deletePoints(List<Points.PointId> pointIds) throws Exception {
+        ListenableFuture<Points.UpdateResult> delete = qdrantClient.deleteAsync(collectionName, pointIds);
+        onCollectionChanged(delete);
+        String target = rebuildTarget;
+        if (target != null) {
+            qdrantClient.deleteAsync(target, pointIds).get();
+        }
+        delete.get();
+    }
+
+    /**
+     * 向量查询：过滤条件和分页都在Qdrant中执行，只返回本页需要的点
+     */
+    private List<Points.ScoredPoint> queryPoints(float[] queryVector, Points.Filter filter, int offset, int limit)
+            throws Exception {
+        Points.QueryPoints.Builder request = Points.QueryPoints.newBuilder()
+                .setCollectionName(collectionName)
+                .setQuery(nearest(queryVector))
+                .setOffset(offset)
+                .setLimit(limit);
+        if (filter != null) {
+            request.setFilter(filter);
+        }
+        applySearchParams(request);
+        return qdrantClient.queryAsync(request.build()).get();
+    }
+
+    /**
+     * 集合启用量化时，按配置的候选倍数用量化向量检索，再用原始向量重新打分
+     */
+    private void applySearchParams(Points.QueryPoints.Builder request) {
+        Points.SearchParams params = QdrantConfig.searchParams(storageProperties);
+        if (params != null) {
+            request.setParams(params);
+        }
+    }
+
+    /**
+     * 搜索只返回已通过且未删除的帖子，其余条件为空时不限
+     */
+    private static Points.Filter buildFilter(SearchFilter filter) {
+        Points.Filter.Builder builder = Points.Filter.newBuilder()
+                .addMust(matchKeyword(PAYLOAD_STATE, PostState.VALID.name()))
+                .addMust(match(PAYLOAD_IS_DELETED, false));
+        if (filter.mood() != null) {
+            builder.addMust(matchKeyword(PAYLOAD_MOOD, filter.mood().name()));
+        }
+        if (filter.tagIds() != null) {
+            // 与按标签筛选一致：必须包含全部指定标签
+            for (Long tagId : filter.tagIds()) {
+                builder.addMust(match(PAYLOAD_TAG_IDS, tagId));
+            }
+        }
+        if (filter.createdAfter() != null) {
+            builder.addMust(range(PAYLOAD_CREATED_AT, Points.Range.newBuilder()
+                    .setGte(filter.createdAfter().toEpochSecond(ZoneOffset.UTC))
+                    .build()));
+        }
+        if (filter.excludedAuthorIds() != null && !filter.excludedAuthorIds().isEmpty()) {
+            builder.addMustNot(matchValues(PAYLOAD_AUTHOR_ID, new ArrayList<>(filter.excludedAuthorIds())));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 帖子的payload：搜索时按这些字段过滤
+     */
+    static Map<String, JsonWithInt.Value> buildPayload(Post post) {
+        Map<String, JsonWithInt.Value> payload = new HashMap<>();
+        payload.put(PAYLOAD_STATE, value(post.getState() == null ? PostState.PENDING.name() : post.getState().name()));
+        payload.put(PAYLOAD_IS_DELETED, value(Boolean.TRUE.equals(post.getIsDeleted())));
+        payload.put(PAYLOAD_MOOD, post.getMood() == null ? nullValue() : value(post.getMood().name()));
+        List<JsonWithInt.Value> tagIds = new ArrayList<>();
+        if (post.getTags() != null) {
+            post.getTags().forEach(tag -> tagIds.add(value(tag.getId())));
+        }
+        payload.put(PAYLOAD_TAG_IDS, list(tagIds));
+        if (post.getAuthor() != null) {
+            payload.put(PAYLOAD_AUTHOR_ID, value(post.getAuthor().getId()));
+        }
+        if (post.getCreatedAt() != null) {
+            payload.put(PAYLOAD_CREATED_AT, value(post.getCreatedAt().toEpochSecond(ZoneOffset.UTC)));
+        }
+        return payload;
+    }
+
+    /**
+     * 获取搜索词向量，优先读缓存
+     */
+    private float[] queryEmbedding(String query) {
+        String key = normalizeQuery(query);
+        float[] cached = queryEmbeddingCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        float[] vector = embeddingService.getEmbedding(key);
+        if (vector == null || vector.length == 0) {
+            return null;
+        }
+        queryEmbeddingCache.put(key, vector);
+        return vector;
+    }
+
+    /**
+     * 向量被删除或帖子不再可见：立即递增版本，写入完成后再递增一次，
+     * 使写入生效前查询并缓存的结果也失效
+     */
+    private void onCollectionChanged(ListenableFuture<?> write) {
+        collectionGeneration.incrementAndGet();
+        if (write != null) {
+            write.addListener(collectionGeneration::incrementAndGet, MoreExecutors.directExecutor());
+        }
+    }
+
+    /**
+     * 搜索词规范化：全角转半角、合并空白、英文转小写
+     */
+    static String normalizeQuery(String query) {
+        if (query == null) {
+            return "";
+        }
+        return Normalizer.normalize(query, Normalizer.Form.NFKC)
+            .strip()
+            .replaceAll("\\s+", " ")
+            .toLowerCase(Locale.ROOT);
+    }
+
     /**
      * 构建帖子文本内容
      */
-    private String buildPostText(Post post) {
+    static String buildPostText(Post post) {
         StringBuilder text = new StringBuilder();
         
         if (post.getTitle() != null) {
@@ -175,29 +627,4 @@ public class QdrantServiceImpl implements QdrantService {
         
         return text.toString().trim();
     }
-
-    /**
-     * 计算余弦相似度
-     */
-    private double cosineSimilarity(List<Float> vector1, List<Float> vector2) {
-        if (vector1.size() != vector2.size()) {
-            return 0.0;
-        }
-
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
-
-        for (int i = 0; i < vector1.size(); i++) {
-            dotProduct += vector1.get(i) * vector2.get(i);
-            norm1 += vector1.get(i) * vector1.get(i);
-            norm2 += vector2.get(i) * vector2.get(i);
-        }
-
-        if (norm1 == 0.0 || norm2 == 0.0) {
-            return 0.0;
-        }
-
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
-    }
 }
@@ -1,5 +1,6 @@
 package com.mentara.service.impl;
 
+import com.mentara.cache.UserBlockGraph;
 import com.mentara.entity.UserBlock;
 import com.mentara.entity.User;
 import com.mentara.repository.UserBlockRepository;
@@ -26,6 +27,9 @@ public class UserBlockServiceImpl implements UserBlockService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserBlockGraph userBlockGraph;
+
     @Override
     @Transactional
     @CacheEvict(value = {"userBlocks", "users"}, allEntries = true)
@@ -54,6 +58,7 @@ public class UserBlockServiceImpl implements UserBlockService {
         // 创建拉黑记录
         UserBlock userBlock = new UserBlock(blocker, blocked, reason);
         userBlockRepository.save(userBlock);
+        userBlockGraph.onBlocked(blockerId, blockedId);
     }
 
     @Override
@@ -73,6 +78,7 @@ public class UserBlockServiceImpl implements UserBlockService {
 
         // 删除拉黑记录
         userBlockRepository.deleteByBlockerAndBlocked(blocker, blocked);
+        userBlockGraph.onUnblocked(blockerId, blockedId);
     }
 
     @Override
@@ -117,13 +123,9 @@ public class UserBlockServiceImpl implements UserBlockService {
             return authorIds;
         }
         
-        List<Long> blockedUserIds = getBlockedUserIds(userId);
-        if (blockedUserIds.isEmpty()) {
-            return authorIds;
-        }
-        
+        // 使用内存拉黑关系图，每个作者O(1)判断
         return authorIds.stream()
-            .filter(authorId -> !blockedUserIds.contains(authorId))
+            .filter(authorId -> !userBlockGraph.isBlocking(userId, authorId))
             .collect(Collectors.toList());
     }
 
@@ -1,6 +1,7 @@
 package com.mentara.service.impl;
 
 import com.mentara.entity.UserFollow;
+import com.mentara.timeline.TimelineInboxStore;
 import com.mentara.entity.User;
 import com.mentara.repository.UserFollowRepository;
 import com.mentara.service.UserFollowService;
@@ -24,6 +25,9 @@ public class UserFollowServiceImpl implements UserFollowService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private TimelineInboxStore timelineInboxStore;
+
     @Override
     @Transactional
     public void followUser(Long followerId, Long followingId) {
@@ -46,6 +50,7 @@ public class UserFollowServiceImpl implements UserFollowService {
         // 创建关注记录
         UserFollow userFollow = new UserFollow(follower, following);
         userFollowRepository.save(userFollow);
+        timelineInboxStore.onFollowed(followerId, followingId);
     }
 
     @Override
@@ -0,0 +1,276 @@
+package com.mentara.service.impl;
+
+import com.mentara.entity.Post;
+import com.mentara.entity.VectorOutboxEvent;
+import com.mentara.repository.PostRepository;
+import com.mentara.repository.VectorOutboxRepository;
+import com.mentara.service.QdrantService;
+import com.mentara.service.VectorOutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class VectorOutboxServiceImpl implements VectorOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private VectorOutboxRepository outboxRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private QdrantService qdrantService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 每批读取的事件数
+     */
+    @Value("${qdrant.outbox.batch-size:64}")
+    private int batchSize;
+
+    /**
+     * 第一次失败后的重试间隔，之后每次翻倍
+     */
+    @Value("${qdrant.outbox.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${qdrant.outbox.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    /**
+     * 最多尝试次数，用尽后事件标记为FAILED不再重试
+     */
+    @Value("${qdrant.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    /**
+     * 未同步事件数和最早一条事件的等待秒数，每次处理后刷新，供监控读取
+     */
+    private volatile long pendingCount;
+
+    private volatile double lagSeconds;
+
+    private Counter appliedCounter;
+
+    private Counter retriedCounter;
+
+    private Counter failedCounter;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("mentara.vector.outbox.pending", this, outbox -> outbox.pendingCount)
+            .description("尚未同步到向量库的事件数")
+            .register(meterRegistry);
+        Gauge.builder("mentara.vector.outbox.lag", this, outbox -> outbox.lagSeconds)
+            .description("最早一条未同步事件已等待的时间")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        appliedCounter = Counter.builder("mentara.vector.outbox.events").tag("outcome", "applied")
+            .description("向量同步事件处理数").register(meterRegistry);
+        retriedCounter = Counter.builder("mentara.vector.outbox.events").tag("outcome", "retried")
+            .description("向量同步事件处理数").register(meterRegistry);
+        failedCounter = Counter.builder("mentara.vector.outbox.events").tag("outcome", "failed")
+            .description("向量同步事件处理数").register(meterRegistry);
+    }
+
+    @Override
+    public void enqueueUpsert(Long postId) {
+        outboxRepository.save(new VectorOutboxEvent(postId, VectorOutboxEvent.Operation.UPSERT));
+    }
+
+    @Override
+    public void enqueueUpsert(Long postId, Duration delay) {
+        VectorOutboxEvent event = new VectorOutboxEvent(postId, VectorOutboxEvent.Operation.UPSERT);
+        event.setNextAttemptAt(LocalDateTime.now().plus(delay));
+        outboxRepository.save(event);
+    }
+
+    @Override
+    @Transactional
+    public void release(Long postId) {
+        outboxRepository.releaseByPostId(postId, LocalDateTime.now());
+    }
+
+    @Override
+    public void enqueueDelete(Long postId) {
+        outboxRepository.save(new VectorOutboxEvent(postId, VectorOutboxEvent.Operation.DELETE));
+    }
+
+    /**
+     * 定时处理到期事件，整批读满时接着处理下一批，积压时尽快追上
+     */
+    @Scheduled(fixedDelayString = "${qdrant.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        if (!drainLock.tryLock()) {
+            return;
+        }
+        try {
+            while (drain() >= batchSize) {
+                // 继续处理下一批
+            }
+        } catch (Exception e) {
+            log.error("向量同步事件处理失败", e);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public int drain() {
+        LocalDateTime now = LocalDateTime.now();
+        List<VectorOutboxEvent> events = outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+            VectorOutboxEvent.Status.PENDING, now, PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            if (pendingCount > 0) {
+                refreshLag(now);
+            }
+            return 0;
+        }
+
+        // 同一帖子只执行最新的操作；写入按帖子当前内容重新向量化，重复执行结果相同
+        Map<Long, VectorOutboxEvent.Operation> latest = new LinkedHashMap<>();
+        for (VectorOutboxEvent event : events) {
+            latest.put(event.getPostId(), event.getOperation());
+        }
+        List<Long> upsertIds = new ArrayList<>();
+        List<Long> deleteIds = new ArrayList<>();
+        latest.forEach((postId, operation) ->
+            (operation == VectorOutboxEvent.Operation.UPSERT ? upsertIds : deleteIds).add(postId));
+
+        Set<Long> applied = new HashSet<>();
+        Map<Long, String> errors = new HashMap<>();
+        if (!upsertIds.isEmpty()) {
+            upsert(upsertIds, deleteIds, applied, errors);
+        }
+        if (!deleteIds.isEmpty()) {
+            try {
+                qdrantService.deletePostVectors(deleteIds);
+                applied.addAll(deleteIds);
+            } catch (RuntimeException e) {
+                deleteIds.forEach(postId -> errors.put(postId, e.getMessage()));
+            }
+        }
+
+        // 成功的只删除本批读到的事件，处理期间新写入的事件留到下一批
+        List<Long> done = new ArrayList<>();
+        List<VectorOutboxEvent> retry = new ArrayList<>();
+        List<VectorOutboxEvent> failed = new ArrayList<>();
+        for (VectorOutboxEvent event : events) {
+            if (applied.contains(event.getPostId())) {
+                done.add(event.getId());
+            } else {
+                int attempts = event.getAttempts() + 1;
+                event.setAttempts(attempts);
+                event.setLastError(truncate(errors.getOrDefault(event.getPostId(), "向量化失败")));
+                if (attempts >= maxAttempts) {
+                    event.setStatus(VectorOutboxEvent.Status.FAILED);
+                    failed.add(event);
+                } else {
+                    event.setNextAttemptAt(now.plus(backoff(attempts)));
+                    retry.add(event);
+                }
+            }
+        }
+        if (!done.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(done);
+        }
+        if (!retry.isEmpty() || !failed.isEmpty()) {
+            List<VectorOutboxEvent> changed = new ArrayList<>(retry);
+            changed.addAll(failed);
+            outboxRepository.saveAll(changed);
+        }
+        if (!retry.isEmpty()) {
+            log.warn("{}条向量同步事件失败，稍后重试，帖子ID: {}", retry.size(),
+                retry.stream().map(VectorOutboxEvent::getPostId).distinct().toList());
+        }
+        if (!failed.isEmpty()) {
+            log.error("{}条向量同步事件重试{}次仍失败，已放弃，帖子ID: {}", failed.size(), maxAttempts,
+                failed.stream().map(VectorOutboxEvent::getPostId).distinct().toList());
+        }
+        appliedCounter.increment(done.size());
+        retriedCounter.increment(retry.size());
+        failedCounter.increment(failed.size());
+        refreshLag(now);
+        return events.size();
+    }
+
+    /**
+     * 批量向量化并写入，帖子已不存在的改为删除；写入完成后按数据库最新状态校正payload
+     * （读取帖子后、写入完成前审核改变了状态时，写入的是旧状态）
+     */
+    private void upsert(List<Long> upsertIds, List<Long> deleteIds, Set<Long> applied, Map<Long, String> errors) {
+        List<Post> posts = postRepository.findWithTagsByIdIn(upsertIds);
+        Set<Long> found = posts.stream().map(Post::getId).collect(Collectors.toSet());
+        upsertIds.stream().filter(postId -> !found.contains(postId)).forEach(deleteIds::add);
+        if (posts.isEmpty()) {
+            return;
+        }
+        List<Long> written;
+        try {
+            written = qdrantService.upsertPostVectors(posts);
+        } catch (RuntimeException e) {
+            posts.forEach(post -> errors.put(post.getId(), e.getMessage()));
+            return;
+        }
+        applied.addAll(written);
+        if (written.isEmpty()) {
+            return;
+        }
+        Map<Long, Post> before = posts.stream().collect(Collectors.toMap(Post::getId, post -> post));
+        for (Post current : postRepository.findWithTagsByIdIn(written)) {
+            Post previous = before.get(current.getId());
+            if (current.getState() != previous.getState()
+                || !Objects.equals(current.getIsDeleted(), previous.getIsDeleted())
+                || current.getMood() != previous.getMood()) {
+                qdrantService.updatePostPayload(current);
+            }
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        long delay = initialBackoffMs << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(Math.min(delay, maxBackoffMs));
+    }
+
+    private void refreshLag(LocalDateTime now) {
+        pendingCount = outboxRepository.countByStatus(VectorOutboxEvent.Status.PENDING);
+        LocalDateTime oldest = pendingCount > 0 ? outboxRepository.findOldestCreatedAt() : null;
+        lagSeconds = oldest == null ? 0 : Math.max(0, Duration.between(oldest, now).toMillis() / 1000.0);
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
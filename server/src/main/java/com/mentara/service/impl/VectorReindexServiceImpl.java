@@ -0,0 +1,599 @@
+package com.mentara.service.impl;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.mentara.config.QdrantConfig;
+import com.mentara.config.QdrantStorageProperties;
+import com.mentara.dto.response.VectorReindexJobResponse;
+import com.mentara.dto.response.VectorStorageResponse;
+import com.mentara.entity.Post;
+import com.mentara.entity.VectorReindexJob;
+import com.mentara.enums.PostState;
+import com.mentara.exception.ResourceNotFoundException;
+import com.mentara.repository.PostRepository;
+import com.mentara.repository.VectorReindexJobRepository;
+import com.mentara.search.LocalVectorIndex;
+import com.mentara.service.EmbeddingService;
+import com.mentara.service.QdrantService;
+import com.mentara.service.VectorReindexService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.Points;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.qdrant.client.PointIdFactory.id;
+
+@Slf4j
+@Service
+public class VectorReindexServiceImpl implements VectorReindexService {
+
+
+    @Autowired
+    private QdrantClient qdrantClient;
+
+    @Autowired
+    private QdrantService qdrantService;
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private VectorReindexJobRepository jobRepository;
+
+    @Autowired
+    private LocalVectorIndex localVectorIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private QdrantStorageProperties storageProperties;
+
+    @Autowired
+    @Qualifier("vectorReindexExecutor")
+    private Executor executor;
+
+    /**
+     * 搜索和增量写入使用的集合名；第一次蓝绿切换后成为指向实际集合的别名
+     */
+    @Value("${qdrant.collection.name:post_vector}")
+    private String collectionName;
+
+    /**
+     * 每批读取、向量化并写入的帖子数
+     */
+    @Value("${qdrant.reindex.batch-size:256}")
+    private int batchSize;
+
+    /**
+     * 同时进行中的批量写入数
+     */
+    @Value("${qdrant.reindex.max-in-flight:4}")
+    private int maxInFlight;
+
+    /**
+     * 切换别名后是否删除旧集合
+     */
+    @Value("${qdrant.reindex.drop-previous:true}")
+    private boolean dropPrevious;
+
+    @Value("${qdrant.enabled:true}")
+    private boolean qdrantEnabled;
+
+    private Counter indexedCounter;
+
+    private Counter failedCounter;
+
+    /**
+     * 正在执行的任务，同一时间最多一个
+     */
+    private final AtomicReference<Run> running = new AtomicReference<>();
+
+    /**
+     * 本次运行的内存状态：取消标记和写入速度统计
+     */
+    private static final class Run {
+        private final Long jobId;
+        private final long startedAt = System.nanoTime();
+        private final AtomicLong indexed = new AtomicLong();
+        private volatile boolean cancelled = false;
+
+        private Run(Long jobId) {
+            this.jobId = jobId;
+        }
+    }
+
+    /**
+     * 已提交未确认的批量写入；lastPostId为该批最后一个帖子ID，写入完成后作为检查点；
+     * postIds为本批写入的帖子，写入确认后据此复查删除
+     */
+    private record InFlight(long lastPostId, List<Long> postIds, int failed, ListenableFuture<?> upsert) {
+    }
+
+    @PostConstruct
+    public void init() {
+        indexedCounter = Counter.builder("mentara.vector.reindex.posts").tag("outcome", "indexed")
+            .description("向量重建处理的帖子数").register(meterRegistry);
+        failedCounter = Counter.builder("mentara.vector.reindex.posts").tag("outcome", "failed")
+            .description("向量重建处理的帖子数").register(meterRegistry);
+    }
+
+    /**
+     * 服务重启时仍为RUNNING的任务标记为中断；蓝绿任务恢复双写，保证继续执行前新集合不漏掉增量
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverInterruptedJobs() {
+        try {
+            for (VectorReindexJob job : jobRepository.findByStatus(VectorReindexJob.Status.RUNNING)) {
+                job.setStatus(VectorReindexJob.Status.INTERRUPTED);
+                jobRepository.save(job);
+                if (Boolean.TRUE.equals(job.getBlueGreen())) {
+                    qdrantService.setRebuildTarget(job.getTargetCollection());
+                }
+                log.warn("向量重建任务被中断，可从帖子ID {} 继续，任务ID: {}", job.getLastPostId(), job.getId());
+            }
+        } catch (Exception e) {
+            log.error("恢复向量重建任务状态失败", e);
+        }
+    }
+
+    @Override
+    public synchronized VectorReindexJobResponse startReindex(boolean blueGreen) {
+        if (!qdrantEnabled) {
+            throw new IllegalStateException("Qdrant未启用，不能重建向量集合");
+        }
+        if (running.get() != null) {
+            throw new IllegalStateException("已有向量重建任务在运行");
+        }
+        // 未完成的旧任务不再继续，清理其新集合
+        for (VectorReindexJob stale : jobRepository.findByStatus(VectorReindexJob.Status.INTERRUPTED)) {
+            markCancelled(stale);
+        }
+        for (VectorReindexJob stale : jobRepository.findByStatus(VectorReindexJob.Status.FAILED)) {
+            markCancelled(stale);
+        }
+
+        VectorReindexJob job = new VectorReindexJob();
+        job.setBlueGreen(blueGreen);
+        job.setTargetCollection(blueGreen ? QdrantConfig.versionedCollectionName(collectionName) : collectionName);
+        job.setTotalPosts(postRepository.countByStateAndIsDeletedFalse(PostState.VALID));
+        try {
+            if (blueGreen) {
+                moveBehindAlias();
+                qdrantClient.createCollectionAsync(job.getTargetCollection(), QdrantConfig.postVectorParams(storageProperties)).get();
+                QdrantConfig.createPayloadIndexes(qdrantClient, job.getTargetCollection());
+                // 先开启双写再开始读取，重建期间的新帖、删除和状态变化都会进入新集合
+                qdrantService.setRebuildTarget(job.getTargetCollection());
+            } else {
+                String live = resolveCollection();
+                if (!qdrantClient.collectionExistsAsync(live).get()) {
+                    // 集合丢失时原地重建，同样放在别名之后；别名还指向已删除的集合时先移除
+                    if (!live.equals(collectionName)) {
+                        qdrantClient.deleteAliasAsync(collectionName).get();
+                    }
+                    QdrantConfig.createAliasedCollection(qdrantClient, collectionName, storageProperties);
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("创建向量集合失败: " + e.getMessage(), e);
+        }
+        job = jobRepository.save(job);
+        log.info("开始向量重建，任务ID: {}, 目标集合: {}, 帖子数: {}", job.getId(), job.getTargetCollection(), job.getTotalPosts());
+        launch(job);
+        return toResponse(job);
+    }
+
+    @Override
+    public synchronized VectorReindexJobResponse resumeReindex(Long jobId) {
+        if (!qdrantEnabled) {
+            throw new IllegalStateException("Qdrant未启用，不能重建向量集合");
+        }
+        if (running.get() != null) {
+            throw new IllegalStateException("已有向量重建任务在运行");
+        }
+        VectorReindexJob job = findJob(jobId);
+        if (job.getStatus() != VectorReindexJob.Status.INTERRUPTED && job.getStatus() != VectorReindexJob.Status.FAILED) {
+            throw new IllegalStateException("任务状态为" + job.getStatus() + "，不能继续");
+        }
+        if (Boolean.TRUE.equals(job.getBlueGreen())) {
+            try {
+                if (!qdrantClient.collectionExistsAsync(job.getTargetCollection()).get()) {
+                    throw new IllegalStateException("目标集合已不存在: " + job.getTargetCollection());
+                }
+            } catch (IllegalStateException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException("检查目标集合失败: " + e.getMessage(), e);
+            }
+            qdrantService.setRebuildTarget(job.getTargetCollection());
+        }
+        job.setStatus(VectorReindexJob.Status.RUNNING);
+        job.setErrorMessage(null);
+        job = jobRepository.save(job);
+        log.info("继续向量重建，任务ID: {}, 检查点帖子ID: {}", job.getId(), job.getLastPostId());
+        launch(job);
+        return toResponse(job);
+    }
+
+    @Override
+    public synchronized VectorReindexJobResponse cancelReindex(Long jobId) {
+        VectorReindexJob job = findJob(jobId);
+        Run run = running.get();
+        if (run != null && run.jobId.equals(jobId)) {
+            // 由执行线程在当前批次写入完成后收尾
+            run.cancelled = true;
+            return toResponse(job);
+        }
+        if (job.getStatus() != VectorReindexJob.Status.INTERRUPTED && job.getStatus() != VectorReindexJob.Status.FAILED) {
+            throw new IllegalStateException("任务状态为" + job.getStatus() + "，不能取消");
+        }
+        return toResponse(markCancelled(job));
+    }
+
+    @Override
+    public VectorReindexJobResponse getJob(Long jobId) {
+        return toResponse(findJob(jobId));
+    }
+
+    @Override
+    public VectorReindexJobResponse getLatestJob() {
+        return jobRepository.findFirstByOrderByIdDesc().map(this::toResponse).orElse(null);
+    }
+
+    @Override
+    public VectorStorageResponse getStorage() {
+        if (!qdrantEnabled) {
+            throw new IllegalStateException("Qdrant未启用");
+        }
+        try {
+            String collection = resolveCollection();
+            Collections.CollectionInfo info = qdrantClient.getCollectionInfoAsync(collection).get();
+            Collections.VectorParams params = info.getConfig().getParams().getVectorsConfig().getParams();
+            Collections.QuantizationConfig quantization = QdrantConfig.quantizationOf(info);
+            return VectorStorageResponse.builder()
+                .collection(collection)
+                .status(info.getStatus().name())
+                .pointsCount(info.getPointsCount())
+                .indexedVectorsCount(info.getIndexedVectorsCount())
+                .quantization(describe(quantization))
+                .vectorsOnDisk(params.getOnDisk())
+                .hnswOnDisk(QdrantConfig.hnswOnDisk(info))
+                .configuredQuantization(describe(QdrantConfig.quantizationConfig(storageProperties)))
+                .matchesConfig(QdrantConfig.storageMatches(info, storageProperties))
+                .estimatedVectorRamBytes(info.getPointsCount()
+                    * ramBytesPerVector((int) params.getSize(), quantization, params.getOnDisk()))
+                .build();
+        } catch (Exception e) {
+            throw new RuntimeException("读取向量集合信息失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized VectorStorageResponse migrateStorage() {
+        if (!qdrantEnabled) {
+            throw new IllegalStateException("Qdrant未启用，不能迁移向量存储");
+        }
+        if (running.get() != null) {
+            throw new IllegalStateException("向量重建任务运行中，完成后再迁移");
+        }
+        try {
+            String collection = resolveCollection();
+            qdrantClient.updateCollectionAsync(Collections.UpdateCollection.newBuilder()
+                .setCollectionName(collection)
+                .setVectorsConfig(Collections.VectorsConfigDiff.newBuilder()
+                    .setParams(QdrantConfig.postVectorParamsDiff(storageProperties)))
+                .build()).get();
+            log.info("向量集合{}已按配置迁移存储: 量化{}, 原始向量放磁盘{}, HNSW图放磁盘{}", collection,
+                storageProperties.getQuantization(), storageProperties.isVectorsOnDisk(), storageProperties.isHnswOnDisk());
+        } catch (Exception e) {
+            throw new RuntimeException("迁移向量存储失败: " + e.getMessage(), e);
+        }
+        return getStorage();
+    }
+
+    /**
+     * 别名实际指向的集合，未使用别名时为集合本身
+     */
+    private String resolveCollection() throws Exception {
+        return QdrantConfig.resolveAlias(qdrantClient, collectionName);
+    }
+
+    /**
+     * 集合还是实体集合时（别名方式之前创建），先复制到带版本号的集合再改为别名，之后每次切换都只是一次原子的别名更新；
+     * 复制后到改为别名前的短暂时间内写入失败的由发件箱重试，复制期间的变化由随后的重建补齐
+     */
+    private void moveBehindAlias() throws Exception {
+        if (!resolveCollection().equals(collectionName) || !qdrantClient.collectionExistsAsync(collectionName).get()) {
+            return;
+        }
+        String copy = QdrantConfig.versionedCollectionName(collectionName) + "_migrated";
+        Collections.CollectionInfo info = qdrantClient.getCollectionInfoAsync(collectionName).get();
+        qdrantClient.createCollectionAsync(Collections.CreateCollection.newBuilder()
+            .setCollectionName(copy)
+            .setVectorsConfig(info.getConfig().getParams().getVectorsConfig())
+            .setInitFromCollection(collectionName)
+            .build()).get();
+        QdrantConfig.createPayloadIndexes(qdrantClient, copy);
+        qdrantClient.deleteCollectionAsync(collectionName).get();
+        qdrantClient.createAliasAsync(collectionName, copy).get();
+        log.info("集合{}已复制到{}并改为别名", collectionName, copy);
+    }
+
+    private static String describe(Collections.QuantizationConfig quantization) {
+        if (quantization == null) {
+            return "NONE";
+        }
+        if (quantization.hasScalar()) {
+            return "SCALAR(int8, quantile=" + quantization.getScalar().getQuantile() + ")";
+        }
+        if (quantization.hasProduct()) {
+            return "PRODUCT(" + quantization.getProduct().getCompression().name() + ")";
+        }
+        return quantization.getQuantizationCase().name();
+    }
+
+    /**
+     * 每个向量常驻内存的字节数：量化向量（常驻内存时）加上未放磁盘的原始float32向量
+     */
+    static long ramBytesPerVector(int dimension, Collections.QuantizationConfig quantization, boolean vectorsOnDisk) {
+        long bytes = vectorsOnDisk ? 0 : dimension * 4L;
+        if (quantization != null && quantization.hasScalar() && quantization.getScalar().getAlwaysRam()) {
+            bytes += dimension;
+        } else if (quantization != null && quantization.hasProduct() && quantization.getProduct().getAlwaysRam()) {
+            int ratio = Integer.parseInt(quantization.getProduct().getCompression().name().substring(1));
+            bytes += dimension * 4L / ratio;
+        } else if (quantization != null && quantization.hasBinary()) {
+            bytes += dimension / 8;
+        }
+        return bytes;
+    }
+
+    private VectorReindexJob findJob(Long jobId) {
+        return jobRepository.findById(jobId)
+            .orElseThrow(() -> new ResourceNotFoundException("VectorReindexJob", "id", jobId));
+    }
+
+    private void launch(VectorReindexJob job) {
+        Run run = new Run(job.getId());
+        running.set(run);
+        try {
+            executor.execute(() -> execute(run));
+        } catch (RejectedExecutionException e) {
+            running.set(null);
+            job.setStatus(VectorReindexJob.Status.FAILED);
+            job.setErrorMessage("提交重建任务失败: " + e.getMessage());
+            jobRepository.save(job);
+            throw e;
+        }
+    }
+
+    /**
+     * 按帖子ID键集分页读取，向量化后批量写入；下一批的读取和向量化与前几批的写入重叠进行，
+     * 写入按提交顺序确认，确认后推进检查点
+     */
+    private void execute(Run run) {
+        VectorReindexJob job = findJob(run.jobId);
+        Deque<InFlight> inFlight = new ArrayDeque<>();
+        try {
+            long afterId = job.getLastPostId();
+            while (!run.cancelled) {
+                List<Long> postIds = postRepository.findValidPostIdsAfter(afterId, PageRequest.of(0, batchSize));
+                if (postIds.isEmpty()) {
+                    break;
+                }
+                afterId = postIds.get(postIds.size() - 1);
+                List<Post> posts = postRepository.findWithTagsByIdIn(postIds);
+
+                // 整批一起提交，由EmbeddingService合并为批量请求
+                List<CompletableFuture<float[]>> embeddings = new ArrayList<>(posts.size());
+                for (Post post : posts) {
+                    embeddings.add(embeddingService.getEmbeddingAsync(QdrantServiceImpl.buildPostText(post)));
+                }
+                CompletableFuture.allOf(embeddings.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+                // 向量化期间被删除或不再通过的帖子不写入，否则会覆盖双写已执行的删除
+                Set<Long> stillValid = new HashSet<>(postRepository.findValidPostIdsIn(postIds));
+                List<Points.PointStruct> points = new ArrayList<>(posts.size());
+                List<Long> writtenIds = new ArrayList<>(posts.size());
+                int failed = 0;
+                for (int i = 0; i < posts.size(); i++) {
+                    if (!stillValid.contains(posts.get(i).getId())) {
+                        continue;
+                    }
+                    try {
+                        float[] vector = embeddings.get(i).join();
+                        points.add(QdrantServiceImpl.buildPoint(posts.get(i), vector));
+                        writtenIds.add(posts.get(i).getId());
+                        // 顺带补齐本地索引（快照丢失或首次启用时）
+                        localVectorIndex.upsert(posts.get(i), vector);
+                    } catch (RuntimeException e) {
+                        failed++;
+                        log.warn("帖子向量化失败，跳过，帖子ID: {}, {}", posts.get(i).getId(), e.getMessage());
+                    }
+                }
+
+                if (inFlight.size() >= maxInFlight) {
+                    job = checkpoint(job, run, inFlight.poll());
+                }
+                ListenableFuture<?> upsert = points.isEmpty()
+                    ? Futures.immediateFuture(null)
+                    : qdrantClient.upsertAsync(job.getTargetCollection(), points);
+                inFlight.add(new InFlight(afterId, writtenIds, failed, upsert));
+            }
+            while (!inFlight.isEmpty()) {
+                job = checkpoint(job, run, inFlight.poll());
+            }
+
+            if (run.cancelled) {
+                markCancelled(job);
+                log.info("向量重建已取消，任务ID: {}", job.getId());
+                return;
+            }
+            if (Boolean.TRUE.equals(job.getBlueGreen())) {
+                swapAlias(job.getTargetCollection());
+            }
+            job.setStatus(VectorReindexJob.Status.COMPLETED);
+            job.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(job);
+            log.info("向量重建完成，任务ID: {}, 写入: {}, 失败: {}", job.getId(), job.getIndexedCount(), job.getFailedCount());
+        } catch (Exception e) {
+            // 保持双写，继续执行时从检查点接着写
+            log.error("向量重建失败，任务ID: {}, 检查点帖子ID: {}", job.getId(), job.getLastPostId(), e);
+            job.setStatus(VectorReindexJob.Status.FAILED);
+            job.setErrorMessage(e.getMessage());
+            jobRepository.save(job);
+        } finally {
+            running.set(null);
+        }
+    }
+
+    /**
+     * 等待最早提交的一批写入完成并记录检查点
+     */
+    private VectorReindexJob checkpoint(VectorReindexJob job, Run run, InFlight batch) throws Exception {
+        batch.upsert().get();
+        int indexed = batch.postIds().size() - removeDeletedDuringWrite(job.getTargetCollection(), batch.postIds());
+        job.setLastPostId(batch.lastPostId());
+        job.setIndexedCount(job.getIndexedCount() + indexed);
+        job.setFailedCount(job.getFailedCount() + batch.failed());
+        run.indexed.addAndGet(indexed);
+        indexedCounter.increment(indexed);
+        failedCounter.increment(batch.failed());
+        return jobRepository.save(job);
+    }
+
+    /**
+     * 写入确认后复查本批帖子：写入前的检查到写入完成之间被删除的帖子，双写的删除可能先于本批写入到达，
+     * 这里从目标集合和本地索引中补删；此后的删除都排在本批写入之后，由双写处理
+     *
+     * @return 补删的帖子数
+     */
+    private int removeDeletedDuringWrite(String target, List<Long> postIds) throws Exception {
+        if (postIds.isEmpty()) {
+            return 0;
+        }
+        Set<Long> stillValid = new HashSet<>(postRepository.findValidPostIdsIn(postIds));
+        List<Points.PointId> removed = new ArrayList<>();
+        for (Long postId : postIds) {
+            if (!stillValid.contains(postId)) {
+                localVectorIndex.remove(postId);
+                removed.add(id(postId));
+            }
+        }
+        if (!removed.isEmpty()) {
+            qdrantClient.deleteAsync(target, removed).get();
+            log.info("向量重建期间{}个帖子被删除或不再通过，已从{}中移除", removed.size(), target);
+        }
+        return removed.size();
+    }
+
+    /**
+     * 把别名切到新集合并结束双写；集合在重建开始前已放到别名之后，删除旧别名和创建新别名在一次请求中原子完成，搜索不中断
+     */
+    private void swapAlias(String target) throws Exception {
+        String resolved = resolveCollection();
+        String previous = resolved.equals(collectionName) ? null : resolved;
+        List<Collections.AliasOperations> operations = new ArrayList<>();
+        if (previous != null) {
+            operations.add(Collections.AliasOperations.newBuilder()
+                .setDeleteAlias(Collections.DeleteAlias.newBuilder().setAliasName(collectionName))
+                .build());
+        }
+        operations.add(Collections.AliasOperations.newBuilder()
+            .setCreateAlias(Collections.CreateAlias.newBuilder()
+                .setAliasName(collectionName)
+                .setCollectionName(target))
+            .build());
+        qdrantClient.updateAliasesAsync(operations).get();
+        qdrantService.setRebuildTarget(null);
+        log.info("别名{}已切换到集合{}", collectionName, target);
+
+        if (dropPrevious && previous != null && !previous.equals(target)) {
+            try {
+                qdrantClient.deleteCollectionAsync(previous).get();
+            } catch (Exception e) {
+                log.warn("删除旧向量集合失败: {}, {}", previous, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 取消任务：结束双写并删除未切换的新集合
+     */
+    private VectorReindexJob markCancelled(VectorReindexJob job) {
+        if (Boolean.TRUE.equals(job.getBlueGreen())) {
+            qdrantService.setRebuildTarget(null);
+            try {
+                qdrantClient.deleteCollectionAsync(job.getTargetCollection()).get();
+            } catch (Exception e) {
+                log.warn("删除未完成的向量集合失败: {}, {}", job.getTargetCollection(), e.getMessage());
+            }
+        }
+        job.setStatus(VectorReindexJob.Status.CANCELLED);
+        job.setFinishedAt(LocalDateTime.now());
+        return jobRepository.save(job);
+    }
+
+    private VectorReindexJobResponse toResponse(VectorReindexJob job) {
+        long total = job.getTotalPosts();
+        long done = job.getIndexedCount() + job.getFailedCount();
+        double progress = job.getStatus() == VectorReindexJob.Status.COMPLETED ? 100.0
+            : total > 0 ? Math.min(100.0, done * 100.0 / total) : 0.0;
+
+        Double postsPerSecond = null;
+        Long etaSeconds = null;
+        Run run = running.get();
+        if (run != null && run.jobId.equals(job.getId())) {
+            double elapsedSeconds = (System.nanoTime() - run.startedAt) / 1_000_000_000.0;
+            if (elapsedSeconds > 0) {
+                postsPerSecond = run.indexed.get() / elapsedSeconds;
+                if (postsPerSecond > 0) {
+                    etaSeconds = (long) (Math.max(0, total - done) / postsPerSecond);
+                }
+            }
+        }
+
+        return VectorReindexJobResponse.builder()
+            .id(job.getId())
+            .status(job.getStatus())
+            .blueGreen(job.getBlueGreen())
+            .targetCollection(job.getTargetCollection())
+            .lastPostId(job.getLastPostId())
+            .totalPosts(total)
+            .indexedCount(job.getIndexedCount())
+            .failedCount(job.getFailedCount())
+            .progress(progress)
+            .postsPerSecond(postsPerSecond)
+            .etaSeconds(etaSeconds)
+            .errorMessage(job.getErrorMessage())
+            .startedAt(job.getStartedAt())
+            .updatedAt(job.getUpdatedAt())
+            .finishedAt(job.getFinishedAt())
+            .build();
+    }
+}
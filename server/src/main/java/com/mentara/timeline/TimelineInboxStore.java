@@ -0,0 +1,288 @@
+package com.mentara.timeline;
+
+import com.mentara.config.TimelineProperties;
+import com.mentara.entity.Post;
+import com.mentara.repository.PostRepository;
+import com.mentara.repository.UserFollowRepository;
+import com.mentara.util.LongHashSet;
+import com.mentara.util.LongRingBuffer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.mentara.util.TransactionUtils.afterCommit;
+
+/**
+ * 关注时间线收件箱（写扩散 + 读扩散混合）
+ * 普通作者的帖子审核通过后，帖子ID写入每个粉丝的收件箱（long环形缓冲区，只保留最近inboxCapacity条）；
+ * 粉丝数达到pullFollowerThreshold的作者不写扩散，读取时间线时按作者从数据库拉取后与收件箱合并；
+ * 收件箱只在内存中，启动时按时间窗口从数据库回放重建
+ */
+@Slf4j
+@Component
+public class TimelineInboxStore {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserFollowRepository userFollowRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final TimelineProperties properties;
+
+    private volatile Map<Long, LongRingBuffer> inboxes = new ConcurrentHashMap<>();
+
+    /**
+     * 读取时拉取的作者（写时复制）
+     */
+    private volatile LongHashSet pullAuthors = new LongHashSet(0);
+
+    private volatile boolean built = false;
+
+    @Autowired
+    public TimelineInboxStore(TimelineProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("mentara.timeline.inboxes", this, store -> store.inboxes.size())
+            .description("内存中的关注时间线收件箱数")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 启动完成后重建收件箱
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            ensureBuilt();
+        } catch (Exception e) {
+            // 重建失败时首次读取时间线再重试
+            log.error("关注时间线收件箱重建失败", e);
+        }
+    }
+
+    /**
+     * 帖子审核通过（事务提交后写扩散）
+     */
+    public void onPostPublished(Post post) {
+        Long postId = post.getId();
+        Long authorId = post.getAuthor().getId();
+        afterCommit(() -> fanOut(authorId, postId));
+    }
+
+    /**
+     * 关注用户后把对方最近的帖子补入收件箱（事务提交后生效）
+     */
+    public void onFollowed(Long followerId, Long followingId) {
+        afterCommit(() -> {
+            // 重建进行中时等待重建完成
+            synchronized (this) {
+                if (!built) {
+                    return;
+                }
+            }
+            if (pullAuthors.contains(followingId)) {
+                return;
+            }
+            List<Long> postIds = postRepository.findValidPostIdsByAuthorsBeforeId(List.of(followingId), Long.MAX_VALUE,
+                PageRequest.of(0, properties.getFollowBackfillSize()));
+            if (postIds.isEmpty()) {
+                return;
+            }
+            LongRingBuffer inbox = inboxes.computeIfAbsent(followerId, key -> newInbox());
+            synchronized (inbox) {
+                // 按ID合并后只保留最新的inboxCapacity条，再按从旧到新的顺序写回
+                long[] existing = inbox.toArray();
+                long[] merged = Arrays.copyOf(existing, existing.length + postIds.size());
+                for (int i = 0; i < postIds.size(); i++) {
+                    merged[existing.length + i] = postIds.get(i);
+                }
+                long[] sorted = Arrays.stream(merged).distinct().sorted().toArray();
+                inbox.clear();
+                for (int i = Math.max(0, sorted.length - inbox.capacity()); i < sorted.length; i++) {
+                    inbox.add(sorted[i]);
+                }
+            }
+        });
+    }
+
+    /**
+     * 时间线候选帖子ID：收件箱与读扩散作者的帖子按ID倒序合并，取beforeId之前的limit条
+     * 取消关注、删除等情况由调用方加载帖子后过滤
+     */
+    public List<Long> candidatePostIds(Long userId, Collection<Long> followingIds, long beforeId, int limit) {
+        ensureBuilt();
+        long[] inboxIds = new long[0];
+        LongRingBuffer inbox = inboxes.get(userId);
+        if (inbox != null) {
+            synchronized (inbox) {
+                inboxIds = inbox.toArray();
+            }
+        }
+        long[] pushed = Arrays.stream(inboxIds).filter(id -> id < beforeId).sorted().toArray();
+
+        LongHashSet pull = pullAuthors;
+        List<Long> pullFrom = new ArrayList<>();
+        for (Long followingId : followingIds) {
+            if (pull.contains(followingId)) {
+                pullFrom.add(followingId);
+            }
+        }
+        List<Long> pulled = pullFrom.isEmpty() ? List.of()
+            : postRepository.findValidPostIdsByAuthorsBeforeId(pullFrom, beforeId, PageRequest.of(0, limit));
+
+        // 两个ID倒序序列归并去重
+        List<Long> merged = new ArrayList<>(limit);
+        int i = pushed.length - 1;
+        int j = 0;
+        long previous = Long.MAX_VALUE;
+        while (merged.size() < limit && (i >= 0 || j < pulled.size())) {
+            long next;
+            if (j >= pulled.size() || (i >= 0 && pushed[i] >= pulled.get(j))) {
+                next = pushed[i--];
+            } else {
+                next = pulled.get(j++);
+            }
+            if (next != previous) {
+                merged.add(next);
+                previous = next;
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 内存中的收件箱数
+     */
+    public int size() {
+        return inboxes.size();
+    }
+
+    private void fanOut(Long authorId, Long postId) {
+        long followers = userFollowRepository.countByFollowingId(authorId);
+        if (followers >= properties.getPullFollowerThreshold()) {
+            // 大V改为读扩散，之前写入收件箱的帖子仍保留，读取时去重
+            synchronized (this) {
+                if (!pullAuthors.contains(authorId)) {
+                    LongHashSet updated = pullAuthors.copy();
+                    updated.add(authorId);
+                    pullAuthors = updated;
+                }
+            }
+            return;
+        }
+        List<Long> followerIds = followers == 0 ? List.of()
+            : userFollowRepository.findFollowerUserIdsByFollowingId(authorId);
+        // 与重建互斥：重建进行中审核通过的帖子等重建完成后再写入，未重建时由重建从数据库回放
+        synchronized (this) {
+            if (!built) {
+                return;
+            }
+            for (Long followerId : followerIds) {
+                push(inboxes, followerId, postId);
+            }
+        }
+    }
+
+    private void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        synchronized (this) {
+            if (!built) {
+                rebuild();
+            }
+        }
+    }
+
+    /**
+     * 从数据库回放时间窗口内的帖子重建全部收件箱
+     */
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        LongHashSet pull = new LongHashSet();
+        for (Long authorId : userFollowRepository.findFollowingIdsWithFollowersAtLeast(properties.getPullFollowerThreshold())) {
+            pull.add(authorId);
+        }
+
+        Map<Long, LongRingBuffer> rebuilt = new ConcurrentHashMap<>();
+        LocalDateTime since = LocalDateTime.now().minus(properties.getRebuildWindow());
+        PageRequest batch = PageRequest.of(0, properties.getRebuildBatchSize());
+        long afterId = 0L;
+        long replayed = 0;
+        while (true) {
+            List<Object[]> posts = postRepository.findValidPostAuthorPairsSince(since, afterId, batch);
+            if (posts.isEmpty()) {
+                break;
+            }
+            Set<Long> authorIds = new HashSet<>();
+            for (Object[] row : posts) {
+                Long authorId = ((Number) row[1]).longValue();
+                if (!pull.contains(authorId)) {
+                    authorIds.add(authorId);
+                }
+            }
+            Map<Long, List<Long>> followersByAuthor = new HashMap<>();
+            if (!authorIds.isEmpty()) {
+                for (Object[] pair : userFollowRepository.findFollowPairsByFollowingIds(authorIds)) {
+                    followersByAuthor.computeIfAbsent(((Number) pair[0]).longValue(), key -> new ArrayList<>())
+                        .add(((Number) pair[1]).longValue());
+                }
+            }
+            // 按帖子ID正序写入，环形缓冲区最终保留每个用户最新的帖子
+            for (Object[] row : posts) {
+                long postId = ((Number) row[0]).longValue();
+                for (Long followerId : followersByAuthor.getOrDefault(((Number) row[1]).longValue(), List.of())) {
+                    push(rebuilt, followerId, postId);
+                }
+            }
+            replayed += posts.size();
+            afterId = ((Number) posts.get(posts.size() - 1)[0]).longValue();
+            if (posts.size() < properties.getRebuildBatchSize()) {
+                break;
+            }
+        }
+
+        inboxes = rebuilt;
+        pullAuthors = pull;
+        built = true;
+        log.info("关注时间线收件箱重建完成: 回放帖子{}条, 收件箱{}个, 读扩散作者{}个, 耗时{}ms",
+            replayed, rebuilt.size(), pull.size(), System.currentTimeMillis() - start);
+    }
+
+    private void push(Map<Long, LongRingBuffer> target, Long followerId, long postId) {
+        LongRingBuffer inbox = target.computeIfAbsent(followerId, key -> newInbox());
+        synchronized (inbox) {
+            if (!inbox.contains(postId)) {
+                inbox.add(postId);
+            }
+        }
+    }
+
+    private LongRingBuffer newInbox() {
+        return new LongRingBuffer(properties.getInboxCapacity());
+    }
+}
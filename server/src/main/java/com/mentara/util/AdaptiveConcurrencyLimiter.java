@@ -0,0 +1,119 @@
+package com.mentara.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自适应并发限制（AIMD）
+ * 每次成功且未超过慢调用阈值时并发上限加 1/上限（约每轮加1），超时、限流、服务端错误或慢调用时上限乘以backoffRatio；
+ * 达到上限时调用方最多等待给定时间，仍拿不到许可则被拒绝，不在远程服务变慢时无限堆积线程
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final long slowCallNanos;
+
+    private final Counter rejected;
+
+    private double limit;
+
+    private int inFlight;
+
+    /**
+     * @param name          名称，用作指标前缀（mentara.&lt;name&gt;.limiter.*）
+     * @param slowCallThreshold 超过该耗时的成功调用也按过载处理
+     */
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                      Duration slowCallThreshold, MeterRegistry meterRegistry) {
+        if (minLimit <= 0 || maxLimit < minLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("需要 0 < minLimit <= maxLimit，0 < backoffRatio < 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        String prefix = "mentara." + name + ".limiter";
+        Gauge.builder(prefix + ".limit", this, AdaptiveConcurrencyLimiter::getLimit)
+            .description("当前并发上限")
+            .register(meterRegistry);
+        Gauge.builder(prefix + ".in-flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+            .description("正在进行的调用数")
+            .register(meterRegistry);
+        this.rejected = Counter.builder(prefix + ".rejected")
+            .description("因达到并发上限被拒绝的调用数")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 获取许可，最多等待timeout；返回false表示被拒绝，此时不得再调用onSuccess、onDropped或onIgnored
+     */
+    public synchronized boolean tryAcquire(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight >= (int) limit) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                rejected.increment();
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * 调用成功，latencyNanos为远程调用耗时
+     */
+    public synchronized void onSuccess(long latencyNanos) {
+        if (latencyNanos > slowCallNanos) {
+            decrease();
+        } else if (inFlight >= limit / 2) {
+            // 只有并发确实接近上限时才加，避免空闲期上限无限增长
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        release();
+    }
+
+    /**
+     * 调用因过载失败（超时、限流、服务端错误）
+     */
+    public synchronized void onDropped() {
+        decrease();
+        release();
+    }
+
+    /**
+     * 调用失败但与远程服务负载无关（如请求参数错误），只归还许可
+     */
+    public synchronized void onIgnored() {
+        release();
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    private void release() {
+        inFlight--;
+        notifyAll();
+    }
+}
@@ -1,10 +1,16 @@
 package com.mentara.util;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mentara.cache.RefreshAheadCache;
+import com.mentara.cache.TaggedCache;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Component;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 缓存工具类
@@ -77,4 +83,53 @@ public class CacheUtils {
     public boolean cacheExists(String cacheName) {
         return cacheManager.getCache(cacheName) != null;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 获取缓存当前条目数
+     * @param cacheName 缓存名称
+     * @return 条目数（估算值），缓存不存在时返回-1
+     */
+    public long getCacheSize(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return -1;
+        }
+        Object nativeCache = cache.getNativeCache();
+        if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeineCache) {
+            return caffeineCache.estimatedSize();
+        }
+        if (nativeCache instanceof ConcurrentMap<?, ?> concurrentMap) {
+            return concurrentMap.size();
+        }
+        return -1;
+    }
+
+    /**
+     * 获取缓存命中/未命中/淘汰统计
+     * @param cacheName 缓存名称
+     * @return 统计信息，非Caffeine缓存只包含条目数
+     */
+    public Map<String, Object> getCacheStatistics(String cacheName) {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return statistics;
+        }
+        statistics.put("size", getCacheSize(cacheName));
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeineCache) {
+            CacheStats stats = caffeineCache.stats();
+            statistics.put("hitCount", stats.hitCount());
+            statistics.put("missCount", stats.missCount());
+            statistics.put("hitRate", stats.hitRate());
+            statistics.put("evictionCount", stats.evictionCount());
+            statistics.put("evictionWeight", stats.evictionWeight());
+        }
+        if (cache instanceof TaggedCache taggedCache) {
+            cache = taggedCache.getDelegate();
+        }
+        if (cache instanceof RefreshAheadCache refreshAheadCache) {
+            statistics.put("refreshCount", refreshAheadCache.getRefreshCount());
+        }
+        return statistics;
+    }
+}
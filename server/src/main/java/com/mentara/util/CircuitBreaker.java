@@ -0,0 +1,148 @@
+package com.mentara.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * 熔断器
+ * 连续失败达到failureThreshold次后断开（OPEN），期间调用直接被拒绝；断开时长从openDuration起，
+ * 每次探测失败后翻倍直到maxOpenDuration，并加入±jitter比例的随机抖动，避免多实例同时恢复；
+ * 到期后进入半开（HALF_OPEN），只放行一次探测调用，成功则闭合并重置断开时长
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String name;
+
+    private final int failureThreshold;
+
+    private final long openNanos;
+
+    private final long maxOpenNanos;
+
+    private final double jitter;
+
+    private final LongSupplier nanoClock;
+
+    private final Counter rejected;
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    /**
+     * 连续断开次数，决定下一次断开时长
+     */
+    private int trips;
+
+    private long openUntil;
+
+    private boolean probeInFlight;
+
+    /**
+     * @param name 名称，用作指标前缀（mentara.&lt;name&gt;.breaker.*）
+     */
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration, Duration maxOpenDuration,
+                          double jitter, MeterRegistry meterRegistry) {
+        this(name, failureThreshold, openDuration, maxOpenDuration, jitter, meterRegistry, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int failureThreshold, Duration openDuration, Duration maxOpenDuration,
+                   double jitter, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        if (failureThreshold <= 0 || jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("需要 failureThreshold > 0，0 <= jitter < 1");
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.maxOpenNanos = Math.max(openNanos, maxOpenDuration.toNanos());
+        this.jitter = jitter;
+        this.nanoClock = nanoClock;
+
+        String prefix = "mentara." + name + ".breaker";
+        Gauge.builder(prefix + ".state", this, breaker -> breaker.getState().ordinal())
+            .description("熔断器状态：0闭合，1半开，2断开")
+            .register(meterRegistry);
+        this.rejected = Counter.builder(prefix + ".rejected")
+            .description("熔断期间被拒绝的调用数")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 是否允许本次调用；允许后必须调用onSuccess、onFailure或onIgnored之一
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openUntil >= 0) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("{}熔断器恢复闭合", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trips = 0;
+        probeInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * 调用失败但与远程服务可用性无关（如请求参数错误），不计入失败
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openUntil >= 0) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private void open() {
+        long duration = openNanos;
+        for (int i = 0; i < trips && duration < maxOpenNanos; i++) {
+            duration *= 2;
+        }
+        duration = Math.min(duration, maxOpenNanos);
+        if (jitter > 0) {
+            duration = (long) (duration * (1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter)));
+        }
+        trips++;
+        state = State.OPEN;
+        probeInFlight = false;
+        openUntil = nanoClock.getAsLong() + duration;
+        log.warn("{}熔断器断开{}ms，连续失败{}次", name, duration / 1_000_000, consecutiveFailures);
+    }
+}
@@ -0,0 +1,171 @@
+package com.mentara.util;
+
+import java.util.Arrays;
+
+/**
+ * long基本类型哈希集合（开放寻址、线性探测）
+ * 不装箱，适合在热点路径上做大量contains判断；非线程安全，并发场景按写时复制使用
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = 0L;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] slots;
+
+    private int size;
+
+    /**
+     * 0作为空槽标记，单独记录
+     */
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(4);
+    }
+
+    public LongHashSet(int expectedSize) {
+        slots = new long[capacityFor(expectedSize)];
+    }
+
+    private LongHashSet(LongHashSet source) {
+        slots = source.slots.clone();
+        size = source.size;
+        containsZero = source.containsZero;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        int mask = slots.length - 1;
+        for (int index = mix(value) & mask; ; index = (index + 1) & mask) {
+            long slot = slots[index];
+            if (slot == EMPTY) {
+                return false;
+            }
+            if (slot == value) {
+                return true;
+            }
+        }
+    }
+
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != EMPTY) {
+            if (slots[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = value;
+        size++;
+        if (size > slots.length * LOAD_FACTOR) {
+            resize(slots.length * 2);
+        }
+        return true;
+    }
+
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != value) {
+            if (slots[index] == EMPTY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        // 后移删除：把后续同一探测链上的元素前移，保证查找不会提前遇到空槽
+        int gap = index;
+        for (int next = (gap + 1) & mask; slots[next] != EMPTY; next = (next + 1) & mask) {
+            int home = mix(slots[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                slots[gap] = slots[next];
+                gap = next;
+            }
+        }
+        slots[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 复制一份独立的集合（写时复制）
+     */
+    public LongHashSet copy() {
+        return new LongHashSet(this);
+    }
+
+    public long[] toArray() {
+        long[] values = new long[size];
+        int position = 0;
+        if (containsZero) {
+            values[position++] = EMPTY;
+        }
+        for (long slot : slots) {
+            if (slot != EMPTY) {
+                values[position++] = slot;
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private void resize(int capacity) {
+        long[] previous = slots;
+        slots = new long[capacity];
+        int mask = capacity - 1;
+        for (long value : previous) {
+            if (value != EMPTY) {
+                int index = mix(value) & mask;
+                while (slots[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = value;
+            }
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 4;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int mix(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
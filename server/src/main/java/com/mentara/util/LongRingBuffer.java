@@ -0,0 +1,95 @@
+package com.mentara.util;
+
+import java.util.Arrays;
+
+/**
+ * long基本类型定长环形缓冲区
+ * 写满后新元素覆盖最早写入的元素；底层数组按需从小容量扩容到上限，不活跃的用户只占很少内存。
+ * 非线程安全，由调用方加锁
+ */
+public class LongRingBuffer {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final int capacity;
+
+    private long[] values;
+
+    /**
+     * 最早写入的元素位置
+     */
+    private int head;
+
+    private int size;
+
+    public LongRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity必须大于0");
+        }
+        this.capacity = capacity;
+        this.values = new long[Math.min(capacity, INITIAL_CAPACITY)];
+    }
+
+    /**
+     * 追加元素，已满时覆盖最早写入的元素
+     */
+    public void add(long value) {
+        if (size == values.length && values.length < capacity) {
+            grow();
+        }
+        if (size == values.length) {
+            values[head] = value;
+            head = (head + 1) % values.length;
+        } else {
+            values[(head + size) % values.length] = value;
+            size++;
+        }
+    }
+
+    public boolean contains(long value) {
+        for (int i = 0; i < size; i++) {
+            if (values[(head + i) % values.length] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 按写入顺序（最早的在前）复制出全部元素
+     */
+    public long[] toArray() {
+        long[] copy = new long[size];
+        for (int i = 0; i < size; i++) {
+            copy[i] = values[(head + i) % values.length];
+        }
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private void grow() {
+        long[] grown = new long[Math.min(capacity, values.length * 2)];
+        for (int i = 0; i < size; i++) {
+            grown[i] = values[(head + i) % values.length];
+        }
+        values = grown;
+        head = 0;
+    }
+}
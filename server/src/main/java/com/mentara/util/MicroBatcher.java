@@ -0,0 +1,211 @@
+package com.mentara.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 微批处理器
+ * 把并发提交的单个请求在maxWait内（或凑满maxBatchSize条）合并为一次批量调用，每个调用方拿到自己的future；
+ * 批量调用在处理线程上同步执行，调用进行中到达的请求自然积累成下一批。
+ * 整批因某条请求出错而失败时逐条重试，单条错误只影响对应的调用方；超时、连接失败等服务不可用的错误整批直接失败，
+ * 避免逐条重发占住处理线程；队列已满时在调用方线程直接执行
+ *
+ * @param <I> 单条请求
+ * @param <O> 单条结果
+ */
+@Slf4j
+public class MicroBatcher<I, O> implements AutoCloseable {
+
+    private record Pending<I, O>(I input, CompletableFuture<O> future, long enqueuedAt) {}
+
+    private final String name;
+
+    private final int maxBatchSize;
+
+    private final long maxWaitNanos;
+
+    private final Function<List<I>, List<O>> batchFunction;
+
+    private final BlockingQueue<Pending<I, O>> queue;
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final Timer batchLatency;
+
+    private final Timer requestLatency;
+
+    private final DistributionSummary batchSize;
+
+    private final Counter succeeded;
+
+    private final Counter failed;
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param name          名称，用作线程名和指标前缀（mentara.&lt;name&gt;.*）
+     * @param batchFunction 批量调用，返回结果须与输入一一对应
+     */
+    public MicroBatcher(String name, int maxBatchSize, Duration maxWait, int queueCapacity, int workerCount,
+                        Function<List<I>, List<O>> batchFunction, MeterRegistry meterRegistry) {
+        if (maxBatchSize <= 0 || workerCount <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("maxBatchSize、queueCapacity、workerCount必须大于0");
+        }
+        this.name = name;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.batchFunction = batchFunction;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+
+        String prefix = "mentara." + name;
+        this.batchLatency = Timer.builder(prefix + ".batch.latency")
+            .description("单次批量调用耗时")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        this.requestLatency = Timer.builder(prefix + ".request.latency")
+            .description("单条请求从提交到完成的耗时（含排队）")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder(prefix + ".batch.size")
+            .description("每次批量调用包含的请求数")
+            .register(meterRegistry);
+        this.succeeded = Counter.builder(prefix + ".requests").tag("outcome", "success")
+            .description("完成的单条请求数").register(meterRegistry);
+        this.failed = Counter.builder(prefix + ".requests").tag("outcome", "failure")
+            .description("完成的单条请求数").register(meterRegistry);
+        Gauge.builder(prefix + ".queue.size", queue, BlockingQueue::size)
+            .description("等待合并的请求数")
+            .register(meterRegistry);
+
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, name + "-batcher-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * 提交单条请求
+     */
+    public CompletableFuture<O> submit(I input) {
+        CompletableFuture<O> future = new CompletableFuture<>();
+        Pending<I, O> pending = new Pending<>(input, future, System.nanoTime());
+        if (closed) {
+            future.completeExceptionally(new IllegalStateException(name + "批处理器已关闭"));
+        } else if (!queue.offer(pending)) {
+            // 队列已满：在调用方线程单独执行，相当于对提交方限流
+            execute(List.of(pending));
+        }
+        return future;
+    }
+
+    public int queueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        workers.forEach(Thread::interrupt);
+        List<Pending<I, O>> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (Pending<I, O> pending : remaining) {
+            pending.future().completeExceptionally(new IllegalStateException(name + "批处理器已关闭"));
+        }
+    }
+
+    private void runWorker() {
+        List<Pending<I, O>> batch = new ArrayList<>(maxBatchSize);
+        while (!closed) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending<I, O> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                execute(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Pending<I, O> pending : batch) {
+                    pending.future().completeExceptionally(new IllegalStateException(name + "批处理器已关闭"));
+                }
+                return;
+            } catch (RuntimeException e) {
+                // execute已处理调用异常，这里只兜底防止处理线程退出
+                log.error("{}批处理线程异常", name, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void execute(List<Pending<I, O>> batch) {
+        List<I> inputs = new ArrayList<>(batch.size());
+        for (Pending<I, O> pending : batch) {
+            inputs.add(pending.input());
+        }
+        batchSize.record(batch.size());
+        List<O> outputs;
+        long start = System.nanoTime();
+        try {
+            outputs = batchFunction.apply(inputs);
+            if (outputs == null || outputs.size() != inputs.size()) {
+                throw new IllegalStateException(name + "批量调用返回" + (outputs == null ? 0 : outputs.size())
+                    + "条结果，期望" + inputs.size() + "条");
+            }
+        } catch (RuntimeException e) {
+            batchLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (batch.size() == 1 || TransientErrors.isTransient(e)) {
+                // 服务不可用时逐条重发也不会成功，整批直接失败
+                for (Pending<I, O> pending : batch) {
+                    complete(pending, null, e);
+                }
+                return;
+            }
+            // 整批失败时逐条重试，找出具体出错的请求
+            log.warn("{}批量调用失败，改为逐条调用: {}条, {}", name, batch.size(), e.getMessage());
+            for (Pending<I, O> pending : batch) {
+                execute(List.of(pending));
+            }
+            return;
+        }
+        batchLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), outputs.get(i), null);
+        }
+    }
+
+    private void complete(Pending<I, O> pending, O output, Throwable error) {
+        requestLatency.record(System.nanoTime() - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+        if (error != null) {
+            failed.increment();
+            pending.future().completeExceptionally(error);
+        } else {
+            succeeded.increment();
+            pending.future().complete(output);
+        }
+    }
+}
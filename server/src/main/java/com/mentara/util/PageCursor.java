@@ -0,0 +1,100 @@
+package com.mentara.util;
+
+import com.mentara.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 游标分页（keyset）位置
+ * 记录上一页最后一条记录的排序键，下一页从该位置之后继续查询，不需要OFFSET和COUNT；
+ * 对客户端是不透明的Base64字符串
+ *
+ * @param announcement 是否公告（帖子列表公告置顶）
+ * @param createdAt    创建时间（按时间排序的列表）
+ * @param score        热度分（按热度排序的列表）
+ * @param id           主键，保证排序键唯一
+ */
+public record PageCursor(boolean announcement, LocalDateTime createdAt, Double score, long id) {
+
+    /**
+     * 倒序列表的起始位置：排在所有记录之前
+     */
+    public static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    /**
+     * 正序列表的起始位置：排在所有记录之前
+     */
+    public static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 按（是否公告，创建时间，ID）倒序的起始游标
+     */
+    public static PageCursor firstByTimeDesc() {
+        return new PageCursor(true, MAX_TIME, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * 按（是否公告，热度分，ID）倒序的起始游标
+     */
+    public static PageCursor firstByScoreDesc() {
+        return new PageCursor(true, null, Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+    }
+
+    /**
+     * 按ID倒序的起始游标
+     */
+    public static PageCursor firstByIdDesc() {
+        return ofId(Long.MAX_VALUE);
+    }
+
+    /**
+     * 只按ID排序的列表位置
+     */
+    public static PageCursor ofId(long id) {
+        return new PageCursor(false, null, null, id);
+    }
+
+    /**
+     * 按（创建时间，ID）正序的起始游标
+     */
+    public static PageCursor firstByTimeAsc() {
+        return new PageCursor(false, MIN_TIME, null, 0L);
+    }
+
+    public String encode() {
+        String raw = (announcement ? "1" : "0") + SEPARATOR
+            + (createdAt != null ? createdAt.toString() : "") + SEPARATOR
+            + (score != null ? score.toString() : "") + SEPARATOR
+            + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，为空时返回指定的起始游标
+     */
+    public static PageCursor decode(String cursor, PageCursor first) {
+        if (cursor == null || cursor.isBlank()) {
+            return first;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 4) {
+                throw new ValidationException("无效的分页游标");
+            }
+            return new PageCursor(
+                "1".equals(parts[0]),
+                parts[1].isEmpty() ? first.createdAt() : LocalDateTime.parse(parts[1]),
+                parts[2].isEmpty() ? first.score() : Double.valueOf(parts[2]),
+                Long.parseLong(parts[3]));
+        } catch (ValidationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new ValidationException("无效的分页游标");
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.mentara.util;
+
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 远程调用错误分类：超时、连接失败、限流（429）和服务端错误（5xx）视为服务暂时不可用，
+ * 值得退避重试，但与请求内容无关，换一种拆分方式重发也不会成功
+ */
+public final class TransientErrors {
+
+    private TransientErrors() {
+    }
+
+    /**
+     * 沿异常链查找，调用方包装过的异常（如block()抛出的ReactiveException）同样能识别
+     */
+    public static boolean isTransient(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause() == current ? null : current.getCause()) {
+            Throwable cause = Exceptions.unwrap(current);
+            if (cause instanceof TimeoutException || cause instanceof WebClientRequestException) {
+                return true;
+            }
+            if (cause instanceof WebClientResponseException responseException) {
+                return responseException.getStatusCode().value() == 429
+                    || responseException.getStatusCode().is5xxServerError();
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,109 @@
+package com.mentara.util;
+
+import java.nio.FloatBuffer;
+
+/**
+ * float[]向量运算：内积、余弦相似度、归一化
+ * 四路累加展开循环，减少循环依赖，便于JIT自动向量化
+ */
+public final class VectorMath {
+
+    private VectorMath() {
+    }
+
+    public static float dot(float[] a, float[] b) {
+        checkLength(a, b);
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        int bound = a.length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * query与缓冲区中从offset开始、长度相同的向量的内积（堆外存储的向量）
+     */
+    public static float dot(float[] query, FloatBuffer vectors, int offset) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        int bound = query.length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += query[i] * vectors.get(offset + i);
+            s1 += query[i + 1] * vectors.get(offset + i + 1);
+            s2 += query[i + 2] * vectors.get(offset + i + 2);
+            s3 += query[i + 3] * vectors.get(offset + i + 3);
+        }
+        for (; i < query.length; i++) {
+            s0 += query[i] * vectors.get(offset + i);
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * 缓冲区中分别从offsetA、offsetB开始、长度为length的两个向量的内积
+     */
+    public static float dot(FloatBuffer vectors, int offsetA, int offsetB, int length) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        int bound = length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += vectors.get(offsetA + i) * vectors.get(offsetB + i);
+            s1 += vectors.get(offsetA + i + 1) * vectors.get(offsetB + i + 1);
+            s2 += vectors.get(offsetA + i + 2) * vectors.get(offsetB + i + 2);
+            s3 += vectors.get(offsetA + i + 3) * vectors.get(offsetB + i + 3);
+        }
+        for (; i < length; i++) {
+            s0 += vectors.get(offsetA + i) * vectors.get(offsetB + i);
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * 余弦相似度，任一向量为零向量时返回0；一次遍历同时计算内积和两个向量的模长
+     */
+    public static float cosine(float[] a, float[] b) {
+        checkLength(a, b);
+        float dot = 0, normA = 0, normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        if (normA == 0 || normB == 0) {
+            return 0;
+        }
+        return (float) (dot / (Math.sqrt(normA) * Math.sqrt(normB)));
+    }
+
+    public static float norm(float[] a) {
+        return (float) Math.sqrt(dot(a, a));
+    }
+
+    /**
+     * 原地归一化为单位向量，零向量保持不变；返回同一数组
+     */
+    public static float[] normalize(float[] a) {
+        float norm = norm(a);
+        if (norm > 0) {
+            float factor = 1 / norm;
+            for (int i = 0; i < a.length; i++) {
+                a[i] *= factor;
+            }
+        }
+        return a;
+    }
+
+    private static void checkLength(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("向量维度不一致: " + a.length + " != " + b.length);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.mentara.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mentara.dto.response.PostResponse;
+import com.mentara.entity.Post;
+import com.mentara.entity.User;
+import com.mentara.enums.MoodType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheTagIndexTest {
+
+    private CacheTagIndex index;
+
+    private TaggedCache posts;
+
+    private TaggedCache statistics;
+
+    @BeforeEach
+    void setUp() {
+        index = new CacheTagIndex();
+        posts = new TaggedCache(new CaffeineCache("posts", Caffeine.newBuilder().build()), index,
+            CacheTags::resolvePostsTags);
+        statistics = new TaggedCache(new CaffeineCache("statistics", Caffeine.newBuilder().build()), index,
+            CacheTags::resolveStatisticsTags);
+    }
+
+    private static PostResponse response(long id) {
+        PostResponse response = new PostResponse();
+        response.setId(id);
+        return response;
+    }
+
+    private static PageImpl<PostResponse> page(long... ids) {
+        List<PostResponse> content = java.util.Arrays.stream(ids).mapToObj(CacheTagIndexTest::response).toList();
+        return new PageImpl<>(content, PageRequest.of(0, 10), content.size());
+    }
+
+    private static Post post(long id, long authorId, int likes, MoodType mood) {
+        User author = new User();
+        author.setId(authorId);
+        Post post = new Post();
+        post.setId(id);
+        post.setAuthor(author);
+        post.setLikesCount(likes);
+        post.setMood(mood);
+        return post;
+    }
+
+    @Test
+    void likeChanged_shouldEvictOnlyEntriesContainingPost() {
+        posts.put("1_7", response(1));
+        posts.put("2_7", response(2));
+        posts.put("all_0_10", page(1, 2));
+        posts.put("all_1_10", page(3, 4));
+        statistics.put("admin_stats", "global");
+        statistics.put("user_stats_9", "author");
+        statistics.put("user_stats_10", "other");
+
+        index.evictTags(CacheTags.postLikeChanged(post(1, 9, 1, null), 2));
+
+        assertNull(posts.get("1_7"));
+        assertNull(posts.get("all_0_10"));
+        assertNotNull(posts.get("2_7"));
+        assertNotNull(posts.get("all_1_10"));
+        assertNull(statistics.get("admin_stats"));
+        assertNull(statistics.get("user_stats_9"));
+        assertNotNull(statistics.get("user_stats_10"));
+    }
+
+    @Test
+    void likeChanged_shouldEvictHotFeed_nearThreshold() {
+        posts.put("filter_最热_0_10", page(5));
+        posts.put("filter_最新_0_10", page(6));
+
+        index.evictTags(CacheTags.postLikeChanged(post(1, 9, 3, null), CacheTags.HOT_LIKES_THRESHOLD));
+
+        assertNull(posts.get("filter_最热_0_10"));
+        assertNotNull(posts.get("filter_最新_0_10"));
+    }
+
+    @Test
+    void visibilityChanged_shouldEvictMatchingFeeds() {
+        posts.put("all_0_10", page(5));
+        posts.put("filter_全部_0_10", page(5));
+        posts.put("mood_HAPPY_0_10", page(5));
+        posts.put("mood_SAD_0_10", page(6));
+        posts.put("user_9_0_10", page(5));
+        posts.put("user_10_0_10", page(6));
+
+        index.evictTags(CacheTags.postVisibilityChanged(post(1, 9, 0, MoodType.HAPPY)));
+
+        assertNull(posts.get("all_0_10"));
+        assertNull(posts.get("filter_全部_0_10"));
+        assertNull(posts.get("mood_HAPPY_0_10"));
+        assertNull(posts.get("user_9_0_10"));
+        assertNotNull(posts.get("mood_SAD_0_10"));
+        assertNotNull(posts.get("user_10_0_10"));
+    }
+
+    @Test
+    void evict_shouldRemoveIndexEntries() {
+        posts.put("all_0_10", page(1, 2));
+        assertEquals(1, index.getIndexedKeyCount());
+
+        posts.evict("all_0_10");
+        assertEquals(0, index.getIndexedKeyCount());
+        assertEquals(0, index.getTagCount());
+
+        posts.put("all_0_10", page(1, 2));
+        posts.clear();
+        assertEquals(0, index.getIndexedKeyCount());
+    }
+
+    @Test
+    void put_shouldRegisterTagsBeforeStoringValue() {
+        List<Integer> indexedOnPut = new ArrayList<>();
+        TaggedCache feeds = new TaggedCache(new CaffeineCache("feeds", Caffeine.newBuilder().build()) {
+            @Override
+            public void put(Object key, Object value) {
+                indexedOnPut.add(index.getIndexedKeyCount());
+                super.put(key, value);
+            }
+        }, index, CacheTags::resolvePostsTags);
+
+        feeds.put("all_0_10", page(1, 2));
+
+        // 写入时标签已登记，期间的按标签清除不会漏掉该条目
+        assertEquals(List.of(1), indexedOnPut);
+    }
+}
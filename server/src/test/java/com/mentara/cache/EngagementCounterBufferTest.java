@@ -0,0 +1,109 @@
+package com.mentara.cache;
+
+import com.mentara.entity.Post;
+import com.mentara.repository.CommentRepository;
+import com.mentara.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EngagementCounterBufferTest {
+
+    private PostRepository postRepository;
+
+    private CommentRepository commentRepository;
+
+    private EngagementCounterBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        commentRepository = mock(CommentRepository.class);
+        buffer = new EngagementCounterBuffer(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(buffer, "postRepository", postRepository);
+        ReflectionTestUtils.setField(buffer, "commentRepository", commentRepository);
+        ReflectionTestUtils.setField(buffer, "cacheTagIndex", new CacheTagIndex());
+    }
+
+    private static Post post(long id, int likes) {
+        Post post = new Post();
+        post.setId(id);
+        post.setLikesCount(likes);
+        return post;
+    }
+
+    @Test
+    void flush_shouldWriteAggregatedDeltas() {
+        when(postRepository.findAllById(any())).thenReturn(List.of(post(1L, 10)));
+        buffer.addPostLikes(1L, 1);
+        buffer.addPostLikes(1L, 1);
+        buffer.addPostLikes(1L, -1);
+        buffer.addPostComments(1L, 2);
+        buffer.addCommentLikes(5L, 3);
+        assertEquals(1, buffer.pendingPostLikes(1L));
+
+        buffer.flush();
+
+        verify(postRepository).updateLikeCount(1L, 1);
+        verify(postRepository).updateCommentCount(1L, 2);
+        verify(commentRepository).updateLikeCount(5L, 3);
+        assertEquals(0, buffer.pendingPostLikes(1L));
+        assertEquals(0, buffer.pendingCommentLikes(5L));
+    }
+
+    @Test
+    void flush_shouldSkipZeroDeltasAndRetireIdleEntries() {
+        buffer.addCommentLikes(5L, 1);
+        buffer.addCommentLikes(5L, -1);
+
+        buffer.flush();
+        buffer.flush();
+
+        verifyNoInteractions(commentRepository);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void flush_shouldKeepDeltas_whenWriteFails() {
+        doThrow(new RuntimeException("db down")).when(commentRepository).updateLikeCount(anyLong(), anyInt());
+        buffer.addCommentLikes(5L, 2);
+
+        buffer.flush();
+
+        assertEquals(2, buffer.pendingCommentLikes(5L));
+    }
+
+    @Test
+    void add_shouldNotLoseUpdates_whenFlushedConcurrently() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            pool.submit(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    buffer.addCommentLikes((long) (j % 3), 1);
+                }
+            });
+        }
+        pool.shutdown();
+        // 写入进行中反复写回，验证移除空闲条目时不会丢失并发累加
+        while (!pool.awaitTermination(1, TimeUnit.MILLISECONDS)) {
+            buffer.flush();
+        }
+        buffer.flush();
+
+        ArgumentCaptor<Integer> captor = ArgumentCaptor.forClass(Integer.class);
+        verify(commentRepository, atLeastOnce()).updateLikeCount(anyLong(), captor.capture());
+        long flushed = captor.getAllValues().stream().mapToLong(Integer::longValue).sum();
+        assertEquals(40000, flushed);
+    }
+}
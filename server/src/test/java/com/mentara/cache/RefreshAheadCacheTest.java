@@ -0,0 +1,51 @@
+package com.mentara.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshAheadCacheTest {
+
+    private RefreshAheadCache newCache(long refreshAfterNanos) {
+        CaffeineCache delegate = new CaffeineCache("posts", Caffeine.newBuilder().recordStats().build());
+        return new RefreshAheadCache(delegate, refreshAfterNanos);
+    }
+
+    @Test
+    void get_shouldReturnValue_beforeRefreshDue() {
+        RefreshAheadCache cache = newCache(TimeUnit.MINUTES.toNanos(1));
+        cache.put("k", "v");
+        assertEquals("v", cache.get("k").get());
+        assertEquals(0, cache.getRefreshCount());
+    }
+
+    @Test
+    void get_shouldElectSingleRefresher_whenRefreshDue() {
+        RefreshAheadCache cache = newCache(0);
+        cache.put("k", "v");
+        // 第一个读请求负责刷新，返回未命中
+        assertNull(cache.get("k"));
+        // 其余读请求继续读取旧值
+        assertEquals("v", cache.get("k").get());
+        assertEquals(1, cache.getRefreshCount());
+    }
+
+    @Test
+    void get_shouldCacheNullValues() {
+        RefreshAheadCache cache = newCache(TimeUnit.MINUTES.toNanos(1));
+        cache.put("k", null);
+        assertNotNull(cache.get("k"));
+        assertNull(cache.get("k").get());
+    }
+
+    @Test
+    void getWithLoader_shouldReloadOnce_whenRefreshDue() {
+        RefreshAheadCache cache = newCache(0);
+        assertEquals("v1", cache.get("k", () -> "v1"));
+        assertEquals("v2", cache.get("k", () -> "v2"));
+    }
+}
@@ -0,0 +1,55 @@
+package com.mentara.cache;
+
+import com.mentara.repository.UserBlockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserBlockGraphTest {
+
+    private UserBlockRepository userBlockRepository;
+
+    private UserBlockGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        userBlockRepository = mock(UserBlockRepository.class);
+        List<Object[]> pairs = new ArrayList<>();
+        pairs.add(new Object[]{1L, 2L});
+        when(userBlockRepository.findAllBlockPairs()).thenReturn(pairs);
+        graph = new UserBlockGraph();
+        ReflectionTestUtils.setField(graph, "userBlockRepository", userBlockRepository);
+    }
+
+    @Test
+    void visibilityFor_shouldHideBothDirections() {
+        assertTrue(graph.visibilityFor(1L).isHidden(2L));
+        assertTrue(graph.visibilityFor(2L).isHidden(1L));
+        assertFalse(graph.visibilityFor(1L).isHidden(3L));
+        assertFalse(graph.visibilityFor(3L).isHidden(1L));
+        assertFalse(graph.visibilityFor(null).isHidden(2L));
+        assertTrue(graph.isBlocking(1L, 2L));
+        assertFalse(graph.isBlocking(2L, 1L));
+    }
+
+    @Test
+    void onBlocked_shouldUpdateLoadedGraph() {
+        UserBlockGraph.Visibility before = graph.visibilityFor(3L);
+
+        graph.onBlocked(3L, 1L);
+        graph.onUnblocked(1L, 2L);
+
+        assertTrue(graph.visibilityFor(3L).isHidden(1L));
+        assertTrue(graph.visibilityFor(1L).isHidden(3L));
+        assertFalse(graph.visibilityFor(2L).isHidden(1L));
+        // 已取得的可见性判断不受后续修改影响
+        assertFalse(before.isHidden(1L));
+        verify(userBlockRepository, times(1)).findAllBlockPairs();
+    }
+}
@@ -0,0 +1,57 @@
+package com.mentara.cache;
+
+import com.mentara.config.CacheProperties;
+import com.mentara.repository.PostLikeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class UserLikedPostsCacheTest {
+
+    private PostLikeRepository postLikeRepository;
+
+    private UserLikedPostsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        postLikeRepository = mock(PostLikeRepository.class);
+        cache = new UserLikedPostsCache(postLikeRepository, new CacheProperties(), new SimpleMeterRegistry(), 3);
+    }
+
+    @Test
+    void likedAmong_shouldAnswerFromMemory_whenAllLikesLoaded() {
+        when(postLikeRepository.findRecentPostIdsByUserId(eq(1L), any(Pageable.class))).thenReturn(List.of(9L, 5L));
+
+        assertEquals(Set.of(5L), cache.likedAmong(1L, List.of(4L, 5L, 6L)));
+        assertFalse(cache.isLiked(1L, 7L));
+
+        cache.onLiked(1L, 7L);
+        cache.onUnliked(1L, 5L);
+        assertEquals(Set.of(7L), cache.likedAmong(1L, List.of(5L, 7L)));
+        verify(postLikeRepository, never()).findLikedPostIdsIn(anyLong(), anyCollection());
+    }
+
+    @Test
+    void likedAmong_shouldQueryOlderLikesPerPage_whenOnlyRecentLoaded() {
+        // 只加载最近3个点赞，第4条说明还有更早的
+        when(postLikeRepository.findRecentPostIdsByUserId(eq(1L), any(Pageable.class))).thenReturn(List.of(9L, 8L, 7L, 2L));
+        when(postLikeRepository.findLikedPostIdsIn(1L, List.of(2L, 3L))).thenReturn(List.of(2L));
+
+        assertEquals(Set.of(2L, 9L), cache.likedAmong(1L, List.of(9L, 2L, 3L)));
+        verify(postLikeRepository, times(1)).findLikedPostIdsIn(anyLong(), anyCollection());
+
+        // 最近的点赞都在集合中时不查询
+        assertTrue(cache.isLiked(1L, 8L));
+        verify(postLikeRepository, times(1)).findLikedPostIdsIn(anyLong(), anyCollection());
+    }
+}
@@ -39,6 +39,16 @@ class CacheControllerTest {
                 .andExpect(jsonPath("$.data.cacheNames").isArray());
     }
 
+    @Test
+    @WithUserDetails(value = "user1", userDetailsServiceBeanName = "userDetailsService")
+    void getCacheStats_shouldReturnOk() throws Exception {
+        mockMvc.perform(get("/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value("200"))
+                .andExpect(jsonPath("$.data.posts.hitCount").exists())
+                .andExpect(jsonPath("$.data.posts.refreshCount").exists());
+    }
+
     @Test
     @WithUserDetails(value = "user1", userDetailsServiceBeanName = "userDetailsService")
     void evictAllCaches_shouldReturnOk() throws Exception {
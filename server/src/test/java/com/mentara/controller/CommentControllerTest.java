@@ -40,6 +40,21 @@ class CommentControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @WithUserDetails(value = "user1", userDetailsServiceBeanName = "userDetailsService")
+    void getCommentFeedOfPost_shouldReturnOk() throws Exception {
+        mockMvc.perform(get("/posts/1/comments/feed").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isArray());
+    }
+
+    @Test
+    @WithUserDetails(value = "user1", userDetailsServiceBeanName = "userDetailsService")
+    void getCommentFeedOfPost_shouldReturnBadRequest_whenCursorInvalid() throws Exception {
+        mockMvc.perform(get("/posts/1/comments/feed").param("cursor", "!!!"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithUserDetails(value = "user1", userDetailsServiceBeanName = "userDetailsService")
     void likeAndUnlikeComment_shouldReturnOk() throws Exception {
@@ -2,6 +2,7 @@ package com.mentara.controller;
 
 import com.mentara.config.TestUserDetailsServiceConfig;
 import com.mentara.dto.request.PostRequest;
+import com.mentara.dto.response.CursorPageResponse;
 import com.mentara.dto.response.MessageResponse;
 import com.mentara.dto.response.PostResponse;
 import com.mentara.enums.MoodType;
@@ -68,6 +69,35 @@ class PostControllerTest {
         mockMvc.perform(get("/posts?filter=hot"))
                 .andExpect(status().isOk());
     }
+    // ========== getPostFeed ==========
+    @Test
+    @WithUserDetails(value = "user1", userDetailsServiceBeanName = "userDetailsService")
+    void getPostFeed_shouldReturnNextCursor() throws Exception {
+        Mockito.when(postService.findAllPostsByCursor(isNull(), eq(10), any()))
+                .thenReturn(new CursorPageResponse<>(Collections.emptyList(), "next", true));
+        mockMvc.perform(get("/posts/feed"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+    @Test
+    @WithUserDetails(value = "user1", userDetailsServiceBeanName = "userDetailsService")
+    void getPostFeed_shouldDispatchFilter() throws Exception {
+        Mockito.when(postService.findPostsByFilterAndCursor(eq("最热"), eq("abc"), eq(20), any()))
+                .thenReturn(new CursorPageResponse<>(Collections.emptyList(), null, false));
+        mockMvc.perform(get("/posts/feed").param("filter", "最热").param("cursor", "abc").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+    @Test
+    @WithUserDetails(value = "user1", userDetailsServiceBeanName = "userDetailsService")
+    void getFollowingFeed_shouldReturnOk() throws Exception {
+        Mockito.when(postService.findFollowingPostsByCursor(isNull(), eq(10), any()))
+                .thenReturn(new CursorPageResponse<>(Collections.emptyList(), "next", true));
+        mockMvc.perform(get("/posts/following/feed"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
     // ========== searchPosts ==========
     @Test
     @WithUserDetails(value = "user1", userDetailsServiceBeanName = "userDetailsService")
@@ -76,6 +106,16 @@ class PostControllerTest {
         mockMvc.perform(get("/posts/search?keyword=test"))
                 .andExpect(status().isOk());
     }
+    // ========== getRelatedPosts ==========
+    @Test
+    @WithUserDetails(value = "user1", userDetailsServiceBeanName = "userDetailsService")
+    void getRelatedPosts_shouldReturnList() throws Exception {
+        Mockito.when(postService.findRelatedPosts(eq(1L), eq(3), any()))
+                .thenReturn(Collections.singletonList(PostResponse.builder().id(2L).build()));
+        mockMvc.perform(get("/posts/1/related?limit=3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2));
+    }
     // ========== getPostsByFilter ==========
     @Test
     @WithUserDetails(value = "user1", userDetailsServiceBeanName = "userDetailsService")
@@ -102,7 +142,7 @@ class PostControllerTest {
     @Test
     @WithUserDetails(value = "user1", userDetailsServiceBeanName = "userDetailsService")
     void getPostById_shouldReturnOk_whenCurrentUserNull() throws Exception {
-        Mockito.when(postService.findById(anyLong(), isNull())).thenReturn(new PostResponse());
+        Mockito.when(postService.findPostDetail(anyLong(), any())).thenReturn(new PostResponse());
         mockMvc.perform(get("/posts/1"))
                 .andExpect(status().isOk());
     }
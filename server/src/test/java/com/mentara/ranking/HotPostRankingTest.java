@@ -0,0 +1,88 @@
+package com.mentara.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotPostRankingTest {
+
+    private static final long HOUR = 3600;
+
+    private static final long NOW = 1_700_000_000L;
+
+    private final HotPostRanking ranking = new HotPostRanking(1.0, 2.0, 12 * HOUR, 4, 3);
+
+    private static List<Long> ids(List<HotPostRanking.Entry> entries) {
+        return entries.stream().map(HotPostRanking.Entry::postId).toList();
+    }
+
+    @Test
+    void score_shouldDecayOlderPosts() {
+        // 晚一个半衰期发布的帖子只需要一半的互动量就能达到相同热度
+        assertEquals(ranking.score(7, 0, NOW - 12 * HOUR), ranking.score(3, 0, NOW), 0.2);
+        assertTrue(ranking.score(100, 0, NOW - 7 * 24 * HOUR) < ranking.score(10, 0, NOW));
+    }
+
+    @Test
+    void put_shouldOrderByScore_withAnnouncementsFirst() {
+        ranking.put(1, false, 50, 0, NOW - 48 * HOUR);
+        ranking.put(2, false, 5, 1, NOW);
+        ranking.put(3, true, 4, 0, NOW - 72 * HOUR);
+
+        assertEquals(List.of(3L, 2L, 1L), ids(ranking.page(0, 10)));
+        assertEquals(List.of(1L), ids(ranking.page(2, 10)));
+    }
+
+    @Test
+    void page_shouldSkipExcludedPosts_beforeApplyingOffset() {
+        ranking.put(1, false, 30, 0, NOW);
+        ranking.put(2, false, 20, 0, NOW);
+        ranking.put(3, false, 10, 0, NOW);
+
+        // 排除的帖子不占位置，第二页从剩余帖子中的第二条开始
+        assertEquals(List.of(1L), ids(ranking.page(0, 1, postId -> postId == 2)));
+        assertEquals(List.of(3L), ids(ranking.page(1, 1, postId -> postId == 2)));
+        assertEquals(2, ranking.count(postId -> postId == 2));
+    }
+
+    @Test
+    void applyDelta_shouldReorderAndDropBelowThreshold() {
+        ranking.put(1, false, 4, 0, NOW);
+        ranking.put(2, false, 5, 0, NOW);
+
+        assertTrue(ranking.applyDelta(1, 3, 0));
+        assertEquals(List.of(1L, 2L), ids(ranking.page(0, 10)));
+
+        assertTrue(ranking.applyDelta(2, -2, 0));
+        assertEquals(List.of(1L), ids(ranking.page(0, 10)));
+        assertFalse(ranking.applyDelta(2, 1, 0));
+    }
+
+    @Test
+    void put_shouldEvictLowestScore_whenFull() {
+        ranking.put(1, false, 10, 0, NOW);
+        ranking.put(2, false, 20, 0, NOW);
+        ranking.put(3, false, 30, 0, NOW);
+        ranking.put(4, false, 5, 0, NOW);
+
+        assertEquals(3, ranking.size());
+        assertNull(ranking.get(4));
+        ranking.put(5, false, 40, 0, NOW);
+        assertNull(ranking.get(1));
+        assertEquals(List.of(5L, 3L, 2L), ids(ranking.page(0, 10)));
+    }
+
+    @Test
+    void after_shouldContinueFromCursor() {
+        ranking.put(1, false, 10, 0, NOW);
+        ranking.put(2, false, 20, 0, NOW);
+        ranking.put(3, false, 30, 0, NOW);
+
+        List<HotPostRanking.Entry> first = ranking.after(true, Double.POSITIVE_INFINITY, Long.MAX_VALUE, 2);
+        assertEquals(List.of(3L, 2L), ids(first));
+        HotPostRanking.Entry last = first.get(1);
+        assertEquals(List.of(1L), ids(ranking.after(last.announcement(), last.score(), last.postId(), 2)));
+    }
+}
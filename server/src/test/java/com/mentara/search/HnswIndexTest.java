@@ -0,0 +1,171 @@
+package com.mentara.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswIndexTest {
+
+    private static final int DIMENSION = 32;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void search_shouldMatchBruteForceTopResults() {
+        Random random = new Random(7);
+        float[][] vectors = randomVectors(random, 2000);
+        HnswIndex index = new HnswIndex(DIMENSION, 16, 200);
+        for (int i = 0; i < vectors.length; i++) {
+            index.add(i, vectors[i]);
+        }
+
+        int found = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = randomVector(random);
+            Set<Long> expected = new HashSet<>(bruteForce(vectors, query, 10));
+            for (HnswIndex.Hit hit : index.search(query, 10, 100, null)) {
+                if (expected.contains(hit.id())) {
+                    found++;
+                }
+            }
+        }
+        assertTrue(found / 500.0 >= 0.9, "recall@10 = " + found / 500.0);
+    }
+
+    @Test
+    void addAndRemove_shouldReplaceAndHideVectors() {
+        HnswIndex index = new HnswIndex(DIMENSION, 4, 20);
+        float[] a = unit(0);
+        float[] b = unit(1);
+        index.add(1L, a);
+        index.add(2L, b);
+
+        assertEquals(1L, index.search(a, 1, 10, null).get(0).id());
+        // 覆盖写入后旧向量不再命中
+        index.add(1L, b);
+        assertEquals(2, index.size());
+        assertEquals(1, index.deletedCount());
+        assertTrue(index.search(a, 2, 10, null).stream().allMatch(hit -> hit.score() < 0.5f));
+
+        index.remove(2L);
+        assertFalse(index.contains(2L));
+        assertEquals(List.of(1L), index.search(b, 5, 10, null).stream().map(HnswIndex.Hit::id).toList());
+        assertThrows(IllegalArgumentException.class, () -> index.add(3L, new float[3]));
+    }
+
+    @Test
+    void search_shouldApplyFilter() {
+        Random random = new Random(11);
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 50);
+        for (long id = 0; id < 500; id++) {
+            index.add(id, randomVector(random));
+        }
+
+        List<HnswIndex.Hit> hits = index.search(randomVector(random), 10, 50, id -> id % 50 == 0);
+
+        assertEquals(10, hits.size());
+        assertTrue(hits.stream().allMatch(hit -> hit.id() % 50 == 0));
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue(hits.get(i - 1).score() >= hits.get(i).score());
+        }
+    }
+
+    @Test
+    void saveAndLoad_shouldRestoreSameResults() throws IOException {
+        Random random = new Random(3);
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 50);
+        for (long id = 0; id < 300; id++) {
+            index.add(id, randomVector(random));
+        }
+        index.remove(5L);
+        Path path = tempDir.resolve("vectors/post_vector.hnsw");
+
+        index.save(path);
+        HnswIndex loaded = HnswIndex.load(path, DIMENSION);
+
+        assertEquals(index.size(), loaded.size());
+        assertFalse(loaded.contains(5L));
+        float[] query = randomVector(random);
+        assertEquals(index.search(query, 10, 50, null), loaded.search(query, 10, 50, null));
+        // 加载后仍可继续写入
+        loaded.add(1000L, query);
+        assertEquals(1000L, loaded.search(query, 1, 50, null).get(0).id());
+        assertThrows(IOException.class, () -> HnswIndex.load(path, DIMENSION * 2));
+
+        Files.write(path, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> HnswIndex.load(path, DIMENSION));
+    }
+
+    @Test
+    void compact_shouldDropDeletedNodes() {
+        Random random = new Random(5);
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 50);
+        for (long id = 0; id < 200; id++) {
+            index.add(id, randomVector(random));
+        }
+        for (long id = 0; id < 100; id++) {
+            index.remove(id);
+        }
+
+        HnswIndex compacted = index.compact();
+
+        assertEquals(100, compacted.size());
+        assertEquals(0, compacted.deletedCount());
+        assertTrue(compacted.search(randomVector(random), 20, 50, null).stream().allMatch(hit -> hit.id() >= 100));
+    }
+
+    private static List<Long> bruteForce(float[][] vectors, float[] query, int k) {
+        return IntStream.range(0, vectors.length).boxed()
+            .sorted(Comparator.comparingDouble(i -> -dot(vectors[i], query)))
+            .limit(k)
+            .map(Integer::longValue)
+            .toList();
+    }
+
+    private static float[][] randomVectors(Random random, int count) {
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            vectors.add(randomVector(random));
+        }
+        return vectors.toArray(new float[0][]);
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        float norm = (float) Math.sqrt(dot(vector, vector));
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] /= norm;
+        }
+        return vector;
+    }
+
+    private static float[] unit(int axis) {
+        float[] vector = new float[DIMENSION];
+        vector[axis] = 1;
+        return vector;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,103 @@
+package com.mentara.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LexicalIndexTest {
+
+    private final LexicalIndex index = new LexicalIndex(1.2, 0.75);
+
+    private static List<Long> ids(List<LexicalIndex.Hit> hits) {
+        return hits.stream().map(LexicalIndex.Hit::docId).toList();
+    }
+
+    private List<Long> search(String query) {
+        return ids(index.search(TextTokenizer.tokenizeQuery(query), 10, null));
+    }
+
+    @Test
+    void tokenize_shouldSplitCjkIntoBigramsAndKeepWords() {
+        assertEquals(List.of("考试", "试焦", "焦虑", "cs101"), TextTokenizer.tokenizeQuery("考试焦虑 CS101"));
+        // 全角字符规范化，单字成段时保留单字
+        assertEquals(List.of("累", "cs101"), TextTokenizer.tokenizeQuery("累，ＣＳ１０１"));
+        assertEquals(List.of("xiao_ming", "你好"), TextTokenizer.tokenizeQuery("@Xiao_Ming 你好!"));
+        // 索引时多字段落另外逐字建立单字词
+        assertEquals(List.of("考试", "试焦", "焦虑", "考", "试", "焦", "虑", "cs101"),
+            TextTokenizer.tokenize("考试焦虑 CS101"));
+        assertEquals(List.of("累", "cs101"), TextTokenizer.tokenize("累，ＣＳ１０１"));
+    }
+
+    @Test
+    void search_shouldMatchSingleCjkCharacterInsideLongerText() {
+        index.put(1, TextTokenizer.tokenize("最近总是失眠"));
+        index.put(2, TextTokenizer.tokenize("今天很开心"));
+
+        assertEquals(List.of(1L), search("眠"));
+        assertEquals(List.of(1L), search("失眠"));
+        assertTrue(search("眠开").isEmpty());
+    }
+
+    @Test
+    void search_shouldMatchExactCodesAndRankByBm25() {
+        index.put(1, TextTokenizer.tokenize("期末复习 CS101 好难"));
+        index.put(2, TextTokenizer.tokenize("今天心情不错，去操场跑步"));
+        index.put(3, TextTokenizer.tokenize("CS101 CS101 作业求助"));
+
+        assertEquals(List.of(3L, 1L), search("cs101"));
+        assertEquals(List.of(2L), search("心情"));
+        assertTrue(search("MATH200").isEmpty());
+    }
+
+    @Test
+    void put_shouldReplaceAndRemoveDocuments() {
+        index.put(1, TextTokenizer.tokenize("失眠 睡不着"));
+        index.put(1, TextTokenizer.tokenize("考试周"));
+        assertTrue(search("失眠").isEmpty());
+        assertEquals(List.of(1L), search("考试"));
+
+        index.remove(1);
+        assertTrue(search("考试").isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void remove_shouldKeepOtherDocumentsSearchable() {
+        for (long docId = 1; docId <= 5; docId++) {
+            index.put(docId, TextTokenizer.tokenize("焦虑 doc" + docId));
+        }
+
+        // 删除中间和开头的文档，末尾文档被移到空出的位置后仍能再次删除
+        index.remove(2);
+        index.remove(1);
+        index.remove(5);
+        index.put(3, TextTokenizer.tokenize("失眠"));
+
+        assertEquals(List.of(4L), search("焦虑"));
+        assertEquals(List.of(3L), search("失眠"));
+        assertEquals(List.of(4L), search("doc4"));
+        index.remove(4);
+        assertTrue(search("焦虑").isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void search_shouldApplyFilterAndLimit() {
+        index.replaceAll(Map.of(
+            1L, TextTokenizer.tokenize("焦虑"),
+            2L, TextTokenizer.tokenize("焦虑"),
+            3L, TextTokenizer.tokenize("焦虑")));
+
+        assertEquals(List.of(3L, 1L), ids(index.search(TextTokenizer.tokenize("焦虑"), 2, docId -> docId != 2)));
+    }
+
+    @Test
+    void fuse_shouldRewardDocumentsRankedByBothLists() {
+        List<Long> fused = ReciprocalRankFusion.fuse(60, List.of(1L, 2L, 3L), List.of(3L, 4L));
+        assertEquals(List.of(3L, 1L, 2L, 4L), fused);
+        assertEquals(List.of(5L, 6L), ReciprocalRankFusion.fuse(60, null, List.of(5L, 6L)));
+    }
+}
@@ -0,0 +1,68 @@
+package com.mentara.search;
+
+import com.mentara.config.SearchProperties;
+import com.mentara.dto.projection.PostFeedRow;
+import com.mentara.entity.Post;
+import com.mentara.enums.PostState;
+import com.mentara.repository.PostRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LocalVectorIndexTest {
+
+    private static final int DIMENSION = 768;
+
+    @TempDir
+    Path dir;
+
+    private static float[] unit(int axis) {
+        float[] vector = new float[DIMENSION];
+        vector[axis] = 1f;
+        return vector;
+    }
+
+    private static PostFeedRow row(Long id) {
+        return new PostFeedRow(id, "标题", "内容", null, 0, 0, LocalDateTime.now(), false, 9L, "作者", null, null, false);
+    }
+
+    @Test
+    void init_shouldLoadSnapshotBeforeLaterWrites() throws Exception {
+        SearchProperties properties = new SearchProperties();
+        properties.setLocalIndexPath(dir.resolve("post_vector.hnsw").toString());
+        HnswIndex snapshot = new HnswIndex(DIMENSION, properties.getHnswM(), properties.getHnswEfConstruction());
+        snapshot.add(1L, unit(0));
+        snapshot.add(2L, unit(1));
+        snapshot.save(Path.of(properties.getLocalIndexPath()));
+
+        PostRepository postRepository = mock(PostRepository.class);
+        when(postRepository.findValidFeedRowsByIds(any())).thenReturn(List.of(row(1L), row(2L)));
+        LocalVectorIndex localIndex = new LocalVectorIndex(properties);
+        ReflectionTestUtils.setField(localIndex, "postRepository", postRepository);
+        ReflectionTestUtils.setField(localIndex, "meterRegistry", new SimpleMeterRegistry());
+
+        localIndex.init();
+        assertEquals(2, localIndex.size());
+
+        // 初始化之后的写入叠加在快照之上
+        Post post = new Post();
+        post.setId(3L);
+        post.setState(PostState.VALID);
+        post.setIsDeleted(false);
+        localIndex.upsert(post, unit(2));
+        localIndex.remove(1L);
+
+        assertEquals(List.of(3L), localIndex.search(unit(2), null, 0, 1));
+        assertEquals(List.of(2L), localIndex.search(unit(1), null, 0, 1));
+        assertFalse(localIndex.search(unit(0), null, 0, 3).contains(1L));
+    }
+}
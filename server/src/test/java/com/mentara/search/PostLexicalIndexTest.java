@@ -0,0 +1,104 @@
+package com.mentara.search;
+
+import com.mentara.config.SearchProperties;
+import com.mentara.dto.projection.PostFeedRow;
+import com.mentara.entity.Post;
+import com.mentara.repository.PostRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 帖子倒排索引重建与增量更新并发的单元测试，数据库由模拟的PostRepository代替
+ */
+@SuppressWarnings("unchecked")
+class PostLexicalIndexTest {
+
+    @Mock private PostRepository postRepository;
+
+    private PostLexicalIndex lexicalIndex;
+
+    /**
+     * 数据库中当前可见的帖子
+     */
+    private final Set<Long> visible = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        lexicalIndex = new PostLexicalIndex(new SearchProperties());
+        ReflectionTestUtils.setField(lexicalIndex, "postRepository", postRepository);
+        ReflectionTestUtils.setField(lexicalIndex, "meterRegistry", new SimpleMeterRegistry());
+        lexicalIndex.init();
+        when(postRepository.findFeedTagsByPostIds(any())).thenReturn(List.of());
+        when(postRepository.findValidFeedRowsByIds(any())).thenAnswer(invocation ->
+            ((Collection<Long>) invocation.getArgument(0)).stream().filter(visible::contains).map(PostLexicalIndexTest::row).toList());
+    }
+
+    private static PostFeedRow row(Long id) {
+        return new PostFeedRow(id, "post" + id, "内容", null, 0, 0, LocalDateTime.now(), false, 9L, "作者", null, null, false);
+    }
+
+    private static Post post(Long id) {
+        Post post = new Post();
+        post.setId(id);
+        return post;
+    }
+
+    @Test
+    void rebuild_shouldReapplyPostsChangedWhileLoading() {
+        visible.add(1L);
+        lexicalIndex.rebuild();
+        visible.add(2L);
+        // 重建读到帖子1的ID后，另一线程发布帖子2；增量更新不能被重建阻塞
+        doAnswer(invocation -> {
+            CompletableFuture.runAsync(() -> lexicalIndex.onPostChanged(post(2L))).get(5, TimeUnit.SECONDS);
+            return List.of(1L);
+        }).when(postRepository).findValidPostIdsAfter(eq(0L), any());
+
+        lexicalIndex.rebuild();
+
+        assertEquals(2, lexicalIndex.size());
+        assertEquals(List.of(2L), lexicalIndex.search("post2", null, 10));
+    }
+
+    @Test
+    void rebuild_shouldRemovePostsDeletedWhileLoading() {
+        visible.addAll(List.of(1L, 2L));
+        doReturn(List.of(1L, 2L)).when(postRepository).findValidPostIdsAfter(eq(0L), any());
+        lexicalIndex.rebuild();
+        // 重建读到两篇帖子后，帖子2被删除
+        doAnswer(invocation -> {
+            visible.remove(2L);
+            CompletableFuture.runAsync(() -> lexicalIndex.onPostChanged(post(2L))).get(5, TimeUnit.SECONDS);
+            return List.of();
+        }).when(postRepository).findValidPostIdsAfter(eq(2L), any());
+        doAnswer(invocation -> {
+            Collection<Long> postIds = invocation.getArgument(0);
+            // 模拟重建按ID批量读取时帖子2尚未删除
+            return postIds.size() == 2 ? postIds.stream().map(PostLexicalIndexTest::row).toList()
+                : postIds.stream().filter(visible::contains).map(PostLexicalIndexTest::row).toList();
+        }).when(postRepository).findValidFeedRowsByIds(any());
+
+        lexicalIndex.rebuild();
+
+        assertEquals(1, lexicalIndex.size());
+        assertTrue(lexicalIndex.search("post2", null, 10).isEmpty());
+    }
+}
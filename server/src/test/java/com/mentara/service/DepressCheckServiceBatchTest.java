@@ -0,0 +1,176 @@
+package com.mentara.service;
+
+import com.mentara.dto.response.BertBatchResponse;
+import com.mentara.dto.response.DepressCheckResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 抑郁检查服务批量调用的单元测试，bert微服务由模拟的WebClient代替
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+public class DepressCheckServiceBatchTest {
+
+    private static final String URL = "http://bert";
+
+    @Mock private WebClient webClient;
+    @Mock private WebClient.RequestBodyUriSpec uriSpec;
+    @Mock private WebClient.RequestBodySpec bodySpec;
+    @Mock private WebClient.RequestHeadersSpec headersSpec;
+    @Mock private WebClient.ResponseSpec responseSpec;
+    @Mock private AiResultCacheService aiResultCacheService;
+
+    private DepressCheckService depressCheckService;
+
+    /**
+     * 按顺序记录请求的URL和请求体；批处理线程只有一个，请求依次发出
+     */
+    private final List<String> urls = Collections.synchronizedList(new ArrayList<>());
+
+    private final ThreadLocal<Map<String, Object>> lastBody = new ThreadLocal<>();
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(3);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        depressCheckService = new DepressCheckService(webClient);
+        ReflectionTestUtils.setField(depressCheckService, "pythonServiceUrl", URL);
+        ReflectionTestUtils.setField(depressCheckService, "depressEndpoint", "/depress_check");
+        ReflectionTestUtils.setField(depressCheckService, "timeout", 5000);
+        ReflectionTestUtils.setField(depressCheckService, "batchMaxSize", 3);
+        // 等待足够久，保证并发提交的请求凑成一批
+        ReflectionTestUtils.setField(depressCheckService, "batchMaxWaitMs", 5000L);
+        ReflectionTestUtils.setField(depressCheckService, "batchQueueCapacity", 16);
+        ReflectionTestUtils.setField(depressCheckService, "batchWorkers", 1);
+        ReflectionTestUtils.setField(depressCheckService, "modelVersion", "v1");
+        ReflectionTestUtils.setField(depressCheckService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(depressCheckService, "aiResultCacheService", aiResultCacheService);
+        when(aiResultCacheService.getOrCompute(anyString(), anyString(), any(), eq(DepressCheckResponse.class), any(), any()))
+            .thenAnswer(invocation -> ((Supplier<DepressCheckResponse>) invocation.getArgument(4)).get());
+
+        when(webClient.post()).thenReturn(uriSpec);
+        when(uriSpec.uri(anyString())).thenAnswer(invocation -> {
+            urls.add(invocation.getArgument(0));
+            return bodySpec;
+        });
+        when(bodySpec.contentType(MediaType.APPLICATION_JSON)).thenReturn(bodySpec);
+        when(bodySpec.bodyValue(any())).thenAnswer(invocation -> {
+            lastBody.set(invocation.getArgument(0));
+            return headersSpec;
+        });
+        when(headersSpec.retrieve()).thenReturn(responseSpec);
+    }
+
+    @AfterEach
+    void tearDown() {
+        depressCheckService.destroy();
+        callers.shutdownNow();
+    }
+
+    private static BertBatchResponse.Prediction prediction(Integer label, Double score) {
+        return new BertBatchResponse.Prediction(label, score);
+    }
+
+    private static BertBatchResponse batchOf(BertBatchResponse.Prediction... predictions) {
+        return new BertBatchResponse(List.of(predictions), predictions.length, "bert");
+    }
+
+    private List<CompletableFuture<DepressCheckResponse>> checkConcurrently(String... texts) {
+        List<CompletableFuture<DepressCheckResponse>> futures = new ArrayList<>();
+        for (String text : texts) {
+            futures.add(CompletableFuture.supplyAsync(() -> depressCheckService.checkDepress(text), callers));
+        }
+        return futures;
+    }
+
+    @Test
+    void requestChecks_shouldReturnResultsInResponseOrder() {
+        when(responseSpec.bodyToMono(BertBatchResponse.class))
+            .thenReturn(Mono.just(batchOf(prediction(3, 0.9), prediction(0, 0.1))));
+
+        List<DepressCheckResponse> results = ReflectionTestUtils.invokeMethod(depressCheckService, "requestChecks",
+            List.of("a", "b"));
+
+        assertEquals(List.of(new DepressCheckResponse(3, 0.9), new DepressCheckResponse(0, 0.1)), results);
+        assertEquals(List.of(URL + "/depress_check/batch"), urls);
+        assertEquals(Map.of("texts", List.of("a", "b")), lastBody.get());
+    }
+
+    @Test
+    void requestChecks_shouldFailBatch_whenPredictionMissingScore() {
+        when(responseSpec.bodyToMono(BertBatchResponse.class))
+            .thenReturn(Mono.just(batchOf(prediction(3, 0.9), prediction(1, null))));
+
+        assertThrows(IllegalStateException.class,
+            () -> ReflectionTestUtils.invokeMethod(depressCheckService, "requestChecks", List.of("a", "b")));
+    }
+
+    @Test
+    void checkDepress_shouldFanOutOneBatchCall_toEachCaller() {
+        ReflectionTestUtils.setField(depressCheckService, "batchEnabled", true);
+        depressCheckService.init();
+        // 批量接口按请求顺序返回，标签为文本长度
+        when(responseSpec.bodyToMono(BertBatchResponse.class)).thenAnswer(invocation -> {
+            List<String> texts = (List<String>) lastBody.get().get("texts");
+            return Mono.just(batchOf(texts.stream()
+                .map(text -> prediction(text.length(), 0.5))
+                .toArray(BertBatchResponse.Prediction[]::new)));
+        });
+
+        List<CompletableFuture<DepressCheckResponse>> futures = checkConcurrently("a", "bb", "ccc");
+
+        assertEquals(List.of(1, 2, 3), futures.stream().map(CompletableFuture::join).map(DepressCheckResponse::getLabel).toList());
+        assertEquals(List.of(URL + "/depress_check/batch"), urls);
+    }
+
+    @Test
+    void checkDepress_shouldRetrySingly_whenOnePredictionInvalid() {
+        ReflectionTestUtils.setField(depressCheckService, "batchEnabled", true);
+        depressCheckService.init();
+        // 一条结果缺少score时整批作废，逐条调用后只有出错的那条返回null
+        when(responseSpec.bodyToMono(BertBatchResponse.class)).thenAnswer(invocation -> {
+            List<String> texts = (List<String>) lastBody.get().get("texts");
+            return Mono.just(batchOf(texts.stream()
+                .map(text -> prediction(text.length(), "bad".equals(text) ? null : 0.5))
+                .toArray(BertBatchResponse.Prediction[]::new)));
+        });
+        when(responseSpec.bodyToMono(Map.class)).thenAnswer(invocation -> {
+            String text = (String) lastBody.get().get("text");
+            return "bad".equals(text)
+                ? Mono.error(new IllegalStateException("bert error"))
+                : Mono.just(Map.of("label", text.length(), "score", 0.5));
+        });
+
+        List<CompletableFuture<DepressCheckResponse>> futures = checkConcurrently("a", "bad", "ccc");
+
+        assertEquals(new DepressCheckResponse(1, 0.5), futures.get(0).join());
+        assertNull(futures.get(1).join());
+        assertEquals(new DepressCheckResponse(3, 0.5), futures.get(2).join());
+        assertEquals(1, urls.stream().filter(url -> url.endsWith("/batch")).count());
+        assertEquals(3, urls.stream().filter((URL + "/depress_check")::equals).count());
+    }
+}
@@ -1,6 +1,8 @@
 package com.mentara.service;
 
+import com.mentara.dto.response.BertBatchResponse;
 import com.mentara.dto.response.DepressCheckResponse;
+import com.mentara.dto.response.TextAnalysisResponse;
 import com.mentara.entity.MoodScore;
 import com.mentara.entity.User;
 import com.mentara.entity.Post;
@@ -17,6 +19,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,10 +42,7 @@ public class MoodScoreServiceTest {
     private CheckinRepository checkinRepository;
 
     @Mock
-    private DepressCheckService depressCheckService;
-
-    @Mock
-    private TextScoreService textScoreService;
+    private TextAnalysisService textAnalysisService;
 
     @InjectMocks
     private MoodScoreServiceImpl moodScoreService;
@@ -78,8 +78,7 @@ public class MoodScoreServiceTest {
         // Mock依赖服务
         when(userRepository.findById(testUserId)).thenReturn(Optional.of(testUser));
         when(postRepository.findById(testPostId)).thenReturn(Optional.of(testPost));
-        when(textScoreService.scoreText(content, "mood")).thenReturn(2);
-        when(depressCheckService.checkDepress(content, "depression")).thenReturn(new DepressCheckResponse(1, 0.8));
+        when(textAnalysisService.analyze(content)).thenReturn(analysis(2, new DepressCheckResponse(1, 0.8)));
         when(moodScoreRepository.save(any(MoodScore.class))).thenAnswer(invocation -> {
             MoodScore moodScore = invocation.getArgument(0);
             moodScore.setId(1L);
@@ -101,8 +100,7 @@ public class MoodScoreServiceTest {
         // 验证方法调用
         verify(userRepository).findById(testUserId);
         verify(postRepository).findById(testPostId);
-        verify(textScoreService).scoreText(content, "mood");
-        verify(depressCheckService).checkDepress(content, "depression");
+        verify(textAnalysisService, times(1)).analyze(content);
         verify(moodScoreRepository).save(any(MoodScore.class));
     }
 
@@ -114,8 +112,7 @@ public class MoodScoreServiceTest {
         // Mock依赖服务
         when(userRepository.findById(testUserId)).thenReturn(Optional.of(testUser));
         when(checkinRepository.findById(testCheckinId)).thenReturn(Optional.of(testCheckin));
-        when(textScoreService.scoreText(content, "mood")).thenReturn(9);
-        when(depressCheckService.checkDepress(content, "depression")).thenReturn(new DepressCheckResponse(0, 0.1));
+        when(textAnalysisService.analyze(content)).thenReturn(analysis(9, new DepressCheckResponse(0, 0.1)));
         when(moodScoreRepository.save(any(MoodScore.class))).thenAnswer(invocation -> {
             MoodScore moodScore = invocation.getArgument(0);
             moodScore.setId(1L);
@@ -136,7 +133,7 @@ public class MoodScoreServiceTest {
         // 验证方法调用
         verify(userRepository).findById(testUserId);
         verify(checkinRepository).findById(testCheckinId);
-        verify(textScoreService).scoreText(content, "mood");
+        verify(textAnalysisService, times(1)).analyze(content);
         verify(moodScoreRepository).save(any(MoodScore.class));
     }
 
@@ -157,15 +154,13 @@ public class MoodScoreServiceTest {
 
     @Test
     public void testCalculateAlertScore() {
-        // Mock抑郁检查服务的响应
-        when(depressCheckService.checkDepress("今天心情很好", "depression")).thenReturn(new DepressCheckResponse(0, 0.1));
-        when(depressCheckService.checkDepress("今天心情很好", "anxiety")).thenReturn(new DepressCheckResponse(0, 0.1));
-        when(depressCheckService.checkDepress("今天心情很好", "stress")).thenReturn(new DepressCheckResponse(0, 0.1));
+        // Mock综合分析服务的响应
+        when(textAnalysisService.analyze("今天心情很好")).thenReturn(analysis(8, new DepressCheckResponse(0, 0.1)));
         
         // 测试正常内容
         Double score1 = moodScoreService.calculateAlertScore("今天心情很好");
-        assertNotNull(score1);
-        assertTrue(score1 >= 0.0 && score1 <= 1.0);
+        assertEquals(0.1, score1);
+        verify(textAnalysisService, times(1)).analyze("今天心情很好");
         
         // 测试空内容
         Double score2 = moodScoreService.calculateAlertScore("");
@@ -175,4 +170,9 @@ public class MoodScoreServiceTest {
         Double score3 = moodScoreService.calculateAlertScore(null);
         assertEquals(0.0, score3);
     }
-} 
\ No newline at end of file
+
+    private static TextAnalysisResponse analysis(Integer moodGrade, DepressCheckResponse depression) {
+        return new TextAnalysisResponse(new BertBatchResponse.Prediction(moodGrade, 0.9),
+            Map.of(TextAnalysisResponse.DEPRESSION, depression));
+    }
+}
@@ -0,0 +1,138 @@
+package com.mentara.service;
+
+import com.mentara.dto.response.CursorPageResponse;
+import com.mentara.dto.response.PostResponse;
+import com.mentara.entity.Post;
+import com.mentara.entity.PostTag;
+import com.mentara.entity.User;
+import com.mentara.enums.PostState;
+import com.mentara.repository.PostRepository;
+import com.mentara.repository.PostTagRepository;
+import com.mentara.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 帖子列表SQL语句数测试
+ * 列表页由读模型查询、标签批量查询、图片批量查询组成，语句数与每页条数无关
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class PostFeedQueryCountTest {
+
+    private static final int POST_COUNT = 25;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostTagRepository postTagRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private final List<User> users = new ArrayList<>();
+    private final List<PostTag> tags = new ArrayList<>();
+    private final List<Post> posts = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        for (int i = 0; i < 2; i++) {
+            User user = new User();
+            user.setUsername("feedcount" + i);
+            user.setNickname("列表作者" + i);
+            user.setAvatar("avatars/feedcount" + i + ".png");
+            users.add(userRepository.save(user));
+        }
+        for (int i = 0; i < 3; i++) {
+            tags.add(postTagRepository.save(new PostTag(null, "列表标签" + i, "#00000" + i)));
+        }
+        for (int i = 0; i < POST_COUNT; i++) {
+            Post post = new Post();
+            post.setTitle("列表帖子" + i);
+            post.setContent("列表帖子内容" + i);
+            post.setState(PostState.VALID);
+            post.setAuthor(users.get(i % users.size()));
+            post.setTags(new ArrayList<>(List.of(tags.get(i % tags.size()), tags.get((i + 1) % tags.size()))));
+            post.setImageUrls(new ArrayList<>(List.of("posts/" + i + "/a.png", "posts/" + i + "/b.png")));
+            posts.add(postRepository.save(post));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        postRepository.deleteAll(posts);
+        postTagRepository.deleteAll(tags);
+        userRepository.deleteAll(users);
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void cursorFeed_shouldUseFixedStatementCount() {
+        // 预热：首次读取会加载拉黑关系图
+        postService.findAllPostsByCursor(null, 1, null);
+
+        long small = countStatements(() -> postService.findAllPostsByCursor(null, 5, null));
+        long large = countStatements(() -> {
+            CursorPageResponse<PostResponse> page = postService.findAllPostsByCursor(null, 20, null);
+            assertEquals(20, page.getContent().size());
+            PostResponse first = page.getContent().get(0);
+            assertEquals(2, first.getTags().size());
+            assertEquals(2, first.getImageUrls().size());
+            return page;
+        });
+
+        assertEquals(small, large);
+        // 公告段 + 普通帖子段 + 标签 + 图片
+        assertTrue(large <= 4, "列表页SQL语句数: " + large);
+    }
+
+    @Test
+    void tagFeed_shouldUseFixedStatementCount() {
+        List<Long> tagIds = List.of(tags.get(0).getId());
+        postService.findPostsByTags(tagIds, PageRequest.of(0, 1), null);
+
+        long small = countStatements(() -> postService.findPostsByTags(tagIds, PageRequest.of(0, 5), null));
+        long large = countStatements(() -> {
+            Page<PostResponse> page = postService.findPostsByTags(tagIds, PageRequest.of(0, 15), null);
+            assertEquals(15, page.getContent().size());
+            return page;
+        });
+
+        assertEquals(small, large);
+        // 读模型 + COUNT + 标签 + 图片
+        assertTrue(large <= 4, "列表页SQL语句数: " + large);
+    }
+
+    private long countStatements(Supplier<?> action) {
+        statistics.clear();
+        action.get();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -1,5 +1,6 @@
 package com.mentara.service;
 
+import com.mentara.config.QdrantStorageProperties;
 import com.mentara.entity.Post;
 import com.mentara.entity.User;
 import com.mentara.enums.MoodType;
@@ -44,6 +45,7 @@ class QdrantServiceTest {
         ReflectionTestUtils.setField(qdrantService, "qdrantClient", qdrantClient);
         ReflectionTestUtils.setField(qdrantService, "embeddingService", embeddingService);
         ReflectionTestUtils.setField(qdrantService, "collectionName", "post_vector");
+        ReflectionTestUtils.setField(qdrantService, "storageProperties", new QdrantStorageProperties());
     }
 
     @Test
@@ -52,7 +54,7 @@ class QdrantServiceTest {
         Post post = createTestPost(1L, "喜欢香蕉", "喜欢苹果", MoodType.HAPPY);
 
         // mock embeddingService
-        when(embeddingService.getEmbedding(anyString())).thenReturn(List.of(0.1f, 0.2f, 0.3f));
+        when(embeddingService.getEmbedding(anyString())).thenReturn(new float[]{0.1f, 0.2f, 0.3f});
 
         // 执行测试
         Long result = qdrantService.upsertPostVector(post);
@@ -80,7 +82,7 @@ class QdrantServiceTest {
     void testQueryPostVector_Success() {
         // 准备测试数据
         Post queryPost = createTestPost(3L, "心情状态", "今天心情很好", MoodType.HAPPY);
-        List<Float> mockVector = List.of(0.1f, 0.2f, 0.3f);
+        float[] mockVector = {0.1f, 0.2f, 0.3f};
         
         // 创建模拟的搜索结果
         Points.ScoredPoint mockPoint = Points.ScoredPoint.newBuilder()
@@ -106,7 +108,7 @@ class QdrantServiceTest {
     void testQueryPostVector_NoSimilarPosts() {
         // 准备测试数据
         Post queryPost = createTestPost(1L, "测试查询", "测试内容", MoodType.HAPPY);
-        List<Float> mockVector = List.of(0.1f, 0.2f, 0.3f);
+        float[] mockVector = {0.1f, 0.2f, 0.3f};
         
         // 模拟服务调用
         when(embeddingService.getEmbedding(anyString())).thenReturn(mockVector);
@@ -150,7 +152,7 @@ class QdrantServiceTest {
     void testAccurateQueryPostVector_Success() {
         // 准备测试数据
         Post queryPost = createTestPost(3L, "心情状态", "今天心情很好", MoodType.HAPPY);
-        List<Float> mockVector = List.of(0.1f, 0.2f, 0.3f);
+        float[] mockVector = {0.1f, 0.2f, 0.3f};
         
         // 创建模拟的搜索结果
         Points.ScoredPoint mockPoint = Points.ScoredPoint.newBuilder()
@@ -176,7 +178,7 @@ class QdrantServiceTest {
     void testAccurateQueryPostVector_NoResults() {
         // 准备测试数据
         Post queryPost = createTestPost(1L, "测试查询", "测试内容", MoodType.HAPPY);
-        List<Float> mockVector = List.of(0.1f, 0.2f, 0.3f);
+        float[] mockVector = {0.1f, 0.2f, 0.3f};
         
         // 模拟服务调用
         when(embeddingService.getEmbedding(anyString())).thenReturn(mockVector);
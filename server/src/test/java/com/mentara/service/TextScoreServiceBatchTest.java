@@ -0,0 +1,183 @@
+package com.mentara.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mentara.dto.response.BertBatchResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 文本打分服务批量调用的单元测试，bert微服务由模拟的WebClient代替
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+public class TextScoreServiceBatchTest {
+
+    private static final String URL = "http://bert";
+
+    @Mock private WebClient webClient;
+    @Mock private WebClient.RequestBodyUriSpec uriSpec;
+    @Mock private WebClient.RequestBodySpec bodySpec;
+    @Mock private WebClient.RequestHeadersSpec headersSpec;
+    @Mock private WebClient.ResponseSpec responseSpec;
+    @Mock private AiResultCacheService aiResultCacheService;
+
+    private TextScoreService textScoreService;
+
+    /**
+     * 按顺序记录请求的URL和请求体；批处理线程只有一个，请求依次发出
+     */
+    private final List<String> urls = Collections.synchronizedList(new ArrayList<>());
+
+    private final ThreadLocal<Map<String, Object>> lastBody = new ThreadLocal<>();
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(3);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        textScoreService = new TextScoreService(webClient);
+        ReflectionTestUtils.setField(textScoreService, "pythonServiceUrl", URL);
+        ReflectionTestUtils.setField(textScoreService, "scoreEndpoint", "/mood_score");
+        ReflectionTestUtils.setField(textScoreService, "timeout", 5000);
+        ReflectionTestUtils.setField(textScoreService, "batchMaxSize", 3);
+        // 等待足够久，保证并发提交的请求凑成一批
+        ReflectionTestUtils.setField(textScoreService, "batchMaxWaitMs", 5000L);
+        ReflectionTestUtils.setField(textScoreService, "batchQueueCapacity", 16);
+        ReflectionTestUtils.setField(textScoreService, "batchWorkers", 1);
+        ReflectionTestUtils.setField(textScoreService, "modelVersion", "v1");
+        ReflectionTestUtils.setField(textScoreService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(textScoreService, "aiResultCacheService", aiResultCacheService);
+        when(aiResultCacheService.getOrCompute(anyString(), anyString(), any(), eq(Integer.class), any(), any()))
+            .thenAnswer(invocation -> ((Supplier<Integer>) invocation.getArgument(4)).get());
+
+        when(webClient.post()).thenReturn(uriSpec);
+        when(uriSpec.uri(anyString())).thenAnswer(invocation -> {
+            urls.add(invocation.getArgument(0));
+            return bodySpec;
+        });
+        when(bodySpec.contentType(MediaType.APPLICATION_JSON)).thenReturn(bodySpec);
+        when(bodySpec.bodyValue(any())).thenAnswer(invocation -> {
+            lastBody.set(invocation.getArgument(0));
+            return headersSpec;
+        });
+        when(headersSpec.retrieve()).thenReturn(responseSpec);
+    }
+
+    @AfterEach
+    void tearDown() {
+        textScoreService.destroy();
+        callers.shutdownNow();
+    }
+
+    /**
+     * 单条接口按文本长度打分，"bad"返回错误
+     */
+    private void stubSingleScores() {
+        when(responseSpec.bodyToMono(Map.class)).thenAnswer(invocation -> {
+            String text = (String) lastBody.get().get("text");
+            return "bad".equals(text) ? Mono.error(new IllegalStateException("bert error")) : Mono.just(Map.of("label", text.length()));
+        });
+    }
+
+    private static BertBatchResponse batchOf(Integer... labels) {
+        List<BertBatchResponse.Prediction> results = new ArrayList<>();
+        for (Integer label : labels) {
+            results.add(label == null ? new BertBatchResponse.Prediction(null, null) : new BertBatchResponse.Prediction(label, 0.9));
+        }
+        return new BertBatchResponse(results, results.size(), "bert");
+    }
+
+    private List<CompletableFuture<Integer>> scoreConcurrently(String... texts) {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (String text : texts) {
+            futures.add(CompletableFuture.supplyAsync(() -> textScoreService.scoreText(text), callers));
+        }
+        return futures;
+    }
+
+    @Test
+    void requestScores_shouldReturnLabelsInResponseOrder() {
+        when(responseSpec.bodyToMono(BertBatchResponse.class)).thenReturn(Mono.just(batchOf(2, 0, 1)));
+
+        List<Integer> scores = ReflectionTestUtils.invokeMethod(textScoreService, "requestScores", List.of("a", "b", "c"));
+
+        assertEquals(List.of(2, 0, 1), scores);
+        assertEquals(List.of(URL + "/mood_score/batch"), urls);
+        assertEquals(Map.of("texts", List.of("a", "b", "c")), lastBody.get());
+    }
+
+    @Test
+    void requestScores_shouldFailBatch_whenPredictionMissingLabel() {
+        when(responseSpec.bodyToMono(BertBatchResponse.class)).thenReturn(Mono.just(batchOf(2, null)));
+
+        assertThrows(IllegalStateException.class,
+            () -> ReflectionTestUtils.invokeMethod(textScoreService, "requestScores", List.of("a", "b")));
+    }
+
+    @Test
+    void scoreText_shouldFanOutOneBatchCall_toEachCaller() {
+        ReflectionTestUtils.setField(textScoreService, "batchEnabled", true);
+        textScoreService.init();
+        // 批量接口按请求顺序返回每条文本的长度
+        when(responseSpec.bodyToMono(BertBatchResponse.class)).thenAnswer(invocation -> {
+            List<String> texts = (List<String>) lastBody.get().get("texts");
+            return Mono.just(batchOf(texts.stream().map(String::length).toArray(Integer[]::new)));
+        });
+
+        List<CompletableFuture<Integer>> futures = scoreConcurrently("a", "bb", "ccc");
+
+        assertEquals(List.of(1, 2, 3), futures.stream().map(CompletableFuture::join).toList());
+        assertEquals(List.of(URL + "/mood_score/batch"), urls);
+    }
+
+    @Test
+    void scoreText_shouldRetrySingly_whenBatchResultCountMismatches() {
+        ReflectionTestUtils.setField(textScoreService, "batchEnabled", true);
+        textScoreService.init();
+        // 批量接口少返回一条结果，整批作废后逐条调用，只有出错的那条返回null
+        when(responseSpec.bodyToMono(BertBatchResponse.class)).thenReturn(Mono.just(batchOf(1, 2)));
+        stubSingleScores();
+
+        List<CompletableFuture<Integer>> futures = scoreConcurrently("a", "bad", "ccc");
+
+        assertEquals(1, futures.get(0).join());
+        assertNull(futures.get(1).join());
+        assertEquals(3, futures.get(2).join());
+        assertEquals(1, urls.stream().filter(url -> url.endsWith("/batch")).count());
+        assertEquals(3, urls.stream().filter((URL + "/mood_score")::equals).count());
+    }
+
+    @Test
+    void bertBatchResponse_shouldKeepResultOrder_whenDeserialized() throws Exception {
+        String json = "{\"results\":[{\"label\":3,\"score\":0.8},{\"label\":1,\"score\":0.6}],\"count\":2,\"model\":\"bert\"}";
+
+        BertBatchResponse response = new ObjectMapper().readValue(json, BertBatchResponse.class);
+
+        assertEquals(List.of(3, 1), response.getResults().stream().map(BertBatchResponse.Prediction::getLabel).toList());
+        assertEquals(0.6, response.getResults().get(1).getScore());
+        assertEquals(2, response.getCount());
+        assertEquals("bert", response.getModel());
+    }
+}
@@ -0,0 +1,114 @@
+package com.mentara.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mentara.dto.response.PostAuditResponse;
+import com.mentara.entity.AiResultCacheEntry;
+import com.mentara.repository.AiResultCacheRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AiResultCacheServiceImplTest {
+    @Mock
+    private AiResultCacheRepository cacheRepository;
+    @InjectMocks
+    private AiResultCacheServiceImpl cacheService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(cacheService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(cacheService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(cacheService, "enabled", true);
+        ReflectionTestUtils.setField(cacheService, "ttlHours", 24L);
+        ReflectionTestUtils.setField(cacheService, "maxEntries", 100);
+        ReflectionTestUtils.setField(cacheService, "memoryMaxSize", 100);
+        cacheService.init();
+        when(cacheRepository.findByCacheKey(anyString())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void getOrCompute_shouldReuseResultForNormalizedDuplicateText() {
+        AtomicInteger calls = new AtomicInteger();
+
+        PostAuditResponse first = cacheService.getOrCompute("post-audit", "v1", "今天  心情 不错 ABC",
+            PostAuditResponse.class, () -> audit(calls), response -> true);
+        PostAuditResponse second = cacheService.getOrCompute("post-audit", "v1", "今天 心情 不错 ａｂｃ\n",
+            PostAuditResponse.class, () -> audit(calls), response -> true);
+
+        assertEquals(1, calls.get());
+        assertEquals(first.getAuditReason(), second.getAuditReason());
+        assertNotSame(first, second);
+        verify(cacheRepository, times(1)).save(any(AiResultCacheEntry.class));
+        assertEquals(1.0, meterRegistry.get("mentara.ai.cache.requests").tag("task", "post-audit")
+            .tag("outcome", "memory_hit").counter().count());
+    }
+
+    @Test
+    void getOrCompute_shouldMissWhenVersionChanges() {
+        AtomicInteger calls = new AtomicInteger();
+
+        cacheService.getOrCompute("post-audit", "v1", "内容", PostAuditResponse.class, () -> audit(calls), r -> true);
+        cacheService.getOrCompute("post-audit", "v2", "内容", PostAuditResponse.class, () -> audit(calls), r -> true);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void getOrCompute_shouldNotStoreUncacheableOrNullResults() {
+        cacheService.getOrCompute("mood-score", "v1", "内容", Integer.class, () -> null, score -> true);
+        cacheService.getOrCompute("post-audit", "v1", "内容", PostAuditResponse.class,
+            () -> PostAuditResponse.builder().build(), response -> response.getIsCompliant() != null);
+
+        verify(cacheRepository, never()).save(any());
+    }
+
+    @Test
+    void getOrCompute_shouldReadPersistedEntry() {
+        AiResultCacheEntry entry = new AiResultCacheEntry("key", "mood-score", "3", LocalDateTime.now().plusHours(1));
+        when(cacheRepository.findByCacheKey(AiResultCacheServiceImpl.cacheKey("mood-score", "v1", "内容")))
+            .thenReturn(Optional.of(entry));
+
+        Integer score = cacheService.getOrCompute("mood-score", "v1", "内容", Integer.class,
+            () -> fail("命中持久化缓存时不应调用模型"), s -> true);
+
+        assertEquals(3, score);
+        verify(cacheRepository, never()).save(any());
+    }
+
+    @Test
+    void evictExpired_shouldTrimToMaxEntries() {
+        when(cacheRepository.count()).thenReturn(103L);
+        when(cacheRepository.findOldestIds(any())).thenReturn(List.of(1L, 2L, 3L));
+
+        cacheService.evictExpired();
+
+        verify(cacheRepository).deleteExpired(any(LocalDateTime.class));
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(cacheRepository).findOldestIds(page.capture());
+        assertEquals(3, page.getValue().getPageSize());
+        verify(cacheRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+    }
+
+    private static PostAuditResponse audit(AtomicInteger calls) {
+        calls.incrementAndGet();
+        return PostAuditResponse.builder().isCompliant(true).needAdminCheck(false).auditReason("合规").build();
+    }
+}
@@ -7,7 +7,12 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 class OssServiceImplTest {
     @Mock
@@ -28,4 +33,29 @@ class OssServiceImplTest {
         assertTrue(result.startsWith("prefix_"));
         assertTrue(result.endsWith(".jpg"));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void generatePresignedUrls_shouldSignEachKeyOnce_andReuseCachedUrl() {
+        when(ossClient.createSignedUrl(any(), any(), anyString(), any(), any(), any(), any()))
+            .thenAnswer(invocation -> "https://signed/" + invocation.getArgument(2));
+
+        Map<String, String> urls = ossService.generatePresignedUrls(List.of("a.jpg", "b.jpg", "a.jpg"), 3600L);
+        assertEquals("https://signed/a.jpg", urls.get("a.jpg"));
+        assertEquals(2, urls.size());
+        assertEquals("https://signed/b.jpg", ossService.generatePresignedUrl("b.jpg", 3600L));
+
+        verify(ossClient, times(1)).createSignedUrl(any(), any(), eq("a.jpg"), any(), any(), any(), any());
+        verify(ossClient, times(1)).createSignedUrl(any(), any(), eq("b.jpg"), any(), any(), any(), any());
+    }
+
+    @Test
+    void generatePresignedUrl_shouldResign_whenLongerExpiryRequested() {
+        when(ossClient.createSignedUrl(any(), any(), anyString(), any(), any(), any(), any())).thenReturn("https://signed/a.jpg");
+
+        ossService.generatePresignedUrl("a.jpg", 60L);
+        ossService.generatePresignedUrl("a.jpg", 3600L);
+        ossService.generatePresignedUrl("a.jpg", 60L);
+
+        verify(ossClient, times(2)).createSignedUrl(any(), any(), eq("a.jpg"), any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,202 @@
+package com.mentara.service.impl;
+
+import com.mentara.dto.response.BertBatchResponse;
+import com.mentara.dto.response.DepressCheckResponse;
+import com.mentara.dto.response.PostAuditResponse;
+import com.mentara.dto.response.TextAnalysisResponse;
+import com.mentara.entity.Post;
+import com.mentara.enums.PostState;
+import com.mentara.repository.MoodScoreRepository;
+import com.mentara.repository.PostRepository;
+import com.mentara.service.DeepSeekService;
+import com.mentara.service.PostAuditService;
+import com.mentara.service.PostPipelineService;
+import com.mentara.service.PostService;
+import com.mentara.service.QdrantService;
+import com.mentara.service.TextAnalysisService;
+import com.mentara.service.VectorOutboxService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PostPipelineServiceImplTest {
+    @Mock
+    private PostRepository postRepository;
+    @Mock
+    private MoodScoreRepository moodScoreRepository;
+    @Mock
+    private DeepSeekService deepSeekService;
+    @Mock
+    private PostService postService;
+    @Mock
+    private PostAuditService postAuditService;
+    @Mock
+    private TextAnalysisService textAnalysisService;
+    @Mock
+    private QdrantService qdrantService;
+    @Mock
+    private VectorOutboxService vectorOutboxService;
+    @InjectMocks
+    private PostPipelineServiceImpl pipelineService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService stageExecutor = Executors.newFixedThreadPool(3);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(pipelineService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(pipelineService, "stageExecutor", stageExecutor);
+        ReflectionTestUtils.setField(pipelineService, "stageTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(pipelineService, "maxPendingMs", 3_600_000L);
+        ReflectionTestUtils.setField(pipelineService, "requeueBatchSize", 50);
+        ReflectionTestUtils.setField(pipelineService, "executor", (Executor) Runnable::run);
+        pipelineService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stageExecutor.shutdownNow();
+    }
+
+    @Test
+    void process_shouldRunStagesConcurrentlyThenWriteOnceAndReleaseVector() {
+        Post post = post(PostState.PENDING);
+        when(postRepository.findWithTagsByIdIn(List.of(1L))).thenReturn(List.of(post));
+        // 两个远程调用互相等待，串行执行时会超时
+        CountDownLatch started = new CountDownLatch(2);
+        PostAuditResponse audit = PostAuditResponse.builder().isCompliant(true).build();
+        when(postAuditService.auditPostContent(post)).thenAnswer(invocation -> awaitOthers(started, audit));
+        DepressCheckResponse depress = new DepressCheckResponse(0, 0.1);
+        TextAnalysisResponse analysis = new TextAnalysisResponse(new BertBatchResponse.Prediction(4, 0.9),
+            Map.of(TextAnalysisResponse.DEPRESSION, depress));
+        when(textAnalysisService.analyze("内容")).thenAnswer(invocation -> awaitOthers(started, analysis));
+        when(qdrantService.preparePostVector(post)).thenReturn(CompletableFuture.completedFuture(new float[]{1f}));
+
+        pipelineService.process(1L);
+
+        ArgumentCaptor<PostPipelineService.Result> result = ArgumentCaptor.forClass(PostPipelineService.Result.class);
+        InOrder order = inOrder(postService, vectorOutboxService);
+        order.verify(postService).applyPipelineResult(eq(1L), result.capture());
+        order.verify(vectorOutboxService).release(1L);
+        assertSame(audit, result.getValue().audit());
+        assertEquals(4, result.getValue().moodGrade());
+        assertSame(depress, result.getValue().depressCheck());
+        assertEquals(1, meterRegistry.get("mentara.post.pipeline.stage").tag("stage", "audit")
+            .tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void process_shouldTreatTimedOutStageAsFailed() {
+        ReflectionTestUtils.setField(pipelineService, "stageTimeoutMs", 200L);
+        Post post = post(PostState.PENDING);
+        post.setIsAnnouncement(true);
+        when(postRepository.findWithTagsByIdIn(List.of(1L))).thenReturn(List.of(post));
+        when(postAuditService.auditPostContent(post)).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return PostAuditResponse.builder().isCompliant(true).build();
+        });
+
+        pipelineService.process(1L);
+
+        ArgumentCaptor<PostPipelineService.Result> result = ArgumentCaptor.forClass(PostPipelineService.Result.class);
+        verify(postService).applyPipelineResult(eq(1L), result.capture());
+        assertNull(result.getValue().audit());
+        // 公告帖子不打分、不写向量
+        verifyNoInteractions(textAnalysisService, qdrantService, vectorOutboxService);
+    }
+
+    @Test
+    void process_shouldSkipPostsNoLongerPending() {
+        when(postRepository.findWithTagsByIdIn(List.of(1L))).thenReturn(List.of(post(PostState.VALID)));
+
+        pipelineService.process(1L);
+
+        verifyNoInteractions(postAuditService, postService, vectorOutboxService);
+    }
+
+    @Test
+    void process_shouldOnlyAuditPostsAlreadyScored() {
+        Post post = post(PostState.PENDING);
+        when(postRepository.findWithTagsByIdIn(List.of(1L))).thenReturn(List.of(post));
+        when(moodScoreRepository.existsByPostId(1L)).thenReturn(true);
+        when(postAuditService.auditPostContent(post)).thenReturn(PostAuditResponse.builder().isCompliant(true).build());
+
+        pipelineService.process(1L);
+
+        verify(postService).applyPipelineResult(eq(1L), any());
+        verifyNoInteractions(textAnalysisService, qdrantService, vectorOutboxService);
+    }
+
+    @Test
+    void requeuePending_shouldResubmitPendingPostsAndEscalateExpiredOnes() {
+        Post recent = post(PostState.PENDING);
+        recent.setCreatedAt(LocalDateTime.now().minusMinutes(5));
+        Post expired = post(PostState.PENDING);
+        expired.setId(2L);
+        expired.setCreatedAt(LocalDateTime.now().minusHours(2));
+        when(deepSeekService.isAvailable()).thenReturn(true);
+        when(postRepository.findByStateAndIsDeletedFalseAndCreatedAtBeforeOrderByCreatedAtAsc(
+            eq(PostState.PENDING), any(LocalDateTime.class), any())).thenReturn(List.of(expired, recent));
+        when(postRepository.findWithTagsByIdIn(List.of(1L))).thenReturn(List.of(recent));
+        when(moodScoreRepository.existsByPostId(1L)).thenReturn(true);
+
+        pipelineService.requeuePending();
+
+        ArgumentCaptor<PostPipelineService.Result> result = ArgumentCaptor.forClass(PostPipelineService.Result.class);
+        verify(postService).applyPipelineResult(eq(2L), result.capture());
+        assertTrue(result.getValue().audit().getNeedAdminCheck());
+        verify(postAuditService).auditPostContent(recent);
+    }
+
+    @Test
+    void requeuePending_shouldNotResubmitWhileDeepSeekUnavailable() {
+        Post recent = post(PostState.PENDING);
+        recent.setCreatedAt(LocalDateTime.now().minusMinutes(5));
+        when(deepSeekService.isAvailable()).thenReturn(false);
+        when(postRepository.findByStateAndIsDeletedFalseAndCreatedAtBeforeOrderByCreatedAtAsc(
+            eq(PostState.PENDING), any(LocalDateTime.class), any())).thenReturn(List.of(recent));
+
+        pipelineService.requeuePending();
+
+        verify(postRepository, never()).findWithTagsByIdIn(any());
+        verifyNoInteractions(postService, postAuditService);
+    }
+
+    private static <T> T awaitOthers(CountDownLatch started, T value) throws InterruptedException {
+        started.countDown();
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        return value;
+    }
+
+    private static Post post(PostState state) {
+        Post post = new Post();
+        post.setId(1L);
+        post.setContent("内容");
+        post.setState(state);
+        post.setIsDeleted(false);
+        post.setIsAnnouncement(false);
+        return post;
+    }
+}
@@ -1,24 +1,44 @@
 package com.mentara.service.impl;
 
 import com.mentara.dto.request.PostRequest;
+import com.mentara.dto.projection.PostFeedRow;
+import com.mentara.dto.response.CursorPageResponse;
+import com.mentara.dto.response.DepressCheckResponse;
+import com.mentara.dto.response.PostAuditResponse;
 import com.mentara.dto.response.PostResponse;
 import com.mentara.entity.Post;
 import com.mentara.entity.User;
+import com.mentara.entity.UserRole;
 import com.mentara.enums.PostState;
 import com.mentara.repository.*;
 import com.mentara.converter.PostConverter;
+import com.mentara.cache.CacheTagIndex;
+import com.mentara.cache.EngagementCounterBuffer;
+import com.mentara.cache.UserBlockGraph;
+import com.mentara.cache.UserLikedPostsCache;
+import com.mentara.ranking.HotRankingEngine;
+import com.mentara.search.PostLexicalIndex;
+import com.mentara.config.SearchProperties;
+import com.mentara.timeline.TimelineInboxStore;
 import com.mentara.exception.ResourceNotFoundException;
 import com.mentara.service.*;
+import com.mentara.util.PageCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationContext;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -36,12 +56,26 @@ class PostServiceImplTest {
     @Mock private FileUploadService fileUploadService;
     @Mock private MoodScoreService moodScoreService;
     @Mock private QdrantService qdrantService;
+    @Mock private VectorOutboxService vectorOutboxService;
     @Mock private PostReportAuditService postReportAuditService;
     @Mock private PostAuditService postAuditService;
+    @Mock private CacheTagIndex cacheTagIndex;
+    @Mock private UserLikedPostsCache userLikedPostsCache;
+    @Mock private EngagementCounterBuffer counterBuffer;
+    @Mock private HotRankingEngine hotRankingEngine;
+    @Mock private UserBlockGraph userBlockGraph;
+    @Mock private TimelineInboxStore timelineInboxStore;
+    @Mock private UserFollowService userFollowService;
+    @Mock private PostLexicalIndex postLexicalIndex;
+    @Mock private SearchProperties searchProperties;
+    @Mock private ApplicationContext applicationContext;
     @InjectMocks private PostServiceImpl postService;
 
     @BeforeEach
-    void setUp() { MockitoAnnotations.openMocks(this); }
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(userBlockGraph.visibilityFor(any())).thenReturn(authorId -> false);
+    }
 
     @Test
     void findById_shouldReturnPostResponse_whenValid() {
@@ -78,15 +112,173 @@ class PostServiceImplTest {
 
     @Test
     void findAllPosts_shouldReturnPage() {
-        Post post = new Post(); post.setId(1L);
-        Page<Post> postPage = new PageImpl<>(Collections.singletonList(post));
+        Page<PostFeedRow> postPage = new PageImpl<>(Collections.singletonList(cursorPost(1L, 2L)));
         PostResponse resp = new PostResponse();
-        when(postRepository.findValidPosts(any(Pageable.class))).thenReturn(postPage);
-        when(postConverter.toResponse(any(Post.class), anyBoolean())).thenReturn(resp);
+        when(postRepository.findValidFeedRows(any(Pageable.class))).thenReturn(postPage);
+        when(postConverter.toFeedResponses(anyList(), anyMap(), anyMap(), anyMap())).thenReturn(List.of(resp));
         Page<PostResponse> result = postService.findAllPosts(Pageable.unpaged(), 2L);
         assertEquals(1, result.getTotalElements());
     }
 
+    @Test
+    void findAllPosts_shouldApplyLikeStatusOnSharedPage() {
+        PostServiceImpl proxy = mock(PostServiceImpl.class);
+        PostResponse liked = PostResponse.builder().id(1L).build();
+        PostResponse other = PostResponse.builder().id(2L).build();
+        when(applicationContext.getBean(PostServiceImpl.class)).thenReturn(proxy);
+        when(proxy.findAllPostsPage(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(liked, other)));
+        when(userLikedPostsCache.likedAmong(7L, List.of(1L, 2L))).thenReturn(Set.of(1L));
+        Page<PostResponse> result = postService.findAllPosts(Pageable.unpaged(), 7L);
+        assertTrue(result.getContent().get(0).isLiked());
+        assertFalse(result.getContent().get(1).isLiked());
+        // 缓存中的共享对象不被修改
+        assertFalse(liked.isLiked());
+        assertSame(other, result.getContent().get(1));
+    }
+
+    @Test
+    void findAllPosts_shouldHideBlockedAuthors() {
+        PostServiceImpl proxy = mock(PostServiceImpl.class);
+        Pageable pageable = PageRequest.of(0, 2);
+        when(applicationContext.getBean(PostServiceImpl.class)).thenReturn(proxy);
+        when(userBlockGraph.hiddenAuthorIds(7L)).thenReturn(Set.of(10L));
+        // 数据库已排除被拉黑作者，整页仍是满的，总数也来自同一查询
+        when(postRepository.findValidFeedRowsExcludingAuthors(Set.of(10L), pageable))
+            .thenReturn(new PageImpl<>(List.of(cursorPost(3L, 20L), cursorPost(2L, 20L)), pageable, 5));
+        when(postConverter.toFeedResponses(anyList(), anyMap(), anyMap(), anyMap())).thenAnswer(invocation -> {
+            List<PostFeedRow> posts = invocation.getArgument(0);
+            return posts.stream()
+                .map(post -> PostResponse.builder().id(post.id()).authorId(post.authorId()).build())
+                .toList();
+        });
+        Page<PostResponse> result = postService.findAllPosts(pageable, 7L);
+        assertEquals(List.of(3L, 2L), result.getContent().stream().map(PostResponse::getId).toList());
+        assertEquals(5, result.getTotalElements());
+        verify(proxy, never()).findAllPostsPage(any(Pageable.class));
+    }
+
+    @Test
+    void findAllPostsByCursor_shouldSeekRegularSegment_afterAnnouncementsRunOut() {
+        PostFeedRow announcement = new PostFeedRow(9L, "title", "content", null, 0, 0, LocalDateTime.of(2024, 1, 1, 0, 0),
+            true, 20L, "nickname", null, UserRole.USER, false);
+        when(postRepository.findValidPostsByCursor(eq(true), any(), anyLong(), any(Pageable.class)))
+            .thenReturn(List.of(announcement));
+        when(postRepository.findValidPostsByCursor(eq(false), any(), anyLong(), any(Pageable.class)))
+            .thenReturn(List.of(cursorPost(5L, 20L), cursorPost(4L, 20L)));
+        when(postConverter.toFeedResponses(anyList(), anyMap(), anyMap(), anyMap())).thenAnswer(invocation -> {
+            List<PostFeedRow> posts = invocation.getArgument(0);
+            return posts.stream().map(post -> PostResponse.builder().id(post.id()).build()).toList();
+        });
+
+        CursorPageResponse<PostResponse> result = postService.findAllPostsByCursor(null, 2, null);
+
+        assertEquals(List.of(9L, 5L), result.getContent().stream().map(PostResponse::getId).toList());
+        assertTrue(result.isHasNext());
+        // 公告段只读到1条，剩余的2条从普通帖子段开头按(createdAt, id)定位读取
+        verify(postRepository).findValidPostsByCursor(eq(true), eq(PageCursor.MAX_TIME), eq(Long.MAX_VALUE),
+            argThat(pageable -> pageable.getPageSize() == 3));
+        verify(postRepository).findValidPostsByCursor(eq(false), eq(PageCursor.MAX_TIME), eq(Long.MAX_VALUE),
+            argThat(pageable -> pageable.getPageSize() == 2));
+    }
+
+    @Test
+    void findAllPostsByCursor_shouldRefillPage_whenAuthorsBlocked() {
+        when(userBlockGraph.visibilityFor(7L)).thenReturn(authorId -> authorId == 10L);
+        when(postRepository.findValidPostsByCursor(anyBoolean(), any(), anyLong(), any(Pageable.class)))
+            .thenReturn(List.of(cursorPost(5L, 10L), cursorPost(4L, 10L), cursorPost(3L, 20L)))
+            .thenReturn(List.of(cursorPost(2L, 20L), cursorPost(1L, 20L)));
+        when(postConverter.toFeedResponses(anyList(), anyMap(), anyMap(), anyMap())).thenAnswer(invocation -> {
+            List<PostFeedRow> posts = invocation.getArgument(0);
+            return posts.stream()
+                .map(post -> PostResponse.builder().id(post.id()).authorId(post.authorId()).build())
+                .toList();
+        });
+        CursorPageResponse<PostResponse> result = postService.findAllPostsByCursor(null, 2, 7L);
+        assertEquals(List.of(3L, 2L), result.getContent().stream().map(PostResponse::getId).toList());
+        assertTrue(result.isHasNext());
+        verify(postRepository, times(2)).findValidPostsByCursor(anyBoolean(), any(), anyLong(), any(Pageable.class));
+        // 标签和图片按整页帖子ID各查询一次
+        verify(postRepository, times(1)).findFeedTagsByPostIds(List.of(3L, 2L));
+        verify(postRepository, times(1)).findFeedImagesByPostIds(List.of(3L, 2L));
+    }
+
+    @Test
+    void searchPosts_shouldFuseLexicalAndVectorResults() {
+        when(searchProperties.isHybridEnabled()).thenReturn(true);
+        when(searchProperties.getRrfK()).thenReturn(60);
+        when(searchProperties.getMaxFusionDepth()).thenReturn(200);
+        when(postLexicalIndex.search(eq("cs101"), any(), eq(200))).thenReturn(List.of(9L));
+        when(qdrantService.searchPostIds(eq("cs101"), any(), eq(0), eq(200))).thenReturn(List.of(4L, 9L, 5L));
+        when(postRepository.findValidFeedRowsByIds(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> cursorPost(id, 20L)).toList();
+        });
+        when(postConverter.toFeedResponses(anyList(), anyMap(), anyMap(), anyMap())).thenAnswer(invocation -> {
+            List<PostFeedRow> posts = invocation.getArgument(0);
+            return posts.stream().map(post -> PostResponse.builder().id(post.id()).build()).toList();
+        });
+
+        Page<PostResponse> result = postService.searchPosts("cs101", PageRequest.of(0, 2), null);
+
+        // 两路都命中的帖子排在最前
+        assertEquals(List.of(9L, 4L), result.getContent().stream().map(PostResponse::getId).toList());
+        assertFalse(result.isLast());
+    }
+
+    @Test
+    void searchPosts_shouldSliceLaterPagesFromSameFusedList() {
+        when(searchProperties.isHybridEnabled()).thenReturn(true);
+        when(searchProperties.getRrfK()).thenReturn(60);
+        when(searchProperties.getMaxFusionDepth()).thenReturn(200);
+        when(postLexicalIndex.search(eq("cs101"), any(), eq(200))).thenReturn(List.of(9L, 7L));
+        when(qdrantService.searchPostIds(eq("cs101"), any(), eq(0), eq(200))).thenReturn(List.of(4L, 9L, 5L));
+        when(postRepository.findValidFeedRowsByIds(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> cursorPost(id, 20L)).toList();
+        });
+        when(postConverter.toFeedResponses(anyList(), anyMap(), anyMap(), anyMap())).thenAnswer(invocation -> {
+            List<PostFeedRow> posts = invocation.getArgument(0);
+            return posts.stream().map(post -> PostResponse.builder().id(post.id()).build()).toList();
+        });
+
+        Page<PostResponse> first = postService.searchPosts("cs101", PageRequest.of(0, 2), null);
+        Page<PostResponse> second = postService.searchPosts("CS101 ", PageRequest.of(1, 2), null);
+        Page<PostResponse> third = postService.searchPosts("cs101", PageRequest.of(2, 2), null);
+
+        // 融合结果 9, 4, 7, 5：各页连续截取，翻过末尾为空，不回退到向量检索的分页
+        assertEquals(List.of(9L, 4L), first.getContent().stream().map(PostResponse::getId).toList());
+        assertEquals(List.of(7L, 5L), second.getContent().stream().map(PostResponse::getId).toList());
+        assertTrue(second.isLast());
+        assertTrue(third.getContent().isEmpty());
+        verify(postLexicalIndex, times(1)).search(any(), any(), anyInt());
+        verify(qdrantService, times(1)).searchPostIds(any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void findRelatedPosts_shouldSkipSourceAndBlockedAuthors() {
+        PostServiceImpl proxy = mock(PostServiceImpl.class);
+        when(applicationContext.getBean(PostServiceImpl.class)).thenReturn(proxy);
+        when(userBlockGraph.visibilityFor(7L)).thenReturn(authorId -> authorId == 10L);
+        when(qdrantService.findRelatedPostIds(eq(1L), anyInt())).thenReturn(List.of(5L, 1L, 4L, 3L, 2L));
+        when(postRepository.findValidFeedRowsByIds(anyList())).thenReturn(List.of(
+            cursorPost(2L, 20L), cursorPost(3L, 20L), cursorPost(4L, 10L), cursorPost(1L, 20L), cursorPost(5L, 20L)));
+        when(postConverter.toFeedResponses(anyList(), anyMap(), anyMap(), anyMap())).thenAnswer(invocation -> {
+            List<PostFeedRow> posts = invocation.getArgument(0);
+            return posts.stream().map(post -> PostResponse.builder().id(post.id()).build()).toList();
+        });
+
+        List<PostResponse> result = postService.findRelatedPosts(1L, 2, 7L);
+
+        // 按相似度顺序，跳过帖子本身和被拉黑作者的帖子
+        assertEquals(List.of(5L, 3L), result.stream().map(PostResponse::getId).toList());
+        verify(proxy).findById(1L, null);
+    }
+
+    private static PostFeedRow cursorPost(Long id, Long authorId) {
+        return new PostFeedRow(id, "title", "content", null, 0, 0, LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(id),
+            false, authorId, "nickname", null, UserRole.USER, false);
+    }
+
     @Test
     void createPostForUser_shouldReturnResponse() {
         PostRequest req = new PostRequest();
@@ -132,6 +324,82 @@ class PostServiceImplTest {
         assertTrue(post.getIsDeleted());
     }
 
+    @Test
+    void deletePost_shouldEnqueueVectorDeleteInsteadOfCallingQdrant() {
+        User user = new User(); user.setId(2L);
+        Post post = new Post(); post.setId(1L); post.setIsDeleted(false); post.setState(PostState.VALID);
+        post.setAuthor(user); post.setImageUrls(new ArrayList<>());
+        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+        when(userService.findById(2L)).thenReturn(Optional.of(user));
+
+        postService.deletePost(1L, 2L);
+
+        assertTrue(post.getIsDeleted());
+        verify(vectorOutboxService).enqueueDelete(1L);
+        verifyNoInteractions(qdrantService);
+        verify(hotRankingEngine).remove(1L);
+    }
+
+    @Test
+    void rejectPost_shouldRemovePostFromHotRanking() {
+        User user = new User(); user.setId(2L);
+        Post post = new Post(); post.setId(1L); post.setIsDeleted(false); post.setState(PostState.VALID);
+        post.setAuthor(user); post.setTags(new ArrayList<>());
+        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+
+        postService.rejectPost(1L);
+
+        assertEquals(PostState.INVALID, post.getState());
+        verify(hotRankingEngine).remove(1L);
+    }
+
+    @Test
+    void applyPipelineResult_shouldSaveMoodScoreAndAuditStateInOneWrite() {
+        User user = new User(); user.setId(2L);
+        Post post = new Post(); post.setId(1L); post.setIsDeleted(false); post.setState(PostState.PENDING);
+        post.setIsAnnouncement(false); post.setAuthor(user); post.setTags(new ArrayList<>());
+        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+        DepressCheckResponse depress = new DepressCheckResponse(0, 0.2);
+        PostAuditResponse audit = PostAuditResponse.builder().isCompliant(false).needAdminCheck(true).build();
+
+        postService.applyPipelineResult(1L, new PostPipelineService.Result(audit, 3, depress));
+
+        verify(moodScoreService).saveMoodScoreForPost(post, 3, depress);
+        verify(postRepository, times(1)).save(post);
+        assertEquals(PostState.WAITING, post.getState());
+        assertEquals(0, post.getReportCount());
+        verify(hotRankingEngine).remove(1L);
+    }
+
+    @Test
+    void applyPipelineResult_shouldKeepPostPendingWhenAuditDeferred() {
+        User user = new User(); user.setId(2L);
+        Post post = new Post(); post.setId(1L); post.setIsDeleted(false); post.setState(PostState.PENDING);
+        post.setIsAnnouncement(false); post.setAuthor(user);
+        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+
+        postService.applyPipelineResult(1L, new PostPipelineService.Result(null, null, null));
+
+        assertEquals(PostState.PENDING, post.getState());
+        verify(postRepository, never()).save(any());
+        verifyNoInteractions(moodScoreService);
+    }
+
+    @Test
+    void applyPipelineResult_shouldKeepStateChangedDuringProcessing() {
+        User user = new User(); user.setId(2L);
+        Post post = new Post(); post.setId(1L); post.setIsDeleted(false); post.setState(PostState.INVALID);
+        post.setIsAnnouncement(false); post.setAuthor(user);
+        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+
+        postService.applyPipelineResult(1L, new PostPipelineService.Result(
+            PostAuditResponse.builder().isCompliant(true).build(), 4, null));
+
+        assertEquals(PostState.INVALID, post.getState());
+        verify(postRepository, never()).save(any());
+        verifyNoInteractions(timelineInboxStore);
+    }
+
     @Test
     void reportPost_shouldSaveReport() {
         Post post = new Post(); post.setId(1L);
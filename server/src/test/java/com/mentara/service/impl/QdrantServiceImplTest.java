@@ -3,15 +3,27 @@ package com.mentara.service.impl;
 import com.mentara.service.EmbeddingService;
 import io.qdrant.client.QdrantClient;
 import io.qdrant.client.grpc.Points;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.mentara.config.QdrantStorageProperties;
+import com.mentara.entity.Post;
+import com.mentara.enums.MoodType;
+import com.mentara.enums.PostState;
+import com.mentara.search.LocalVectorIndex;
+import com.mentara.service.QdrantService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import static org.junit.jupiter.api.Assertions.*;
+import static io.qdrant.client.PointIdFactory.id;
 import static org.mockito.Mockito.*;
 
 class QdrantServiceImplTest {
@@ -19,18 +31,23 @@ class QdrantServiceImplTest {
     private QdrantClient qdrantClient;
     @Mock
     private EmbeddingService embeddingService;
+    @Mock
+    private LocalVectorIndex localVectorIndex;
     @InjectMocks
     private QdrantServiceImpl qdrantService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(qdrantService, "collectionName", "post_vector");
+        ReflectionTestUtils.setField(qdrantService, "qdrantEnabled", true);
+        ReflectionTestUtils.setField(qdrantService, "storageProperties", new QdrantStorageProperties());
     }
 
     @Test
     void queryPostVector_shouldReturnList() throws Exception {
         String keyword = "test";
-        List<Float> vector = List.of(0.1f, 0.2f, 0.3f);
+        float[] vector = {0.1f, 0.2f, 0.3f};
         List<Points.ScoredPoint> points = Collections.singletonList(mock(Points.ScoredPoint.class));
         when(embeddingService.getEmbedding(keyword)).thenReturn(vector);
         @SuppressWarnings("unchecked")
@@ -42,4 +59,184 @@ class QdrantServiceImplTest {
         verify(embeddingService, times(1)).getEmbedding(keyword);
         verify(qdrantClient, times(1)).queryAsync(any(Points.QueryPoints.class));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void queryPostVector_shouldReuseCachedQueryEmbedding() throws Exception {
+        when(embeddingService.getEmbedding("焦虑")).thenReturn(new float[]{0.1f, 0.2f, 0.3f});
+        when(qdrantClient.queryAsync(any(Points.QueryPoints.class)))
+            .thenAnswer(invocation -> Futures.immediateFuture(List.<Points.ScoredPoint>of()));
+
+        qdrantService.queryPostVector("焦虑");
+        qdrantService.queryPostVector(" 焦虑　");
+
+        verify(embeddingService, times(1)).getEmbedding("焦虑");
+        verify(qdrantClient, times(2)).queryAsync(any(Points.QueryPoints.class));
+    }
+
+    @Test
+    void searchPostIds_shouldCacheUntilCollectionChanges() throws Exception {
+        when(embeddingService.getEmbedding(anyString())).thenReturn(new float[]{0.1f, 0.2f, 0.3f});
+        List<Points.ScoredPoint> points = List.of(
+            Points.ScoredPoint.newBuilder().setId(id(3L)).build(),
+            Points.ScoredPoint.newBuilder().setId(id(1L)).build());
+        when(qdrantClient.queryAsync(any(Points.QueryPoints.class)))
+            .thenAnswer(invocation -> Futures.immediateFuture(points));
+
+        assertEquals(List.of(3L, 1L), qdrantService.searchPostIds("考试", QdrantService.SearchFilter.none(), 0, 10));
+        assertEquals(List.of(3L, 1L), qdrantService.searchPostIds("考试", QdrantService.SearchFilter.none(), 0, 10));
+        verify(qdrantClient, times(1)).queryAsync(any(Points.QueryPoints.class));
+
+        Post post = new Post();
+        post.setId(5L);
+        when(qdrantClient.deleteAsync(anyString(), anyList())).thenReturn(Futures.immediateFuture(null));
+        qdrantService.deletePostVector(post);
+
+        assertEquals(List.of(3L, 1L), qdrantService.searchPostIds("考试", QdrantService.SearchFilter.none(), 0, 10));
+        verify(qdrantClient, times(2)).queryAsync(any(Points.QueryPoints.class));
+    }
+
+    @Test
+    void searchPostIds_shouldKeepCacheAcrossUpsertsAndVisiblePayloadChanges() throws Exception {
+        when(embeddingService.getEmbedding(anyString())).thenReturn(new float[]{0.1f, 0.2f, 0.3f});
+        when(qdrantClient.queryAsync(any(Points.QueryPoints.class))).thenAnswer(invocation -> Futures.immediateFuture(
+            List.of(Points.ScoredPoint.newBuilder().setId(id(3L)).build())));
+        when(embeddingService.getEmbeddingAsync(anyString()))
+            .thenReturn(CompletableFuture.completedFuture(new float[]{0.1f, 0.2f, 0.3f}));
+        when(qdrantClient.upsertAsync(anyString(), anyList())).thenReturn(Futures.immediateFuture(null));
+        when(qdrantClient.setPayloadAsync(anyString(), anyMap(), any(Points.PointId.class), anyBoolean(), any(), any()))
+            .thenReturn(Futures.immediateFuture(null));
+        Post post = new Post();
+        post.setId(5L);
+        post.setState(PostState.VALID);
+        post.setIsDeleted(false);
+
+        qdrantService.searchPostIds("考试", QdrantService.SearchFilter.none(), 0, 10);
+        qdrantService.upsertPostVectors(List.of(post));
+        qdrantService.updatePostPayload(post);
+        qdrantService.searchPostIds("考试", QdrantService.SearchFilter.none(), 0, 10);
+        verify(qdrantClient, times(1)).queryAsync(any(Points.QueryPoints.class));
+
+        // 帖子下架后旧结果可能包含它，重新查询
+        post.setState(PostState.INVALID);
+        qdrantService.updatePostPayload(post);
+        qdrantService.searchPostIds("考试", QdrantService.SearchFilter.none(), 0, 10);
+        verify(qdrantClient, times(2)).queryAsync(any(Points.QueryPoints.class));
+    }
+
+    @Test
+    void searchPostIds_shouldRescoreQuantizedCandidatesWhenQuantized() throws Exception {
+        QdrantStorageProperties storage = new QdrantStorageProperties();
+        storage.setQuantization(QdrantStorageProperties.Quantization.PRODUCT);
+        storage.setOversampling(3.0);
+        ReflectionTestUtils.setField(qdrantService, "storageProperties", storage);
+        when(embeddingService.getEmbedding(anyString())).thenReturn(new float[]{0.1f, 0.2f, 0.3f});
+        when(qdrantClient.queryAsync(any(Points.QueryPoints.class)))
+            .thenAnswer(invocation -> Futures.immediateFuture(List.<Points.ScoredPoint>of()));
+
+        qdrantService.searchPostIds("考试", QdrantService.SearchFilter.none(), 0, 10);
+
+        ArgumentCaptor<Points.QueryPoints> captor = ArgumentCaptor.forClass(Points.QueryPoints.class);
+        verify(qdrantClient).queryAsync(captor.capture());
+        Points.QuantizationSearchParams quantization = captor.getValue().getParams().getQuantization();
+        assertTrue(quantization.getRescore());
+        assertEquals(3.0, quantization.getOversampling());
+    }
+
+    @Test
+    void searchPostIds_shouldPushFilterAndPaginationIntoQuery() throws Exception {
+        when(embeddingService.getEmbedding(anyString())).thenReturn(new float[]{0.1f, 0.2f, 0.3f});
+        when(qdrantClient.queryAsync(any(Points.QueryPoints.class)))
+            .thenAnswer(invocation -> Futures.immediateFuture(List.<Points.ScoredPoint>of()));
+
+        QdrantService.SearchFilter filter = new QdrantService.SearchFilter(
+            MoodType.ANXIOUS, List.of(7L, 8L), null, Set.of(42L));
+        qdrantService.searchPostIds("考试", filter, 40, 21);
+
+        ArgumentCaptor<Points.QueryPoints> captor = ArgumentCaptor.forClass(Points.QueryPoints.class);
+        verify(qdrantClient).queryAsync(captor.capture());
+        Points.QueryPoints request = captor.getValue();
+        assertEquals(40, request.getOffset());
+        assertEquals(21, request.getLimit());
+        // 状态、未删除、心情、两个标签
+        assertEquals(5, request.getFilter().getMustCount());
+        assertEquals(1, request.getFilter().getMustNotCount());
+        assertEquals(QdrantService.PAYLOAD_AUTHOR_ID, request.getFilter().getMustNot(0).getField().getKey());
+    }
+
+    @Test
+    void searchPostIds_shouldFallBackToLocalIndexWhenQdrantUnavailable() throws Exception {
+        when(embeddingService.getEmbedding(anyString())).thenReturn(new float[]{0.1f, 0.2f, 0.3f});
+        when(qdrantClient.queryAsync(any(Points.QueryPoints.class)))
+            .thenReturn(Futures.immediateFailedFuture(new RuntimeException("UNAVAILABLE")));
+        when(localVectorIndex.search(any(float[].class), any(QdrantService.SearchFilter.class), eq(0), eq(10)))
+            .thenReturn(List.of(8L, 2L));
+
+        assertEquals(List.of(8L, 2L), qdrantService.searchPostIds("考试", QdrantService.SearchFilter.none(), 0, 10));
+        // 本地结果不缓存，下次仍先查Qdrant
+        qdrantService.searchPostIds("考试", QdrantService.SearchFilter.none(), 0, 10);
+        verify(qdrantClient, times(2)).queryAsync(any(Points.QueryPoints.class));
+    }
+
+    @Test
+    void qdrantDisabled_shouldOnlyUseLocalIndex() {
+        ReflectionTestUtils.setField(qdrantService, "qdrantEnabled", false);
+        float[] vector = {0.1f, 0.2f, 0.3f};
+        when(embeddingService.getEmbedding(anyString())).thenReturn(vector);
+        when(localVectorIndex.search(any(float[].class), any(QdrantService.SearchFilter.class), eq(0), eq(10)))
+            .thenReturn(List.of(5L));
+        Post post = new Post();
+        post.setId(5L);
+        post.setTitle("期末");
+
+        qdrantService.upsertPostVector(post);
+        assertEquals(List.of(5L), qdrantService.searchPostIds("期末", QdrantService.SearchFilter.none(), 0, 10));
+        qdrantService.deletePostVector(post);
+
+        verify(localVectorIndex).upsert(post, vector);
+        verify(localVectorIndex).remove(5L);
+        verifyNoInteractions(qdrantClient);
+    }
+
+    @Test
+    void findRelatedPostIds_shouldRecommendByPointIdAndCacheUntilDeleted() throws Exception {
+        List<Points.ScoredPoint> points = List.of(
+            Points.ScoredPoint.newBuilder().setId(id(7L)).build(),
+            Points.ScoredPoint.newBuilder().setId(id(9L)).build());
+        when(qdrantClient.queryAsync(any(Points.QueryPoints.class)))
+            .thenAnswer(invocation -> Futures.immediateFuture(points));
+        when(qdrantClient.deleteAsync(anyString(), anyList())).thenReturn(Futures.immediateFuture(null));
+
+        assertEquals(List.of(7L, 9L), qdrantService.findRelatedPostIds(3L, 2));
+        assertEquals(List.of(7L), qdrantService.findRelatedPostIds(3L, 1));
+
+        ArgumentCaptor<Points.QueryPoints> captor = ArgumentCaptor.forClass(Points.QueryPoints.class);
+        verify(qdrantClient, times(1)).queryAsync(captor.capture());
+        Points.QueryPoints request = captor.getValue();
+        // 按已存储的向量推荐，不重新向量化，并排除帖子本身
+        assertEquals(3L, request.getQuery().getRecommend().getPositive(0).getId().getNum());
+        assertTrue(request.getFilter().getMustNotList().stream().anyMatch(Points.Condition::hasHasId));
+        verifyNoInteractions(embeddingService);
+
+        Post post = new Post();
+        post.setId(3L);
+        qdrantService.deletePostVector(post);
+        qdrantService.findRelatedPostIds(3L, 2);
+        verify(qdrantClient, times(2)).queryAsync(any(Points.QueryPoints.class));
+    }
+
+    @Test
+    void findRelatedPostIds_shouldReuseShortResultOnlyWhenItIsComplete() throws Exception {
+        when(qdrantClient.queryAsync(any(Points.QueryPoints.class))).thenAnswer(invocation -> Futures.immediateFuture(
+            List.of(Points.ScoredPoint.newBuilder().setId(id(7L)).build())));
+
+        // 请求5条只有1条：相关帖子只有这些，更大的请求同样使用缓存
+        assertEquals(List.of(7L), qdrantService.findRelatedPostIds(3L, 5));
+        assertEquals(List.of(7L), qdrantService.findRelatedPostIds(3L, 10));
+        verify(qdrantClient, times(1)).queryAsync(any(Points.QueryPoints.class));
+
+        // 请求1条得到1条：结果可能不全，请求更多时重新查询
+        assertEquals(List.of(7L), qdrantService.findRelatedPostIds(4L, 1));
+        qdrantService.findRelatedPostIds(4L, 3);
+        verify(qdrantClient, times(3)).queryAsync(any(Points.QueryPoints.class));
+    }
+}
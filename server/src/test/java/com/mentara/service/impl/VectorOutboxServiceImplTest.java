@@ -0,0 +1,166 @@
+package com.mentara.service.impl;
+
+import com.mentara.entity.Post;
+import com.mentara.entity.VectorOutboxEvent;
+import com.mentara.enums.PostState;
+import com.mentara.repository.PostRepository;
+import com.mentara.repository.VectorOutboxRepository;
+import com.mentara.service.QdrantService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VectorOutboxServiceImplTest {
+    @Mock
+    private VectorOutboxRepository outboxRepository;
+    @Mock
+    private PostRepository postRepository;
+    @Mock
+    private QdrantService qdrantService;
+    @InjectMocks
+    private VectorOutboxServiceImpl outboxService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(outboxService, "batchSize", 10);
+        ReflectionTestUtils.setField(outboxService, "initialBackoffMs", 1000L);
+        ReflectionTestUtils.setField(outboxService, "maxBackoffMs", 4000L);
+        ReflectionTestUtils.setField(outboxService, "maxAttempts", 5);
+        ReflectionTestUtils.setField(outboxService, "meterRegistry", meterRegistry);
+        outboxService.init();
+    }
+
+    @Test
+    void drain_shouldApplyLatestOperationPerPostInOneBatch() {
+        // 帖子1先写入后删除，只执行删除；帖子2写入两次，只向量化一次；帖子3已不存在，改为删除
+        stubEvents(event(1L, 1L, VectorOutboxEvent.Operation.UPSERT),
+            event(2L, 2L, VectorOutboxEvent.Operation.UPSERT),
+            event(3L, 1L, VectorOutboxEvent.Operation.DELETE),
+            event(4L, 2L, VectorOutboxEvent.Operation.UPSERT),
+            event(5L, 3L, VectorOutboxEvent.Operation.UPSERT));
+        Post post = post(2L, PostState.VALID);
+        when(postRepository.findWithTagsByIdIn(anyCollection())).thenReturn(List.of(post));
+        when(qdrantService.upsertPostVectors(anyList())).thenReturn(List.of(2L));
+
+        assertEquals(5, outboxService.drain());
+
+        verify(postRepository).findWithTagsByIdIn(List.of(2L, 3L));
+        verify(qdrantService).upsertPostVectors(List.of(post));
+        verify(qdrantService).deletePostVectors(List.of(1L, 3L));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L, 4L, 5L));
+        verify(outboxRepository, never()).saveAll(anyList());
+        verify(qdrantService, never()).updatePostPayload(any());
+        assertEquals(5.0, meterRegistry.get("mentara.vector.outbox.events").tag("outcome", "applied").counter().count());
+    }
+
+    @Test
+    void drain_shouldBackOffFailedEventsAndKeepSucceededOnesDeleted() {
+        VectorOutboxEvent upsert = event(1L, 1L, VectorOutboxEvent.Operation.UPSERT);
+        VectorOutboxEvent delete = event(2L, 2L, VectorOutboxEvent.Operation.DELETE);
+        upsert.setAttempts(2);
+        stubEvents(upsert, delete);
+        when(postRepository.findWithTagsByIdIn(anyCollection())).thenReturn(List.of(post(1L, PostState.PENDING)));
+        when(qdrantService.upsertPostVectors(anyList())).thenThrow(new RuntimeException("写入帖子向量失败: UNAVAILABLE"));
+        LocalDateTime before = LocalDateTime.now();
+
+        outboxService.drain();
+
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(2L));
+        ArgumentCaptor<List<VectorOutboxEvent>> retried = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).saveAll(retried.capture());
+        assertEquals(List.of(upsert), retried.getValue());
+        assertEquals(3, upsert.getAttempts());
+        assertEquals("写入帖子向量失败: UNAVAILABLE", upsert.getLastError());
+        // 第三次失败退避4秒（1s、2s、4s，封顶4s）
+        assertFalse(upsert.getNextAttemptAt().isBefore(before.plusSeconds(4)));
+        assertTrue(upsert.getNextAttemptAt().isBefore(before.plusSeconds(5)));
+    }
+
+    @Test
+    void drain_shouldMarkEventFailed_whenAttemptsExhausted() {
+        VectorOutboxEvent delete = event(1L, 1L, VectorOutboxEvent.Operation.DELETE);
+        delete.setAttempts(4);
+        LocalDateTime nextAttemptAt = delete.getNextAttemptAt();
+        stubEvents(delete);
+        doThrow(new RuntimeException("UNAVAILABLE")).when(qdrantService).deletePostVectors(any(Collection.class));
+
+        outboxService.drain();
+
+        // 第五次失败后不再退避重试，保留为FAILED
+        assertEquals(VectorOutboxEvent.Status.FAILED, delete.getStatus());
+        assertEquals(5, delete.getAttempts());
+        assertEquals(nextAttemptAt, delete.getNextAttemptAt());
+        assertEquals("UNAVAILABLE", delete.getLastError());
+        verify(outboxRepository).saveAll(List.of(delete));
+        verify(outboxRepository, never()).deleteAllByIdInBatch(anyList());
+        assertEquals(1.0, meterRegistry.get("mentara.vector.outbox.events").tag("outcome", "failed").counter().count());
+        assertEquals(0.0, meterRegistry.get("mentara.vector.outbox.events").tag("outcome", "retried").counter().count());
+    }
+
+    @Test
+    void drain_shouldCorrectPayloadWhenStateChangedDuringUpsert() {
+        stubEvents(event(1L, 1L, VectorOutboxEvent.Operation.UPSERT));
+        Post current = post(1L, PostState.VALID);
+        when(postRepository.findWithTagsByIdIn(anyCollection()))
+            .thenReturn(List.of(post(1L, PostState.PENDING)))
+            .thenReturn(List.of(current));
+        when(qdrantService.upsertPostVectors(anyList())).thenReturn(List.of(1L));
+
+        outboxService.drain();
+
+        verify(qdrantService).updatePostPayload(current);
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    @Test
+    void drain_shouldReportLag() {
+        stubEvents(event(1L, 1L, VectorOutboxEvent.Operation.DELETE));
+        doThrow(new RuntimeException("UNAVAILABLE")).when(qdrantService).deletePostVectors(any(Collection.class));
+        when(outboxRepository.countByStatus(VectorOutboxEvent.Status.PENDING)).thenReturn(1L);
+        when(outboxRepository.findOldestCreatedAt()).thenReturn(LocalDateTime.now().minusSeconds(30));
+
+        outboxService.drain();
+
+        assertEquals(1.0, meterRegistry.get("mentara.vector.outbox.pending").gauge().value());
+        assertTrue(meterRegistry.get("mentara.vector.outbox.lag").gauge().value() >= 30);
+    }
+
+    private void stubEvents(VectorOutboxEvent... events) {
+        when(outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+            eq(VectorOutboxEvent.Status.PENDING), any(), any()))
+            .thenReturn(new ArrayList<>(List.of(events)));
+    }
+
+    private static VectorOutboxEvent event(Long id, Long postId, VectorOutboxEvent.Operation operation) {
+        VectorOutboxEvent event = new VectorOutboxEvent(postId, operation);
+        event.setId(id);
+        event.setCreatedAt(LocalDateTime.now());
+        event.setNextAttemptAt(event.getCreatedAt());
+        return event;
+    }
+
+    private static Post post(Long id, PostState state) {
+        Post post = new Post();
+        post.setId(id);
+        post.setState(state);
+        post.setIsDeleted(false);
+        return post;
+    }
+}
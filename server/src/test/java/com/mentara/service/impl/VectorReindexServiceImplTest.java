@@ -0,0 +1,325 @@
+package com.mentara.service.impl;
+
+import com.google.common.util.concurrent.Futures;
+import com.mentara.config.QdrantConfig;
+import com.mentara.config.QdrantStorageProperties;
+import com.mentara.dto.response.VectorReindexJobResponse;
+import com.mentara.dto.response.VectorStorageResponse;
+import com.mentara.entity.Post;
+import com.mentara.entity.User;
+import com.mentara.entity.VectorReindexJob;
+import com.mentara.enums.PostState;
+import com.mentara.repository.PostRepository;
+import com.mentara.repository.VectorReindexJobRepository;
+import com.mentara.search.LocalVectorIndex;
+import com.mentara.service.EmbeddingService;
+import com.mentara.service.QdrantService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.Points;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.qdrant.client.PointIdFactory.id;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VectorReindexServiceImplTest {
+    @Mock
+    private QdrantClient qdrantClient;
+    @Mock
+    private QdrantService qdrantService;
+    @Mock
+    private EmbeddingService embeddingService;
+    @Mock
+    private PostRepository postRepository;
+    @Mock
+    private VectorReindexJobRepository jobRepository;
+    @Mock
+    private LocalVectorIndex localVectorIndex;
+    @InjectMocks
+    private VectorReindexServiceImpl reindexService;
+
+    private final AtomicReference<VectorReindexJob> savedJob = new AtomicReference<>();
+
+    private final Set<Long> deletedPosts = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(reindexService, "collectionName", "post_vector");
+        ReflectionTestUtils.setField(reindexService, "batchSize", 2);
+        ReflectionTestUtils.setField(reindexService, "maxInFlight", 2);
+        ReflectionTestUtils.setField(reindexService, "dropPrevious", true);
+        ReflectionTestUtils.setField(reindexService, "qdrantEnabled", true);
+        ReflectionTestUtils.setField(reindexService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(reindexService, "storageProperties", new QdrantStorageProperties());
+        // 在调用线程上同步执行任务
+        ReflectionTestUtils.setField(reindexService, "executor", (Executor) Runnable::run);
+        reindexService.init();
+
+        when(jobRepository.save(any(VectorReindexJob.class))).thenAnswer(invocation -> {
+            VectorReindexJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(1L);
+            }
+            savedJob.set(job);
+            return job;
+        });
+        when(jobRepository.findById(1L)).thenAnswer(invocation -> Optional.ofNullable(savedJob.get()));
+        when(embeddingService.getEmbeddingAsync(anyString()))
+            .thenReturn(CompletableFuture.completedFuture(new float[]{0.1f, 0.2f, 0.3f}));
+        when(qdrantClient.upsertAsync(anyString(), anyList())).thenReturn(Futures.immediateFuture(null));
+        stubPosts(List.of(1L, 2L), List.of(3L));
+        when(postRepository.findValidPostIdsIn(anyCollection())).thenAnswer(invocation -> {
+            List<Long> valid = new ArrayList<>();
+            for (Object id : (java.util.Collection<?>) invocation.getArgument(0)) {
+                if (!deletedPosts.contains(id)) {
+                    valid.add((Long) id);
+                }
+            }
+            return valid;
+        });
+    }
+
+    @Test
+    void startReindex_shouldStreamInKeysetOrderAndSwapAlias() throws Exception {
+        when(postRepository.countByStateAndIsDeletedFalse(PostState.VALID)).thenReturn(3L);
+        when(qdrantClient.createCollectionAsync(anyString(), any(Collections.VectorParams.class)))
+            .thenReturn(Futures.immediateFuture(null));
+        when(qdrantClient.listAliasesAsync()).thenReturn(Futures.immediateFuture(List.of(
+            Collections.AliasDescription.newBuilder().setAliasName("post_vector").setCollectionName("post_vector_old").build())));
+        when(qdrantClient.updateAliasesAsync(anyList())).thenReturn(Futures.immediateFuture(null));
+        when(qdrantClient.deleteCollectionAsync(anyString())).thenReturn(Futures.immediateFuture(null));
+
+        VectorReindexJobResponse response = reindexService.startReindex(true);
+        String target = response.getTargetCollection();
+        assertTrue(target.startsWith("post_vector_"));
+
+        VectorReindexJob job = savedJob.get();
+        assertEquals(VectorReindexJob.Status.COMPLETED, job.getStatus());
+        assertEquals(3L, job.getLastPostId());
+        assertEquals(3L, job.getIndexedCount());
+        assertEquals(0L, job.getFailedCount());
+
+        verify(postRepository).findValidPostIdsAfter(eq(0L), any(Pageable.class));
+        verify(postRepository).findValidPostIdsAfter(eq(2L), any(Pageable.class));
+        verify(postRepository).findValidPostIdsAfter(eq(3L), any(Pageable.class));
+        verify(qdrantClient, times(2)).upsertAsync(eq(target), anyList());
+
+        // 先双写再切换别名，切换后结束双写并删除旧集合
+        InOrder inOrder = inOrder(qdrantService, qdrantClient);
+        inOrder.verify(qdrantService).setRebuildTarget(target);
+        inOrder.verify(qdrantClient).updateAliasesAsync(anyList());
+        inOrder.verify(qdrantService).setRebuildTarget(null);
+        inOrder.verify(qdrantClient).deleteCollectionAsync("post_vector_old");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void startReindex_shouldMovePhysicalCollectionBehindAliasBeforeRebuild() throws Exception {
+        when(postRepository.countByStateAndIsDeletedFalse(PostState.VALID)).thenReturn(3L);
+        AtomicReference<String> copy = new AtomicReference<>();
+        when(qdrantClient.listAliasesAsync()).thenAnswer(invocation -> Futures.immediateFuture(copy.get() == null
+            ? List.of()
+            : List.of(Collections.AliasDescription.newBuilder().setAliasName("post_vector").setCollectionName(copy.get()).build())));
+        when(qdrantClient.collectionExistsAsync("post_vector")).thenReturn(Futures.immediateFuture(true));
+        when(qdrantClient.getCollectionInfoAsync("post_vector")).thenReturn(Futures.immediateFuture(
+            Collections.CollectionInfo.newBuilder()
+                .setStatus(Collections.CollectionStatus.Green)
+                .setConfig(Collections.CollectionConfig.newBuilder()
+                    .setParams(Collections.CollectionParams.newBuilder()
+                        .setVectorsConfig(Collections.VectorsConfig.newBuilder().setParams(QdrantConfig.postVectorParams()))))
+                .build()));
+        when(qdrantClient.createCollectionAsync(any(Collections.CreateCollection.class))).thenReturn(Futures.immediateFuture(null));
+        when(qdrantClient.createCollectionAsync(anyString(), any(Collections.VectorParams.class)))
+            .thenReturn(Futures.immediateFuture(null));
+        when(qdrantClient.createAliasAsync(eq("post_vector"), anyString())).thenAnswer(invocation -> {
+            copy.set(invocation.getArgument(1));
+            return Futures.immediateFuture(null);
+        });
+        when(qdrantClient.updateAliasesAsync(anyList())).thenReturn(Futures.immediateFuture(null));
+        when(qdrantClient.deleteCollectionAsync(anyString())).thenReturn(Futures.immediateFuture(null));
+
+        String target = reindexService.startReindex(true).getTargetCollection();
+
+        // 开始重建前把实体集合复制一份并改为别名
+        ArgumentCaptor<Collections.CreateCollection> created = ArgumentCaptor.forClass(Collections.CreateCollection.class);
+        InOrder inOrder = inOrder(qdrantService, qdrantClient);
+        inOrder.verify(qdrantClient).createCollectionAsync(created.capture());
+        inOrder.verify(qdrantClient).deleteCollectionAsync("post_vector");
+        inOrder.verify(qdrantClient).createAliasAsync("post_vector", copy.get());
+        inOrder.verify(qdrantService).setRebuildTarget(target);
+        assertEquals(copy.get(), created.getValue().getCollectionName());
+        assertEquals("post_vector", created.getValue().getInitFromCollection());
+
+        // 切换只有一次原子的别名更新：删除指向副本的别名并指向新集合
+        ArgumentCaptor<List<Collections.AliasOperations>> operations = ArgumentCaptor.forClass(List.class);
+        inOrder.verify(qdrantClient).updateAliasesAsync(operations.capture());
+        assertTrue(operations.getValue().get(0).hasDeleteAlias());
+        assertEquals(target, operations.getValue().get(1).getCreateAlias().getCollectionName());
+        inOrder.verify(qdrantClient).deleteCollectionAsync(copy.get());
+        verify(qdrantClient, times(1)).createAliasAsync(anyString(), anyString());
+        assertEquals(VectorReindexJob.Status.COMPLETED, savedJob.get().getStatus());
+    }
+
+    @Test
+    void resumeReindex_shouldContinueFromCheckpoint() throws Exception {
+        VectorReindexJob job = new VectorReindexJob();
+        job.setId(1L);
+        job.setStatus(VectorReindexJob.Status.INTERRUPTED);
+        job.setBlueGreen(false);
+        job.setTargetCollection("post_vector");
+        job.setLastPostId(2L);
+        job.setIndexedCount(2L);
+        job.setTotalPosts(3L);
+        savedJob.set(job);
+
+        reindexService.resumeReindex(1L);
+
+        verify(postRepository, never()).findValidPostIdsAfter(eq(0L), any(Pageable.class));
+        verify(postRepository).findValidPostIdsAfter(eq(2L), any(Pageable.class));
+        verify(qdrantClient, times(1)).upsertAsync(eq("post_vector"), anyList());
+        verify(qdrantClient, never()).updateAliasesAsync(anyList());
+        assertEquals(VectorReindexJob.Status.COMPLETED, savedJob.get().getStatus());
+        assertEquals(3L, savedJob.get().getIndexedCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resumeReindex_shouldSkipPostDeletedWhileEmbedding() throws Exception {
+        resumeFromCheckpointZero();
+        // 帖子2在向量化期间被删除
+        deletedPosts.add(2L);
+
+        reindexService.resumeReindex(1L);
+
+        ArgumentCaptor<List<Points.PointStruct>> points = ArgumentCaptor.forClass(List.class);
+        verify(qdrantClient, times(2)).upsertAsync(eq("post_vector"), points.capture());
+        assertEquals(List.of(1L, 3L), points.getAllValues().stream()
+            .flatMap(List::stream).map(point -> point.getId().getNum()).toList());
+        verify(localVectorIndex, never()).upsert(argThat(post -> post.getId() == 2L), any());
+        verify(qdrantClient, never()).deleteAsync(anyString(), anyList());
+        assertEquals(2L, savedJob.get().getIndexedCount());
+    }
+
+    @Test
+    void resumeReindex_shouldRemovePostDeletedBeforeWriteConfirmed() throws Exception {
+        resumeFromCheckpointZero();
+        // 帖子2在写入前检查通过，但在写入确认前被删除，双写的删除先于本批写入到达
+        when(qdrantClient.upsertAsync(anyString(), anyList())).thenAnswer(invocation -> {
+            deletedPosts.add(2L);
+            return Futures.immediateFuture(null);
+        });
+        when(qdrantClient.deleteAsync(anyString(), anyList())).thenReturn(Futures.immediateFuture(null));
+
+        reindexService.resumeReindex(1L);
+
+        verify(qdrantClient).deleteAsync("post_vector", List.of(id(2L)));
+        verify(localVectorIndex).remove(2L);
+        assertEquals(2L, savedJob.get().getIndexedCount());
+        assertEquals(VectorReindexJob.Status.COMPLETED, savedJob.get().getStatus());
+    }
+
+    private void resumeFromCheckpointZero() {
+        VectorReindexJob job = new VectorReindexJob();
+        job.setId(1L);
+        job.setStatus(VectorReindexJob.Status.INTERRUPTED);
+        job.setBlueGreen(false);
+        job.setTargetCollection("post_vector");
+        job.setLastPostId(0L);
+        job.setIndexedCount(0L);
+        job.setTotalPosts(3L);
+        savedJob.set(job);
+    }
+
+    @Test
+    void migrateStorage_shouldApplyConfiguredQuantizationToAliasedCollection() throws Exception {
+        QdrantStorageProperties storage = new QdrantStorageProperties();
+        storage.setQuantization(QdrantStorageProperties.Quantization.SCALAR);
+        storage.setVectorsOnDisk(true);
+        ReflectionTestUtils.setField(reindexService, "storageProperties", storage);
+        when(qdrantClient.listAliasesAsync()).thenReturn(Futures.immediateFuture(List.of(
+            Collections.AliasDescription.newBuilder().setAliasName("post_vector").setCollectionName("post_vector_1").build())));
+        when(qdrantClient.updateCollectionAsync(any(Collections.UpdateCollection.class)))
+            .thenReturn(Futures.immediateFuture(null));
+        Collections.VectorParams migrated = QdrantConfig.postVectorParams(storage);
+        when(qdrantClient.getCollectionInfoAsync("post_vector_1")).thenReturn(Futures.immediateFuture(
+            Collections.CollectionInfo.newBuilder()
+                .setStatus(Collections.CollectionStatus.Yellow)
+                .setPointsCount(1000)
+                .setConfig(Collections.CollectionConfig.newBuilder()
+                    .setParams(Collections.CollectionParams.newBuilder()
+                        .setVectorsConfig(Collections.VectorsConfig.newBuilder().setParams(migrated))))
+                .build()));
+
+        VectorStorageResponse response = reindexService.migrateStorage();
+
+        ArgumentCaptor<Collections.UpdateCollection> update = ArgumentCaptor.forClass(Collections.UpdateCollection.class);
+        verify(qdrantClient).updateCollectionAsync(update.capture());
+        assertEquals("post_vector_1", update.getValue().getCollectionName());
+        Collections.VectorParamsDiff diff = update.getValue().getVectorsConfig().getParams();
+        assertTrue(diff.getOnDisk());
+        assertEquals(Collections.QuantizationType.Int8, diff.getQuantizationConfig().getScalar().getType());
+
+        assertEquals("post_vector_1", response.getCollection());
+        assertEquals("SCALAR(int8, quantile=0.99)", response.getQuantization());
+        assertTrue(response.getMatchesConfig());
+        // 原始向量放磁盘，内存中只有int8量化向量：每个向量768字节
+        assertEquals(1000L * 768, response.getEstimatedVectorRamBytes());
+    }
+
+    private void stubPosts(List<Long> firstBatch, List<Long> secondBatch) {
+        when(postRepository.findValidPostIdsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            List<Long> ids = new ArrayList<>();
+            for (Long id : firstBatch) {
+                if (id > afterId) {
+                    ids.add(id);
+                }
+            }
+            if (ids.isEmpty()) {
+                for (Long id : secondBatch) {
+                    if (id > afterId) {
+                        ids.add(id);
+                    }
+                }
+            }
+            return ids;
+        });
+        when(postRepository.findWithTagsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            List<Post> posts = new ArrayList<>();
+            for (Object id : (java.util.Collection<?>) invocation.getArgument(0)) {
+                Post post = new Post();
+                post.setId((Long) id);
+                post.setTitle("帖子" + id);
+                post.setContent("内容" + id);
+                post.setState(PostState.VALID);
+                post.setTags(new ArrayList<>());
+                User author = new User();
+                author.setId(10L);
+                post.setAuthor(author);
+                posts.add(post);
+            }
+            return posts;
+        });
+    }
+}
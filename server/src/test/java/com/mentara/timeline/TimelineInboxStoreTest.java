@@ -0,0 +1,95 @@
+package com.mentara.timeline;
+
+import com.mentara.config.TimelineProperties;
+import com.mentara.entity.Post;
+import com.mentara.entity.User;
+import com.mentara.repository.PostRepository;
+import com.mentara.repository.UserFollowRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TimelineInboxStoreTest {
+
+    private PostRepository postRepository;
+
+    private UserFollowRepository userFollowRepository;
+
+    private TimelineInboxStore store;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        userFollowRepository = mock(UserFollowRepository.class);
+        TimelineProperties properties = new TimelineProperties();
+        properties.setInboxCapacity(3);
+        properties.setPullFollowerThreshold(2);
+        store = new TimelineInboxStore(properties);
+        ReflectionTestUtils.setField(store, "postRepository", postRepository);
+        ReflectionTestUtils.setField(store, "userFollowRepository", userFollowRepository);
+        ReflectionTestUtils.setField(store, "meterRegistry", new SimpleMeterRegistry());
+        store.init();
+
+        // 重建：用户1发过帖子10，粉丝是用户100；用户2是读扩散作者
+        List<Object[]> posts = new ArrayList<>();
+        posts.add(new Object[]{10L, 1L});
+        when(userFollowRepository.findFollowingIdsWithFollowersAtLeast(2L)).thenReturn(List.of(2L));
+        when(postRepository.findValidPostAuthorPairsSince(any(), eq(0L), any(Pageable.class))).thenReturn(posts);
+        List<Object[]> followers = new ArrayList<>();
+        followers.add(new Object[]{1L, 100L});
+        when(userFollowRepository.findFollowPairsByFollowingIds(any())).thenReturn(followers);
+        store.rebuildOnStartup();
+    }
+
+    private static Post post(long id, long authorId) {
+        User author = new User();
+        author.setId(authorId);
+        Post post = new Post();
+        post.setId(id);
+        post.setAuthor(author);
+        return post;
+    }
+
+    @Test
+    void onPostPublished_shouldPushToFollowerInboxes_keepingNewest() {
+        when(userFollowRepository.countByFollowingId(1L)).thenReturn(1L);
+        when(userFollowRepository.findFollowerUserIdsByFollowingId(1L)).thenReturn(List.of(100L));
+
+        store.onPostPublished(post(11L, 1L));
+        store.onPostPublished(post(12L, 1L));
+        store.onPostPublished(post(13L, 1L));
+
+        assertEquals(List.of(13L, 12L, 11L), store.candidatePostIds(100L, List.of(1L), Long.MAX_VALUE, 10));
+        assertEquals(List.of(11L), store.candidatePostIds(100L, List.of(1L), 12L, 10));
+    }
+
+    @Test
+    void candidatePostIds_shouldMergePulledAuthors() {
+        when(postRepository.findValidPostIdsByAuthorsBeforeId(eq(List.of(2L)), eq(Long.MAX_VALUE), any(Pageable.class)))
+            .thenReturn(List.of(15L, 10L, 5L));
+
+        assertEquals(List.of(15L, 10L, 5L), store.candidatePostIds(100L, List.of(1L, 2L), Long.MAX_VALUE, 10));
+        assertEquals(List.of(15L, 10L), store.candidatePostIds(100L, List.of(1L, 2L), Long.MAX_VALUE, 2));
+    }
+
+    @Test
+    void onPostPublished_shouldNotFanOut_whenAuthorHasManyFollowers() {
+        when(userFollowRepository.countByFollowingId(3L)).thenReturn(5L);
+
+        store.onPostPublished(post(20L, 3L));
+
+        verify(userFollowRepository, never()).findFollowerUserIdsByFollowingId(3L);
+        when(postRepository.findValidPostIdsByAuthorsBeforeId(eq(List.of(3L)), anyLong(), any(Pageable.class)))
+            .thenReturn(List.of(20L));
+        assertEquals(List.of(20L, 10L), store.candidatePostIds(100L, List.of(1L, 3L), Long.MAX_VALUE, 10));
+    }
+}
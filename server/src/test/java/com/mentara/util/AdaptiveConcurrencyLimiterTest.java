@@ -0,0 +1,77 @@
+package com.mentara.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 4, 1, 8, 0.5,
+        Duration.ofSeconds(1), registry);
+
+    @Test
+    void tryAcquire_shouldRejectWhenLimitReached() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire(Duration.ZERO));
+        }
+
+        assertFalse(limiter.tryAcquire(Duration.ofMillis(20)));
+        assertEquals(1.0, registry.get("mentara.test.limiter.rejected").counter().count());
+        assertEquals(4.0, registry.get("mentara.test.limiter.in-flight").gauge().value());
+    }
+
+    @Test
+    void tryAcquire_shouldWaitForReleasedPermit() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire(Duration.ZERO));
+        }
+
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.tryAcquire(Duration.ofSeconds(5));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        limiter.onIgnored();
+
+        assertTrue(waiting.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void onDropped_shouldDecreaseLimitButNotBelowMinimum() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire(Duration.ZERO));
+            limiter.onDropped();
+        }
+
+        assertEquals(1, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void onSuccess_shouldGrowLimitUnderLoadAndShrinkOnSlowCalls() throws Exception {
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(limiter.tryAcquire(Duration.ZERO));
+            }
+            for (int i = 0; i < 4; i++) {
+                limiter.onSuccess(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        }
+        int grown = limiter.getLimit();
+        assertTrue(grown > 4, "上限: " + grown);
+
+        assertTrue(limiter.tryAcquire(Duration.ZERO));
+        limiter.onSuccess(TimeUnit.SECONDS.toNanos(2));
+
+        assertTrue(limiter.getLimit() < grown);
+    }
+}
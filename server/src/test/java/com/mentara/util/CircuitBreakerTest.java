@@ -0,0 +1,92 @@
+package com.mentara.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofSeconds(10),
+        Duration.ofSeconds(30), 0, registry, clock::get);
+
+    @Test
+    void onFailure_shouldOpenAfterConsecutiveFailures() {
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(1.0, registry.get("mentara.test.breaker.rejected").counter().count());
+    }
+
+    @Test
+    void tryAcquire_shouldAllowSingleProbeAfterOpenDuration() {
+        trip();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void onFailure_shouldDoubleOpenDurationUpToMaximum() {
+        trip();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        // 第二次断开20秒
+        clock.addAndGet(Duration.ofSeconds(19).toNanos());
+        assertFalse(breaker.tryAcquire());
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        // 第三次断开达到上限30秒
+        clock.addAndGet(Duration.ofSeconds(29).toNanos());
+        assertFalse(breaker.tryAcquire());
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void onIgnored_shouldReleaseProbeWithoutClosing() {
+        trip();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onIgnored();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    private void trip() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
@@ -0,0 +1,60 @@
+package com.mentara.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest {
+
+    @Test
+    void add_shouldIgnoreDuplicates_andTrackZero() {
+        LongHashSet set = new LongHashSet();
+
+        assertTrue(set.add(0L));
+        assertTrue(set.add(42L));
+        assertFalse(set.add(42L));
+        assertFalse(set.add(0L));
+
+        assertEquals(2, set.size());
+        assertTrue(set.contains(0L));
+        assertTrue(set.contains(42L));
+        assertFalse(set.contains(7L));
+    }
+
+    @Test
+    void remove_shouldKeepProbeChainsReachable() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(17);
+        for (int i = 0; i < 5000; i++) {
+            long value = random.nextInt(2000) - 1000;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long value = -1000; value < 1000; value++) {
+            assertEquals(expected.contains(value), set.contains(value), "value " + value);
+        }
+    }
+
+    @Test
+    void copy_shouldBeIndependent() {
+        LongHashSet set = new LongHashSet();
+        set.add(1L);
+        LongHashSet copy = set.copy();
+        copy.add(2L);
+        copy.remove(1L);
+
+        assertTrue(set.contains(1L));
+        assertFalse(set.contains(2L));
+        assertArrayEquals(new long[]{2L}, copy.toArray());
+    }
+}
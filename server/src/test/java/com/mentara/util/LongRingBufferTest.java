@@ -0,0 +1,34 @@
+package com.mentara.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongRingBufferTest {
+
+    @Test
+    void add_shouldGrowUntilCapacity_thenOverwriteOldest() {
+        LongRingBuffer buffer = new LongRingBuffer(20);
+        for (long i = 1; i <= 25; i++) {
+            buffer.add(i);
+        }
+
+        assertEquals(20, buffer.size());
+        long[] values = buffer.toArray();
+        assertEquals(6L, values[0]);
+        assertEquals(25L, values[19]);
+        assertFalse(buffer.contains(5L));
+        assertTrue(buffer.contains(6L));
+    }
+
+    @Test
+    void clear_shouldAllowRefill() {
+        LongRingBuffer buffer = new LongRingBuffer(3);
+        buffer.add(1L);
+        buffer.add(2L);
+        buffer.clear();
+        buffer.add(3L);
+
+        assertArrayEquals(new long[]{3L}, buffer.toArray());
+    }
+}
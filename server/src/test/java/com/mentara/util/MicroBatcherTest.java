@@ -0,0 +1,79 @@
+package com.mentara.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MicroBatcherTest {
+
+    @Test
+    void submit_shouldCoalesceConcurrentRequests() throws Exception {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>("test", 8, Duration.ofMillis(200), 100, 1,
+                inputs -> {
+                    batchSizes.add(inputs.size());
+                    return inputs.stream().map(input -> input * 2).toList();
+                }, registry)) {
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(batcher.submit(i));
+            }
+            for (int i = 0; i < 20; i++) {
+                assertEquals(i * 2, futures.get(i).get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(20, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.size() <= 4, "批次数: " + batchSizes);
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 8));
+        assertEquals(20.0, registry.get("mentara.test.requests").tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    void submit_shouldRetryIndividually_whenBatchFails() throws Exception {
+        try (MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>("test", 8, Duration.ofMillis(200), 100, 1,
+                inputs -> {
+                    if (inputs.contains(3)) {
+                        throw new IllegalStateException("bad input");
+                    }
+                    return inputs;
+                }, new SimpleMeterRegistry())) {
+            CompletableFuture<Integer> good = batcher.submit(1);
+            CompletableFuture<Integer> bad = batcher.submit(3);
+
+            assertEquals(1, good.get(5, TimeUnit.SECONDS));
+            ExecutionException error = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, error.getCause());
+        }
+    }
+
+    @Test
+    void submit_shouldFailWholeBatch_whenServiceTimesOut() throws Exception {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        try (MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>("test", 2, Duration.ofMillis(200), 100, 1,
+                inputs -> {
+                    batchSizes.add(inputs.size());
+                    throw new RuntimeException("调用超时", new TimeoutException());
+                }, new SimpleMeterRegistry())) {
+            CompletableFuture<Integer> first = batcher.submit(1);
+            CompletableFuture<Integer> second = batcher.submit(2);
+
+            assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+            assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        }
+
+        // 超时不逐条重发
+        assertEquals(List.of(2), batchSizes);
+    }
+}
@@ -0,0 +1,43 @@
+package com.mentara.util;
+
+import com.mentara.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void encode_shouldRoundTrip() {
+        PageCursor cursor = new PageCursor(true, LocalDateTime.of(2024, 5, 1, 8, 30, 15, 123456000), null, 42L);
+
+        PageCursor decoded = PageCursor.decode(cursor.encode(), PageCursor.firstByTimeDesc());
+
+        assertEquals(cursor.createdAt(), decoded.createdAt());
+        assertTrue(decoded.announcement());
+        assertEquals(42L, decoded.id());
+    }
+
+    @Test
+    void decode_shouldKeepScoreCursor() {
+        PageCursor cursor = new PageCursor(false, null, 41234.56789012345, 3L);
+
+        PageCursor decoded = PageCursor.decode(cursor.encode(), PageCursor.firstByScoreDesc());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void decode_shouldReturnFirst_whenBlank() {
+        assertEquals(PageCursor.firstByTimeAsc(), PageCursor.decode(null, PageCursor.firstByTimeAsc()));
+        assertEquals(PageCursor.firstByTimeDesc(), PageCursor.decode(" ", PageCursor.firstByTimeDesc()));
+    }
+
+    @Test
+    void decode_shouldRejectInvalidCursor() {
+        assertThrows(ValidationException.class, () -> PageCursor.decode("!!!", PageCursor.firstByTimeDesc()));
+        assertThrows(ValidationException.class, () -> PageCursor.decode("YWJj", PageCursor.firstByTimeDesc()));
+    }
+}
@@ -0,0 +1,65 @@
+package com.mentara.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorMathTest {
+
+    @Test
+    void dot_shouldMatchNaiveSumIncludingTail() {
+        Random random = new Random(1);
+        // 覆盖不足一组展开、整倍数和带尾部的长度
+        for (int length : new int[]{1, 3, 8, 17, 768, 771}) {
+            float[] a = random(random, length);
+            float[] b = random(random, length);
+            double expectedDot = 0;
+            for (int i = 0; i < length; i++) {
+                expectedDot += (double) a[i] * b[i];
+            }
+
+            assertEquals(expectedDot, VectorMath.dot(a, b), 1e-3);
+            float[] both = new float[length * 2];
+            System.arraycopy(a, 0, both, 0, length);
+            System.arraycopy(b, 0, both, length, length);
+            assertEquals(expectedDot, VectorMath.dot(FloatBuffer.wrap(both), 0, length, length), 1e-3);
+        }
+    }
+
+    @Test
+    void cosineAndNormalize_shouldHandleZeroVector() {
+        float[] zero = new float[4];
+        assertEquals(0f, VectorMath.cosine(zero, new float[]{1, 2, 3, 4}));
+        assertArrayEquals(new float[4], VectorMath.normalize(zero));
+
+        float[] vector = VectorMath.normalize(new float[]{3, 4});
+        assertArrayEquals(new float[]{0.6f, 0.8f}, vector, 1e-6f);
+        assertEquals(1f, VectorMath.norm(vector), 1e-6f);
+        assertEquals(1f, VectorMath.cosine(vector, new float[]{6, 8}), 1e-6f);
+    }
+
+    @Test
+    void dot_shouldRejectMismatchedLengths() {
+        assertThrows(IllegalArgumentException.class, () -> VectorMath.dot(new float[2], new float[3]));
+        assertThrows(IllegalArgumentException.class, () -> VectorMath.cosine(new float[2], new float[3]));
+    }
+
+    @Test
+    void dot_shouldReadVectorFromBufferOffset() {
+        FloatBuffer buffer = FloatBuffer.wrap(new float[]{9, 9, 1, 2, 3, 4, 5, 9});
+        float[] query = {1, 1, 1, 1, 1};
+
+        assertEquals(15f, VectorMath.dot(query, buffer, 2));
+    }
+
+    private static float[] random(Random random, int length) {
+        float[] vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}